@@ -2,6 +2,12 @@ package com.example.tradeup_app;
 
 import android.app.Application;
 import com.cloudinary.android.MediaManager;
+import com.example.tradeup_app.data.Repositories;
+import com.example.tradeup_app.data.firebase.FirebaseRepositories;
+import com.example.tradeup_app.firebase.FirebaseManager;
+import com.example.tradeup_app.firebase.WriteOutbox;
+import com.example.tradeup_app.services.BlocklistCache;
+import com.example.tradeup_app.services.CounterService;
 import com.example.tradeup_app.utils.NotificationManager;
 import java.util.HashMap;
 import java.util.Map;
@@ -12,6 +18,15 @@ public class TradeUpApplication extends Application {
     public void onCreate() {
         super.onCreate();
 
+        // Data access goes through the repositories, backed by Firebase in the app
+        Repositories.install(new FirebaseRepositories(FirebaseManager.getInstance()));
+
+        // Blocklist for local block checks when sending messages
+        BlocklistCache.init(this);
+
+        // Durable queue for writes made offline or on a weak connection
+        WriteOutbox.init(this);
+
         // Initialize Cloudinary
         initCloudinary();
         
@@ -43,6 +58,15 @@ public class TradeUpApplication extends Application {
         }
     }
     
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        // App moved to the background: write batched view counts before the process may be killed
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            CounterService.getInstance().flush();
+        }
+    }
+
     private void initNotificationSystem() {
         try {
             NotificationManager.getInstance(this).initialize();
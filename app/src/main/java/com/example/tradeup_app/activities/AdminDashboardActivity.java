@@ -6,6 +6,7 @@ import android.widget.Toast;
 import android.widget.TextView;
 import android.widget.ImageView;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.app.AlertDialog;
 import androidx.recyclerview.widget.LinearLayoutManager;
@@ -19,14 +20,18 @@ import com.example.tradeup_app.firebase.FirebaseManager;
 import com.example.tradeup_app.models.Report;
 import com.google.android.material.progressindicator.CircularProgressIndicator;
 import com.google.android.material.tabs.TabLayout;
+import com.google.firebase.database.ChildEventListener;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.Query;
 import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class AdminDashboardActivity extends AppCompatActivity implements ReportAdapter.OnReportActionListener, FlaggedUserAdapter.OnFlaggedUserActionListener {
 
@@ -47,8 +52,21 @@ public class AdminDashboardActivity extends AppCompatActivity implements ReportA
     private ImageView emptyImageView;
     private boolean isShowingReports = true; // Track current tab
 
+    // Moderation queue paging: pending reports, newest first
+    private static final int REPORTS_PAGE_SIZE = 20;
+    private static final String STATUS_PENDING = "PENDING";
+    private String reportsCursor;
+    private boolean hasMoreReports = true;
+    private boolean loadingReports = false;
+    private int reportsGeneration = 0;
+    private final Set<String> loadedReportIds = new HashSet<>();
+    private long newestReportCreatedAt = 0;
+
     // Real-time listeners
-    private ValueEventListener reportsListener;
+    private Query reportQueueQuery;
+    private ChildEventListener reportQueueListener;
+    private ValueEventListener reportStatsListener;
+    private Query flaggedUsersQuery;
     private ValueEventListener flaggedUsersListener;
 
     @Override
@@ -93,129 +111,204 @@ public class AdminDashboardActivity extends AppCompatActivity implements ReportA
         // Force remove any existing listeners first
         removeRealtimeListeners();
 
-        // Add a small delay to ensure proper cleanup
-        new android.os.Handler(android.os.Looper.getMainLooper()).postDelayed(() -> {
-            setupReportsListener();
-            setupFlaggedUsersListener();
-        }, 100);
+        reloadReports();
+        setupReportStatsListener();
+        setupFlaggedUsersListener();
     }
 
-    private void setupReportsListener() {
-        android.util.Log.d("AdminDashboard", "🔧 Setting up reports listener - removing any existing listener first");
+    /**
+     * Start the pending queue again from its newest page
+     */
+    private void reloadReports() {
+        reportsGeneration++;
+        reportsCursor = null;
+        hasMoreReports = true;
+        loadingReports = false;
+        detachReportQueueListener();
+        reports.clear();
+        loadedReportIds.clear();
+        newestReportCreatedAt = 0;
 
-        if (reportsListener != null) {
-            // Remove existing listener first
-            firebaseManager.getDatabase().getReference(FirebaseManager.REPORTS_NODE)
-                .removeEventListener(reportsListener);
-            android.util.Log.d("AdminDashboard", "🗑️ Removed existing reports listener");
+        if (isShowingReports) {
+            showLoading(true);
         }
+        loadNextReportsPage();
+    }
+
+    private void loadNextReportsPage() {
+        if (loadingReports || !hasMoreReports) return;
+        loadingReports = true;
+        int generation = reportsGeneration;
+
+        firebaseManager.getReportQueuePage(STATUS_PENDING, reportsCursor, REPORTS_PAGE_SIZE,
+            new FirebaseManager.ReportPageCallback() {
+                @Override
+                public void onPageLoaded(List<Report> page, String nextCursor) {
+                    if (generation != reportsGeneration || isFinishing()) return;
+                    loadingReports = false;
+                    reportsCursor = nextCursor;
+                    hasMoreReports = nextCursor != null;
+
+                    for (Report report : page) {
+                        if (loadedReportIds.add(report.getId())) {
+                            reports.add(report);
+                            newestReportCreatedAt = Math.max(newestReportCreatedAt, report.getCreatedAt());
+                        }
+                    }
+                    sortReports();
+                    android.util.Log.d("AdminDashboard", "📄 Loaded " + page.size() + " pending reports, more: " + hasMoreReports);
 
-        android.util.Log.d("AdminDashboard", "📡 Creating new ValueEventListener for reports");
+                    // The loaded range grew: move the live listener down to its oldest report
+                    attachReportQueueListener();
+                    if (isShowingReports) {
+                        updateReportsUI();
+                    }
+                }
 
-        reportsListener = new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot dataSnapshot) {
-                android.util.Log.d("AdminDashboard", "🔔 Reports data changed! Total snapshots: " + dataSnapshot.getChildrenCount());
+                @Override
+                public void onError(String error) {
+                    if (generation != reportsGeneration || isFinishing()) return;
+                    loadingReports = false;
+                    android.util.Log.e("AdminDashboard", "❌ Failed to load reports: " + error);
+                    showLoading(false);
+                    Toast.makeText(AdminDashboardActivity.this, "Error loading reports: " + error, Toast.LENGTH_SHORT).show();
+                }
+            });
+    }
 
-                List<Report> loadedReports = new ArrayList<>();
-                int pendingCount = 0;
-                int totalCount = 0;
+    /**
+     * Listen to the pending partition from the oldest loaded report upwards, so only the loaded
+     * page(s) and newer arrivals produce events
+     */
+    private void attachReportQueueListener() {
+        detachReportQueueListener();
+        int generation = reportsGeneration;
+
+        Query query = firebaseManager.getDatabase()
+            .getReference(FirebaseManager.REPORT_QUEUE_NODE)
+            .child(STATUS_PENDING)
+            .orderByValue();
+        if (hasMoreReports && !reports.isEmpty()) {
+            query = query.startAt(reports.get(reports.size() - 1).getCreatedAt());
+        }
 
-                for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                    totalCount++;
-                    Report report = snapshot.getValue(Report.class);
-                    if (report != null) {
-                        report.setId(snapshot.getKey());
-                        android.util.Log.d("AdminDashboard", "📄 Report " + totalCount + ": ID=" + report.getId() +
-                            ", Status=" + report.getStatus() +
-                            ", CreatedAt=" + report.getCreatedAt() +
-                            ", Reason=" + report.getReason());
-
-                        // Only show pending reports to admin
-                        if ("PENDING".equals(report.getStatus())) {
-                            loadedReports.add(report);
-                            pendingCount++;
+        reportQueueListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(DataSnapshot snapshot, String previousChildName) {
+                String reportId = snapshot.getKey();
+                if (reportId == null || loadedReportIds.contains(reportId)) return;
+                Long createdAt = snapshot.getValue(Long.class);
+                boolean isNewReport = createdAt != null && createdAt > newestReportCreatedAt;
+
+                firebaseManager.getDatabase().getReference(FirebaseManager.REPORTS_NODE)
+                    .child(reportId)
+                    .get()
+                    .addOnSuccessListener(reportSnapshot -> {
+                        if (generation != reportsGeneration || isFinishing()) return;
+                        Report report = reportSnapshot.getValue(Report.class);
+                        // Resolved while it was being read
+                        if (report == null || !STATUS_PENDING.equals(report.getStatus())) return;
+                        report.setId(reportId);
+                        if (!loadedReportIds.add(reportId)) return;
+
+                        reports.add(report);
+                        sortReports();
+                        newestReportCreatedAt = Math.max(newestReportCreatedAt, report.getCreatedAt());
+                        if (isShowingReports) {
+                            updateReportsUI();
                         }
-                    }
-                }
+                        if (isNewReport) {
+                            notifyNewReport(report);
+                        }
+                    });
+            }
 
-                android.util.Log.d("AdminDashboard", "📊 Summary: Total reports=" + totalCount + ", Pending reports=" + pendingCount);
+            @Override
+            public void onChildRemoved(DataSnapshot snapshot) {
+                // Resolved or dismissed, here or by another admin
+                removeReport(snapshot.getKey());
+            }
 
-                // Sort reports by creation time (newest first) - CRITICAL FIX
-                loadedReports.sort((r1, r2) -> {
-                    // Handle potential null/zero timestamps
-                    long time1 = r1.getCreatedAt() > 0 ? r1.getCreatedAt() : System.currentTimeMillis();
-                    long time2 = r2.getCreatedAt() > 0 ? r2.getCreatedAt() : System.currentTimeMillis();
-                    return Long.compare(time2, time1); // Descending order (newest first)
-                });
+            @Override
+            public void onChildChanged(DataSnapshot snapshot, String previousChildName) {
+            }
 
-                android.util.Log.d("AdminDashboard", "🔄 Sorted " + loadedReports.size() + " pending reports by creation time");
+            @Override
+            public void onChildMoved(DataSnapshot snapshot, String previousChildName) {
+            }
 
-                // Update reports on UI thread
-                runOnUiThread(() -> {
-                    int previousSize = reports.size();
-                    android.util.Log.d("AdminDashboard", "📱 Updating UI - Previous size: " + previousSize + ", New size: " + loadedReports.size());
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                android.util.Log.e("AdminDashboard", "❌ Report queue listener cancelled: " + databaseError.getMessage());
+                Toast.makeText(AdminDashboardActivity.this,
+                    "⚠️ Real-time updates failed: " + databaseError.getMessage(),
+                    Toast.LENGTH_LONG).show();
+            }
+        };
 
-                    reports.clear();
-                    reports.addAll(loadedReports);
+        reportQueueQuery = query;
+        reportQueueQuery.addChildEventListener(reportQueueListener);
+    }
 
-                    if (isShowingReports) {
-                        updateReportsUI();
-                        android.util.Log.d("AdminDashboard", "✅ UI updated with reports");
-
-                        // Show notification if new reports arrived
-                        if (loadedReports.size() > previousSize) {
-                            int newReports = loadedReports.size() - previousSize;
-                            android.util.Log.d("AdminDashboard", "🚨 NEW REPORTS DETECTED: " + newReports + " new report(s)!");
-
-                            // Show toast notification
-                            Toast.makeText(AdminDashboardActivity.this,
-                                "📩 " + newReports + " new report(s) received!",
-                                Toast.LENGTH_LONG).show();
-
-                            // Also show system notification if app is in background
-                            if (loadedReports.size() > 0) {
-                                Report latestReport = loadedReports.get(0);
-                                com.example.tradeup_app.utils.AdminNotificationHelper.showNewReportNotification(
-                                    AdminDashboardActivity.this,
-                                    latestReport.getReportedItemTitle() != null ? latestReport.getReportedItemTitle() : "Unknown Product",
-                                    latestReport.getReason()
-                                );
-                            }
-                        }
-                    } else {
-                        android.util.Log.d("AdminDashboard", "ℹ️ Not showing reports tab, skipping UI update");
-                    }
+    private void detachReportQueueListener() {
+        if (reportQueueQuery != null && reportQueueListener != null) {
+            reportQueueQuery.removeEventListener(reportQueueListener);
+        }
+        reportQueueQuery = null;
+        reportQueueListener = null;
+    }
 
-                    // Log final state
-                    android.util.Log.d("AdminDashboard", "🏁 Final state: " + reports.size() + " reports in UI");
-                });
+    private void removeReport(String reportId) {
+        if (reportId == null || !loadedReportIds.remove(reportId)) return;
+        reports.removeIf(report -> reportId.equals(report.getId()));
+        if (isShowingReports) {
+            updateReportsUI();
+        }
+    }
+
+    private void sortReports() {
+        reports.sort((r1, r2) -> Long.compare(r2.getCreatedAt(), r1.getCreatedAt())); // Newest first
+    }
+
+    private void notifyNewReport(Report report) {
+        android.util.Log.d("AdminDashboard", "🚨 New report: " + report.getId());
+        Toast.makeText(this, "📩 New report received!", Toast.LENGTH_LONG).show();
+        com.example.tradeup_app.utils.AdminNotificationHelper.showNewReportNotification(
+            this,
+            report.getReportedItemTitle() != null ? report.getReportedItemTitle() : "Unknown Product",
+            report.getReason()
+        );
+    }
+
+    /**
+     * Pending and total counts come from the maintained counters, not from reading the reports
+     */
+    private void setupReportStatsListener() {
+        reportStatsListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot dataSnapshot) {
+                Long pending = dataSnapshot.child(STATUS_PENDING).getValue(Long.class);
+                Long total = dataSnapshot.child("total").getValue(Long.class);
+                long pendingCount = pending != null ? Math.max(0, pending) : 0;
+                long totalCount = total != null ? total : 0;
+
+                TabLayout.Tab reportsTab = adminTabLayout.getTabAt(0);
+                if (reportsTab != null) {
+                    reportsTab.setText(pendingCount > 0 ? "Reports (" + pendingCount + ")" : "Reports");
+                }
+                if (getSupportActionBar() != null) {
+                    getSupportActionBar().setSubtitle(pendingCount + " pending / " + totalCount + " total reports");
+                }
             }
 
             @Override
             public void onCancelled(DatabaseError databaseError) {
-                android.util.Log.e("AdminDashboard", "❌ Reports listener cancelled: " + databaseError.getMessage());
-                android.util.Log.e("AdminDashboard", "❌ Error code: " + databaseError.getCode());
-                android.util.Log.e("AdminDashboard", "❌ Error details: " + databaseError.getDetails());
-
-                runOnUiThread(() -> {
-                    Toast.makeText(AdminDashboardActivity.this,
-                        "⚠️ Real-time updates failed: " + databaseError.getMessage(),
-                        Toast.LENGTH_LONG).show();
-
-                    // Fallback to manual loading if listener fails
-                    android.util.Log.d("AdminDashboard", "🔄 Falling back to manual loading");
-                    loadReportsManually();
-                });
+                android.util.Log.e("AdminDashboard", "❌ Report stats listener cancelled: " + databaseError.getMessage());
             }
         };
 
-        // Listen to all reports - NO server-side filtering for better real-time performance
-        android.util.Log.d("AdminDashboard", "🚀 Attaching listener to Firebase path: " + FirebaseManager.REPORTS_NODE);
-        firebaseManager.getDatabase().getReference(FirebaseManager.REPORTS_NODE)
-            .addValueEventListener(reportsListener);
-
-        android.util.Log.d("AdminDashboard", "✅ Reports listener setup complete - listening for real-time changes");
+        firebaseManager.getDatabase().getReference(FirebaseManager.REPORT_STATS_NODE)
+            .addValueEventListener(reportStatsListener);
     }
 
     private void setupFlaggedUsersListener() {
@@ -257,23 +350,27 @@ public class AdminDashboardActivity extends AppCompatActivity implements ReportA
             }
         };
 
-        firebaseManager.getDatabase().getReference("Users")
-            .orderByChild("isFlagged").equalTo(true)
-            .addValueEventListener(flaggedUsersListener);
+        // Served by the isFlagged index, so only flagged users are sent
+        flaggedUsersQuery = firebaseManager.getDatabase().getReference(FirebaseManager.USERS_NODE)
+            .orderByChild("isFlagged").equalTo(true);
+        flaggedUsersQuery.addValueEventListener(flaggedUsersListener);
     }
 
     private void removeRealtimeListeners() {
-        if (reportsListener != null) {
-            firebaseManager.getDatabase().getReference(FirebaseManager.REPORTS_NODE)
-                .removeEventListener(reportsListener);
-            reportsListener = null;
+        detachReportQueueListener();
+
+        if (reportStatsListener != null) {
+            firebaseManager.getDatabase().getReference(FirebaseManager.REPORT_STATS_NODE)
+                .removeEventListener(reportStatsListener);
+            reportStatsListener = null;
         }
 
-        if (flaggedUsersListener != null) {
-            firebaseManager.getDatabase().getReference("Users")
-                .removeEventListener(flaggedUsersListener);
-            flaggedUsersListener = null;
+        // Remove from the same query the listener was added to
+        if (flaggedUsersQuery != null && flaggedUsersListener != null) {
+            flaggedUsersQuery.removeEventListener(flaggedUsersListener);
         }
+        flaggedUsersQuery = null;
+        flaggedUsersListener = null;
     }
 
     private void initViews() {
@@ -310,6 +407,15 @@ public class AdminDashboardActivity extends AppCompatActivity implements ReportA
         reportAdapter.setOnReportActionListener(this);
         reportsRecyclerView.setLayoutManager(new LinearLayoutManager(this));
         reportsRecyclerView.setAdapter(reportAdapter);
+        reportsRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                // Near the end of the list: fetch the next, older page of the queue
+                if (dy > 0 && !recyclerView.canScrollVertically(1)) {
+                    loadNextReportsPage();
+                }
+            }
+        });
 
         flaggedUserAdapter = new FlaggedUserAdapter(this, flaggedUsers);
         flaggedUserAdapter.setOnFlaggedUserActionListener(this);
@@ -338,45 +444,8 @@ public class AdminDashboardActivity extends AppCompatActivity implements ReportA
         flaggedUsersRecyclerView.setVisibility(View.GONE);
         emptyView.setVisibility(View.GONE);
 
-        // Show loading state while setting up listeners
+        // Show loading state until the first page arrives (listeners are set up in onResume)
         showLoading(true);
-
-        // Add a small delay to ensure Firebase is ready
-        new android.os.Handler(android.os.Looper.getMainLooper()).postDelayed(() -> {
-            if (!isFinishing() && !isDestroyed()) {
-                setupRealtimeListeners();
-
-                // Fallback: Load data manually after 3 seconds if listener hasn't triggered
-                new android.os.Handler(android.os.Looper.getMainLooper()).postDelayed(() -> {
-                    if (reports.isEmpty() && isShowingReports) {
-                        android.util.Log.w("AdminDashboard", "Fallback: Loading reports manually");
-                        loadReportsManually();
-                    }
-                }, 3000);
-            }
-        }, 500);
-    }
-
-    private void loadReportsManually() {
-        android.util.Log.d("AdminDashboard", "Loading reports manually as fallback");
-        firebaseManager.getReportsForAdmin(new FirebaseManager.ReportCallback() {
-            @Override
-            public void onReportsLoaded(List<Report> loadedReports) {
-                android.util.Log.d("AdminDashboard", "Manual load successful: " + loadedReports.size() + " reports");
-                reports.clear();
-                reports.addAll(loadedReports);
-                if (isShowingReports) {
-                    updateReportsUI();
-                }
-            }
-
-            @Override
-            public void onError(String error) {
-                android.util.Log.e("AdminDashboard", "Manual load failed: " + error);
-                showLoading(false);
-                Toast.makeText(AdminDashboardActivity.this, "Error loading reports: " + error, Toast.LENGTH_SHORT).show();
-            }
-        });
     }
 
     private void switchToTab(int position) {
@@ -407,27 +476,6 @@ public class AdminDashboardActivity extends AppCompatActivity implements ReportA
         updateEmptyStateForFlaggedUsers();
     }
 
-    private void loadReports() {
-        // ✅ DEPRECATED: Replace with real-time listener
-        // This method is now only used as fallback if real-time listener fails
-        showLoading(true);
-
-        firebaseManager.getReportsForAdmin(new FirebaseManager.ReportCallback() {
-            @Override
-            public void onReportsLoaded(List<Report> loadedReports) {
-                reports.clear();
-                reports.addAll(loadedReports);
-                updateReportsUI();
-            }
-
-            @Override
-            public void onError(String error) {
-                showLoading(false);
-                Toast.makeText(AdminDashboardActivity.this, "Error loading reports: " + error, Toast.LENGTH_SHORT).show();
-            }
-        });
-    }
-
     private void updateEmptyStateForReports() {
         emptyTitleText.setText("No pending reports");
         emptyDescriptionText.setText("All reports have been reviewed");
@@ -550,7 +598,7 @@ public class AdminDashboardActivity extends AppCompatActivity implements ReportA
                                 flagUserFromReport(report, actionTaken);
                             }
                             Toast.makeText(this, "Report resolved with action: " + actionTaken, Toast.LENGTH_SHORT).show();
-                            loadReports(); // Refresh the list
+                            removeReport(report.getId());
                         } else {
                             Toast.makeText(this, "Failed to resolve report", Toast.LENGTH_SHORT).show();
                         }
@@ -585,7 +633,7 @@ public class AdminDashboardActivity extends AppCompatActivity implements ReportA
             task -> {
                 if (task.isSuccessful()) {
                     Toast.makeText(this, "Report dismissed", Toast.LENGTH_SHORT).show();
-                    loadReports(); // Refresh the list
+                    removeReport(report.getId());
                 } else {
                     Toast.makeText(this, "Failed to dismiss report", Toast.LENGTH_SHORT).show();
                 }
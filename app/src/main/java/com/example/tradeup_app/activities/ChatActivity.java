@@ -30,6 +30,7 @@ import com.example.tradeup_app.R;
 import com.example.tradeup_app.adapters.MessageAdapter;
 import com.example.tradeup_app.firebase.FirebaseManager;
 import com.example.tradeup_app.models.Message;
+import com.example.tradeup_app.services.MessageStream;
 import com.example.tradeup_app.services.MessagingService;
 import com.example.tradeup_app.utils.ImageUploadManager;
 import com.google.android.material.bottomsheet.BottomSheetDialog;
@@ -56,6 +57,7 @@ public class ChatActivity extends AppCompatActivity {
     private MessageAdapter messageAdapter;
     private List<Message> messageList;
     private MessagingService messagingService;
+    private MessageStream messageStream;
 
     // Intent extras
     private String conversationId;
@@ -284,6 +286,17 @@ public class ChatActivity extends AppCompatActivity {
 
         recyclerViewMessages.setLayoutManager(layoutManager);
         recyclerViewMessages.setAdapter(messageAdapter);
+
+        // Fetch older history when the user scrolls near the top
+        recyclerViewMessages.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy < 0 && messageStream != null && messageStream.hasMore()
+                        && layoutManager.findFirstVisibleItemPosition() <= 3) {
+                    messageStream.loadOlder();
+                }
+            }
+        });
     }
 
     private void setupListeners() {
@@ -441,47 +454,54 @@ public class ChatActivity extends AppCompatActivity {
 
         Log.d(TAG, "📡 Setting up message listener for conversation: " + conversationId);
 
-        messagingService.listenForMessages(conversationId, new MessagingService.MessageCallback() {
+        if (messageStream != null) {
+            messageStream.close();
+        }
+
+        messageStream = messagingService.openMessageStream(conversationId, MessagingService.MESSAGE_PAGE_SIZE,
+                new MessageStream.Listener() {
             @Override
-            public void onMessagesLoaded(List<Message> messages) {
+            public void onInitialMessages(List<Message> messages, boolean hasMore) {
                 Log.d(TAG, "📨 Messages loaded: " + messages.size() + " messages");
+                messageAdapter.updateMessages(messages);
 
-                // Log each message for debugging
-                for (int i = 0; i < messages.size(); i++) {
-                    Message msg = messages.get(i);
-                    Log.d(TAG, "Message " + i + ": Type=" + msg.getMessageType() +
-                         ", Content=" + (msg.getContent() != null ? msg.getContent().substring(0, Math.min(50, msg.getContent().length())) : "null") +
-                         ", OfferId=" + msg.getOfferId() +
-                         ", OfferStatus=" + msg.getOfferStatus());
+                // Scroll to bottom
+                if (!messageList.isEmpty()) {
+                    recyclerViewMessages.scrollToPosition(messageList.size() - 1);
+                } else {
+                    Log.d(TAG, "📭 No messages to display");
                 }
+            }
 
-                runOnUiThread(() -> {
-                    Log.d(TAG, "🔄 Updating UI with " + messages.size() + " messages");
-                    messageList.clear();
-                    messageList.addAll(messages);
-                    messageAdapter.notifyDataSetChanged();
-
-                    // Scroll to bottom
-                    if (!messageList.isEmpty()) {
-                        Log.d(TAG, "📜 Scrolling to bottom, total messages: " + messageList.size());
-                        recyclerViewMessages.scrollToPosition(messageList.size() - 1);
-                    } else {
-                        Log.d(TAG, "📭 No messages to display");
-                    }
-                });
+            @Override
+            public void onOlderMessages(List<Message> messages, boolean hasMore) {
+                Log.d(TAG, "📜 Loaded " + messages.size() + " older messages");
+                messageAdapter.prependMessages(messages);
             }
 
             @Override
-            public void onMessageSent(String messageId) {
-                Log.d(TAG, "✅ Message sent with ID: " + messageId);
+            public void onMessageAdded(Message message) {
+                int position = messageAdapter.upsertMessage(message);
+                // Follow the conversation when the new message lands at the bottom
+                if (position == messageList.size() - 1) {
+                    recyclerViewMessages.scrollToPosition(position);
+                }
+            }
+
+            @Override
+            public void onMessageChanged(Message message) {
+                messageAdapter.upsertMessage(message);
+            }
+
+            @Override
+            public void onMessageRemoved(String messageId) {
+                messageAdapter.removeMessage(messageId);
             }
 
             @Override
             public void onError(String error) {
                 Log.e(TAG, "❌ Error loading messages: " + error);
-                runOnUiThread(() -> {
-                    Toast.makeText(ChatActivity.this, "Error loading messages: " + error, Toast.LENGTH_LONG).show();
-                });
+                Toast.makeText(ChatActivity.this, "Error loading messages: " + error, Toast.LENGTH_LONG).show();
             }
         });
 
@@ -749,6 +769,10 @@ public class ChatActivity extends AppCompatActivity {
     protected void onDestroy() {
         super.onDestroy();
         // Clean up listeners if needed
+        if (messageStream != null) {
+            messageStream.close();
+            messageStream = null;
+        }
         if (messagingService != null) {
             messagingService.cleanup();
         }
@@ -809,29 +833,27 @@ public class ChatActivity extends AppCompatActivity {
         Toast.makeText(this, "Đang tải thông tin sản phẩm...", Toast.LENGTH_SHORT).show();
 
         // Load product details using existing method
-        FirebaseManager.getInstance().getDatabase()
-            .getReference("products")
-            .child(productId)
-            .get()
-            .addOnSuccessListener(dataSnapshot -> {
-                Log.d(TAG, "Product data received from Firebase");
-                com.example.tradeup_app.models.Product product =
-                    dataSnapshot.getValue(com.example.tradeup_app.models.Product.class);
-                if (product != null) {
-                    product.setId(dataSnapshot.getKey());
-                    Log.d(TAG, "Product loaded successfully: " + product.getTitle());
-                    runOnUiThread(() -> showChatOfferDialog(product));
-                } else {
-                    Log.e(TAG, "Product data is null");
+        FirebaseManager.getInstance().getProductCached(productId,
+            new com.example.tradeup_app.utils.EntityCache.LoadCallback<com.example.tradeup_app.models.Product>() {
+                @Override
+                public void onLoaded(com.example.tradeup_app.models.Product product) {
+                    if (product != null) {
+                        Log.d(TAG, "Product loaded successfully: " + product.getTitle());
+                        runOnUiThread(() -> showChatOfferDialog(product));
+                    } else {
+                        Log.e(TAG, "Product data is null");
+                        runOnUiThread(() ->
+                            Toast.makeText(ChatActivity.this, "Không tìm thấy sản phẩm", Toast.LENGTH_SHORT).show());
+                    }
+                }
+
+                @Override
+                public void onError(String error) {
+                    Log.e(TAG, "Failed to load product data: " + error);
                     runOnUiThread(() ->
-                        Toast.makeText(ChatActivity.this, "Không tìm thấy sản phẩm", Toast.LENGTH_SHORT).show());
+                        Toast.makeText(ChatActivity.this, "Lỗi khi tải sản phẩm: " + error,
+                                     Toast.LENGTH_SHORT).show());
                 }
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Failed to load product data", e);
-                runOnUiThread(() ->
-                    Toast.makeText(ChatActivity.this, "Lỗi khi tải sản phẩm: " + e.getMessage(),
-                                 Toast.LENGTH_SHORT).show());
             });
     }
 
@@ -983,7 +1005,7 @@ public class ChatActivity extends AppCompatActivity {
 
                                 // Update the message status locally for immediate feedback
                                 offerMessage.setOfferStatus("ACCEPTED");
-                                messageAdapter.notifyDataSetChanged();
+                                messageAdapter.refreshOfferStatus(offerMessage);
                             });
                         }
 
@@ -1033,7 +1055,7 @@ public class ChatActivity extends AppCompatActivity {
 
                                 // Update the message status locally for immediate feedback
                                 offerMessage.setOfferStatus("DECLINED");
-                                messageAdapter.notifyDataSetChanged();
+                                messageAdapter.refreshOfferStatus(offerMessage);
                             });
                         }
 
@@ -1101,7 +1123,7 @@ public class ChatActivity extends AppCompatActivity {
 
                                     // Update the message status locally for immediate feedback
                                     offerMessage.setOfferStatus("COUNTERED");
-                                    messageAdapter.notifyDataSetChanged();
+                                    messageAdapter.refreshOfferStatus(offerMessage);
                                 });
                             }
 
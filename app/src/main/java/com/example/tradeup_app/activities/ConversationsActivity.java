@@ -9,7 +9,6 @@ import android.view.View;
 import android.widget.TextView;
 import android.widget.Toast;
 
-import androidx.annotation.NonNull;
 import androidx.appcompat.app.ActionBar;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
@@ -37,6 +36,7 @@ public class ConversationsActivity extends AppCompatActivity {
     private List<Conversation> conversationList;
     private FirebaseManager firebaseManager;
     private boolean isLoading = false;
+    private FirebaseManager.Subscription conversationsSubscription;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -126,11 +126,7 @@ public class ConversationsActivity extends AppCompatActivity {
             public void onConversationReported(Conversation conversation) {
                 // Show confirmation and optionally refresh
                 Toast.makeText(ConversationsActivity.this, "Conversation reported successfully", Toast.LENGTH_SHORT).show();
-                // Notify specific item changed instead of entire dataset
-                int position = conversationList.indexOf(conversation);
-                if (position != -1) {
-                    conversationAdapter.notifyItemChanged(position);
-                }
+                // The adapter already rebound the row with its reported state
             }
         });
 
@@ -157,28 +153,21 @@ public class ConversationsActivity extends AppCompatActivity {
         isLoading = true;
         Log.d(TAG, "Loading conversations...");
 
-        // Load conversations from Firebase
-        firebaseManager.getDatabase()
-                .getReference(FirebaseManager.CONVERSATIONS_NODE)
-                .addValueEventListener(new com.google.firebase.database.ValueEventListener() {
+        // Replace the previous subscription instead of stacking listeners on every resume
+        if (conversationsSubscription != null) {
+            conversationsSubscription.cancel();
+        }
+
+        // Only this user's conversations, via the user_conversations index
+        conversationsSubscription = firebaseManager.listenForUserConversations(currentUserId,
+                new FirebaseManager.ConversationCallback() {
                     @Override
-                    public void onDataChange(@NonNull com.google.firebase.database.DataSnapshot dataSnapshot) {
+                    public void onConversationsLoaded(List<Conversation> loaded) {
                         List<Conversation> conversations = new ArrayList<>();
-
-                        for (com.google.firebase.database.DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                            Conversation conversation = snapshot.getValue(Conversation.class);
-                            if (conversation != null) {
-                                conversation.setId(snapshot.getKey());
-
-                                // Only include conversations where current user is a participant
-                                if (conversation.getBuyerId().equals(currentUserId) ||
-                                    conversation.getSellerId().equals(currentUserId)) {
-
-                                    // Check if user is not blocked
-                                    if (!conversation.isUserBlocked(currentUserId)) {
-                                        conversations.add(conversation);
-                                    }
-                                }
+                        for (Conversation conversation : loaded) {
+                            // Check if user is not blocked
+                            if (!conversation.isUserBlocked(currentUserId)) {
+                                conversations.add(conversation);
                             }
                         }
 
@@ -191,11 +180,11 @@ public class ConversationsActivity extends AppCompatActivity {
                     }
 
                     @Override
-                    public void onCancelled(@NonNull com.google.firebase.database.DatabaseError databaseError) {
-                        Log.e(TAG, "Error loading conversations", databaseError.toException());
+                    public void onError(String error) {
+                        Log.e(TAG, "Error loading conversations: " + error);
                         runOnUiThread(() -> {
                             Toast.makeText(ConversationsActivity.this,
-                                "Error loading conversations: " + databaseError.getMessage(),
+                                "Error loading conversations: " + error,
                                 Toast.LENGTH_LONG).show();
                             isLoading = false;
                         });
@@ -205,19 +194,11 @@ public class ConversationsActivity extends AppCompatActivity {
 
     private void updateConversationsList(List<Conversation> conversations) {
         runOnUiThread(() -> {
-            // Calculate differences for better performance
-            int oldSize = conversationList.size();
             conversationList.clear();
             conversationList.addAll(conversations);
 
-            // Use more specific notifications
-            if (oldSize == 0 && !conversations.isEmpty()) {
-                conversationAdapter.notifyItemRangeInserted(0, conversations.size());
-            } else if (conversations.isEmpty() && oldSize > 0) {
-                conversationAdapter.notifyItemRangeRemoved(0, oldSize);
-            } else {
-                conversationAdapter.notifyDataSetChanged(); // Fallback for complex changes
-            }
+            // Diffed off the main thread; only changed rows are rebound
+            conversationAdapter.updateConversations(conversations);
 
             // Show/hide empty state
             if (conversationList.isEmpty()) {
@@ -250,4 +231,13 @@ public class ConversationsActivity extends AppCompatActivity {
         // Refresh conversations when returning to this activity
         loadConversations();
     }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (conversationsSubscription != null) {
+            conversationsSubscription.cancel();
+            conversationsSubscription = null;
+        }
+    }
 }
@@ -59,5 +59,75 @@ public class DataMigrationActivity extends AppCompatActivity {
             migration.checkProductNegotiableStatus();
         });
         layout.addView(btnCheckStatus);
+
+        // Backfill geohash shard keys for location search
+        Button btnBackfillGeohash = new Button(this);
+        btnBackfillGeohash.setText("Backfill Product Geohashes");
+        btnBackfillGeohash.setOnClickListener(v -> {
+            Log.d(TAG, "Starting geohash backfill");
+            Toast.makeText(this, "Starting geohash backfill...", Toast.LENGTH_SHORT).show();
+            migration.backfillProductGeohashes();
+        });
+        layout.addView(btnBackfillGeohash);
+
+        // Index existing conversations under their participants
+        Button btnBackfillConversations = new Button(this);
+        btnBackfillConversations.setText("Backfill User Conversations Index");
+        btnBackfillConversations.setOnClickListener(v -> {
+            Log.d(TAG, "Starting conversation index backfill");
+            Toast.makeText(this, "Starting conversation index backfill...", Toast.LENGTH_SHORT).show();
+            migration.backfillUserConversations();
+        });
+        layout.addView(btnBackfillConversations);
+
+        // List existing transactions in the buyer's and seller's ledgers
+        Button btnBackfillTransactions = new Button(this);
+        btnBackfillTransactions.setText("Backfill User Transactions Ledger");
+        btnBackfillTransactions.setOnClickListener(v -> {
+            Log.d(TAG, "Starting transaction ledger backfill");
+            Toast.makeText(this, "Starting transaction ledger backfill...", Toast.LENGTH_SHORT).show();
+            migration.backfillUserTransactions();
+        });
+        layout.addView(btnBackfillTransactions);
+
+        // Build the per-user rating aggregates from the existing ratings
+        Button btnBackfillRatingStats = new Button(this);
+        btnBackfillRatingStats.setText("Rebuild Rating Stats");
+        btnBackfillRatingStats.setOnClickListener(v -> {
+            Log.d(TAG, "Starting rating stats backfill");
+            Toast.makeText(this, "Starting rating stats backfill...", Toast.LENGTH_SHORT).show();
+            migration.backfillRatingStats();
+        });
+        layout.addView(btnBackfillRatingStats);
+
+        // Build the moderation queue and report counters from the existing reports
+        Button btnBackfillReportQueue = new Button(this);
+        btnBackfillReportQueue.setText("Backfill Report Queue");
+        btnBackfillReportQueue.setOnClickListener(v -> {
+            Log.d(TAG, "Starting report queue backfill");
+            Toast.makeText(this, "Starting report queue backfill...", Toast.LENGTH_SHORT).show();
+            migration.backfillReportQueue();
+        });
+        layout.addView(btnBackfillReportQueue);
+
+        // Index existing reports by reporter, type and item for the duplicate check
+        Button btnBackfillReportKeys = new Button(this);
+        btnBackfillReportKeys.setText("Backfill Report Dedupe Keys");
+        btnBackfillReportKeys.setOnClickListener(v -> {
+            Log.d(TAG, "Starting report key backfill");
+            Toast.makeText(this, "Starting report key backfill...", Toast.LENGTH_SHORT).show();
+            migration.backfillReportKeys();
+        });
+        layout.addView(btnBackfillReportKeys);
+
+        // Index existing conversations by user pair for the conversation lookup
+        Button btnBackfillUserPairs = new Button(this);
+        btnBackfillUserPairs.setText("Backfill Conversation Pairs");
+        btnBackfillUserPairs.setOnClickListener(v -> {
+            Log.d(TAG, "Starting user pair backfill");
+            Toast.makeText(this, "Starting user pair backfill...", Toast.LENGTH_SHORT).show();
+            migration.backfillUserPairs();
+        });
+        layout.addView(btnBackfillUserPairs);
     }
 }
@@ -18,6 +18,7 @@ import com.example.tradeup_app.R;
 import com.example.tradeup_app.adapters.MyProductsAdapter;
 import com.example.tradeup_app.auth.Helper.CurrentUser;
 import com.example.tradeup_app.auth.Domain.UserModel;
+import com.example.tradeup_app.firebase.FirebaseManager;
 import com.example.tradeup_app.models.Product;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
@@ -133,7 +134,8 @@ public class MyProductsActivity extends AppCompatActivity {
             return;
         }
 
-        productsRef.child(product.getId()).removeValue()
+        // Also leaves a tombstone, so other clients' synced caches drop the product
+        FirebaseManager.getInstance().deleteProduct(product.getId())
                 .addOnSuccessListener(aVoid -> {
                     Toast.makeText(this, "Đã xóa sản phẩm thành công", Toast.LENGTH_SHORT).show();
                     // Remove from local list
@@ -296,10 +296,7 @@ public class OffersActivity extends AppCompatActivity implements OfferAdapter.On
 
     private void markProductAsSold() {
         // Update product status to sold
-        firebaseManager.getDatabase().getReference(FirebaseManager.PRODUCTS_NODE)
-            .child(product.getId())
-            .child("status")
-            .setValue("Sold");
+        firebaseManager.setProductStatus(product.getId(), "Sold");
     }
 
     private void showRatingDialog(Transaction transaction, Offer offer) {
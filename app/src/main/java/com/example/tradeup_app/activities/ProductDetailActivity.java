@@ -28,9 +28,11 @@ import com.example.tradeup_app.dialogs.ReportDialog;
 import com.example.tradeup_app.firebase.FirebaseManager;
 import com.example.tradeup_app.models.Offer;
 import com.example.tradeup_app.models.Product;
+import com.example.tradeup_app.models.RatingStats;
 import com.example.tradeup_app.models.Report;
 import com.example.tradeup_app.utils.Constants;
 import com.example.tradeup_app.utils.DataValidator;
+import com.example.tradeup_app.utils.EntityCache;
 import com.example.tradeup_app.utils.NotificationManager;
 import com.example.tradeup_app.utils.VNDPriceFormatter;
 import com.google.android.material.appbar.CollapsingToolbarLayout;
@@ -274,32 +276,30 @@ public class ProductDetailActivity extends AppCompatActivity {
     private void loadProductData() {
         if (productId == null) return;
 
-        firebaseManager.getDatabase().getReference(Constants.PRODUCTS_NODE)
-            .child(productId)
-            .addListenerForSingleValueEvent(new ValueEventListener() {
-                @Override
-                public void onDataChange(DataSnapshot snapshot) {
-                    if (snapshot.exists()) {
-                        currentProduct = snapshot.getValue(Product.class);
-                        if (currentProduct != null) {
-                            currentProduct.setId(snapshot.getKey());
-                            updateUI();
-                            incrementViewCount();
-                            loadSimilarProducts();
-                            checkFavoriteStatus();
-                        }
-                    } else {
-                        Toast.makeText(ProductDetailActivity.this, Constants.ERROR_DATA_NOT_FOUND, Toast.LENGTH_SHORT).show();
-                        finish();
-                    }
-                }
-
-                @Override
-                public void onCancelled(DatabaseError error) {
-                    Toast.makeText(ProductDetailActivity.this, Constants.ERROR_NETWORK, Toast.LENGTH_SHORT).show();
+        firebaseManager.getProductCached(productId, new EntityCache.LoadCallback<Product>() {
+            @Override
+            public void onLoaded(Product product) {
+                if (isFinishing()) return;
+                if (product != null) {
+                    // The cached instance is shared; status changes below are made on a copy
+                    currentProduct = new Product(product);
+                    updateUI();
+                    incrementViewCount();
+                    loadSimilarProducts();
+                    checkFavoriteStatus();
+                } else {
+                    Toast.makeText(ProductDetailActivity.this, Constants.ERROR_DATA_NOT_FOUND, Toast.LENGTH_SHORT).show();
                     finish();
                 }
-            });
+            }
+
+            @Override
+            public void onError(String error) {
+                if (isFinishing()) return;
+                Toast.makeText(ProductDetailActivity.this, Constants.ERROR_NETWORK, Toast.LENGTH_SHORT).show();
+                finish();
+            }
+        });
     }
 
     private void updateUI() {
@@ -381,12 +381,11 @@ public class ProductDetailActivity extends AppCompatActivity {
         sellerName.setText(currentProduct.getSellerName());
 
         // Load seller avatar and rating from Users node
-        firebaseManager.getDatabase().getReference(Constants.USERS_NODE)
-            .child(currentProduct.getSellerId())
-            .addListenerForSingleValueEvent(new ValueEventListener() {
+        firebaseManager.getUserCached(currentProduct.getSellerId(), new EntityCache.LoadCallback<DataSnapshot>() {
                 @Override
-                public void onDataChange(DataSnapshot snapshot) {
-                    if (snapshot.exists()) {
+                public void onLoaded(DataSnapshot snapshot) {
+                    if (isFinishing()) return;
+                    if (snapshot != null) {
                         String profilePic = snapshot.child("profilePic").getValue(String.class);
                         if (profilePic != null && !profilePic.isEmpty()) {
                             Glide.with(ProductDetailActivity.this)
@@ -394,43 +393,67 @@ public class ProductDetailActivity extends AppCompatActivity {
                                 .placeholder(R.drawable.ic_user)
                                 .into(sellerAvatar);
                         }
-
-                        // Fixed: Handle both String and Number types for rating
-                        Object ratingObj = snapshot.child("rating").getValue();
-                        if (ratingObj != null) {
-                            try {
-                                float rating = 0f;
-                                if (ratingObj instanceof String) {
-                                    rating = Float.parseFloat((String) ratingObj);
-                                } else if (ratingObj instanceof Number) {
-                                    rating = ((Number) ratingObj).floatValue();
-                                }
-
-                                if (rating > 0) {
-                                    sellerRating.setRating(rating);
-                                    sellerRatingText.setText(String.format(Locale.getDefault(), "%.1f", rating));
-                                } else {
-                                    sellerRating.setRating(0);
-                                    sellerRatingText.setText("New User");
-                                }
-                            } catch (NumberFormatException e) {
-                                sellerRating.setRating(0);
-                                sellerRatingText.setText("New User");
-                            }
-                        } else {
-                            sellerRating.setRating(0);
-                            sellerRatingText.setText("New User");
-                        }
                     }
+                    loadSellerRating(snapshot != null ? snapshot.child("rating").getValue() : null);
                 }
 
                 @Override
-                public void onCancelled(DatabaseError error) {
+                public void onError(String error) {
                     // Handle error silently
                 }
             });
     }
 
+    /**
+     * Seller rating from the aggregates node; the legacy Users/<uid>/rating value covers sellers
+     * whose aggregates have not been backfilled yet
+     */
+    private void loadSellerRating(Object legacyRating) {
+        firebaseManager.getRatingStats(currentProduct.getSellerId(), new FirebaseManager.RatingStatsCallback() {
+            @Override
+            public void onStatsLoaded(RatingStats stats) {
+                if (isFinishing()) return;
+                if (stats != null && stats.getCount() > 0) {
+                    showSellerRating((float) stats.average(), stats.getCount());
+                } else {
+                    showSellerRating(parseLegacyRating(legacyRating), 0);
+                }
+            }
+
+            @Override
+            public void onError(String error) {
+                if (isFinishing()) return;
+                showSellerRating(parseLegacyRating(legacyRating), 0);
+            }
+        });
+    }
+
+    private void showSellerRating(float rating, long count) {
+        if (rating > 0) {
+            sellerRating.setRating(rating);
+            sellerRatingText.setText(count > 0
+                ? getString(R.string.rating_with_count, rating, count)
+                : String.format(Locale.getDefault(), "%.1f", rating));
+        } else {
+            sellerRating.setRating(0);
+            sellerRatingText.setText("New User");
+        }
+    }
+
+    // Handle both String and Number types for the legacy rating field
+    private static float parseLegacyRating(Object ratingObj) {
+        try {
+            if (ratingObj instanceof String) {
+                return Float.parseFloat((String) ratingObj);
+            } else if (ratingObj instanceof Number) {
+                return ((Number) ratingObj).floatValue();
+            }
+        } catch (NumberFormatException ignored) {
+            // Fall through to "no rating"
+        }
+        return 0f;
+    }
+
     private void updateOwnerActions() {
         boolean isOwner = currentUserId != null && currentUserId.equals(currentProduct.getSellerId());
         ownerActionsCard.setVisibility(isOwner ? View.VISIBLE : View.GONE);
@@ -598,14 +621,12 @@ public class ProductDetailActivity extends AppCompatActivity {
         }
 
         // Get seller name first, then create conversation and open chat
-        firebaseManager.getDatabase().getReference(Constants.USERS_NODE)
-            .child(currentProduct.getSellerId())
-            .addListenerForSingleValueEvent(new ValueEventListener() {
+        firebaseManager.getUserCached(currentProduct.getSellerId(), new EntityCache.LoadCallback<DataSnapshot>() {
                 @Override
-                public void onDataChange(DataSnapshot snapshot) {
+                public void onLoaded(DataSnapshot snapshot) {
                     String sellerName = "User";
 
-                    if (snapshot.exists()) {
+                    if (snapshot != null) {
                         // Try different possible field names for user name
                         sellerName = snapshot.child("name").getValue(String.class);
                         if (sellerName == null) {
@@ -627,7 +648,7 @@ public class ProductDetailActivity extends AppCompatActivity {
                 }
 
                 @Override
-                public void onCancelled(DatabaseError error) {
+                public void onError(String error) {
                     // Use fallback name and continue
                     String fallbackName = currentProduct.getSellerName() != null ?
                                         currentProduct.getSellerName() : "User";
@@ -865,9 +886,7 @@ public class ProductDetailActivity extends AppCompatActivity {
             .setTitle("Delete Product")
             .setMessage("Are you sure you want to delete this product? This action cannot be undone.")
             .setPositiveButton("Delete", (dialog, which) -> {
-                firebaseManager.getDatabase().getReference(Constants.PRODUCTS_NODE)
-                    .child(productId)
-                    .removeValue()
+                firebaseManager.deleteProduct(productId)
                     .addOnSuccessListener(aVoid -> {
                         Toast.makeText(this, "Product deleted successfully", Toast.LENGTH_SHORT).show();
                         finish();
@@ -10,6 +10,8 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
@@ -19,14 +21,53 @@ import com.example.tradeup_app.models.Conversation;
 import com.example.tradeup_app.services.MessagingService;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 
 public class ConversationAdapter extends RecyclerView.Adapter<ConversationAdapter.ConversationViewHolder> {
+    // Only the last message, its time or the read state changed: the title, name and image stay
+    private static final String PAYLOAD_ACTIVITY = "activity";
+
+    private static final DiffUtil.ItemCallback<Conversation> DIFF_CALLBACK = new DiffUtil.ItemCallback<Conversation>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Conversation oldItem, @NonNull Conversation newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Conversation oldItem, @NonNull Conversation newItem) {
+            return sameHeader(oldItem, newItem)
+                && Objects.equals(oldItem.getLastMessage(), newItem.getLastMessage())
+                && oldItem.getLastMessageTime() == newItem.getLastMessageTime()
+                && Objects.equals(oldItem.getLastMessageSenderId(), newItem.getLastMessageSenderId())
+                && Objects.equals(oldItem.getLastReadTimes(), newItem.getLastReadTimes())
+                && oldItem.getUnreadCount() == newItem.getUnreadCount();
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull Conversation oldItem, @NonNull Conversation newItem) {
+            return sameHeader(oldItem, newItem) ? PAYLOAD_ACTIVITY : null;
+        }
+
+        private boolean sameHeader(Conversation oldItem, Conversation newItem) {
+            return Objects.equals(oldItem.getDisplayTitle(), newItem.getDisplayTitle())
+                && Objects.equals(oldItem.getProductTitle(), newItem.getProductTitle())
+                && Objects.equals(oldItem.getBuyerName(), newItem.getBuyerName())
+                && Objects.equals(oldItem.getSellerName(), newItem.getSellerName())
+                && Objects.equals(oldItem.getProductImageUrl(), newItem.getProductImageUrl())
+                && Objects.equals(oldItem.getProducts(), newItem.getProducts())
+                && oldItem.isReported() == newItem.isReported()
+                && oldItem.isBlocked() == newItem.isBlocked();
+        }
+    };
+
     private Context context;
-    private List<Conversation> conversationList;
+    private final AsyncListDiffer<Conversation> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    private final StableIds stableIds = new StableIds();
     private OnConversationClickListener listener;
     private String currentUserId;
     private MessagingService messagingService;
@@ -41,10 +82,21 @@ public class ConversationAdapter extends RecyclerView.Adapter<ConversationAdapte
 
     public ConversationAdapter(Context context, List<Conversation> conversationList, OnConversationClickListener listener) {
         this.context = context;
-        this.conversationList = conversationList;
         this.listener = listener;
         this.currentUserId = FirebaseManager.getInstance().getCurrentUserId();
         this.messagingService = new MessagingService();
+        setHasStableIds(true);
+        if (conversationList != null && !conversationList.isEmpty()) {
+            differ.submitList(new ArrayList<>(conversationList));
+        }
+    }
+
+    /**
+     * Show a new snapshot of the conversations. The diff runs on a background thread and only
+     * changed rows are rebound; a new message in a row only rebinds its text, time and badge.
+     */
+    public void updateConversations(List<Conversation> conversations) {
+        differ.submitList(conversations != null ? new ArrayList<>(conversations) : new ArrayList<>());
     }
 
     @NonNull
@@ -54,9 +106,18 @@ public class ConversationAdapter extends RecyclerView.Adapter<ConversationAdapte
         return new ConversationViewHolder(view);
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull ConversationViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && payloads.stream().allMatch(PAYLOAD_ACTIVITY::equals)) {
+            bindActivity(holder, differ.getCurrentList().get(position));
+        } else {
+            onBindViewHolder(holder, position);
+        }
+    }
+
     @Override
     public void onBindViewHolder(@NonNull ConversationViewHolder holder, int position) {
-        Conversation conversation = conversationList.get(position);
+        Conversation conversation = differ.getCurrentList().get(position);
 
         // ✅ SỬA: Hiển thị title thông minh dựa trên conversation type
         String displayTitle = conversation.getDisplayTitle();
@@ -78,6 +139,43 @@ public class ConversationAdapter extends RecyclerView.Adapter<ConversationAdapte
             holder.textViewParticipantName.setText(otherParticipantName);
         }
 
+        bindActivity(holder, conversation);
+
+        // ✅ SỬA: Load product image thông minh
+        loadConversationImage(conversation, holder.imageViewProduct);
+
+        // Set click listeners
+        holder.itemView.setOnClickListener(v -> {
+            int adapterPosition = holder.getAdapterPosition();
+            if (listener != null && adapterPosition != RecyclerView.NO_POSITION) {
+                // The row may have been rebound with a newer snapshot since this listener was set
+                Conversation current = differ.getCurrentList().get(adapterPosition);
+                // Mark conversation as read when clicked
+                if (checkIfConversationHasUnread(current)) {
+                    updateConversationReadStatus(current);
+                }
+                listener.onConversationClick(current);
+            }
+        });
+
+        holder.itemView.setOnLongClickListener(v -> {
+            int adapterPosition = holder.getAdapterPosition();
+            if (adapterPosition != RecyclerView.NO_POSITION) {
+                showConversationOptionsDialog(differ.getCurrentList().get(adapterPosition), adapterPosition);
+            }
+            return true;
+        });
+
+        // Visual indication if conversation is reported or blocked
+        if (conversation.isReported()) {
+            holder.itemView.setAlpha(0.6f);
+        } else {
+            holder.itemView.setAlpha(1.0f);
+        }
+    }
+
+    // Last message, time and read state: the part of a row that changes with every message
+    private void bindActivity(ConversationViewHolder holder, Conversation conversation) {
         // Set last message
         String lastMessage = conversation.getLastMessage();
         if (lastMessage == null || lastMessage.isEmpty()) {
@@ -94,12 +192,6 @@ public class ConversationAdapter extends RecyclerView.Adapter<ConversationAdapte
         boolean hasUnread = checkIfConversationHasUnread(conversation);
         final boolean isUnread = hasUnread;
 
-        // Debug log
-        android.util.Log.d("ConversationAdapter", "Conversation " + conversation.getId() +
-            " - hasUnread: " + isUnread +
-            " - lastMessage: " + conversation.getLastMessage() +
-            " - otherParticipant: " + otherParticipantName);
-
         // Set visual indicators for read/unread status
         if (isUnread) {
             // Unread conversation - make text bold and show unread indicator
@@ -135,37 +227,6 @@ public class ConversationAdapter extends RecyclerView.Adapter<ConversationAdapte
         } else {
             holder.textViewUnreadCount.setVisibility(View.GONE);
         }
-
-        // ✅ SỬA: Load product image thông minh
-        loadConversationImage(conversation, holder.imageViewProduct);
-
-        // Set click listeners
-        holder.itemView.setOnClickListener(v -> {
-            if (listener != null) {
-                // Mark conversation as read when clicked
-                if (isUnread) {
-                    updateConversationReadStatus(conversation);
-                    // Refresh the item to update UI
-                    notifyItemChanged(position);
-                }
-                listener.onConversationClick(conversation);
-            }
-        });
-
-        holder.itemView.setOnLongClickListener(v -> {
-            int adapterPosition = holder.getAdapterPosition();
-            if (adapterPosition != RecyclerView.NO_POSITION) {
-                showConversationOptionsDialog(conversation, adapterPosition);
-            }
-            return true;
-        });
-
-        // Visual indication if conversation is reported or blocked
-        if (conversation.isReported()) {
-            holder.itemView.setAlpha(0.6f);
-        } else {
-            holder.itemView.setAlpha(1.0f);
-        }
     }
 
     private void showConversationOptionsDialog(Conversation conversation, int position) {
@@ -249,9 +310,9 @@ public class ConversationAdapter extends RecyclerView.Adapter<ConversationAdapte
             @Override
             public void onConversationCreated(String conversationId) {
                 hideLoadingDialog();
-                conversationList.remove(position);
-                notifyItemRemoved(position);
-                notifyItemRangeChanged(position, conversationList.size());
+                List<Conversation> remaining = new ArrayList<>(differ.getCurrentList());
+                remaining.remove(conversation);
+                differ.submitList(remaining);
 
                 if (listener != null) {
                     listener.onConversationDeleted(conversation);
@@ -278,7 +339,7 @@ public class ConversationAdapter extends RecyclerView.Adapter<ConversationAdapte
                 if (success) {
                     // Optionally remove from list or mark as blocked
                     conversation.setBlocked(true);
-                    notifyItemChanged(position);
+                    refreshConversation(conversation);
 
                     if (listener != null) {
                         listener.onConversationBlocked(conversation);
@@ -310,7 +371,7 @@ public class ConversationAdapter extends RecyclerView.Adapter<ConversationAdapte
             if (task.isSuccessful()) {
                 conversation.setReported(true);
                 conversation.setReportReason(reason);
-                notifyItemChanged(position);
+                refreshConversation(conversation);
 
                 if (listener != null) {
                     listener.onConversationReported(conversation);
@@ -340,19 +401,27 @@ public class ConversationAdapter extends RecyclerView.Adapter<ConversationAdapte
         }
     }
 
+    // Rebind a conversation that was changed in place; its position may have moved since the dialog
+    private void refreshConversation(Conversation conversation) {
+        int position = differ.getCurrentList().indexOf(conversation);
+        if (position != -1) {
+            notifyItemChanged(position);
+        }
+    }
+
     // Method to update conversation read status in Firebase
     private void updateConversationReadStatus(Conversation conversation) {
-        FirebaseManager.getInstance().getDatabase()
-                .getReference(FirebaseManager.CONVERSATIONS_NODE)
-                .child(conversation.getId())
-                .child("lastReadTimes")
-                .child(currentUserId)
-                .setValue(System.currentTimeMillis())
-                .addOnSuccessListener(aVoid -> {
-                    android.util.Log.d("ConversationAdapter", "Read status updated successfully");
-                })
-                .addOnFailureListener(e -> {
-                    android.util.Log.e("ConversationAdapter", "Failed to update read status", e);
+        com.example.tradeup_app.data.Repositories.conversations().markConversationRead(conversation.getId(), currentUserId,
+                new com.example.tradeup_app.data.DataCallback<Void>() {
+                    @Override
+                    public void onSuccess(Void result) {
+                        android.util.Log.d("ConversationAdapter", "Read status updated successfully");
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        android.util.Log.e("ConversationAdapter", "Failed to update read status: " + error);
+                    }
                 });
     }
 
@@ -453,7 +522,12 @@ public class ConversationAdapter extends RecyclerView.Adapter<ConversationAdapte
 
     @Override
     public int getItemCount() {
-        return conversationList.size();
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return stableIds.idOf(differ.getCurrentList().get(position).getId());
     }
 
     static class ConversationViewHolder extends RecyclerView.ViewHolder {
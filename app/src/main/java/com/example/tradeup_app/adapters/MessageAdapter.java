@@ -11,6 +11,7 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
@@ -20,9 +21,11 @@ import com.example.tradeup_app.models.Message;
 import com.example.tradeup_app.services.MessagingService;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
 public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
     private static final int VIEW_TYPE_SENT = 1;
@@ -30,8 +33,13 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
     private static final int VIEW_TYPE_OFFER_SENT = 3;
     private static final int VIEW_TYPE_OFFER_RECEIVED = 4;
 
+    // Partial rebinds: only the read receipt or only the offer status of a row changed
+    private static final String PAYLOAD_READ_STATE = "read_state";
+    private static final String PAYLOAD_OFFER_STATUS = "offer_status";
+
     private Context context;
     private List<Message> messageList;
+    private final StableIds stableIds = new StableIds();
     private String currentUserId;
     private MessagingService messagingService;
     private OnOfferActionListener offerActionListener;
@@ -47,6 +55,15 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
         this.messageList = messageList;
         this.currentUserId = FirebaseManager.getInstance().getCurrentUserId();
         this.messagingService = new MessagingService();
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        Message message = messageList.get(position);
+        // A message without an id yet is keyed by its instance until it gets one
+        return stableIds.idOf(message.getId() != null ? message.getId()
+            : "local:" + System.identityHashCode(message));
     }
 
     public void setOnOfferActionListener(OnOfferActionListener listener) {
@@ -121,6 +138,32 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
         }
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty() || position < 0 || position >= messageList.size()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+
+        Message message = messageList.get(position);
+        for (Object payload : payloads) {
+            if (PAYLOAD_READ_STATE.equals(payload)) {
+                // Only sent messages show a read receipt
+                if (holder instanceof SentMessageViewHolder) {
+                    ((SentMessageViewHolder) holder).textViewReadStatus.setText(message.isRead() ? "Read" : "Delivered");
+                }
+            } else if (PAYLOAD_OFFER_STATUS.equals(payload)) {
+                // Only received offers change with their status
+                if (holder instanceof ReceivedOfferViewHolder) {
+                    bindOfferActions((ReceivedOfferViewHolder) holder, message);
+                }
+            } else {
+                onBindViewHolder(holder, position);
+                return;
+            }
+        }
+    }
+
     private void bindSentMessage(SentMessageViewHolder holder, Message message) {
         bindCommonMessageData(holder.textViewMessage, holder.textViewTime,
                              holder.imageViewMessage, message);
@@ -190,6 +233,21 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
         holder.textViewOfferStatus.setText("New Offer Received");
         holder.textViewOfferStatus.setBackgroundColor(ContextCompat.getColor(context, R.color.offer_pending));
 
+        bindOfferActions(holder, message);
+
+        // Set sender name if available
+        if (holder.textViewSenderName != null && message.getSenderName() != null) {
+            holder.textViewSenderName.setText(message.getSenderName());
+        }
+
+        // Long click for message options
+        holder.itemView.setOnLongClickListener(v -> {
+            showMessageOptions(message, false);
+            return true;
+        });
+    }
+
+    private void bindOfferActions(ReceivedOfferViewHolder holder, Message message) {
         // Show action buttons for received offers with PENDING status
         String offerStatus = message.getOfferStatus();
         android.util.Log.d("MessageAdapter", "Offer status: " + offerStatus);
@@ -227,17 +285,6 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
             holder.buttonReject.setVisibility(View.GONE);
             holder.buttonCounter.setVisibility(View.GONE);
         }
-
-        // Set sender name if available
-        if (holder.textViewSenderName != null && message.getSenderName() != null) {
-            holder.textViewSenderName.setText(message.getSenderName());
-        }
-
-        // Long click for message options
-        holder.itemView.setOnLongClickListener(v -> {
-            showMessageOptions(message, false);
-            return true;
-        });
     }
 
     private void bindCommonMessageData(TextView textViewMessage, TextView textViewTime,
@@ -586,11 +633,51 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
         }
     }
 
-    // Method to update messages list
+    /**
+     * Replace the list, e.g. with the first page of a conversation. Only the differences are
+     * dispatched. The diff runs here rather than on a background thread because the list is
+     * shared with ChatActivity and edited synchronously by the live stream; a page is small.
+     */
     public void updateMessages(List<Message> newMessages) {
-        this.messageList.clear();
-        this.messageList.addAll(newMessages);
-        notifyDataSetChanged();
+        if (messageList.isEmpty()) {
+            messageList.addAll(newMessages);
+            notifyItemRangeInserted(0, newMessages.size());
+            return;
+        }
+
+        List<Message> oldMessages = new ArrayList<>(messageList);
+        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldMessages.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newMessages.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                return Objects.equals(oldMessages.get(oldPosition).getId(), newMessages.get(newPosition).getId());
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                Message oldMessage = oldMessages.get(oldPosition);
+                Message newMessage = newMessages.get(newPosition);
+                return oldMessage != newMessage && sameMessage(oldMessage, newMessage);
+            }
+
+            @Override
+            public Object getChangePayload(int oldPosition, int newPosition) {
+                return changePayload(oldMessages.get(oldPosition), newMessages.get(newPosition));
+            }
+        });
+
+        messageList.clear();
+        messageList.addAll(newMessages);
+        diff.dispatchUpdatesTo(this);
     }
 
     // Method to add new message
@@ -598,4 +685,100 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
         this.messageList.add(message);
         notifyItemInserted(messageList.size() - 1);
     }
+
+    /**
+     * Insert a new message at its timestamp position, or replace the message with the same id.
+     * New messages almost always belong at the end, so the search starts there.
+     * @return the adapter position of the message
+     */
+    public int upsertMessage(Message message) {
+        int existing = indexOfMessage(message.getId());
+        if (existing != -1) {
+            Message previous = messageList.set(existing, message);
+            // Server echo of what is already shown, e.g. the timestamp of an own message settling
+            if (previous != message && sameMessage(previous, message)) {
+                return existing;
+            }
+            notifyItemChanged(existing, changePayload(previous, message));
+            return existing;
+        }
+
+        int position = messageList.size();
+        while (position > 0 && messageList.get(position - 1).getTimestamp() > message.getTimestamp()) {
+            position--;
+        }
+        messageList.add(position, message);
+        notifyItemInserted(position);
+        return position;
+    }
+
+    public void removeMessage(String messageId) {
+        int position = indexOfMessage(messageId);
+        if (position != -1) {
+            messageList.remove(position);
+            notifyItemRemoved(position);
+        }
+    }
+
+    // Older history goes above everything already shown
+    public void prependMessages(List<Message> olderMessages) {
+        if (olderMessages.isEmpty()) return;
+        messageList.addAll(0, olderMessages);
+        notifyItemRangeInserted(0, olderMessages.size());
+    }
+
+    // Rebind one message after it was changed in place
+    public void refreshMessage(Message message) {
+        int position = messageList.indexOf(message);
+        if (position != -1) {
+            notifyItemChanged(position);
+        }
+    }
+
+    // Rebind only the offer status of a message after it was changed in place
+    public void refreshOfferStatus(Message message) {
+        int position = messageList.indexOf(message);
+        if (position != -1) {
+            notifyItemChanged(position, PAYLOAD_OFFER_STATUS);
+        }
+    }
+
+    // Everything a row shows apart from the read receipt and the offer status
+    private static boolean sameBody(Message oldMessage, Message newMessage) {
+        return Objects.equals(oldMessage.getContent(), newMessage.getContent())
+            && Objects.equals(oldMessage.getMessageType(), newMessage.getMessageType())
+            && Objects.equals(oldMessage.getImageUrl(), newMessage.getImageUrl())
+            && Objects.equals(oldMessage.getSenderId(), newMessage.getSenderId())
+            && Objects.equals(oldMessage.getSenderName(), newMessage.getSenderName())
+            && oldMessage.isDeleted() == newMessage.isDeleted()
+            && oldMessage.getTimestamp() == newMessage.getTimestamp();
+    }
+
+    private static boolean sameMessage(Message oldMessage, Message newMessage) {
+        return sameBody(oldMessage, newMessage)
+            && oldMessage.isRead() == newMessage.isRead()
+            && Objects.equals(oldMessage.getOfferStatus(), newMessage.getOfferStatus());
+    }
+
+    /**
+     * The partial rebind that turns oldMessage's row into newMessage's, or null for a full rebind
+     */
+    private static Object changePayload(Message oldMessage, Message newMessage) {
+        // Changed in place: there is nothing left to compare against
+        if (oldMessage == newMessage || !sameBody(oldMessage, newMessage)) return null;
+        boolean readChanged = oldMessage.isRead() != newMessage.isRead();
+        boolean offerChanged = !Objects.equals(oldMessage.getOfferStatus(), newMessage.getOfferStatus());
+        if (readChanged && offerChanged) return null;
+        return readChanged ? PAYLOAD_READ_STATE : PAYLOAD_OFFER_STATUS;
+    }
+
+    private int indexOfMessage(String messageId) {
+        if (messageId == null) return -1;
+        for (int i = messageList.size() - 1; i >= 0; i--) {
+            if (messageId.equals(messageList.get(i).getId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
 }
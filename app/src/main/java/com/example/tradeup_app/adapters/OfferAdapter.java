@@ -9,6 +9,8 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
@@ -18,9 +20,11 @@ import com.google.android.material.button.MaterialButton;
 import com.google.android.material.card.MaterialCardView;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
 public class OfferAdapter extends RecyclerView.Adapter<OfferAdapter.OfferViewHolder> {
 
@@ -31,15 +35,47 @@ public class OfferAdapter extends RecyclerView.Adapter<OfferAdapter.OfferViewHol
         void onViewOffer(Offer offer);
     }
 
+    // Only the status (and with it the action buttons) changed
+    private static final String PAYLOAD_STATUS = "status";
+
+    private static final DiffUtil.ItemCallback<Offer> DIFF_CALLBACK = new DiffUtil.ItemCallback<Offer>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Offer oldItem, @NonNull Offer newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Offer oldItem, @NonNull Offer newItem) {
+            return sameOffer(oldItem, newItem) && Objects.equals(oldItem.getStatus(), newItem.getStatus());
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull Offer oldItem, @NonNull Offer newItem) {
+            return sameOffer(oldItem, newItem) ? PAYLOAD_STATUS : null;
+        }
+
+        private boolean sameOffer(Offer oldItem, Offer newItem) {
+            return Objects.equals(oldItem.getBuyerName(), newItem.getBuyerName())
+                && oldItem.getOfferPrice() == newItem.getOfferPrice()
+                && oldItem.getOriginalPrice() == newItem.getOriginalPrice()
+                && Objects.equals(oldItem.getMessage(), newItem.getMessage())
+                && oldItem.getCreatedAt() == newItem.getCreatedAt();
+        }
+    };
+
     private Context context;
-    private List<Offer> offers;
+    private final AsyncListDiffer<Offer> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    private final StableIds stableIds = new StableIds();
     private OnOfferActionListener listener;
     private boolean isSellerView; // true if seller viewing offers, false if buyer viewing
 
     public OfferAdapter(Context context, List<Offer> offers, boolean isSellerView) {
         this.context = context;
-        this.offers = offers;
         this.isSellerView = isSellerView;
+        setHasStableIds(true);
+        if (offers != null && !offers.isEmpty()) {
+            differ.submitList(new ArrayList<>(offers));
+        }
     }
 
     public void setOnOfferActionListener(OnOfferActionListener listener) {
@@ -55,18 +91,32 @@ public class OfferAdapter extends RecyclerView.Adapter<OfferAdapter.OfferViewHol
 
     @Override
     public void onBindViewHolder(@NonNull OfferViewHolder holder, int position) {
-        Offer offer = offers.get(position);
+        Offer offer = differ.getCurrentList().get(position);
         holder.bind(offer);
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull OfferViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && payloads.stream().allMatch(PAYLOAD_STATUS::equals)) {
+            holder.bindStatus(differ.getCurrentList().get(position));
+        } else {
+            onBindViewHolder(holder, position);
+        }
+    }
+
     @Override
     public int getItemCount() {
-        return offers.size();
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return stableIds.idOf(differ.getCurrentList().get(position).getId());
     }
 
     public void updateOffers(List<Offer> newOffers) {
-        this.offers = newOffers;
-        notifyDataSetChanged();
+        // Copy: the caller keeps filling its own list, the differ needs a snapshot
+        differ.submitList(newOffers != null ? new ArrayList<>(newOffers) : new ArrayList<>());
     }
 
     class OfferViewHolder extends RecyclerView.ViewHolder {
@@ -117,14 +167,24 @@ public class OfferAdapter extends RecyclerView.Adapter<OfferAdapter.OfferViewHol
                 messageText.setVisibility(View.GONE);
             }
 
-            // Set status
-            statusText.setText(offer.getStatus());
-            setStatusColor(offer.getStatus());
-
             // Set date
             SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault());
             dateText.setText(sdf.format(new Date(offer.getCreatedAt())));
 
+            bindStatus(offer);
+
+            // Set click listener for the card
+            cardView.setOnClickListener(v -> {
+                if (listener != null) {
+                    listener.onViewOffer(offer);
+                }
+            });
+        }
+
+        void bindStatus(Offer offer) {
+            statusText.setText(offer.getStatus());
+            setStatusColor(offer.getStatus());
+
             // Show/hide action buttons based on status and view type
             if (isSellerView && "PENDING".equals(offer.getStatus())) {
                 actionButtonsLayout.setVisibility(View.VISIBLE);
@@ -134,13 +194,6 @@ public class OfferAdapter extends RecyclerView.Adapter<OfferAdapter.OfferViewHol
                 actionButtonsLayout.setVisibility(View.GONE);
                 android.util.Log.d("OfferAdapter", "Hiding action buttons - isSellerView: " + isSellerView + ", status: " + offer.getStatus());
             }
-
-            // Set click listener for the card
-            cardView.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onViewOffer(offer);
-                }
-            });
         }
 
         // Add method to format VND price
@@ -8,6 +8,8 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.tradeup_app.R;
@@ -21,10 +23,65 @@ import de.hdodenhof.circleimageview.CircleImageView;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
 public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductViewHolder> {
 
-    private final List<Product> products;
+    // Partial rebinds, combined as bit flags in one payload
+    static final int PAYLOAD_COUNTERS = 1;
+    static final int PAYLOAD_STATUS = 1 << 1;
+    static final int PAYLOAD_DISTANCE = 1 << 2;
+
+    private static final DiffUtil.ItemCallback<Product> DIFF_CALLBACK = new DiffUtil.ItemCallback<Product>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Product oldItem, @NonNull Product newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Product oldItem, @NonNull Product newItem) {
+            return sameCard(oldItem, newItem)
+                && Objects.equals(oldItem.getStatus(), newItem.getStatus())
+                && oldItem.getViewCount() == newItem.getViewCount()
+                && oldItem.getInteractionCount() == newItem.getInteractionCount();
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull Product oldItem, @NonNull Product newItem) {
+            // Only counters or status changed: rebind those views, keep the image
+            if (!sameCard(oldItem, newItem)) return null;
+            int payload = 0;
+            if (oldItem.getViewCount() != newItem.getViewCount()
+                    || oldItem.getInteractionCount() != newItem.getInteractionCount()) {
+                payload |= PAYLOAD_COUNTERS;
+            }
+            if (!Objects.equals(oldItem.getStatus(), newItem.getStatus())) {
+                payload |= PAYLOAD_STATUS;
+            }
+            return payload;
+        }
+
+        private boolean sameCard(Product oldItem, Product newItem) {
+            return Objects.equals(oldItem.getTitle(), newItem.getTitle())
+                && oldItem.getPrice() == newItem.getPrice()
+                && Objects.equals(oldItem.getDescription(), newItem.getDescription())
+                && Objects.equals(oldItem.getSellerName(), newItem.getSellerName())
+                && Objects.equals(oldItem.getCategory(), newItem.getCategory())
+                && Objects.equals(oldItem.getCondition(), newItem.getCondition())
+                && Objects.equals(oldItem.getItemBehavior(), newItem.getItemBehavior())
+                && Objects.equals(oldItem.getImageUrls(), newItem.getImageUrls())
+                && oldItem.getCreatedAt() == newItem.getCreatedAt()
+                && oldItem.getLatitude() == newItem.getLatitude()
+                && oldItem.getLongitude() == newItem.getLongitude();
+        }
+    };
+
+    // Lists are diffed on a background thread; only the resulting changes are rebound
+    private final AsyncListDiffer<Product> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    // Last submitted list; differ.getCurrentList() lags behind it until the diff is applied,
+    // so edits build on this one or a quick second edit would drop the first
+    private List<Product> latest = new ArrayList<>();
+    private final StableIds stableIds = new StableIds();
     private final Context context;
     private OnProductClickListener listener;
 
@@ -33,6 +90,12 @@ public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductV
     private double userLongitude = 0;
     private boolean showDistance = false;
 
+    // Paging state - the next page is requested when the user scrolls close to the end
+    private static final int LOAD_MORE_THRESHOLD = 5;
+    private OnLoadMoreListener loadMoreListener;
+    private boolean hasMore = false;
+    private boolean loadingMore = false;
+
     public interface OnProductClickListener {
         void onProductClick(Product product);
         void onProductLongClick(Product product);
@@ -42,15 +105,46 @@ public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductV
         void onViewSellerProfile(String sellerId);
     }
 
+    public interface OnLoadMoreListener {
+        void onLoadMore();
+    }
+
     public ProductAdapter(Context context, List<Product> products) {
         this.context = context;
-        this.products = products != null ? products : new ArrayList<>();
+        setHasStableIds(true);
+        if (products != null && !products.isEmpty()) {
+            submit(new ArrayList<>(products));
+        }
     }
 
     public void setOnProductClickListener(OnProductClickListener listener) {
         this.listener = listener;
     }
 
+    public void setOnLoadMoreListener(OnLoadMoreListener loadMoreListener) {
+        this.loadMoreListener = loadMoreListener;
+    }
+
+    /**
+     * Mark whether more pages are available and clear the in-flight flag
+     */
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+        this.loadingMore = false;
+    }
+
+    /**
+     * Request the next page if the given position is close to the end of the list.
+     * At most one page request is in flight at a time.
+     */
+    public void requestMoreIfNeeded(int lastVisiblePosition) {
+        if (loadMoreListener == null || !hasMore || loadingMore) return;
+        if (lastVisiblePosition >= getItemCount() - LOAD_MORE_THRESHOLD) {
+            loadingMore = true;
+            loadMoreListener.onLoadMore();
+        }
+    }
+
     /**
      * Set user location for distance calculation and display
      */
@@ -59,8 +153,8 @@ public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductV
         this.userLongitude = longitude;
         this.showDistance = (latitude != 0 && longitude != 0);
 
-        // Refresh all items to show distance
-        notifyDataSetChanged();
+        // Refresh only the distance of all items
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_DISTANCE);
     }
 
     /**
@@ -71,8 +165,8 @@ public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductV
         this.userLongitude = 0;
         this.showDistance = false;
 
-        // Refresh all items to hide distance
-        notifyDataSetChanged();
+        // Hide the distance of all items
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_DISTANCE);
     }
 
     /**
@@ -91,13 +185,46 @@ public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductV
 
     @Override
     public void onBindViewHolder(@NonNull ProductViewHolder holder, int position) {
-        Product product = products.get(position);
+        Product product = differ.getCurrentList().get(position);
         holder.bind(product);
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull ProductViewHolder holder, int position, @NonNull List<Object> payloads) {
+        int flags = 0;
+        for (Object payload : payloads) {
+            if (!(payload instanceof Integer)) {
+                flags = 0;
+                break;
+            }
+            flags |= (Integer) payload;
+        }
+        if (flags == 0) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+
+        Product product = differ.getCurrentList().get(position);
+        if ((flags & PAYLOAD_COUNTERS) != 0) holder.bindCounters(product);
+        if ((flags & PAYLOAD_STATUS) != 0) holder.bindStatus(product);
+        if ((flags & PAYLOAD_DISTANCE) != 0) holder.bindDistance(product);
+    }
+
     @Override
     public int getItemCount() {
-        return products.size();
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return stableIds.idOf(differ.getCurrentList().get(position).getId());
+    }
+
+    /**
+     * The products currently shown, read-only
+     */
+    public List<Product> getProducts() {
+        return differ.getCurrentList();
     }
 
     public void updateProducts(List<Product> newProducts) {
@@ -112,43 +239,66 @@ public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductV
     }
 
     private void updateProductsInternal(List<Product> newProducts) {
-        int oldSize = products.size();
-        products.clear();
+        // Copy, so later changes to the caller's list are not mistaken for the diffed state
+        submit(newProducts != null ? new ArrayList<>(newProducts) : new ArrayList<>());
+    }
 
-        // Thông báo về việc xóa dữ liệu cũ
-        if (oldSize > 0) {
-            notifyItemRangeRemoved(0, oldSize);
+    /**
+     * Append a page of products to the end of the list
+     */
+    public void appendProducts(List<Product> moreProducts) {
+        if (context instanceof android.app.Activity) {
+            ((android.app.Activity) context).runOnUiThread(() -> {
+                appendProductsInternal(moreProducts);
+            });
+        } else {
+            appendProductsInternal(moreProducts);
         }
+    }
 
-        // Thêm dữ liệu mới
-        if (newProducts != null && !newProducts.isEmpty()) {
-            products.addAll(newProducts);
-            notifyItemRangeInserted(0, newProducts.size());
-        }
+    private void appendProductsInternal(List<Product> moreProducts) {
+        if (moreProducts == null || moreProducts.isEmpty()) return;
+        List<Product> products = new ArrayList<>(latest);
+        products.addAll(moreProducts);
+        submit(products);
     }
 
     public void addProduct(Product product) {
         if (product != null) {
+            List<Product> products = new ArrayList<>(latest);
             products.add(0, product);
-            notifyItemInserted(0);
+            submit(products);
         }
     }
 
     public void removeProduct(int position) {
-        if (position >= 0 && position < products.size()) {
-            products.remove(position);
-            notifyItemRemoved(position);
-            notifyItemRangeChanged(position, products.size() - position);
+        // position is an adapter position, i.e. in the list on screen
+        List<Product> shown = differ.getCurrentList();
+        if (position < 0 || position >= shown.size()) return;
+        List<Product> products = new ArrayList<>(latest);
+        if (products.remove(shown.get(position))) {
+            submit(products);
+        }
+    }
+
+    /**
+     * Rebind the status of a product that was changed in place
+     */
+    public void refreshProductStatus(Product product) {
+        int position = differ.getCurrentList().indexOf(product);
+        if (position != -1) {
+            notifyItemChanged(position, PAYLOAD_STATUS);
         }
     }
 
     // Thêm phương thức clearProducts để xóa an toàn
     public void clearProducts() {
-        int oldSize = products.size();
-        products.clear();
-        if (oldSize > 0) {
-            notifyItemRangeRemoved(0, oldSize);
-        }
+        submit(new ArrayList<>());
+    }
+
+    private void submit(List<Product> products) {
+        latest = products;
+        differ.submitList(products);
     }
 
     static class ProductViewHolder extends RecyclerView.ViewHolder {
@@ -190,21 +340,17 @@ public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductV
             productPrice.setText(formatPrice(product.getPrice()));
             productDescription.setText(product.getDescription());
             sellerName.setText(product.getSellerName());
-            viewCount.setText("👁 " + product.getViewCount() + " lượt xem");
-
-            // Use interactionCount for sold items display
-            soldCount.setText("🛒 " + product.getInteractionCount() + " đã bán");
+            bindCounters(product);
 
             // Set chips
-            setupStatusChip(product.getStatus());
             categoryChip.setText(product.getCategory());
             conditionChip.setText(product.getCondition());
 
             // Set time posted
             timePosted.setText(formatTimeAgo(product.getCreatedAt()));
 
-            // Setup buttons based on product status
-            setupButtonStates(product.getStatus());
+            // Status chip and buttons based on product status
+            bindStatus(product);
 
             // Load product image
             if (product.getImageUrls() != null && !product.getImageUrls().isEmpty()) {
@@ -222,14 +368,7 @@ public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductV
             itemBehaviorView.setText(product.getItemBehavior() != null ? product.getItemBehavior() : "N/A");
 
             // Set distance if available
-            TextView distanceView = itemView.findViewById(R.id.distance_view);
-            if (adapter.isDistanceDisplayEnabled()) {
-                double distance = calculateDistance(product.getLatitude(), product.getLongitude());
-                distanceView.setText(formatDistance(distance));
-                distanceView.setVisibility(View.VISIBLE);
-            } else {
-                distanceView.setVisibility(View.GONE);
-            }
+            bindDistance(product);
 
             // Set click listeners
             itemView.setOnClickListener(v -> {
@@ -286,6 +425,29 @@ public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductV
             });
         }
 
+        void bindCounters(Product product) {
+            viewCount.setText("👁 " + product.getViewCount() + " lượt xem");
+
+            // Use interactionCount for sold items display
+            soldCount.setText("🛒 " + product.getInteractionCount() + " đã bán");
+        }
+
+        void bindStatus(Product product) {
+            setupStatusChip(product.getStatus());
+            setupButtonStates(product.getStatus());
+        }
+
+        void bindDistance(Product product) {
+            TextView distanceView = itemView.findViewById(R.id.distance_view);
+            if (adapter.isDistanceDisplayEnabled()) {
+                double distance = calculateDistance(product.getLatitude(), product.getLongitude());
+                distanceView.setText(formatDistance(distance));
+                distanceView.setVisibility(View.VISIBLE);
+            } else {
+                distanceView.setVisibility(View.GONE);
+            }
+        }
+
         private void setupStatusChip(String status) {
             statusChip.setText(status);
 
@@ -9,6 +9,8 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.tradeup_app.R;
@@ -18,9 +20,11 @@ import com.google.android.material.card.MaterialCardView;
 import com.google.android.material.textfield.TextInputEditText;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
 public class ReportAdapter extends RecyclerView.Adapter<ReportAdapter.ReportViewHolder> {
 
@@ -30,13 +34,46 @@ public class ReportAdapter extends RecyclerView.Adapter<ReportAdapter.ReportView
         void onViewReportDetails(Report report);
     }
 
+    // Only the status (and with it the action buttons) changed
+    private static final String PAYLOAD_STATUS = "status";
+
+    private static final DiffUtil.ItemCallback<Report> DIFF_CALLBACK = new DiffUtil.ItemCallback<Report>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Report oldItem, @NonNull Report newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Report oldItem, @NonNull Report newItem) {
+            return sameReport(oldItem, newItem) && Objects.equals(oldItem.getStatus(), newItem.getStatus());
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull Report oldItem, @NonNull Report newItem) {
+            return sameReport(oldItem, newItem) ? PAYLOAD_STATUS : null;
+        }
+
+        private boolean sameReport(Report oldItem, Report newItem) {
+            return Objects.equals(oldItem.getReporterName(), newItem.getReporterName())
+                && Objects.equals(oldItem.getReportedUserName(), newItem.getReportedUserName())
+                && Objects.equals(oldItem.getReason(), newItem.getReason())
+                && Objects.equals(oldItem.getReportType(), newItem.getReportType())
+                && Objects.equals(oldItem.getDescription(), newItem.getDescription())
+                && oldItem.getCreatedAt() == newItem.getCreatedAt();
+        }
+    };
+
     private Context context;
-    private List<Report> reports;
+    private final AsyncListDiffer<Report> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    private final StableIds stableIds = new StableIds();
     private OnReportActionListener listener;
 
     public ReportAdapter(Context context, List<Report> reports) {
         this.context = context;
-        this.reports = reports;
+        setHasStableIds(true);
+        if (reports != null && !reports.isEmpty()) {
+            differ.submitList(new ArrayList<>(reports));
+        }
     }
 
     public void setOnReportActionListener(OnReportActionListener listener) {
@@ -52,18 +89,32 @@ public class ReportAdapter extends RecyclerView.Adapter<ReportAdapter.ReportView
 
     @Override
     public void onBindViewHolder(@NonNull ReportViewHolder holder, int position) {
-        Report report = reports.get(position);
+        Report report = differ.getCurrentList().get(position);
         holder.bind(report);
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull ReportViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && payloads.stream().allMatch(PAYLOAD_STATUS::equals)) {
+            holder.bindStatus(differ.getCurrentList().get(position));
+        } else {
+            onBindViewHolder(holder, position);
+        }
+    }
+
     @Override
     public int getItemCount() {
-        return reports.size();
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return stableIds.idOf(differ.getCurrentList().get(position).getId());
     }
 
     public void updateReports(List<Report> newReports) {
-        this.reports = newReports;
-        notifyDataSetChanged();
+        // Copy: the activity keeps editing its own list as queue events arrive
+        differ.submitList(newReports != null ? new ArrayList<>(newReports) : new ArrayList<>());
     }
 
     class ReportViewHolder extends RecyclerView.ViewHolder {
@@ -100,22 +151,27 @@ public class ReportAdapter extends RecyclerView.Adapter<ReportAdapter.ReportView
             reasonText.setText(formatReason(report.getReason()));
             typeText.setText(report.getReportType());
             descriptionText.setText(report.getDescription());
-            statusText.setText(report.getStatus());
-
-            // Set status color
-            setStatusColor(report.getStatus());
 
             // Set date
             SimpleDateFormat sdf = new SimpleDateFormat("MMM dd, yyyy HH:mm", Locale.getDefault());
             dateText.setText(sdf.format(new Date(report.getCreatedAt())));
 
+            bindStatus(report);
+
+            // Set click listeners
+            setupClickListeners(report);
+        }
+
+        void bindStatus(Report report) {
+            statusText.setText(report.getStatus());
+
+            // Set status color
+            setStatusColor(report.getStatus());
+
             // Show/hide buttons based on status
             boolean isPending = "PENDING".equals(report.getStatus());
             resolveButton.setVisibility(isPending ? View.VISIBLE : View.GONE);
             dismissButton.setVisibility(isPending ? View.VISIBLE : View.GONE);
-
-            // Set click listeners
-            setupClickListeners(report);
         }
 
         private String formatReason(String reason) {
@@ -0,0 +1,23 @@
+package com.example.tradeup_app.adapters;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stable RecyclerView item ids for string keys. Each key gets its own counter value, so unlike
+ * String.hashCode() two different keys never share an id.
+ */
+class StableIds {
+    private final Map<String, Long> ids = new HashMap<>();
+    private long nextId = 1;
+
+    long idOf(String key) {
+        if (key == null) return androidx.recyclerview.widget.RecyclerView.NO_ID;
+        Long id = ids.get(key);
+        if (id == null) {
+            id = nextId++;
+            ids.put(key, id);
+        }
+        return id;
+    }
+}
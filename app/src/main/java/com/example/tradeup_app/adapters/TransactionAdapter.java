@@ -8,6 +8,8 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.tradeup_app.R;
@@ -17,9 +19,11 @@ import com.google.android.material.button.MaterialButton;
 import com.google.android.material.card.MaterialCardView;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
 public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.TransactionViewHolder> {
 
@@ -30,13 +34,50 @@ public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.
         void onContactOtherParty(Transaction transaction);
     }
 
+    // Only the status, completion date or rating flags changed
+    private static final String PAYLOAD_STATUS = "status";
+
+    private static final DiffUtil.ItemCallback<Transaction> DIFF_CALLBACK = new DiffUtil.ItemCallback<Transaction>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Transaction oldItem, @NonNull Transaction newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Transaction oldItem, @NonNull Transaction newItem) {
+            return sameTransaction(oldItem, newItem)
+                && Objects.equals(oldItem.getStatus(), newItem.getStatus())
+                && oldItem.getCompletedAt() == newItem.getCompletedAt()
+                && oldItem.isBuyerRated() == newItem.isBuyerRated()
+                && oldItem.isSellerRated() == newItem.isSellerRated();
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull Transaction oldItem, @NonNull Transaction newItem) {
+            return sameTransaction(oldItem, newItem) ? PAYLOAD_STATUS : null;
+        }
+
+        private boolean sameTransaction(Transaction oldItem, Transaction newItem) {
+            return Objects.equals(oldItem.getProductTitle(), newItem.getProductTitle())
+                && oldItem.getFinalPrice() == newItem.getFinalPrice()
+                && Objects.equals(oldItem.getBuyerId(), newItem.getBuyerId())
+                && Objects.equals(oldItem.getBuyerName(), newItem.getBuyerName())
+                && Objects.equals(oldItem.getSellerName(), newItem.getSellerName())
+                && oldItem.getCreatedAt() == newItem.getCreatedAt();
+        }
+    };
+
     private Context context;
-    private List<Transaction> transactions;
+    private final AsyncListDiffer<Transaction> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    private final StableIds stableIds = new StableIds();
     private OnTransactionActionListener listener;
 
     public TransactionAdapter(Context context, List<Transaction> transactions) {
         this.context = context;
-        this.transactions = transactions;
+        setHasStableIds(true);
+        if (transactions != null && !transactions.isEmpty()) {
+            differ.submitList(new ArrayList<>(transactions));
+        }
     }
 
     public void setOnTransactionActionListener(OnTransactionActionListener listener) {
@@ -52,18 +93,32 @@ public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.
 
     @Override
     public void onBindViewHolder(@NonNull TransactionViewHolder holder, int position) {
-        Transaction transaction = transactions.get(position);
+        Transaction transaction = differ.getCurrentList().get(position);
         holder.bind(transaction);
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull TransactionViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && payloads.stream().allMatch(PAYLOAD_STATUS::equals)) {
+            holder.bindStatus(differ.getCurrentList().get(position));
+        } else {
+            onBindViewHolder(holder, position);
+        }
+    }
+
     @Override
     public int getItemCount() {
-        return transactions.size();
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return stableIds.idOf(differ.getCurrentList().get(position).getId());
     }
 
     public void updateTransactions(List<Transaction> newTransactions) {
-        this.transactions = newTransactions;
-        notifyDataSetChanged();
+        // Copy: the caller keeps appending pages to its own list, the differ needs a snapshot
+        differ.submitList(newTransactions != null ? new ArrayList<>(newTransactions) : new ArrayList<>());
     }
 
     class TransactionViewHolder extends RecyclerView.ViewHolder {
@@ -98,6 +153,22 @@ public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.
             productTitleText.setText(transaction.getProductTitle());
             priceText.setText(VNDPriceFormatter.formatVND(transaction.getFinalPrice()));
 
+            // Determine user role and other party
+            if (isUserBuyer(transaction)) {
+                roleText.setText("You bought from:");
+                otherPartyText.setText(transaction.getSellerName());
+            } else {
+                roleText.setText("You sold to:");
+                otherPartyText.setText(transaction.getBuyerName());
+            }
+
+            bindStatus(transaction);
+
+            // Set click listeners
+            setupClickListeners(transaction);
+        }
+
+        void bindStatus(Transaction transaction) {
             // Improved status display with icons and clear text
             setStatusWithIcon(transaction.getStatus());
 
@@ -112,23 +183,13 @@ public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.
                 dateText.setText("Started: " + sdf.format(new Date(transaction.getCreatedAt())));
             }
 
-            // Determine user role and other party
-            String currentUserId = com.example.tradeup_app.firebase.FirebaseManager.getInstance().getCurrentUserId();
-            boolean isUserBuyer = currentUserId != null && currentUserId.equals(transaction.getBuyerId());
-
-            if (isUserBuyer) {
-                roleText.setText("You bought from:");
-                otherPartyText.setText(transaction.getSellerName());
-            } else {
-                roleText.setText("You sold to:");
-                otherPartyText.setText(transaction.getBuyerName());
-            }
-
             // Setup buttons based on transaction status and user role
-            setupButtons(transaction, isUserBuyer);
+            setupButtons(transaction, isUserBuyer(transaction));
+        }
 
-            // Set click listeners
-            setupClickListeners(transaction);
+        private boolean isUserBuyer(Transaction transaction) {
+            String currentUserId = com.example.tradeup_app.firebase.FirebaseManager.getInstance().getCurrentUserId();
+            return currentUserId != null && currentUserId.equals(transaction.getBuyerId());
         }
 
         private void setStatusColor(String status) {
@@ -125,6 +125,9 @@ public class MainActivity extends AppCompatActivity {
             startActivity(intent);
             return true;
         } else if (id == R.id.action_logout) {
+            com.example.tradeup_app.services.BlocklistCache blocklist =
+                com.example.tradeup_app.services.BlocklistCache.getInstance();
+            if (blocklist != null) blocklist.clear();
             FirebaseAuth.getInstance().signOut();
             Intent intent = new Intent(this, LoginActivity.class);
             intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
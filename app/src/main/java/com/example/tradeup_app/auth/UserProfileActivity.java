@@ -23,6 +23,8 @@ import com.cloudinary.android.callback.UploadCallback;
 import com.example.tradeup_app.auth.Domain.UserModel;
 import com.example.tradeup_app.auth.Helper.CurrentUser;
 import com.example.tradeup_app.R;
+import com.example.tradeup_app.firebase.FirebaseManager;
+import com.example.tradeup_app.models.RatingStats;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.database.*;
@@ -107,6 +109,7 @@ public class UserProfileActivity extends AppCompatActivity {
                 if (user != null) {
                     displayNameTextView.setText(user.getUsername());
                     ratingTextView.setText(getString(R.string.rating_format, user.getRating()));
+                    loadRatingStats();
                     bioEditText.setText(user.getBio());
                     contactEditText.setText(user.getContact());
 
@@ -372,4 +375,22 @@ public class UserProfileActivity extends AppCompatActivity {
                 })
                 .dispatch();
     }
+
+    private void loadRatingStats() {
+        FirebaseUser firebaseUser = FirebaseAuth.getInstance().getCurrentUser();
+        if (firebaseUser == null) return;
+
+        FirebaseManager.getInstance().getRatingStats(firebaseUser.getUid(), new FirebaseManager.RatingStatsCallback() {
+            @Override
+            public void onStatsLoaded(RatingStats stats) {
+                if (isFinishing() || stats == null || stats.getCount() == 0) return;
+                ratingTextView.setText(getString(R.string.rating_with_count, stats.average(), stats.getCount()));
+            }
+
+            @Override
+            public void onError(String error) {
+                android.util.Log.w("UserProfileActivity", "Failed to load rating stats: " + error);
+            }
+        });
+    }
 }
\ No newline at end of file
@@ -18,7 +18,9 @@ import com.bumptech.glide.Glide;
 import com.example.tradeup_app.R;
 import com.example.tradeup_app.adapters.ProductAdapter;
 import com.example.tradeup_app.auth.Domain.UserModel;
+import com.example.tradeup_app.firebase.FirebaseManager;
 import com.example.tradeup_app.models.Product;
+import com.example.tradeup_app.models.RatingStats;
 import com.example.tradeup_app.utils.ReportUtils;
 import com.example.tradeup_app.utils.VNDPriceFormatter;
 import com.google.android.material.button.MaterialButton;
@@ -209,6 +211,7 @@ public class UserProfileViewActivity extends AppCompatActivity {
         } else {
             ratingText.setText(R.string.new_user);
         }
+        loadRatingStats();
 
         // For now, show placeholder transaction count
         transactionCountText.setText(R.string.view_listings_activity);
@@ -247,7 +250,7 @@ public class UserProfileViewActivity extends AppCompatActivity {
                                 userProducts.add(product);
                             }
                         }
-                        productAdapter.notifyItemRangeInserted(0, userProducts.size());
+                        productAdapter.updateProducts(userProducts);
 
                         // Update transaction count based on listings
                         int totalListings = userProducts.size();
@@ -510,4 +513,22 @@ public class UserProfileViewActivity extends AppCompatActivity {
         intent.putExtra("USER_ID", userId);
         context.startActivity(intent);
     }
+
+    /**
+     * Show the rating from the aggregates node, keeping the profile value when there are none yet
+     */
+    private void loadRatingStats() {
+        FirebaseManager.getInstance().getRatingStats(targetUserId, new FirebaseManager.RatingStatsCallback() {
+            @Override
+            public void onStatsLoaded(RatingStats stats) {
+                if (isFinishing() || stats == null || stats.getCount() == 0) return;
+                ratingText.setText(getString(R.string.rating_with_count, stats.average(), stats.getCount()));
+            }
+
+            @Override
+            public void onError(String error) {
+                android.util.Log.w("UserProfileViewActivity", "Failed to load rating stats: " + error);
+            }
+        });
+    }
 }
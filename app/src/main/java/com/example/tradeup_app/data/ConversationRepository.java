@@ -0,0 +1,13 @@
+package com.example.tradeup_app.data;
+
+import com.example.tradeup_app.models.Conversation;
+
+import java.util.List;
+
+public interface ConversationRepository {
+    // Conversations the user takes part in, most recent activity first
+    void getConversationsForUser(String userId, DataCallback<List<Conversation>> callback);
+
+    // Record that userId has read the conversation up to now
+    void markConversationRead(String conversationId, String userId, DataCallback<Void> callback);
+}
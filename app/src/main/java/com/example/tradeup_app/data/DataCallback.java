@@ -0,0 +1,9 @@
+package com.example.tradeup_app.data;
+
+/**
+ * Result of a repository call. Implementations call exactly one of the two methods.
+ */
+public interface DataCallback<T> {
+    void onSuccess(T result);
+    void onError(String error);
+}
@@ -0,0 +1,13 @@
+package com.example.tradeup_app.data;
+
+import com.example.tradeup_app.models.Message;
+
+import java.util.List;
+
+public interface MessageRepository {
+    // The last limit messages of a conversation, oldest first
+    void getLatestMessages(String conversationId, int limit, DataCallback<List<Message>> callback);
+
+    // Store the message and update the conversation's last message
+    void sendMessage(Message message, DataCallback<Void> callback);
+}
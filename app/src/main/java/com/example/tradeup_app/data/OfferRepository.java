@@ -0,0 +1,18 @@
+package com.example.tradeup_app.data;
+
+import com.example.tradeup_app.models.Offer;
+
+import java.util.List;
+
+public interface OfferRepository {
+    // result is the id of the new offer
+    void submitOffer(Offer offer, DataCallback<String> callback);
+
+    void getOffersForProduct(String productId, DataCallback<List<Offer>> callback);
+
+    void getOffersForSeller(String sellerId, DataCallback<List<Offer>> callback);
+
+    void getOffersForBuyer(String buyerId, DataCallback<List<Offer>> callback);
+
+    void updateOfferStatus(String offerId, String status, DataCallback<Void> callback);
+}
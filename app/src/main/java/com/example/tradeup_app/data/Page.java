@@ -0,0 +1,21 @@
+package com.example.tradeup_app.data;
+
+import java.util.List;
+
+/**
+ * One page of a cursor-paged list
+ */
+public class Page<T> {
+    public final List<T> items;
+    // Cursor for the following page, or null when there is none
+    public final String nextCursor;
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.tradeup_app.data;
+
+import com.example.tradeup_app.models.Product;
+
+import java.util.List;
+
+public interface ProductRepository {
+    /**
+     * Feed page, newest first. Pass a null cursor for the first page, then the previous page's nextCursor.
+     */
+    void getProductsPage(String cursor, int pageSize, DataCallback<Page<Product>> callback);
+
+    // result is null when the product does not exist
+    void getProduct(String productId, DataCallback<Product> callback);
+
+    // Products whose title, description or tags contain every word of the query
+    void searchProducts(String query, DataCallback<List<Product>> callback);
+
+    // result is the id of the new product
+    void addProduct(Product product, DataCallback<String> callback);
+
+    void updateProductStatus(String productId, String status, DataCallback<Void> callback);
+}
@@ -0,0 +1,16 @@
+package com.example.tradeup_app.data;
+
+import com.example.tradeup_app.models.Rating;
+import com.example.tradeup_app.models.RatingStats;
+
+import java.util.List;
+
+public interface RatingRepository {
+    void submitRating(Rating rating, DataCallback<Void> callback);
+
+    // Ratings the user received
+    void getRatingsForUser(String userId, DataCallback<List<Rating>> callback);
+
+    // Aggregates of the ratings the user received, null when the user has none
+    void getRatingStats(String userId, DataCallback<RatingStats> callback);
+}
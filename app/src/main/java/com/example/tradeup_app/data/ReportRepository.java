@@ -0,0 +1,18 @@
+package com.example.tradeup_app.data;
+
+import com.example.tradeup_app.models.Report;
+
+import java.util.List;
+
+public interface ReportRepository {
+    void submitReport(Report report, DataCallback<Void> callback);
+
+    // Reports still waiting for an admin
+    void getPendingReports(DataCallback<List<Report>> callback);
+
+    // One page of the moderation queue for a status, newest first; null cursor for the first page
+    void getReportQueuePage(String status, String cursor, int pageSize, DataCallback<Page<Report>> callback);
+
+    void updateReportStatus(String reportId, String status, String adminId, String adminNotes,
+                            String actionTaken, DataCallback<Void> callback);
+}
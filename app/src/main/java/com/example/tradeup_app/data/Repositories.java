@@ -0,0 +1,68 @@
+package com.example.tradeup_app.data;
+
+/**
+ * Process-wide access to the data repositories.
+ * The application installs the Firebase implementation at startup; benchmarks and tests can
+ * install the in-memory one instead, so the same query paths run without a device.
+ */
+public final class Repositories {
+    private static ProductRepository products;
+    private static ConversationRepository conversations;
+    private static MessageRepository messages;
+    private static OfferRepository offers;
+    private static TransactionRepository transactions;
+    private static RatingRepository ratings;
+    private static ReportRepository reports;
+
+    private Repositories() {
+    }
+
+    /**
+     * Install one backend that implements every repository
+     */
+    public static synchronized <T extends ProductRepository & ConversationRepository & MessageRepository
+            & OfferRepository & TransactionRepository & RatingRepository & ReportRepository> void install(T backend) {
+        products = backend;
+        conversations = backend;
+        messages = backend;
+        offers = backend;
+        transactions = backend;
+        ratings = backend;
+        reports = backend;
+    }
+
+    public static synchronized ProductRepository products() {
+        return require(products);
+    }
+
+    public static synchronized ConversationRepository conversations() {
+        return require(conversations);
+    }
+
+    public static synchronized MessageRepository messages() {
+        return require(messages);
+    }
+
+    public static synchronized OfferRepository offers() {
+        return require(offers);
+    }
+
+    public static synchronized TransactionRepository transactions() {
+        return require(transactions);
+    }
+
+    public static synchronized RatingRepository ratings() {
+        return require(ratings);
+    }
+
+    public static synchronized ReportRepository reports() {
+        return require(reports);
+    }
+
+    private static <R> R require(R repository) {
+        if (repository == null) {
+            throw new IllegalStateException("Repositories.install() has not been called");
+        }
+        return repository;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.tradeup_app.data;
+
+import com.example.tradeup_app.models.Transaction;
+
+import java.util.List;
+
+public interface TransactionRepository {
+    // result is the id of the new transaction
+    void createTransaction(Transaction transaction, DataCallback<String> callback);
+
+    // Transactions where the user is buyer or seller
+    void getTransactionsForUser(String userId, DataCallback<List<Transaction>> callback);
+
+    void updateTransactionStatus(String transactionId, String status, DataCallback<Void> callback);
+}
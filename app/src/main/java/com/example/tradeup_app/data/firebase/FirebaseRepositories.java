@@ -0,0 +1,333 @@
+package com.example.tradeup_app.data.firebase;
+
+import com.example.tradeup_app.data.ConversationRepository;
+import com.example.tradeup_app.data.DataCallback;
+import com.example.tradeup_app.data.MessageRepository;
+import com.example.tradeup_app.data.OfferRepository;
+import com.example.tradeup_app.data.Page;
+import com.example.tradeup_app.data.ProductRepository;
+import com.example.tradeup_app.data.RatingRepository;
+import com.example.tradeup_app.data.ReportRepository;
+import com.example.tradeup_app.data.TransactionRepository;
+import com.example.tradeup_app.data.mapping.ModelMappers;
+import com.example.tradeup_app.firebase.FirebaseManager;
+import com.example.tradeup_app.firebase.SnapshotDecoder;
+import com.example.tradeup_app.models.Conversation;
+import com.example.tradeup_app.models.Message;
+import com.example.tradeup_app.models.Offer;
+import com.example.tradeup_app.models.Product;
+import com.example.tradeup_app.models.Rating;
+import com.example.tradeup_app.models.RatingStats;
+import com.example.tradeup_app.models.Report;
+import com.example.tradeup_app.models.Transaction;
+import com.google.android.gms.tasks.OnCompleteListener;
+
+import java.util.List;
+
+/**
+ * Repositories backed by the Realtime Database. Queries and writes go through FirebaseManager,
+ * so caching, indexes and multi-path writes stay in one place.
+ */
+public class FirebaseRepositories implements ProductRepository, ConversationRepository, MessageRepository,
+        OfferRepository, TransactionRepository, RatingRepository, ReportRepository {
+
+    private final FirebaseManager firebaseManager;
+
+    public FirebaseRepositories(FirebaseManager firebaseManager) {
+        this.firebaseManager = firebaseManager;
+    }
+
+    // ==================== PRODUCTS ====================
+
+    @Override
+    public void getProductsPage(String cursor, int pageSize, DataCallback<Page<Product>> callback) {
+        firebaseManager.getProductsPage(cursor, pageSize, new FirebaseManager.ProductPageCallback() {
+            @Override
+            public void onPageLoaded(List<Product> products, String nextCursor) {
+                callback.onSuccess(new Page<>(products, nextCursor));
+            }
+
+            @Override
+            public void onError(String error) {
+                callback.onError(error);
+            }
+        });
+    }
+
+    @Override
+    public void getProduct(String productId, DataCallback<Product> callback) {
+        firebaseManager.getProductCached(productId, new com.example.tradeup_app.utils.EntityCache.LoadCallback<Product>() {
+            @Override
+            public void onLoaded(Product product) {
+                callback.onSuccess(product);
+            }
+
+            @Override
+            public void onError(String error) {
+                callback.onError(error);
+            }
+        });
+    }
+
+    @Override
+    public void searchProducts(String query, DataCallback<List<Product>> callback) {
+        firebaseManager.searchProducts(query, null, null, 0, 0, null, productCallback(callback));
+    }
+
+    @Override
+    public void addProduct(Product product, DataCallback<String> callback) {
+        firebaseManager.addProduct(product, task -> {
+            if (task.isSuccessful() && product.getId() != null) {
+                callback.onSuccess(product.getId());
+            } else {
+                callback.onError(errorOf(task, "Failed to add product"));
+            }
+        });
+    }
+
+    @Override
+    public void updateProductStatus(String productId, String status, DataCallback<Void> callback) {
+        firebaseManager.updateProductStatus(productId, status, voidListener(callback));
+    }
+
+    // ==================== CONVERSATIONS AND MESSAGES ====================
+
+    @Override
+    public void getConversationsForUser(String userId, DataCallback<List<Conversation>> callback) {
+        firebaseManager.getConversationsForUser(userId, new FirebaseManager.ConversationCallback() {
+            @Override
+            public void onConversationsLoaded(List<Conversation> conversations) {
+                callback.onSuccess(conversations);
+            }
+
+            @Override
+            public void onError(String error) {
+                callback.onError(error);
+            }
+        });
+    }
+
+    @Override
+    public void markConversationRead(String conversationId, String userId, DataCallback<Void> callback) {
+        firebaseManager.getDatabase()
+            .getReference(FirebaseManager.CONVERSATIONS_NODE)
+            .child(conversationId)
+            .child("lastReadTimes")
+            .child(userId)
+            .setValue(System.currentTimeMillis())
+            .addOnCompleteListener(voidListener(callback));
+    }
+
+    @Override
+    public void getLatestMessages(String conversationId, int limit, DataCallback<List<Message>> callback) {
+        firebaseManager.getDatabase()
+            .getReference(FirebaseManager.MESSAGES_NODE)
+            .orderByChild("conversationId")
+            .equalTo(conversationId)
+            .limitToLast(limit)
+            .get()
+            .addOnSuccessListener(snapshot -> SnapshotDecoder.submit(() -> {
+                List<Message> messages = SnapshotDecoder.decodeChildren(snapshot, ModelMappers.MESSAGE);
+                messages.sort((m1, m2) -> Long.compare(m1.getTimestamp(), m2.getTimestamp()));
+                return messages;
+            }, callback::onSuccess, e -> callback.onError(e.getMessage())))
+            .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    }
+
+    @Override
+    public void sendMessage(Message message, DataCallback<Void> callback) {
+        firebaseManager.sendMessage(message, voidListener(callback));
+    }
+
+    // ==================== OFFERS ====================
+
+    @Override
+    public void submitOffer(Offer offer, DataCallback<String> callback) {
+        firebaseManager.submitOffer(offer, task -> {
+            if (task.isSuccessful()) {
+                callback.onSuccess(offer.getId());
+            } else {
+                callback.onError(errorOf(task, "Failed to submit offer"));
+            }
+        });
+    }
+
+    @Override
+    public void getOffersForProduct(String productId, DataCallback<List<Offer>> callback) {
+        firebaseManager.getOffersForProduct(productId, offerCallback(callback));
+    }
+
+    @Override
+    public void getOffersForSeller(String sellerId, DataCallback<List<Offer>> callback) {
+        firebaseManager.getOffersForSeller(sellerId, offerCallback(callback));
+    }
+
+    @Override
+    public void getOffersForBuyer(String buyerId, DataCallback<List<Offer>> callback) {
+        firebaseManager.getOffersForBuyer(buyerId, offerCallback(callback));
+    }
+
+    @Override
+    public void updateOfferStatus(String offerId, String status, DataCallback<Void> callback) {
+        firebaseManager.updateOfferStatus(offerId, status, voidListener(callback));
+    }
+
+    // ==================== TRANSACTIONS ====================
+
+    @Override
+    public void createTransaction(Transaction transaction, DataCallback<String> callback) {
+        firebaseManager.saveTransaction(transaction, new FirebaseManager.OnTransactionSavedListener() {
+            @Override
+            public void onSuccess(String transactionId) {
+                callback.onSuccess(transactionId);
+            }
+
+            @Override
+            public void onError(String error) {
+                callback.onError(error);
+            }
+        });
+    }
+
+    @Override
+    public void getTransactionsForUser(String userId, DataCallback<List<Transaction>> callback) {
+        firebaseManager.getTransactionsForUser(userId, new FirebaseManager.TransactionCallback() {
+            @Override
+            public void onTransactionsLoaded(List<Transaction> transactions) {
+                callback.onSuccess(transactions);
+            }
+
+            @Override
+            public void onError(String error) {
+                callback.onError(error);
+            }
+        });
+    }
+
+    @Override
+    public void updateTransactionStatus(String transactionId, String status, DataCallback<Void> callback) {
+        firebaseManager.updateTransactionStatus(transactionId, status, voidListener(callback));
+    }
+
+    // ==================== RATINGS AND REPORTS ====================
+
+    @Override
+    public void submitRating(Rating rating, DataCallback<Void> callback) {
+        firebaseManager.submitRating(rating, voidListener(callback));
+    }
+
+    @Override
+    public void getRatingsForUser(String userId, DataCallback<List<Rating>> callback) {
+        firebaseManager.getRatingsForUser(userId, new FirebaseManager.RatingCallback() {
+            @Override
+            public void onRatingsLoaded(List<Rating> ratings) {
+                callback.onSuccess(ratings);
+            }
+
+            @Override
+            public void onError(String error) {
+                callback.onError(error);
+            }
+        });
+    }
+
+    @Override
+    public void getRatingStats(String userId, DataCallback<RatingStats> callback) {
+        firebaseManager.getRatingStats(userId, new FirebaseManager.RatingStatsCallback() {
+            @Override
+            public void onStatsLoaded(RatingStats stats) {
+                callback.onSuccess(stats);
+            }
+
+            @Override
+            public void onError(String error) {
+                callback.onError(error);
+            }
+        });
+    }
+
+    @Override
+    public void submitReport(Report report, DataCallback<Void> callback) {
+        firebaseManager.submitReport(report, voidListener(callback));
+    }
+
+    @Override
+    public void getPendingReports(DataCallback<List<Report>> callback) {
+        firebaseManager.getReportsForAdmin(new FirebaseManager.ReportCallback() {
+            @Override
+            public void onReportsLoaded(List<Report> reports) {
+                callback.onSuccess(reports);
+            }
+
+            @Override
+            public void onError(String error) {
+                callback.onError(error);
+            }
+        });
+    }
+
+    @Override
+    public void getReportQueuePage(String status, String cursor, int pageSize, DataCallback<Page<Report>> callback) {
+        firebaseManager.getReportQueuePage(status, cursor, pageSize, new FirebaseManager.ReportPageCallback() {
+            @Override
+            public void onPageLoaded(List<Report> reports, String nextCursor) {
+                callback.onSuccess(new Page<>(reports, nextCursor));
+            }
+
+            @Override
+            public void onError(String error) {
+                callback.onError(error);
+            }
+        });
+    }
+
+    @Override
+    public void updateReportStatus(String reportId, String status, String adminId, String adminNotes,
+                                   String actionTaken, DataCallback<Void> callback) {
+        firebaseManager.updateReportStatus(reportId, status, adminId, adminNotes, actionTaken, voidListener(callback));
+    }
+
+    // ==================== ADAPTERS ====================
+
+    private static FirebaseManager.ProductCallback productCallback(DataCallback<List<Product>> callback) {
+        return new FirebaseManager.ProductCallback() {
+            @Override
+            public void onProductsLoaded(List<Product> products) {
+                callback.onSuccess(products);
+            }
+
+            @Override
+            public void onError(String error) {
+                callback.onError(error);
+            }
+        };
+    }
+
+    private static FirebaseManager.OfferCallback offerCallback(DataCallback<List<Offer>> callback) {
+        return new FirebaseManager.OfferCallback() {
+            @Override
+            public void onOffersLoaded(List<Offer> offers) {
+                callback.onSuccess(offers);
+            }
+
+            @Override
+            public void onError(String error) {
+                callback.onError(error);
+            }
+        };
+    }
+
+    private static OnCompleteListener<Void> voidListener(DataCallback<Void> callback) {
+        return task -> {
+            if (task.isSuccessful()) {
+                callback.onSuccess(null);
+            } else {
+                callback.onError(errorOf(task, "Write failed"));
+            }
+        };
+    }
+
+    private static String errorOf(com.google.android.gms.tasks.Task<?> task, String fallback) {
+        return task.getException() != null ? task.getException().getMessage() : fallback;
+    }
+}
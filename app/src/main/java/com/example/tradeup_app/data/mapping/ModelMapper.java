@@ -0,0 +1,16 @@
+package com.example.tradeup_app.data.mapping;
+
+import java.util.Map;
+
+/**
+ * Builds a model from the plain value of a database node, the Map that
+ * DataSnapshot.getValue() returns. No reflection, so it is cheap enough for large lists and
+ * safe to run off the main thread.
+ */
+public interface ModelMapper<T> {
+    /**
+     * @param key   the node key, set as the model id
+     * @param value the node's fields; absent fields keep the model's defaults
+     */
+    T map(String key, Map<String, Object> value);
+}
@@ -0,0 +1,261 @@
+package com.example.tradeup_app.data.mapping;
+
+import com.example.tradeup_app.models.Conversation;
+import com.example.tradeup_app.models.Message;
+import com.example.tradeup_app.models.Product;
+import com.example.tradeup_app.models.Report;
+import com.example.tradeup_app.models.Transaction;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written mappers for the models read in bulk, matching the property names Firebase's
+ * reflective mapper uses (isX() getters map to "x"). Unknown fields are ignored and fields of
+ * the wrong type keep the default, where the reflective mapper would throw.
+ */
+public final class ModelMappers {
+
+    private ModelMappers() {}
+
+    public static final ModelMapper<Product> PRODUCT = (key, value) -> {
+        Fields f = new Fields(value);
+        Product p = new Product();
+        p.setId(key);
+        p.setTitle(f.string("title", p.getTitle()));
+        p.setDescription(f.string("description", p.getDescription()));
+        p.setPrice(f.doubleValue("price", p.getPrice()));
+        p.setNegotiable(f.bool("negotiable", p.isNegotiable()));
+        p.setCategory(f.string("category", p.getCategory()));
+        p.setCondition(f.string("condition", p.getCondition()));
+        p.setLocation(f.string("location", p.getLocation()));
+        p.setSellerId(f.string("sellerId", p.getSellerId()));
+        p.setSellerName(f.string("sellerName", p.getSellerName()));
+        p.setImageUrls(f.stringList("imageUrls", p.getImageUrls()));
+        // customTags is the legacy name of the same list
+        p.setTags(f.stringList("tags", f.stringList("customTags", p.getTags())));
+        p.setCreatedAt(f.longValue("createdAt", p.getCreatedAt()));
+        p.setUpdatedAt(f.longValue("updatedAt", p.getUpdatedAt()));
+        p.setStatus(f.string("status", p.getStatus()));
+        p.setViewCount(f.intValue("viewCount", p.getViewCount()));
+        p.setLikeCount(f.intValue("likeCount", p.getLikeCount()));
+        p.setLatitude(f.doubleValue("latitude", p.getLatitude()));
+        p.setLongitude(f.doubleValue("longitude", p.getLongitude()));
+        p.setGeohash(f.string("geohash", p.getGeohash()));
+        p.setItemBehavior(f.string("itemBehavior", p.getItemBehavior()));
+        p.setInteractionCount(f.intValue("interactionCount", p.getInteractionCount()));
+        p.setLastViewedAt(f.longValue("lastViewedAt", p.getLastViewedAt()));
+        p.setInteractionHistory(f.stringList("interactionHistory", p.getInteractionHistory()));
+        p.setSoldAt(f.longValue("soldAt", p.getSoldAt()));
+        p.setBuyerId(f.string("buyerId", p.getBuyerId()));
+        return p;
+    };
+
+    public static final ModelMapper<Message> MESSAGE = (key, value) -> {
+        Fields f = new Fields(value);
+        Message m = new Message();
+        m.setId(key);
+        m.setConversationId(f.string("conversationId", m.getConversationId()));
+        m.setSenderId(f.string("senderId", m.getSenderId()));
+        m.setReceiverId(f.string("receiverId", m.getReceiverId()));
+        m.setContent(f.string("content", m.getContent()));
+        m.setMessageType(f.string("messageType", m.getMessageType()));
+        m.setTimestamp(f.longValue("timestamp", m.getTimestamp()));
+        // Stored twice, as "read" (isRead()) and "isRead" (getIsRead())
+        m.setRead(f.bool("read", f.bool("isRead", m.isRead())));
+        m.setProductId(f.string("productId", m.getProductId()));
+        m.setOfferAmount(f.doubleValue("offerAmount", m.getOfferAmount()));
+        m.setSenderName(f.string("senderName", m.getSenderName()));
+        m.setImageUrl(f.string("imageUrl", m.getImageUrl()));
+        m.setImageFileName(f.string("imageFileName", m.getImageFileName()));
+        m.setDeleted(f.bool("deleted", m.isDeleted()));
+        m.setDeletedBy(f.string("deletedBy", m.getDeletedBy()));
+        m.setDeletedAt(f.longValue("deletedAt", m.getDeletedAt()));
+        m.setDeletedForEveryone(f.bool("deletedForEveryone", m.isDeletedForEveryone()));
+        m.setReported(f.bool("reported", m.isReported()));
+        m.setReportReason(f.string("reportReason", m.getReportReason()));
+        m.setEncrypted(f.bool("encrypted", m.isEncrypted()));
+        m.setOfferId(f.string("offerId", m.getOfferId()));
+        m.setOfferStatus(f.string("offerStatus", m.getOfferStatus()));
+        m.setOriginalPrice(f.doubleValue("originalPrice", m.getOriginalPrice()));
+        m.setOfferMessage(f.string("offerMessage", m.getOfferMessage()));
+        return m;
+    };
+
+    public static final ModelMapper<Conversation> CONVERSATION = (key, value) -> {
+        Fields f = new Fields(value);
+        Conversation c = new Conversation();
+        c.setId(key);
+        c.setProductId(f.string("productId", c.getProductId()));
+        c.setProductImageUrl(f.string("productImageUrl", c.getProductImageUrl()));
+        c.setBuyerId(f.string("buyerId", c.getBuyerId()));
+        c.setSellerId(f.string("sellerId", c.getSellerId()));
+        c.setBuyerName(f.string("buyerName", c.getBuyerName()));
+        c.setSellerName(f.string("sellerName", c.getSellerName()));
+        c.setUnreadCount(f.intValue("unreadCount", c.getUnreadCount()));
+        c.setCreatedAt(f.longValue("createdAt", c.getCreatedAt()));
+        c.setBlockedUsers(f.boolMap("blockedUsers", c.getBlockedUsers()));
+        c.setLastReadTimes(f.longMap("lastReadTimes", c.getLastReadTimes()));
+        c.setLastMessageSenderId(f.string("lastMessageSenderId", c.getLastMessageSenderId()));
+        c.setReportedBy(f.string("reportedBy", c.getReportedBy()));
+        c.setReportReason(f.string("reportReason", c.getReportReason()));
+        c.setReportedAt(f.longValue("reportedAt", c.getReportedAt()));
+        c.setEncrypted(f.bool("encrypted", c.isEncrypted()));
+        c.setMessageCount(f.intValue("messageCount", c.getMessageCount()));
+
+        // These setters touch updatedAt or the report counters, so the stored values are applied after them
+        if (f.has("productTitle")) c.setProductTitle(f.string("productTitle", null));
+        if (f.has("lastMessage")) c.setLastMessage(f.string("lastMessage", null));
+        if (f.has("lastMessageTime")) c.setLastMessageTime(f.longValue("lastMessageTime", 0));
+        if (f.has("active")) c.setActive(f.bool("active", true));
+        if (f.has("blocked")) c.setBlocked(f.bool("blocked", false));
+        if (f.has("products")) c.setProducts(f.map("products"));
+        if (f.has("reported")) c.setReported(f.bool("reported", false));
+        c.setReportCount(f.intValue("reportCount", c.getReportCount()));
+        c.setLastReportedAt(f.longValue("lastReportedAt", c.getLastReportedAt()));
+        c.setUpdatedAt(f.longValue("updatedAt", c.getUpdatedAt()));
+        return c;
+    };
+
+    public static final ModelMapper<Transaction> TRANSACTION = (key, value) -> {
+        Fields f = new Fields(value);
+        Transaction t = new Transaction();
+        t.setId(key);
+        t.setProductId(f.string("productId", t.getProductId()));
+        t.setProductTitle(f.string("productTitle", t.getProductTitle()));
+        t.setBuyerId(f.string("buyerId", t.getBuyerId()));
+        t.setBuyerName(f.string("buyerName", t.getBuyerName()));
+        t.setSellerId(f.string("sellerId", t.getSellerId()));
+        t.setSellerName(f.string("sellerName", t.getSellerName()));
+        t.setFinalPrice(f.doubleValue("finalPrice", t.getFinalPrice()));
+        t.setStatus(f.string("status", t.getStatus()));
+        t.setCreatedAt(f.longValue("createdAt", t.getCreatedAt()));
+        t.setCompletedAt(f.longValue("completedAt", t.getCompletedAt()));
+        t.setOfferId(f.string("offerId", t.getOfferId()));
+        t.setNotes(f.string("notes", t.getNotes()));
+        t.setBuyerRated(f.bool("buyerRated", t.isBuyerRated()));
+        t.setSellerRated(f.bool("sellerRated", t.isSellerRated()));
+        t.setPaymentId(f.string("paymentId", t.getPaymentId()));
+        t.setPaymentStatus(f.string("paymentStatus", t.getPaymentStatus()));
+        t.setStripePaymentIntentId(f.string("stripePaymentIntentId", t.getStripePaymentIntentId()));
+        t.setPaymentMethod(f.string("paymentMethod", t.getPaymentMethod()));
+        t.setPaidAt(f.longValue("paidAt", t.getPaidAt()));
+        t.setReceiptUrl(f.string("receiptUrl", t.getReceiptUrl()));
+        t.setShippingFee(f.doubleValue("shippingFee", t.getShippingFee()));
+        t.setCancelled(f.bool("cancelled", t.isCancelled()));
+        return t;
+    };
+
+    public static final ModelMapper<Report> REPORT = (key, value) -> {
+        Fields f = new Fields(value);
+        Report r = new Report();
+        r.setId(key);
+        r.setReporterId(f.string("reporterId", r.getReporterId()));
+        r.setReporterName(f.string("reporterName", r.getReporterName()));
+        r.setReportedUserId(f.string("reportedUserId", r.getReportedUserId()));
+        r.setReportedUserName(f.string("reportedUserName", r.getReportedUserName()));
+        r.setReportedItemId(f.string("reportedItemId", r.getReportedItemId()));
+        r.setReportType(f.string("reportType", r.getReportType()));
+        r.setReason(f.string("reason", r.getReason()));
+        r.setDescription(f.string("description", r.getDescription()));
+        r.setStatus(f.string("status", r.getStatus()));
+        r.setCreatedAt(f.longValue("createdAt", r.getCreatedAt()));
+        r.setReviewedAt(f.longValue("reviewedAt", r.getReviewedAt()));
+        r.setAdminId(f.string("adminId", r.getAdminId()));
+        r.setAdminNotes(f.string("adminNotes", r.getAdminNotes()));
+        r.setActionTaken(f.string("actionTaken", r.getActionTaken()));
+        r.setReportedItemTitle(f.string("reportedItemTitle", r.getReportedItemTitle()));
+        return r;
+    };
+
+    /**
+     * Typed reads from a node's plain value. Firebase hands out Long for whole numbers and
+     * Double otherwise; arrays with gaps arrive as maps keyed by index.
+     */
+    private static final class Fields {
+        private final Map<String, Object> value;
+
+        Fields(Map<String, Object> value) {
+            this.value = value;
+        }
+
+        boolean has(String name) {
+            return value.get(name) != null;
+        }
+
+        String string(String name, String fallback) {
+            Object v = value.get(name);
+            if (v == null) return fallback;
+            return v instanceof String ? (String) v : String.valueOf(v);
+        }
+
+        long longValue(String name, long fallback) {
+            Object v = value.get(name);
+            return v instanceof Number ? ((Number) v).longValue() : fallback;
+        }
+
+        int intValue(String name, int fallback) {
+            Object v = value.get(name);
+            return v instanceof Number ? ((Number) v).intValue() : fallback;
+        }
+
+        double doubleValue(String name, double fallback) {
+            Object v = value.get(name);
+            return v instanceof Number ? ((Number) v).doubleValue() : fallback;
+        }
+
+        boolean bool(String name, boolean fallback) {
+            Object v = value.get(name);
+            return v instanceof Boolean ? (Boolean) v : fallback;
+        }
+
+        List<String> stringList(String name, List<String> fallback) {
+            Object v = value.get(name);
+            Iterable<?> items;
+            if (v instanceof List) {
+                items = (List<?>) v;
+            } else if (v instanceof Map) {
+                items = ((Map<?, ?>) v).values();
+            } else {
+                return fallback;
+            }
+            List<String> list = new ArrayList<>();
+            for (Object item : items) {
+                if (item != null) list.add(item instanceof String ? (String) item : String.valueOf(item));
+            }
+            return list;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> map(String name) {
+            Object v = value.get(name);
+            return v instanceof Map ? new HashMap<>((Map<String, Object>) v) : null;
+        }
+
+        Map<String, Boolean> boolMap(String name, Map<String, Boolean> fallback) {
+            Object v = value.get(name);
+            if (!(v instanceof Map)) return fallback;
+            Map<String, Boolean> map = new HashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) v).entrySet()) {
+                if (entry.getValue() instanceof Boolean) {
+                    map.put(String.valueOf(entry.getKey()), (Boolean) entry.getValue());
+                }
+            }
+            return map;
+        }
+
+        Map<String, Long> longMap(String name, Map<String, Long> fallback) {
+            Object v = value.get(name);
+            if (!(v instanceof Map)) return fallback;
+            Map<String, Long> map = new HashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) v).entrySet()) {
+                if (entry.getValue() instanceof Number) {
+                    map.put(String.valueOf(entry.getKey()), ((Number) entry.getValue()).longValue());
+                }
+            }
+            return map;
+        }
+    }
+}
@@ -0,0 +1,557 @@
+package com.example.tradeup_app.data.memory;
+
+import com.example.tradeup_app.data.ConversationRepository;
+import com.example.tradeup_app.data.DataCallback;
+import com.example.tradeup_app.data.MessageRepository;
+import com.example.tradeup_app.data.OfferRepository;
+import com.example.tradeup_app.data.Page;
+import com.example.tradeup_app.data.ProductRepository;
+import com.example.tradeup_app.data.RatingRepository;
+import com.example.tradeup_app.data.ReportRepository;
+import com.example.tradeup_app.data.TransactionRepository;
+import com.example.tradeup_app.models.Conversation;
+import com.example.tradeup_app.models.Message;
+import com.example.tradeup_app.models.Offer;
+import com.example.tradeup_app.models.Product;
+import com.example.tradeup_app.models.Rating;
+import com.example.tradeup_app.models.RatingStats;
+import com.example.tradeup_app.models.Report;
+import com.example.tradeup_app.models.Transaction;
+import com.example.tradeup_app.utils.ProductSearchIndex;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Repositories kept in process memory, for benchmarks and tests off the device.
+ * The data is organised like the indexed database paths (feed ordered by createdAt, per-user
+ * conversation and transaction lists, offers by product/seller/buyer), so query costs are
+ * comparable. With a latency range every result is delivered on a background thread after a
+ * random delay in that range; without one callbacks run synchronously on the calling thread.
+ *
+ * The put* methods seed data directly, without latency.
+ */
+public class InMemoryRepositories implements ProductRepository, ConversationRepository, MessageRepository,
+        OfferRepository, TransactionRepository, RatingRepository, ReportRepository {
+
+    // Newest first; the id breaks ties like the (createdAt, key) cursor of the Firebase feed
+    private static final Comparator<Product> FEED_ORDER = (p1, p2) -> {
+        int byTime = Long.compare(p2.getCreatedAt(), p1.getCreatedAt());
+        return byTime != 0 ? byTime : p2.getId().compareTo(p1.getId());
+    };
+
+    private final long minLatencyMs;
+    private final long maxLatencyMs;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicLong idSequence = new AtomicLong();
+
+    private final Map<String, Product> products = new HashMap<>();
+    private final TreeSet<Product> feed = new TreeSet<>(FEED_ORDER);
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+
+    private final Map<String, Conversation> conversations = new HashMap<>();
+    private final Map<String, Set<String>> userConversations = new HashMap<>();
+    // conversationId -> messages ordered by timestamp
+    private final Map<String, List<Message>> messages = new HashMap<>();
+
+    private final Map<String, Offer> offers = new HashMap<>();
+    private final Map<String, List<Offer>> offersByProduct = new HashMap<>();
+    private final Map<String, List<Offer>> offersBySeller = new HashMap<>();
+    private final Map<String, List<Offer>> offersByBuyer = new HashMap<>();
+
+    private final Map<String, Transaction> transactions = new HashMap<>();
+    private final Map<String, List<Transaction>> userTransactions = new HashMap<>();
+    private final Map<String, List<Rating>> ratingsByUser = new HashMap<>();
+    private final Map<String, Report> reports = new LinkedHashMap<>();
+
+    public InMemoryRepositories() {
+        this(0, 0);
+    }
+
+    /**
+     * @param minLatencyMs shortest simulated round trip
+     * @param maxLatencyMs longest simulated round trip; 0 delivers synchronously
+     */
+    public InMemoryRepositories(long minLatencyMs, long maxLatencyMs) {
+        if (minLatencyMs < 0 || maxLatencyMs < minLatencyMs) {
+            throw new IllegalArgumentException("Invalid latency range");
+        }
+        this.minLatencyMs = minLatencyMs;
+        this.maxLatencyMs = maxLatencyMs;
+        this.scheduler = maxLatencyMs > 0
+            ? Executors.newScheduledThreadPool(2, runnable -> {
+                Thread thread = new Thread(runnable, "in-memory-repository");
+                thread.setDaemon(true);
+                return thread;
+            })
+            : null;
+    }
+
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    // ==================== SEEDING ====================
+
+    public synchronized void putProduct(Product product) {
+        if (product.getId() == null) {
+            product.setId(nextId("p"));
+        }
+        Product previous = products.put(product.getId(), product);
+        if (previous != null) {
+            feed.remove(previous);
+        }
+        feed.add(product);
+        searchIndex.addOrUpdate(product);
+    }
+
+    public synchronized void putConversation(Conversation conversation) {
+        if (conversation.getId() == null) {
+            conversation.setId(nextId("c"));
+        }
+        conversations.put(conversation.getId(), conversation);
+        indexConversation(conversation.getBuyerId(), conversation.getId());
+        indexConversation(conversation.getSellerId(), conversation.getId());
+    }
+
+    public synchronized void putMessage(Message message) {
+        if (message.getId() == null) {
+            message.setId(nextId("m"));
+        }
+        if (message.getTimestamp() == 0) {
+            message.setTimestamp(System.currentTimeMillis());
+        }
+        List<Message> list = messages.get(message.getConversationId());
+        if (list == null) {
+            list = new ArrayList<>();
+            messages.put(message.getConversationId(), list);
+        }
+        list.add(message);
+        int last = list.size() - 1;
+        if (last > 0 && list.get(last - 1).getTimestamp() > message.getTimestamp()) {
+            list.sort((m1, m2) -> Long.compare(m1.getTimestamp(), m2.getTimestamp()));
+        }
+
+        Conversation conversation = conversations.get(message.getConversationId());
+        if (conversation != null && message.getTimestamp() >= conversation.getLastMessageTime()) {
+            conversation.setLastMessage(message.getContent());
+            conversation.setLastMessageTime(message.getTimestamp());
+            conversation.setLastMessageSenderId(message.getSenderId());
+        }
+    }
+
+    public synchronized void putOffer(Offer offer) {
+        if (offer.getId() == null) {
+            offer.setId(nextId("o"));
+        }
+        offers.put(offer.getId(), offer);
+        addTo(offersByProduct, offer.getProductId(), offer);
+        addTo(offersBySeller, offer.getSellerId(), offer);
+        addTo(offersByBuyer, offer.getBuyerId(), offer);
+    }
+
+    public synchronized void putTransaction(Transaction transaction) {
+        if (transaction.getId() == null) {
+            transaction.setId(nextId("t"));
+        }
+        transactions.put(transaction.getId(), transaction);
+        addTo(userTransactions, transaction.getBuyerId(), transaction);
+        if (transaction.getSellerId() != null && !transaction.getSellerId().equals(transaction.getBuyerId())) {
+            addTo(userTransactions, transaction.getSellerId(), transaction);
+        }
+    }
+
+    public synchronized void putRating(Rating rating) {
+        if (rating.getId() == null) {
+            rating.setId(nextId("r"));
+        }
+        addTo(ratingsByUser, rating.getRatedUserId(), rating);
+    }
+
+    public synchronized void putReport(Report report) {
+        if (report.getId() == null) {
+            report.setId(nextId("rp"));
+        }
+        reports.put(report.getId(), report);
+    }
+
+    // ==================== PRODUCTS ====================
+
+    @Override
+    public void getProductsPage(String cursor, int pageSize, DataCallback<Page<Product>> callback) {
+        Page<Product> page;
+        synchronized (this) {
+            Set<Product> remaining;
+            if (cursor == null) {
+                remaining = feed;
+            } else {
+                Product probe = parseCursor(cursor);
+                if (probe == null) {
+                    fail(callback, "Invalid page cursor: " + cursor);
+                    return;
+                }
+                remaining = feed.tailSet(probe, false);
+            }
+            List<Product> items = new ArrayList<>(pageSize);
+            boolean more = false;
+            for (Product product : remaining) {
+                if (items.size() == pageSize) {
+                    more = true;
+                    break;
+                }
+                items.add(product);
+            }
+            String nextCursor = null;
+            if (more) {
+                Product oldest = items.get(items.size() - 1);
+                nextCursor = oldest.getCreatedAt() + "_" + oldest.getId();
+            }
+            page = new Page<>(items, nextCursor);
+        }
+        deliver(callback, page);
+    }
+
+    @Override
+    public void getProduct(String productId, DataCallback<Product> callback) {
+        Product product;
+        synchronized (this) {
+            product = products.get(productId);
+        }
+        deliver(callback, product);
+    }
+
+    @Override
+    public void searchProducts(String query, DataCallback<List<Product>> callback) {
+        deliver(callback, searchIndex.search(query));
+    }
+
+    @Override
+    public void addProduct(Product product, DataCallback<String> callback) {
+        long now = System.currentTimeMillis();
+        product.setId(null);
+        product.setCreatedAt(now);
+        product.setUpdatedAt(now);
+        product.setStatus("Available");
+        putProduct(product);
+        deliver(callback, product.getId());
+    }
+
+    @Override
+    public void updateProductStatus(String productId, String status, DataCallback<Void> callback) {
+        synchronized (this) {
+            Product product = products.get(productId);
+            if (product == null) {
+                fail(callback, "Product not found: " + productId);
+                return;
+            }
+            product.setStatus(status);
+            product.setUpdatedAt(System.currentTimeMillis());
+        }
+        deliver(callback, null);
+    }
+
+    // ==================== CONVERSATIONS AND MESSAGES ====================
+
+    @Override
+    public void getConversationsForUser(String userId, DataCallback<List<Conversation>> callback) {
+        List<Conversation> result = new ArrayList<>();
+        synchronized (this) {
+            Set<String> ids = userConversations.get(userId);
+            if (ids != null) {
+                for (String id : ids) {
+                    Conversation conversation = conversations.get(id);
+                    if (conversation != null) result.add(conversation);
+                }
+            }
+        }
+        result.sort((c1, c2) -> Long.compare(c2.getLastMessageTime(), c1.getLastMessageTime()));
+        deliver(callback, result);
+    }
+
+    @Override
+    public void markConversationRead(String conversationId, String userId, DataCallback<Void> callback) {
+        synchronized (this) {
+            Conversation conversation = conversations.get(conversationId);
+            if (conversation == null) {
+                fail(callback, "Conversation not found: " + conversationId);
+                return;
+            }
+            Map<String, Long> lastReadTimes = conversation.getLastReadTimes();
+            if (lastReadTimes == null) {
+                lastReadTimes = new HashMap<>();
+                conversation.setLastReadTimes(lastReadTimes);
+            }
+            lastReadTimes.put(userId, System.currentTimeMillis());
+        }
+        deliver(callback, null);
+    }
+
+    @Override
+    public void getLatestMessages(String conversationId, int limit, DataCallback<List<Message>> callback) {
+        List<Message> result;
+        synchronized (this) {
+            List<Message> list = messages.get(conversationId);
+            result = list == null
+                ? new ArrayList<>()
+                : new ArrayList<>(list.subList(Math.max(0, list.size() - limit), list.size()));
+        }
+        deliver(callback, result);
+    }
+
+    @Override
+    public void sendMessage(Message message, DataCallback<Void> callback) {
+        message.setId(null);
+        message.setTimestamp(System.currentTimeMillis());
+        putMessage(message);
+        deliver(callback, null);
+    }
+
+    // ==================== OFFERS ====================
+
+    @Override
+    public void submitOffer(Offer offer, DataCallback<String> callback) {
+        offer.setId(null);
+        putOffer(offer);
+        deliver(callback, offer.getId());
+    }
+
+    @Override
+    public void getOffersForProduct(String productId, DataCallback<List<Offer>> callback) {
+        deliver(callback, copyOf(offersByProduct, productId));
+    }
+
+    @Override
+    public void getOffersForSeller(String sellerId, DataCallback<List<Offer>> callback) {
+        deliver(callback, copyOf(offersBySeller, sellerId));
+    }
+
+    @Override
+    public void getOffersForBuyer(String buyerId, DataCallback<List<Offer>> callback) {
+        deliver(callback, copyOf(offersByBuyer, buyerId));
+    }
+
+    @Override
+    public void updateOfferStatus(String offerId, String status, DataCallback<Void> callback) {
+        synchronized (this) {
+            Offer offer = offers.get(offerId);
+            if (offer == null) {
+                fail(callback, "Offer not found: " + offerId);
+                return;
+            }
+            offer.setStatus(status);
+            offer.setUpdatedAt(System.currentTimeMillis());
+        }
+        deliver(callback, null);
+    }
+
+    // ==================== TRANSACTIONS ====================
+
+    @Override
+    public void createTransaction(Transaction transaction, DataCallback<String> callback) {
+        transaction.setId(null);
+        putTransaction(transaction);
+        deliver(callback, transaction.getId());
+    }
+
+    @Override
+    public void getTransactionsForUser(String userId, DataCallback<List<Transaction>> callback) {
+        deliver(callback, copyOf(userTransactions, userId));
+    }
+
+    @Override
+    public void updateTransactionStatus(String transactionId, String status, DataCallback<Void> callback) {
+        synchronized (this) {
+            Transaction transaction = transactions.get(transactionId);
+            if (transaction == null) {
+                fail(callback, "Transaction not found: " + transactionId);
+                return;
+            }
+            transaction.setStatus(status);
+        }
+        deliver(callback, null);
+    }
+
+    // ==================== RATINGS AND REPORTS ====================
+
+    @Override
+    public void submitRating(Rating rating, DataCallback<Void> callback) {
+        rating.setId(null);
+        putRating(rating);
+        deliver(callback, null);
+    }
+
+    @Override
+    public void getRatingsForUser(String userId, DataCallback<List<Rating>> callback) {
+        deliver(callback, copyOf(ratingsByUser, userId));
+    }
+
+    @Override
+    public void getRatingStats(String userId, DataCallback<RatingStats> callback) {
+        RatingStats stats = null;
+        for (Rating rating : copyOf(ratingsByUser, userId)) {
+            if (stats == null) stats = new RatingStats();
+            stats.add(rating.getStars(), rating.getCreatedAt());
+        }
+        deliver(callback, stats);
+    }
+
+    @Override
+    public void submitReport(Report report, DataCallback<Void> callback) {
+        report.setId(null);
+        putReport(report);
+        deliver(callback, null);
+    }
+
+    @Override
+    public void getPendingReports(DataCallback<List<Report>> callback) {
+        List<Report> pending = new ArrayList<>();
+        synchronized (this) {
+            for (Report report : reports.values()) {
+                if ("PENDING".equals(report.getStatus())) pending.add(report);
+            }
+        }
+        deliver(callback, pending);
+    }
+
+    @Override
+    public void getReportQueuePage(String status, String cursor, int pageSize, DataCallback<Page<Report>> callback) {
+        Long cursorCreatedAt = null;
+        String cursorId = null;
+        if (cursor != null) {
+            Product probe = parseCursor(cursor);
+            if (probe == null) {
+                fail(callback, "Invalid page cursor: " + cursor);
+                return;
+            }
+            cursorCreatedAt = probe.getCreatedAt();
+            cursorId = probe.getId();
+        }
+
+        List<Report> matching = new ArrayList<>();
+        synchronized (this) {
+            for (Report report : reports.values()) {
+                if (status.equals(report.getStatus())) matching.add(report);
+            }
+        }
+        matching.sort((a, b) -> a.getCreatedAt() != b.getCreatedAt()
+                ? Long.compare(b.getCreatedAt(), a.getCreatedAt())
+                : b.getId().compareTo(a.getId()));
+
+        List<Report> items = new ArrayList<>();
+        for (Report report : matching) {
+            if (cursorCreatedAt != null && (report.getCreatedAt() > cursorCreatedAt
+                    || (report.getCreatedAt() == cursorCreatedAt && report.getId().compareTo(cursorId) >= 0))) {
+                continue;
+            }
+            items.add(report);
+            if (items.size() == pageSize) break;
+        }
+        String nextCursor = null;
+        if (items.size() == pageSize) {
+            Report oldest = items.get(items.size() - 1);
+            nextCursor = oldest.getCreatedAt() + "_" + oldest.getId();
+        }
+        deliver(callback, new Page<>(items, nextCursor));
+    }
+
+    @Override
+    public void updateReportStatus(String reportId, String status, String adminId, String adminNotes,
+                                   String actionTaken, DataCallback<Void> callback) {
+        synchronized (this) {
+            Report report = reports.get(reportId);
+            if (report == null) {
+                fail(callback, "Report not found: " + reportId);
+                return;
+            }
+            report.setStatus(status);
+            report.setAdminId(adminId);
+            report.setAdminNotes(adminNotes);
+            report.setActionTaken(actionTaken);
+            report.setReviewedAt(System.currentTimeMillis());
+        }
+        deliver(callback, null);
+    }
+
+    // ==================== HELPERS ====================
+
+    private <T> void deliver(DataCallback<T> callback, T result) {
+        if (scheduler == null) {
+            callback.onSuccess(result);
+        } else {
+            scheduler.schedule(() -> callback.onSuccess(result), latencyMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void fail(DataCallback<?> callback, String error) {
+        if (scheduler == null) {
+            callback.onError(error);
+        } else {
+            scheduler.schedule(() -> callback.onError(error), latencyMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private long latencyMs() {
+        return minLatencyMs == maxLatencyMs
+            ? minLatencyMs
+            : ThreadLocalRandom.current().nextLong(minLatencyMs, maxLatencyMs + 1);
+    }
+
+    private String nextId(String prefix) {
+        return prefix + String.format("%012d", idSequence.incrementAndGet());
+    }
+
+    private void indexConversation(String userId, String conversationId) {
+        if (userId == null) return;
+        Set<String> ids = userConversations.get(userId);
+        if (ids == null) {
+            ids = new LinkedHashSet<>();
+            userConversations.put(userId, ids);
+        }
+        ids.add(conversationId);
+    }
+
+    private static <T> void addTo(Map<String, List<T>> index, String key, T value) {
+        if (key == null) return;
+        List<T> list = index.get(key);
+        if (list == null) {
+            list = new ArrayList<>();
+            index.put(key, list);
+        }
+        list.add(value);
+    }
+
+    private synchronized <T> List<T> copyOf(Map<String, List<T>> index, String key) {
+        List<T> list = index.get(key);
+        return list == null ? new ArrayList<>() : new ArrayList<>(list);
+    }
+
+    private static Product parseCursor(String cursor) {
+        try {
+            int separator = cursor.indexOf('_');
+            Product probe = new Product();
+            probe.setCreatedAt(Long.parseLong(cursor.substring(0, separator)));
+            probe.setId(cursor.substring(separator + 1));
+            return probe;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    public synchronized int productCount() {
+        return products.size();
+    }
+}
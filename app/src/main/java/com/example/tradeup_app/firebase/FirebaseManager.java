@@ -1,28 +1,55 @@
 package com.example.tradeup_app.firebase;
 
 import android.util.Log;
+import com.example.tradeup_app.data.mapping.ModelMappers;
 import com.example.tradeup_app.models.Product;
 import com.example.tradeup_app.models.Message;
 import com.example.tradeup_app.models.Conversation;
 import com.example.tradeup_app.models.Offer;
 import com.example.tradeup_app.models.Transaction;
 import com.example.tradeup_app.models.Rating;
+import com.example.tradeup_app.models.RatingStats;
 import com.example.tradeup_app.models.Report;
+import com.example.tradeup_app.services.CounterService;
+import com.example.tradeup_app.utils.EntityCache;
 import com.example.tradeup_app.utils.NotificationManager;
+import com.example.tradeup_app.utils.ProductSearchIndex;
 import com.google.android.gms.tasks.OnCompleteListener;
 import com.google.android.gms.tasks.Task;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.Query;
+import com.google.firebase.database.ServerValue;
 import com.google.firebase.database.ValueEventListener;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 public class FirebaseManager {
     private static FirebaseManager instance;
     private final FirebaseDatabase database;
     private final FirebaseAuth auth;
+    private final ProductSearchIndex searchIndex = ProductSearchIndex.getInstance();
+    // Products whose counters changed since the last featured rank update
+    private final java.util.Set<String> pendingRankUpdates = new java.util.HashSet<>();
+    private final android.os.Handler rankHandler = new android.os.Handler(android.os.Looper.getMainLooper());
+
+    // Shared LRU caches for records that many screens fetch by id. Users are kept as raw
+    // snapshots because the Users node mixes User and UserModel fields.
+    private static final int USER_CACHE_SIZE = 200;
+    private static final int PRODUCT_CACHE_SIZE = 300;
+    private final EntityCache<DataSnapshot> userCache =
+        new EntityCache<>(USER_CACHE_SIZE, userId -> stopWatching(USERS_NODE, userId));
+    private final EntityCache<Product> productCache =
+        new EntityCache<>(PRODUCT_CACHE_SIZE, productId -> stopWatching(PRODUCTS_NODE, productId));
+    // "node/id" -> listener that keeps a cached entity fresh; removed when the entry leaves the cache
+    private final Map<String, ValueEventListener> cacheWatchers = new ConcurrentHashMap<>();
 
     // Node names
     public static final String MESSAGES_NODE = "messages";
@@ -33,6 +60,38 @@ public class FirebaseManager {
     public static final String RATINGS_NODE = "ratings";
     public static final String REPORTS_NODE = "reports";
     public static final String USERS_NODE = "Users";
+    // user_conversations/<uid>/<conversationId> = last activity time, written with every conversation change
+    public static final String USER_CONVERSATIONS_NODE = "user_conversations";
+    // user_pairs/<minUid>_<maxUid> = conversationId: the one general conversation between two users
+    public static final String USER_PAIRS_NODE = "user_pairs";
+    // user_transactions/<userId>/<transactionId> = createdAt, one ledger per buyer and seller
+    public static final String USER_TRANSACTIONS_NODE = "user_transactions";
+    // rating_stats/<userId>: count, sum, star histogram and weekly buckets, see RatingStats
+    public static final String RATING_STATS_NODE = "rating_stats";
+    // user_inbox/<receiverId>/<messageId>: small notification entry ordered by server time "t"
+    public static final String USER_INBOX_NODE = "user_inbox";
+    public static final int INBOX_PREVIEW_LENGTH = 100;
+    // report_queue/<status>/<reportId> = createdAt: moderation queue partitioned by status
+    public static final String REPORT_QUEUE_NODE = "report_queue";
+    // report_stats: total and per-status report counters, kept with server-side increments
+    public static final String REPORT_STATS_NODE = "report_stats";
+    // report_keys/<reporterId>_<reportType>_<itemId> = reportId: at most one report per reporter and item,
+    // enforced by a ".validate" rule on the key
+    public static final String REPORT_KEYS_NODE = "report_keys";
+    // product_tombstones/<productId> = deletedAt: lets delta sync drop deleted products from caches
+    public static final String PRODUCT_TOMBSTONES_NODE = "product_tombstones";
+    // write_receipts/<idempotencyKey> = server time a WriteOutbox entry was applied; created once only
+    public static final String WRITE_RECEIPTS_NODE = "write_receipts";
+    // featured/<category>/<productId> = rank score: the best listings of a category, see FeaturedRanking
+    public static final String FEATURED_NODE = "featured";
+    // Category key of the rail that spans every category
+    public static final String FEATURED_ALL = "all";
+    // Entries kept per category, more than a rail shows so removed listings don't leave it short
+    public static final int FEATURED_CAPACITY = 30;
+    private static final long FEATURED_RANK_DELAY_MS = 10_000;
+
+    // Product feed paging
+    public static final int DEFAULT_PAGE_SIZE = 20;
 
     // Callback interfaces
     public interface ProductCallback {
@@ -40,6 +99,15 @@ public class FirebaseManager {
         void onError(String error);
     }
 
+    public interface ProductPageCallback {
+        /**
+         * @param products   products of this page, newest first
+         * @param nextCursor cursor for the following (older) page, or null when the feed is exhausted
+         */
+        void onPageLoaded(List<Product> products, String nextCursor);
+        void onError(String error);
+    }
+
     public interface ConversationCallback {
         void onConversationsLoaded(List<Conversation> conversations);
         void onError(String error);
@@ -55,6 +123,15 @@ public class FirebaseManager {
         void onError(String error);
     }
 
+    public interface TransactionPageCallback {
+        /**
+         * @param transactions transactions of this page, newest first
+         * @param nextCursor   cursor for the following (older) page, or null when the ledger is exhausted
+         */
+        void onPageLoaded(List<Transaction> transactions, String nextCursor);
+        void onError(String error);
+    }
+
     // Payment-related callback interfaces
     public interface OnTransactionSavedListener {
         void onSuccess(String transactionId);
@@ -81,11 +158,26 @@ public class FirebaseManager {
         void onError(String error);
     }
 
+    public interface RatingStatsCallback {
+        // stats is null when the user has not received any rating yet
+        void onStatsLoaded(RatingStats stats);
+        void onError(String error);
+    }
+
     public interface ReportCallback {
         void onReportsLoaded(List<Report> reports);
         void onError(String error);
     }
 
+    public interface ReportPageCallback {
+        /**
+         * @param reports    reports of this page, newest first
+         * @param nextCursor cursor for the following (older) page, or null when the partition is exhausted
+         */
+        void onPageLoaded(List<Report> reports, String nextCursor);
+        void onError(String error);
+    }
+
     public interface FlaggedUsersCallback {
         void onFlaggedUsersLoaded(List<com.example.tradeup_app.auth.Domain.UserModel> users);
         void onError(String error);
@@ -96,6 +188,13 @@ public class FirebaseManager {
         void onError(String error);
     }
 
+    /**
+     * Handle for a realtime listener; cancel() detaches everything it attached
+     */
+    public interface Subscription {
+        void cancel();
+    }
+
     private FirebaseManager() {
         database = FirebaseDatabase.getInstance();
         auth = FirebaseAuth.getInstance();
@@ -112,6 +211,31 @@ public class FirebaseManager {
         return database;
     }
 
+    /**
+     * Start a set of writes that is committed as one atomic multi-path update
+     */
+    public WriteBatch batch() {
+        return new WriteBatch(database.getReference());
+    }
+
+    /**
+     * Queue the batch in the WriteOutbox, ordered after earlier writes to entityKey.
+     * Completes once the writes are stored locally; without an outbox the batch is committed directly.
+     */
+    public Task<Void> enqueue(WriteBatch batch, String entityKey) {
+        WriteOutbox outbox = WriteOutbox.getInstance();
+        if (outbox == null || batch.isEmpty()) {
+            return batch.commit();
+        }
+        try {
+            outbox.enqueue(entityKey, batch.asMap());
+            return com.google.android.gms.tasks.Tasks.forResult(null);
+        } catch (Exception e) {
+            Log.e("FirebaseManager", "Outbox unavailable, writing directly: " + e.getMessage());
+            return batch.commit();
+        }
+    }
+
     public String getCurrentUserId() {
         return auth.getCurrentUser() != null ? auth.getCurrentUser().getUid() : null;
     }
@@ -136,11 +260,38 @@ public class FirebaseManager {
             product.setId(key);
             database.getReference(PRODUCTS_NODE)
                 .child(key)
-                .setValue(product)
-                .addOnCompleteListener(listener);
+                .setValue(productValue(product))
+                .addOnCompleteListener(task -> {
+                    if (task.isSuccessful()) {
+                        // A new listing competes on recency alone
+                        updateFeaturedRank(product);
+                    }
+                    listener.onComplete(task);
+                });
         }
     }
 
+    /**
+     * A product as plain values with updatedAt set by the server. Delta syncs select products by
+     * updatedAt, so it must be the time a write arrived, not when a client made or queued it.
+     * The geohash is computed here from the coordinates, so every save keeps it current.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> productValue(Product product) {
+        product.setGeohash(geohashOf(product.getLatitude(), product.getLongitude()));
+        Map<String, Object> value = (Map<String, Object>)
+            com.google.firebase.database.core.utilities.encoding.CustomClassMapper.convertToPlainJavaTypes(product);
+        value.put("updatedAt", ServerValue.TIMESTAMP);
+        return value;
+    }
+
+    // Geo shard key that radius queries range-scan by prefix; null for products without a location
+    private static String geohashOf(double latitude, double longitude) {
+        if (latitude == 0 || longitude == 0) return null;
+        return com.example.tradeup_app.utils.GeoHash.encode(latitude, longitude,
+            com.example.tradeup_app.utils.GeoHash.STORED_PRECISION);
+    }
+
     // ==================== PRODUCT UPDATE METHODS - DATABASE SPECIFIC ====================
 
     /**
@@ -163,12 +314,15 @@ public class FirebaseManager {
             return;
         }
 
-        // Always add updatedAt timestamp
-        updates.put("updatedAt", System.currentTimeMillis());
-
-        DatabaseReference productRef = database.getReference(PRODUCTS_NODE).child(productId);
+        // Always add updatedAt, set by the server when a queued edit arrives
+        updates.put("updatedAt", ServerValue.TIMESTAMP);
+        if (updates.get("latitude") instanceof Number && updates.get("longitude") instanceof Number) {
+            updates.put("geohash", geohashOf(((Number) updates.get("latitude")).doubleValue(),
+                ((Number) updates.get("longitude")).doubleValue()));
+        }
 
-        productRef.updateChildren(updates)
+        // Queued per product, so edits made offline are kept and applied in order
+        enqueue(batch().update(PRODUCTS_NODE + "/" + productId, updates), "product:" + productId)
             .addOnCompleteListener(task -> {
                 if (task.isSuccessful()) {
                     Log.d("FirebaseManager", "✅ Product fields updated successfully");
@@ -297,7 +451,7 @@ public class FirebaseManager {
         Log.d("FirebaseManager", "Saving complete product to Firebase path: " + PRODUCTS_NODE + "/" + productId);
 
         // Update the entire product object in Firebase
-        productRef.setValue(product)
+        productRef.setValue(productValue(product))
             .addOnCompleteListener(task -> {
                 if (task.isSuccessful()) {
                     Log.d("FirebaseManager", "✅ Complete product update SUCCESSFUL for ID: " + productId);
@@ -325,23 +479,205 @@ public class FirebaseManager {
         database.getReference(PRODUCTS_NODE)
                 .orderByChild("createdAt")
                 .get()
-                .addOnSuccessListener(snapshot -> {
-                    List<Product> products = new java.util.ArrayList<>();
-                    for (com.google.firebase.database.DataSnapshot dataSnapshot : snapshot.getChildren()) {
-                        Product product = dataSnapshot.getValue(Product.class);
-                        if (product != null) {
-                            product.setId(dataSnapshot.getKey());
-                            products.add(product);
-                        }
+                .addOnSuccessListener(snapshot -> SnapshotDecoder.submit(
+                    () -> SnapshotDecoder.decodeChildren(snapshot, ModelMappers.PRODUCT),
+                    callback::onProductsLoaded,
+                    e -> callback.onError(e.getMessage())))
+                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    }
+
+    /**
+     * Load one page of the product feed, newest first.
+     * Pass a null cursor for the first page, then the nextCursor returned by the previous page.
+     * Only pageSize products are fetched and deserialized per call.
+     */
+    public void getProductsPage(String cursor, int pageSize, ProductPageCallback callback) {
+        Query query = database.getReference(PRODUCTS_NODE).orderByChild("createdAt");
+
+        if (cursor != null) {
+            long cursorCreatedAt;
+            String cursorKey;
+            try {
+                int separator = cursor.indexOf('_');
+                cursorCreatedAt = Long.parseLong(cursor.substring(0, separator));
+                cursorKey = cursor.substring(separator + 1);
+            } catch (RuntimeException e) {
+                callback.onError("Invalid page cursor: " + cursor);
+                return;
+            }
+            // (createdAt, key) is unique, so products sharing a timestamp are never skipped or repeated
+            query = query.endBefore(cursorCreatedAt, cursorKey);
+        }
+
+        query.limitToLast(pageSize)
+                .get()
+                .addOnSuccessListener(snapshot -> SnapshotDecoder.submit(() -> {
+                    List<Product> products = SnapshotDecoder.decodeChildren(snapshot, ModelMappers.PRODUCT);
+                    // Server returns ascending createdAt, the feed shows newest first
+                    java.util.Collections.reverse(products);
+                    return products;
+                }, products -> {
+                    String nextCursor = null;
+                    if (snapshot.getChildrenCount() >= pageSize && !products.isEmpty()) {
+                        Product oldest = products.get(products.size() - 1);
+                        nextCursor = oldest.getCreatedAt() + "_" + oldest.getId();
                     }
-                    callback.onProductsLoaded(products);
-                })
+                    callback.onPageLoaded(products, nextCursor);
+                }, e -> callback.onError(e.getMessage())))
                 .addOnFailureListener(e -> callback.onError(e.getMessage()));
     }
 
+    /**
+     * Load only the products around a point. Products are sharded by their geohash field, so each
+     * covering cell is one indexed range query; results are exact-distance filtered, nearest first.
+     */
+    public void getProductsNear(double latitude, double longitude, double radiusKm, ProductCallback callback) {
+        int precision = com.example.tradeup_app.utils.GeoHash.precisionForRadius(radiusKm);
+        java.util.Set<String> cells = com.example.tradeup_app.utils.GeoHash.coveringCells(latitude, longitude, radiusKm, precision);
+
+        java.util.Map<String, Product> productsById = new java.util.HashMap<>();
+        int[] pending = {cells.size()};
+        boolean[] failed = {false};
+
+        for (String cell : cells) {
+            database.getReference(PRODUCTS_NODE)
+                .orderByChild("geohash")
+                .startAt(cell)
+                .endAt(cell + "\uf8ff")
+                .get()
+                .addOnCompleteListener(task -> {
+                    if (failed[0]) return;
+                    if (!task.isSuccessful()) {
+                        failed[0] = true;
+                        callback.onError(task.getException() != null ? task.getException().getMessage() : "Unknown error");
+                        return;
+                    }
+                    for (Product product : SnapshotDecoder.decodeChildren(task.getResult(), ModelMappers.PRODUCT)) {
+                        productsById.put(product.getId(), product);
+                    }
+                    if (--pending[0] == 0) {
+                        com.example.tradeup_app.utils.ProductGeoIndex index =
+                            new com.example.tradeup_app.utils.ProductGeoIndex(productsById.values());
+                        callback.onProductsLoaded(com.example.tradeup_app.utils.ProductGeoIndex.products(
+                            index.withinRadius(latitude, longitude, radiusKm)));
+                    }
+                });
+        }
+    }
+
+    // ==================== ENTITY CACHE ====================
+
+    /**
+     * Users/<userId> snapshot from the shared cache, loading it on a miss.
+     * The callback receives null when the user does not exist.
+     */
+    public void getUserCached(String userId, EntityCache.LoadCallback<DataSnapshot> callback) {
+        userCache.get(userId,
+            (key, loadCallback) -> watchEntity(USERS_NODE, key, userCache, snapshot -> snapshot, loadCallback),
+            callback);
+    }
+
+    /**
+     * Product from the shared cache, loading it on a miss.
+     * The callback receives null when the product does not exist.
+     */
+    public void getProductCached(String productId, EntityCache.LoadCallback<Product> callback) {
+        productCache.get(productId,
+            (key, loadCallback) -> watchEntity(PRODUCTS_NODE, key, productCache, FirebaseManager::toProduct, loadCallback),
+            callback);
+    }
+
+    public void invalidateCachedUser(String userId) {
+        userCache.invalidate(userId);
+    }
+
+    public void invalidateCachedProduct(String productId) {
+        productCache.invalidate(productId);
+    }
+
+    public EntityCache<DataSnapshot> getUserCache() {
+        return userCache;
+    }
+
+    public EntityCache<Product> getProductCache() {
+        return productCache;
+    }
+
+    /**
+     * Load node/id with a persistent listener: its first event completes the load,
+     * later events refresh or invalidate the cached value.
+     */
+    private <V> void watchEntity(String node, String id, EntityCache<V> cache,
+                                 Function<DataSnapshot, V> mapper, EntityCache.LoadCallback<V> callback) {
+        DatabaseReference ref = database.getReference(node).child(id);
+        ValueEventListener listener = new ValueEventListener() {
+            private boolean loaded = false;
+
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                V value = snapshot.exists() ? mapper.apply(snapshot) : null;
+                if (!loaded) {
+                    loaded = true;
+                    if (value == null) {
+                        stopWatching(node, id);
+                    }
+                    callback.onLoaded(value);
+                } else if (value != null) {
+                    cache.refresh(id, value);
+                } else {
+                    cache.invalidate(id);
+                }
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                stopWatching(node, id);
+                if (!loaded) {
+                    loaded = true;
+                    callback.onError(error.getMessage());
+                } else {
+                    cache.invalidate(id);
+                }
+            }
+        };
+
+        ValueEventListener previous = cacheWatchers.put(node + "/" + id, listener);
+        if (previous != null) {
+            ref.removeEventListener(previous);
+        }
+        ref.addValueEventListener(listener);
+    }
+
+    private void stopWatching(String node, String id) {
+        ValueEventListener listener = cacheWatchers.remove(node + "/" + id);
+        if (listener != null) {
+            database.getReference(node).child(id).removeEventListener(listener);
+        }
+    }
+
+    private static Product toProduct(DataSnapshot snapshot) {
+        return SnapshotDecoder.decode(snapshot, ModelMappers.PRODUCT);
+    }
+
     public void searchProducts(String query, String category, String condition,
                              double minPrice, double maxPrice, String sortBy,
                              ProductCallback callback) {
+        // The index is filled from the product cache by SyncManager.syncSearchIndex()
+        if (searchIndex.isReady()) {
+            // Answer from the local index, no download per keystroke
+            List<Product> results = new java.util.ArrayList<>();
+            boolean anyCategory = category == null || category.isEmpty() || category.equals("Tất cả");
+            for (Product product : searchIndex.search(query)) {
+                if ((anyCategory || category.equals(product.getCategory()))
+                        && matchesSearchCriteria(product, null, condition, minPrice, maxPrice)) {
+                    results.add(product);
+                }
+            }
+            sortSearchResults(results, sortBy);
+            callback.onProductsLoaded(results);
+            return;
+        }
+
         DatabaseReference ref = database.getReference(PRODUCTS_NODE);
         Query baseQuery = ref;
 
@@ -350,37 +686,24 @@ public class FirebaseManager {
             baseQuery = ref.orderByChild("category").equalTo(category);
         }
 
-        baseQuery.get().addOnSuccessListener(snapshot -> {
+        baseQuery.get().addOnSuccessListener(snapshot -> SnapshotDecoder.submit(() -> {
             List<Product> results = new java.util.ArrayList<>();
-            for (com.google.firebase.database.DataSnapshot dataSnapshot : snapshot.getChildren()) {
-                Product product = dataSnapshot.getValue(Product.class);
-                if (product != null) {
-                    product.setId(dataSnapshot.getKey());
-
-                    // Apply filters
-                    if (matchesSearchCriteria(product, query, condition, minPrice, maxPrice)) {
-                        results.add(product);
-                    }
+            for (Product product : SnapshotDecoder.decodeChildren(snapshot, ModelMappers.PRODUCT)) {
+                // Apply filters
+                if (matchesSearchCriteria(product, query, condition, minPrice, maxPrice)) {
+                    results.add(product);
                 }
             }
 
             // Apply sorting
-            if (sortBy != null) {
-                switch (sortBy) {
-                    case "price_asc":
-                        results.sort((a, b) -> Double.compare(a.getPrice(), b.getPrice()));
-                        break;
-                    case "price_desc":
-                        results.sort((a, b) -> Double.compare(b.getPrice(), a.getPrice()));
-                        break;
-                    case "date":
-                        results.sort((a, b) -> Long.compare(b.getCreatedAt(), a.getCreatedAt()));
-                        break;
-                }
-            }
+            sortSearchResults(results, sortBy);
+            return results;
+        }, callback::onProductsLoaded, e -> callback.onError(e.getMessage())))
+            .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    }
 
-            callback.onProductsLoaded(results);
-        }).addOnFailureListener(e -> callback.onError(e.getMessage()));
+    private void sortSearchResults(List<Product> results, String sortBy) {
+        com.example.tradeup_app.utils.SearchQuery.sort(results, sortBy);
     }
 
     private boolean matchesSearchCriteria(Product product, String query, String condition,
@@ -409,7 +732,7 @@ public class FirebaseManager {
 
         // Match condition
         if (condition != null && !condition.isEmpty() && !condition.equals("Tất cả")) {
-            if (!product.getCondition().equals(condition)) {
+            if (!condition.equals(product.getCondition())) {
                 return false;
             }
         }
@@ -438,19 +761,33 @@ public class FirebaseManager {
             message.setId(key);
             message.setTimestamp(System.currentTimeMillis());
 
-            database.getReference(MESSAGES_NODE)
-                .child(key)
-                .setValue(message)
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        // Update conversation with last message
-                        updateConversationLastMessage(message);
-                    }
-                    listener.onComplete(task);
-                });
+            // Message and conversation update in one atomic write
+            WriteBatch batch = batch().set(MESSAGES_NODE + "/" + key, message);
+            addConversationLastMessage(batch, message);
+            putUserInboxEntry(batch.asMap(), key, message.getReceiverId(), message.getSenderId(),
+                message.getConversationId(), message.getMessageType(), message.getContent());
+            enqueue(batch, "conversation:" + message.getConversationId()).addOnCompleteListener(listener);
         }
     }
 
+    /**
+     * Root-relative multi-path entry that delivers a message to the receiver's inbox.
+     * The entry carries what a notification needs and the server time it was written,
+     * so a listener can resume after the last entry it delivered.
+     */
+    public static void putUserInboxEntry(Map<String, Object> updates, String messageId, String receiverId,
+                                         String senderId, String conversationId, String messageType, String content) {
+        if (receiverId == null || messageId == null) return;
+        Map<String, Object> entry = new java.util.HashMap<>();
+        entry.put("senderId", senderId);
+        entry.put("conversationId", conversationId);
+        entry.put("messageType", messageType);
+        entry.put("preview", content != null && content.length() > INBOX_PREVIEW_LENGTH
+            ? content.substring(0, INBOX_PREVIEW_LENGTH) : content);
+        entry.put("t", ServerValue.TIMESTAMP);
+        updates.put(USER_INBOX_NODE + "/" + receiverId + "/" + messageId, entry);
+    }
+
     public void getMessagesForConversation(String conversationId, ValueEventListener listener) {
         database.getReference(MESSAGES_NODE)
             .orderByChild("conversationId")
@@ -470,7 +807,8 @@ public class FirebaseManager {
             .addOnCompleteListener(task -> {
                 if (task.isSuccessful()) {
                     if (task.getResult().exists()) {
-                        // Conversation exists
+                        // Conversation exists; conversations from before the pair index get indexed here
+                        claimUserPair(buyerId, sellerId, conversationId);
                         listener.onComplete(com.google.android.gms.tasks.Tasks.forResult(conversationId));
                     } else {
                         // Create new conversation
@@ -488,11 +826,16 @@ public class FirebaseManager {
                             getUserName(sellerId, sellerName -> {
                                 conversation.setSellerName(sellerName);
 
-                                database.getReference(CONVERSATIONS_NODE)
-                                    .child(conversationId)
-                                    .setValue(conversation)
+                                // Conversation and both participants' index entries in one write
+                                Map<String, Object> updates = new java.util.HashMap<>();
+                                updates.put(CONVERSATIONS_NODE + "/" + conversationId, conversation);
+                                putUserConversationEntries(updates, conversationId, buyerId, sellerId, conversation.getUpdatedAt());
+
+                                database.getReference()
+                                    .updateChildren(updates)
                                     .addOnCompleteListener(createTask -> {
                                         if (createTask.isSuccessful()) {
+                                            claimUserPair(buyerId, sellerId, conversationId);
                                             listener.onComplete(com.google.android.gms.tasks.Tasks.forResult(conversationId));
                                         } else {
                                             listener.onComplete(com.google.android.gms.tasks.Tasks.forException(createTask.getException()));
@@ -507,23 +850,48 @@ public class FirebaseManager {
             });
     }
 
+    /**
+     * Point user_pairs at conversationId unless the pair already has a conversation, so the
+     * pair lookup in MessagingService finds this one instead of creating a duplicate
+     */
+    private void claimUserPair(String buyerId, String sellerId, String conversationId) {
+        String pairKey = userPairKey(buyerId, sellerId);
+        if (pairKey == null) return;
+        database.getReference(USER_PAIRS_NODE).child(pairKey).runTransaction(new com.google.firebase.database.Transaction.Handler() {
+            @Override
+            public com.google.firebase.database.Transaction.Result doTransaction(com.google.firebase.database.MutableData data) {
+                if (data.getValue() != null) {
+                    return com.google.firebase.database.Transaction.abort();
+                }
+                data.setValue(conversationId);
+                return com.google.firebase.database.Transaction.success(data);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                if (error != null) {
+                    Log.e("FirebaseManager", "Failed to index pair " + pairKey + ": " + error.getMessage());
+                }
+            }
+        });
+    }
+
     private String generateConversationId(String productId, String buyerId, String sellerId) {
         return productId + "_" + buyerId + "_" + sellerId;
     }
 
-    private void updateConversationLastMessage(Message message) {
+    private void addConversationLastMessage(WriteBatch batch, Message message) {
         String conversationId = message.getConversationId();
         if (conversationId != null) {
-            DatabaseReference conversationRef = database.getReference(CONVERSATIONS_NODE).child(conversationId);
-            conversationRef.child("lastMessage").setValue(message.getContent());
-            conversationRef.child("lastMessageTime").setValue(message.getTimestamp());
-            conversationRef.child("updatedAt").setValue(System.currentTimeMillis());
-
-            // Increment unread count for receiver
-            conversationRef.child("unreadCount").get().addOnSuccessListener(snapshot -> {
-                int currentCount = snapshot.exists() ? snapshot.getValue(Integer.class) : 0;
-                conversationRef.child("unreadCount").setValue(currentCount + 1);
-            });
+            String conversationPath = CONVERSATIONS_NODE + "/" + conversationId + "/";
+            batch.set(conversationPath + "lastMessage", message.getContent());
+            batch.set(conversationPath + "lastMessageTime", message.getTimestamp());
+            batch.set(conversationPath + "updatedAt", System.currentTimeMillis());
+            // Increment unread count for receiver - applied on the server, no read needed
+            batch.increment(conversationPath + "unreadCount", 1);
+
+            putUserConversationEntries(batch.asMap(), conversationId, message.getSenderId(), message.getReceiverId(),
+                message.getTimestamp());
         }
     }
 
@@ -535,37 +903,179 @@ public class FirebaseManager {
             .addOnCompleteListener(listener);
     }
 
+    /**
+     * Root-relative multi-path entries that list a conversation under both participants;
+     * a null lastActivity removes the entries
+     */
+    public static void putUserConversationEntries(Map<String, Object> updates, String conversationId,
+                                                  String userId1, String userId2, Long lastActivity) {
+        if (userId1 != null) {
+            updates.put(USER_CONVERSATIONS_NODE + "/" + userId1 + "/" + conversationId, lastActivity);
+        }
+        if (userId2 != null) {
+            updates.put(USER_CONVERSATIONS_NODE + "/" + userId2 + "/" + conversationId, lastActivity);
+        }
+    }
+
+    /**
+     * Order-independent key of two users: the smaller id first, so both sides look up the same entry
+     */
+    public static String userPairKey(String userId1, String userId2) {
+        if (userId1 == null || userId2 == null) return null;
+        return userId1.compareTo(userId2) <= 0 ? userId1 + "_" + userId2 : userId2 + "_" + userId1;
+    }
+
+    /**
+     * One-shot load of the user's conversations: reads the user's index, then only those conversations
+     */
     public void getConversationsForUser(String userId, ConversationCallback callback) {
-        database.getReference(CONVERSATIONS_NODE)
-            .orderByChild("updatedAt")
+        database.getReference(USER_CONVERSATIONS_NODE)
+            .child(userId)
             .get()
-            .addOnSuccessListener(snapshot -> {
-                List<Conversation> conversations = new java.util.ArrayList<>();
-                for (com.google.firebase.database.DataSnapshot dataSnapshot : snapshot.getChildren()) {
-                    Conversation conversation = dataSnapshot.getValue(Conversation.class);
-                    if (conversation != null &&
-                        (userId.equals(conversation.getBuyerId()) || userId.equals(conversation.getSellerId()))) {
-                        conversation.setId(dataSnapshot.getKey());
-                        conversations.add(conversation);
-                    }
+            .addOnSuccessListener(indexSnapshot -> {
+                List<Task<DataSnapshot>> reads = new java.util.ArrayList<>();
+                for (DataSnapshot entry : indexSnapshot.getChildren()) {
+                    reads.add(database.getReference(CONVERSATIONS_NODE).child(entry.getKey()).get());
                 }
-                // Sort by most recent
-                conversations.sort((a, b) -> Long.compare(b.getUpdatedAt(), a.getUpdatedAt()));
-                callback.onConversationsLoaded(conversations);
+
+                com.google.android.gms.tasks.Tasks.<DataSnapshot>whenAllSuccess(reads)
+                    .addOnSuccessListener(snapshots -> SnapshotDecoder.submit(() -> {
+                        List<Conversation> conversations = new java.util.ArrayList<>();
+                        for (DataSnapshot dataSnapshot : snapshots) {
+                            Conversation conversation = SnapshotDecoder.decode(dataSnapshot, ModelMappers.CONVERSATION);
+                            if (conversation != null) {
+                                conversations.add(conversation);
+                            }
+                        }
+                        // Sort by most recent
+                        conversations.sort((a, b) -> Long.compare(b.getUpdatedAt(), a.getUpdatedAt()));
+                        return conversations;
+                    }, callback::onConversationsLoaded, e -> callback.onError(e.getMessage())))
+                    .addOnFailureListener(e -> callback.onError(e.getMessage()));
             })
             .addOnFailureListener(e -> callback.onError(e.getMessage()));
     }
 
+    /**
+     * Realtime list of the user's conversations. Only user_conversations/<userId> and the conversations
+     * it lists are observed, so traffic does not grow with the total number of conversations.
+     * The callback receives the full list, most recent first, whenever one of them changes.
+     */
+    public Subscription listenForUserConversations(String userId, ConversationCallback callback) {
+        DatabaseReference indexRef = database.getReference(USER_CONVERSATIONS_NODE).child(userId);
+        // Firebase delivers events on the main thread, so this state needs no locking
+        Map<String, Conversation> conversations = new java.util.HashMap<>();
+        Map<String, ValueEventListener> conversationListeners = new java.util.HashMap<>();
+        // Conversations whose first value has not arrived yet; nothing is published while any are pending
+        java.util.Set<String> awaiting = new java.util.HashSet<>();
+        boolean[] indexLoaded = {false};
+
+        Runnable publish = () -> {
+            if (!indexLoaded[0] || !awaiting.isEmpty()) return;
+            List<Conversation> list = new java.util.ArrayList<>(conversations.values());
+            list.sort((a, b) -> Long.compare(b.getUpdatedAt(), a.getUpdatedAt()));
+            callback.onConversationsLoaded(list);
+        };
+
+        ChildEventListener indexListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(DataSnapshot snapshot, String previousChildName) {
+                String conversationId = snapshot.getKey();
+                if (conversationListeners.containsKey(conversationId)) return;
+
+                ValueEventListener listener = new ValueEventListener() {
+                    @Override
+                    public void onDataChange(DataSnapshot conversationSnapshot) {
+                        // Decoded in place so updates are applied in the order they arrive
+                        Conversation conversation = SnapshotDecoder.decode(conversationSnapshot, ModelMappers.CONVERSATION);
+                        if (conversation != null) {
+                            conversations.put(conversationId, conversation);
+                        } else {
+                            conversations.remove(conversationId);
+                        }
+                        awaiting.remove(conversationId);
+                        publish.run();
+                    }
+
+                    @Override
+                    public void onCancelled(DatabaseError error) {
+                        Log.e("FirebaseManager", "Conversation " + conversationId + " listener cancelled: " + error.getMessage());
+                        awaiting.remove(conversationId);
+                        publish.run();
+                    }
+                };
+                awaiting.add(conversationId);
+                conversationListeners.put(conversationId, listener);
+                database.getReference(CONVERSATIONS_NODE).child(conversationId).addValueEventListener(listener);
+            }
+
+            @Override
+            public void onChildChanged(DataSnapshot snapshot, String previousChildName) {
+                // The conversation listener already reports the change
+            }
+
+            @Override
+            public void onChildRemoved(DataSnapshot snapshot) {
+                String conversationId = snapshot.getKey();
+                ValueEventListener listener = conversationListeners.remove(conversationId);
+                if (listener != null) {
+                    database.getReference(CONVERSATIONS_NODE).child(conversationId).removeEventListener(listener);
+                }
+                conversations.remove(conversationId);
+                awaiting.remove(conversationId);
+                publish.run();
+            }
+
+            @Override
+            public void onChildMoved(DataSnapshot snapshot, String previousChildName) {
+                // Order is applied when publishing
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                callback.onError(error.getMessage());
+            }
+        };
+        indexRef.addChildEventListener(indexListener);
+
+        // Fires after the initial child events, so every indexed conversation is already awaited
+        ValueEventListener initialLoadListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                indexLoaded[0] = true;
+                publish.run();
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                callback.onError(error.getMessage());
+            }
+        };
+        indexRef.addListenerForSingleValueEvent(initialLoadListener);
+
+        return () -> {
+            indexRef.removeEventListener(indexListener);
+            indexRef.removeEventListener(initialLoadListener);
+            for (Map.Entry<String, ValueEventListener> entry : conversationListeners.entrySet()) {
+                database.getReference(CONVERSATIONS_NODE).child(entry.getKey()).removeEventListener(entry.getValue());
+            }
+            conversationListeners.clear();
+        };
+    }
+
     private void getUserName(String userId, UserNameCallback callback) {
-        database.getReference(USERS_NODE)
-            .child(userId)
-            .child("name")
-            .get()
-            .addOnSuccessListener(snapshot -> {
-                String name = snapshot.exists() ? snapshot.getValue(String.class) : "Unknown User";
-                callback.onUserNameRetrieved(name);
-            })
-            .addOnFailureListener(e -> callback.onUserNameRetrieved("Unknown User"));
+        getUserCached(userId, new EntityCache.LoadCallback<DataSnapshot>() {
+            @Override
+            public void onLoaded(DataSnapshot snapshot) {
+                String name = snapshot != null ? snapshot.child("name").getValue(String.class) : null;
+                callback.onUserNameRetrieved(name != null ? name : "Unknown User");
+            }
+
+            @Override
+            public void onError(String error) {
+                callback.onUserNameRetrieved("Unknown User");
+            }
+        });
     }
 
     public interface UserNameCallback {
@@ -574,18 +1084,53 @@ public class FirebaseManager {
 
     // ==================== UTILITY METHODS ====================
 
+    // Status and updatedAt change together or not at all
+    private Task<Void> writeProductStatus(String productId, String status) {
+        boolean available = "Available".equals(status);
+        Task<String> category = available
+            ? com.google.android.gms.tasks.Tasks.forResult(null)
+            : featuredCategoryOf(productId);
+        return category.continueWithTask(categoryTask -> {
+            String productPath = PRODUCTS_NODE + "/" + productId + "/";
+            WriteBatch batch = batch()
+                .set(productPath + "status", status)
+                .set(productPath + "updatedAt", ServerValue.TIMESTAMP);
+            if (!available) {
+                deleteFeaturedEntries(batch, productId, categoryTask.getResult());
+            }
+            Task<Void> write = batch.commit();
+            if (available) {
+                // Back on sale: it competes for the rails again
+                write.addOnSuccessListener(aVoid -> scheduleFeaturedRankUpdate(productId));
+            }
+            return write;
+        });
+    }
+
+    public Task<Void> setProductStatus(String productId, String status) {
+        return writeProductStatus(productId, status);
+    }
+
+    /**
+     * Delete a product and leave a tombstone in the same write, so synced caches learn about it
+     */
+    public Task<Void> deleteProduct(String productId) {
+        return featuredCategoryOf(productId).continueWithTask(categoryTask -> {
+            WriteBatch batch = batch()
+                .delete(PRODUCTS_NODE + "/" + productId)
+                .set(PRODUCT_TOMBSTONES_NODE + "/" + productId, System.currentTimeMillis());
+            deleteFeaturedEntries(batch, productId, categoryTask.getResult());
+            return batch.commit();
+        });
+    }
+
     public void updateProductStatus(String productId, String status, OnCompleteListener<Void> listener) {
-        DatabaseReference productRef = database.getReference(PRODUCTS_NODE).child(productId);
-        productRef.child("status").setValue(status);
-        productRef.child("updatedAt").setValue(System.currentTimeMillis())
-            .addOnCompleteListener(listener);
+        writeProductStatus(productId, status).addOnCompleteListener(listener);
     }
 
     // Overloaded method for UpdateCallback compatibility
     public void updateProductStatus(String productId, String status, UpdateCallback callback) {
-        DatabaseReference productRef = database.getReference(PRODUCTS_NODE).child(productId);
-        productRef.child("status").setValue(status);
-        productRef.child("updatedAt").setValue(System.currentTimeMillis())
+        writeProductStatus(productId, status)
             .addOnCompleteListener(task -> {
                 if (task.isSuccessful()) {
                     callback.onSuccess();
@@ -596,52 +1141,228 @@ public class FirebaseManager {
             });
     }
 
+    /**
+     * Views are summed locally and written once per flush window, so a busy listing costs
+     * one write per window instead of a read and a write per view
+     */
     public void incrementProductViewCount(String productId) {
-        DatabaseReference productRef = database.getReference(PRODUCTS_NODE).child(productId);
-        productRef.child("viewCount").get().addOnSuccessListener(snapshot -> {
-            int currentCount = snapshot.exists() ? snapshot.getValue(Integer.class) : 0;
-            productRef.child("viewCount").setValue(currentCount + 1);
-            productRef.child("lastViewedAt").setValue(System.currentTimeMillis());
-        });
+        CounterService counters = CounterService.getInstance();
+        counters.incrementBatched(PRODUCTS_NODE + "/" + productId + "/viewCount", 1);
+        counters.setBatched(PRODUCTS_NODE + "/" + productId + "/lastViewedAt", ServerValue.TIMESTAMP);
+        scheduleFeaturedRankUpdate(productId);
     }
 
     public void toggleProductLike(String productId, String userId, OnCompleteListener<Boolean> listener) {
-        DatabaseReference likesRef = database.getReference("product_likes").child(productId).child(userId);
-        likesRef.get().addOnSuccessListener(snapshot -> {
-            boolean isLiked = snapshot.exists();
-            if (isLiked) {
-                // Unlike
-                likesRef.removeValue().addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        decrementLikeCount(productId);
-                        listener.onComplete(com.google.android.gms.tasks.Tasks.forResult(false));
-                    }
-                });
-            } else {
-                // Like
-                likesRef.setValue(System.currentTimeMillis()).addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        incrementLikeCount(productId);
-                        listener.onComplete(com.google.android.gms.tasks.Tasks.forResult(true));
-                    }
-                });
+        String likePath = "product_likes/" + productId + "/" + userId;
+        WriteOutbox outbox = WriteOutbox.getInstance();
+        if (outbox != null && outbox.hasPendingWrite(likePath)) {
+            // A queued like or unlike is newer than anything the server has
+            writeProductLike(productId, likePath, outbox.getPendingValue(likePath) != null, listener);
+            return;
+        }
+        database.getReference(likePath).get()
+            .addOnSuccessListener(snapshot -> writeProductLike(productId, likePath, snapshot.exists(), listener))
+            .addOnFailureListener(e -> listener.onComplete(com.google.android.gms.tasks.Tasks.forException(e)));
+    }
+
+    private void writeProductLike(String productId, String likePath, boolean isLiked,
+                                  OnCompleteListener<Boolean> listener) {
+        // Like marker and counter change in one atomic write; a like and unlike in a row cancel out
+        WriteBatch batch = batch()
+            .set(likePath, isLiked ? null : System.currentTimeMillis())
+            .increment(PRODUCTS_NODE + "/" + productId + "/likeCount", isLiked ? -1 : 1);
+        enqueue(batch, "product:" + productId)
+            .addOnCompleteListener(task -> {
+                if (task.isSuccessful()) {
+                    scheduleFeaturedRankUpdate(productId);
+                    // true when the product is now liked
+                    listener.onComplete(com.google.android.gms.tasks.Tasks.forResult(!isLiked));
+                } else {
+                    listener.onComplete(com.google.android.gms.tasks.Tasks.forException(task.getException()));
+                }
+            });
+    }
+
+    // ==================== FEATURED RANKING ====================
+
+    /**
+     * The best available products of a category (null for all categories), best first.
+     * One read of a node with at most FEATURED_CAPACITY entries, then only the limit best
+     * products are loaded. The list is empty while nothing has been ranked yet.
+     */
+    public void getFeaturedProducts(String category, int limit, ProductCallback callback) {
+        String key = category != null ? category : FEATURED_ALL;
+        database.getReference(FEATURED_NODE).child(key).get()
+            .addOnSuccessListener(snapshot -> {
+                Object value = snapshot.getValue();
+                @SuppressWarnings("unchecked")
+                Map<String, Object> node = value instanceof Map ? (Map<String, Object>) value : null;
+                List<String> ids = com.example.tradeup_app.utils.FeaturedRanking.ranked(node);
+                loadFeaturedProducts(key, ids, 0, limit, new java.util.ArrayList<>(), callback);
+            })
+            .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    }
+
+    /**
+     * Load the ranked ids from index from, only as many as the rail still misses. A product comes
+     * from the shared cache when it is there, otherwise from a single read without a listener.
+     * Listings sold or deleted since they were ranked leave the node, and the next ids take their place.
+     */
+    private void loadFeaturedProducts(String key, List<String> ids, int from, int limit,
+                                      List<Product> shown, ProductCallback callback) {
+        int to = Math.min(ids.size(), from + limit - shown.size());
+        if (from >= to) {
+            callback.onProductsLoaded(shown);
+            return;
+        }
+
+        Product[] loaded = new Product[to - from];
+        int[] pending = {to - from};
+        Runnable onSettled = () -> {
+            if (--pending[0] > 0) return;
+            for (Product product : loaded) {
+                if (product != null) shown.add(product);
             }
-        });
+            loadFeaturedProducts(key, ids, to, limit, shown, callback);
+        };
+        for (int i = from; i < to; i++) {
+            int index = i - from;
+            String productId = ids.get(i);
+            java.util.function.Consumer<Product> accept = product -> {
+                if (product == null || !"Available".equals(product.getStatus())) {
+                    removeFeaturedEntry(key, productId);
+                } else {
+                    loaded[index] = product;
+                }
+                onSettled.run();
+            };
+            Product cached = productCache.peek(productId);
+            if (cached != null) {
+                accept.accept(cached);
+                continue;
+            }
+            database.getReference(PRODUCTS_NODE).child(productId).get()
+                .addOnSuccessListener(productSnapshot ->
+                    accept.accept(productSnapshot.exists() ? toProduct(productSnapshot) : null))
+                .addOnFailureListener(e -> onSettled.run());
+        }
     }
 
-    private void incrementLikeCount(String productId) {
-        DatabaseReference productRef = database.getReference(PRODUCTS_NODE).child(productId);
-        productRef.child("likeCount").get().addOnSuccessListener(snapshot -> {
-            int currentCount = snapshot.exists() ? snapshot.getValue(Integer.class) : 0;
-            productRef.child("likeCount").setValue(currentCount + 1);
-        });
+    /**
+     * Offer a product's current score to the featured node of all categories and of its
+     * category, or take it out of both when it is no longer available
+     */
+    public void updateFeaturedRank(Product product) {
+        if (product == null || product.getId() == null) return;
+        java.util.List<String> keys = new java.util.ArrayList<>();
+        keys.add(FEATURED_ALL);
+        String category = featuredCategoryKey(product.getCategory());
+        if (category != null) {
+            keys.add(category);
+        }
+
+        boolean available = "Available".equals(product.getStatus());
+        double score = com.example.tradeup_app.utils.FeaturedRanking.score(product);
+        for (String key : keys) {
+            updateFeaturedNode(key, current -> available
+                ? com.example.tradeup_app.utils.FeaturedRanking.offer(current, product.getId(), score, FEATURED_CAPACITY)
+                : com.example.tradeup_app.utils.FeaturedRanking.without(current, product.getId()));
+        }
     }
 
-    private void decrementLikeCount(String productId) {
-        DatabaseReference productRef = database.getReference(PRODUCTS_NODE).child(productId);
-        productRef.child("likeCount").get().addOnSuccessListener(snapshot -> {
-            int currentCount = snapshot.exists() ? snapshot.getValue(Integer.class) : 0;
-            productRef.child("likeCount").setValue(Math.max(0, currentCount - 1));
+    // Categories come from a fixed list; anything that isn't a valid key only gets the "all" rail
+    private static String featuredCategoryKey(String category) {
+        if (category == null || category.isEmpty() || category.equals("Tất cả")
+                || !category.matches("[^.#$\\[\\]/]+")) {
+            return null;
+        }
+        return category;
+    }
+
+    /**
+     * Featured category key of a product, from the shared cache or a read of its category field.
+     * Resolves to null when it has none or the read fails, so the "all" rail is still cleaned.
+     */
+    private Task<String> featuredCategoryOf(String productId) {
+        Product cached = productCache.peek(productId);
+        if (cached != null) {
+            return com.google.android.gms.tasks.Tasks.forResult(featuredCategoryKey(cached.getCategory()));
+        }
+        return database.getReference(PRODUCTS_NODE).child(productId).child("category").get()
+            .continueWith(task -> task.isSuccessful()
+                ? featuredCategoryKey(task.getResult().getValue(String.class)) : null);
+    }
+
+    // A listing that is no longer available leaves both of its rails in the same write
+    private static void deleteFeaturedEntries(WriteBatch batch, String productId, String category) {
+        batch.delete(FEATURED_NODE + "/" + FEATURED_ALL + "/" + productId);
+        if (category != null) {
+            batch.delete(FEATURED_NODE + "/" + category + "/" + productId);
+        }
+    }
+
+    private void removeFeaturedEntry(String key, String productId) {
+        updateFeaturedNode(key, current -> com.example.tradeup_app.utils.FeaturedRanking.without(current, productId));
+    }
+
+    /**
+     * Counter changes of the same product within the delay cost one rank update; the delay also
+     * lets batched view counts reach the server first
+     */
+    private void scheduleFeaturedRankUpdate(String productId) {
+        synchronized (pendingRankUpdates) {
+            if (!pendingRankUpdates.add(productId) || pendingRankUpdates.size() > 1) return;
+        }
+        rankHandler.postDelayed(this::flushFeaturedRankUpdates, FEATURED_RANK_DELAY_MS);
+    }
+
+    private void flushFeaturedRankUpdates() {
+        List<String> productIds;
+        synchronized (pendingRankUpdates) {
+            productIds = new java.util.ArrayList<>(pendingRankUpdates);
+            pendingRankUpdates.clear();
+        }
+        for (String productId : productIds) {
+            // The cached copy is kept current by its listener
+            getProductCached(productId, new EntityCache.LoadCallback<Product>() {
+                @Override
+                public void onLoaded(Product product) {
+                    updateFeaturedRank(product);
+                }
+
+                @Override
+                public void onError(String error) {
+                    Log.w("FirebaseManager", "Featured rank of " + productId + " not updated: " + error);
+                }
+            });
+        }
+    }
+
+    /**
+     * Apply change to featured/<key> in a transaction; change returns null to leave it as it is,
+     * which is the common case once the node is full and the score is too low
+     */
+    private void updateFeaturedNode(String key, Function<Map<String, Object>, Map<String, Object>> change) {
+        database.getReference(FEATURED_NODE).child(key).runTransaction(new com.google.firebase.database.Transaction.Handler() {
+            @Override
+            public com.google.firebase.database.Transaction.Result doTransaction(com.google.firebase.database.MutableData data) {
+                Object value = data.getValue();
+                @SuppressWarnings("unchecked")
+                Map<String, Object> current = value instanceof Map ? (Map<String, Object>) value : null;
+                Map<String, Object> next = change.apply(current);
+                if (next == null) {
+                    return com.google.firebase.database.Transaction.abort();
+                }
+                data.setValue(next);
+                return com.google.firebase.database.Transaction.success(data);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                if (error != null) {
+                    Log.e("FirebaseManager", "Featured " + key + " update failed: " + error.getMessage());
+                }
+            }
         });
     }
 
@@ -651,9 +1372,7 @@ public class FirebaseManager {
         String key = database.getReference(OFFERS_NODE).push().getKey();
         if (key != null) {
             offer.setId(key);
-            database.getReference(OFFERS_NODE)
-                .child(key)
-                .setValue(offer)
+            enqueue(batch().set(OFFERS_NODE + "/" + key, offer), "offer:" + key)
                 .addOnCompleteListener(listener);
         }
     }
@@ -743,52 +1462,121 @@ public class FirebaseManager {
     public void createTransaction(Transaction transaction, OnCompleteListener<Void> listener) {
         String key = database.getReference(TRANSACTIONS_NODE).push().getKey();
         if (key != null) {
-            transaction.setId(key);
+            Task<Void> write = writeTransaction(key, transaction);
+            if (listener != null) {
+                write.addOnCompleteListener(listener);
+            }
+        }
+    }
 
-            // Save to main transactions node
-            database.getReference(TRANSACTIONS_NODE)
-                .child(key)
-                .setValue(transaction)
-                .addOnSuccessListener(aVoid -> {
-                    // Also save to user_transactions for both buyer and seller
-                    database.getReference("user_transactions")
-                        .child(transaction.getBuyerId())
-                        .child(key)
-                        .setValue(transaction);
-
-                    database.getReference("user_transactions")
-                        .child(transaction.getSellerId())
-                        .child(key)
-                        .setValue(transaction);
-
-                    if (listener != null) {
-                        listener.onComplete(null);
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    if (listener != null) {
-                        listener.onComplete(null);
-                    }
-                });
+    /**
+     * Write a transaction together with its entries in the buyer's and seller's ledgers,
+     * in one atomic update
+     */
+    private Task<Void> writeTransaction(String transactionId, Transaction transaction) {
+        transaction.setId(transactionId);
+        if (transaction.getCreatedAt() == 0) {
+            transaction.setCreatedAt(System.currentTimeMillis());
+        }
+        WriteBatch batch = batch().set(TRANSACTIONS_NODE + "/" + transactionId, transaction);
+        putUserTransactionEntries(batch.asMap(), transactionId, transaction.getBuyerId(),
+            transaction.getSellerId(), transaction.getCreatedAt());
+        return batch.commit();
+    }
+
+    /**
+     * Root-relative multi-path entries that list a transaction in both parties' ledgers;
+     * a null createdAt removes the entries
+     */
+    public static void putUserTransactionEntries(Map<String, Object> updates, String transactionId,
+                                                 String buyerId, String sellerId, Long createdAt) {
+        if (buyerId != null) {
+            updates.put(USER_TRANSACTIONS_NODE + "/" + buyerId + "/" + transactionId, createdAt);
+        }
+        if (sellerId != null) {
+            updates.put(USER_TRANSACTIONS_NODE + "/" + sellerId + "/" + transactionId, createdAt);
+        }
+    }
+
+    /**
+     * Load one page of the user's transactions, newest first.
+     * Pass a null cursor for the first page, then the nextCursor returned by the previous page.
+     * Only the user's ledger is queried, so the cost follows the user's own history.
+     */
+    public void getTransactionsPage(String userId, String cursor, int pageSize, TransactionPageCallback callback) {
+        Query query = database.getReference(USER_TRANSACTIONS_NODE).child(userId).orderByValue();
+
+        if (cursor != null) {
+            long cursorCreatedAt;
+            String cursorKey;
+            try {
+                int separator = cursor.indexOf('_');
+                cursorCreatedAt = Long.parseLong(cursor.substring(0, separator));
+                cursorKey = cursor.substring(separator + 1);
+            } catch (RuntimeException e) {
+                callback.onError("Invalid page cursor: " + cursor);
+                return;
+            }
+            query = query.endBefore(cursorCreatedAt, cursorKey);
         }
+
+        query.limitToLast(pageSize)
+            .get()
+            .addOnSuccessListener(ledger -> loadLedgerTransactions(ledger, new TransactionCallback() {
+                @Override
+                public void onTransactionsLoaded(List<Transaction> transactions) {
+                    String nextCursor = null;
+                    if (ledger.getChildrenCount() >= pageSize) {
+                        // The oldest ledger entry of this page, even if its transaction no longer exists
+                        for (DataSnapshot entry : ledger.getChildren()) {
+                            Long createdAt = entry.getValue(Long.class);
+                            nextCursor = (createdAt != null ? createdAt : 0) + "_" + entry.getKey();
+                            break;
+                        }
+                    }
+                    callback.onPageLoaded(transactions, nextCursor);
+                }
+
+                @Override
+                public void onError(String error) {
+                    callback.onError(error);
+                }
+            }))
+            .addOnFailureListener(e -> callback.onError(e.getMessage()));
     }
 
+    /**
+     * All of the user's transactions, newest first, read through the user's ledger
+     */
     public void getTransactionsForUser(String userId, TransactionCallback callback) {
-        // Get transactions where user is either buyer or seller
-        database.getReference(TRANSACTIONS_NODE)
+        database.getReference(USER_TRANSACTIONS_NODE)
+            .child(userId)
             .get()
-            .addOnSuccessListener(snapshot -> {
+            .addOnSuccessListener(ledger -> loadLedgerTransactions(ledger, callback))
+            .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    }
+
+    /**
+     * Read the transactions listed in a ledger snapshot, newest first
+     */
+    private void loadLedgerTransactions(DataSnapshot ledger, TransactionCallback callback) {
+        List<Task<DataSnapshot>> reads = new java.util.ArrayList<>();
+        for (DataSnapshot entry : ledger.getChildren()) {
+            reads.add(database.getReference(TRANSACTIONS_NODE).child(entry.getKey()).get());
+        }
+
+        com.google.android.gms.tasks.Tasks.<DataSnapshot>whenAllSuccess(reads)
+            .addOnSuccessListener(snapshots -> SnapshotDecoder.submit(() -> {
                 List<Transaction> transactions = new java.util.ArrayList<>();
-                for (com.google.firebase.database.DataSnapshot dataSnapshot : snapshot.getChildren()) {
-                    Transaction transaction = dataSnapshot.getValue(Transaction.class);
-                    if (transaction != null &&
-                        (userId.equals(transaction.getBuyerId()) || userId.equals(transaction.getSellerId()))) {
-                        transaction.setId(dataSnapshot.getKey());
+                for (DataSnapshot dataSnapshot : snapshots) {
+                    Transaction transaction = SnapshotDecoder.decode(dataSnapshot, ModelMappers.TRANSACTION);
+                    if (transaction != null) {
                         transactions.add(transaction);
                     }
                 }
-                callback.onTransactionsLoaded(transactions);
-            })
+                transactions.sort((a, b) -> Long.compare(b.getCreatedAt(), a.getCreatedAt()));
+                return transactions;
+            }, callback::onTransactionsLoaded, e -> callback.onError(e.getMessage())))
             .addOnFailureListener(e -> callback.onError(e.getMessage()));
     }
 
@@ -813,28 +1601,84 @@ public class FirebaseManager {
         String key = database.getReference(RATINGS_NODE).push().getKey();
         if (key != null) {
             rating.setId(key);
-            database.getReference(RATINGS_NODE)
-                .child(key)
-                .setValue(rating)
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        // Update user's average rating
-                        updateUserRating(rating.getRatedUserId());
-
-                        // Mark transaction as rated
-                        if (rating.getTransactionId() != null) {
-                            String ratingField = "BUYER".equals(rating.getUserType()) ? "buyerRated" : "sellerRated";
-                            database.getReference(TRANSACTIONS_NODE)
-                                .child(rating.getTransactionId())
-                                .child(ratingField)
-                                .setValue(true);
-                        }
-                    }
-                    listener.onComplete(task);
-                });
+
+            // Rating, transaction flag and the rated user's aggregates in one atomic write
+            WriteBatch batch = batch().set(RATINGS_NODE + "/" + key, rating);
+            if (rating.getTransactionId() != null) {
+                String ratingField = "BUYER".equals(rating.getUserType()) ? "buyerRated" : "sellerRated";
+                batch.set(TRANSACTIONS_NODE + "/" + rating.getTransactionId() + "/" + ratingField, true);
+            }
+            addRatingStats(batch, rating.getRatedUserId(), rating.getStars(), rating.getCreatedAt());
+            batch.commit()
+                .addOnSuccessListener(aVoid -> dropExpiredRatingBuckets(rating.getRatedUserId()))
+                .addOnCompleteListener(listener);
         }
     }
 
+    /**
+     * Add one rating to the user's aggregates with server-side increments
+     */
+    private static void addRatingStats(WriteBatch batch, String userId, int stars, long createdAt) {
+        String statsPath = RATING_STATS_NODE + "/" + userId;
+        long week = RatingStats.weekOf(createdAt);
+        String bucketPath = statsPath + "/recent/" + RatingStats.bucketKey(week);
+
+        batch.increment(statsPath + "/count", 1)
+            .increment(statsPath + "/sum", stars)
+            .increment(statsPath + "/histogram/" + RatingStats.starKey(stars), 1)
+            .increment(bucketPath + "/count", 1)
+            .increment(bucketPath + "/sum", stars);
+    }
+
+    /**
+     * Remove every weekly bucket outside the recent window, however long ago the last rating was,
+     * so the node stays small. Aborts without writing when nothing has expired.
+     */
+    private void dropExpiredRatingBuckets(String userId) {
+        DatabaseReference recentRef = database.getReference(RATING_STATS_NODE).child(userId).child("recent");
+        recentRef.runTransaction(new com.google.firebase.database.Transaction.Handler() {
+            @Override
+            public com.google.firebase.database.Transaction.Result doTransaction(com.google.firebase.database.MutableData data) {
+                long now = System.currentTimeMillis();
+                boolean changed = false;
+                for (com.google.firebase.database.MutableData bucket : data.getChildren()) {
+                    if (RatingStats.isExpiredBucket(bucket.getKey(), now)) {
+                        bucket.setValue(null);
+                        changed = true;
+                    }
+                }
+                return changed ? com.google.firebase.database.Transaction.success(data)
+                               : com.google.firebase.database.Transaction.abort();
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                if (error != null) {
+                    Log.e("FirebaseManager", "Failed to drop expired rating buckets of " + userId + ": " + error.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * The user's rating aggregates: one small node instead of the rating list
+     */
+    public void getRatingStats(String userId, RatingStatsCallback callback) {
+        database.getReference(RATING_STATS_NODE)
+            .child(userId)
+            .get()
+            .addOnSuccessListener(snapshot -> {
+                RatingStats stats = null;
+                try {
+                    stats = snapshot.getValue(RatingStats.class);
+                } catch (Exception e) {
+                    Log.e("FirebaseManager", "Malformed rating stats for " + userId + ": " + e.getMessage());
+                }
+                callback.onStatsLoaded(stats);
+            })
+            .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    }
+
     public void getRatingsForUser(String userId, RatingCallback callback) {
         database.getReference(RATINGS_NODE)
             .orderByChild("ratedUserId")
@@ -854,72 +1698,154 @@ public class FirebaseManager {
             .addOnFailureListener(e -> callback.onError(e.getMessage()));
     }
 
-    private void updateUserRating(String userId) {
-        getRatingsForUser(userId, new RatingCallback() {
-            @Override
-            public void onRatingsLoaded(List<Rating> ratings) {
-                if (!ratings.isEmpty()) {
-                    double totalStars = 0;
-                    for (Rating rating : ratings) {
-                        totalStars += rating.getStars();
-                    }
-                    double averageRating = totalStars / ratings.size();
-
-                    database.getReference(USERS_NODE)
-                        .child(userId)
-                        .child("rating")
-                        .setValue(String.format("%.1f", averageRating));
-                }
-            }
-
-            @Override
-            public void onError(String error) {
-                // Log error but don't fail the rating submission
-            }
-        });
-    }
-
     // ==================== REPORTS METHODS ====================
 
     public void submitReport(Report report, OnCompleteListener<Void> listener) {
         String key = database.getReference(REPORTS_NODE).push().getKey();
         if (key != null) {
             report.setId(key);
-            database.getReference(REPORTS_NODE)
-                .child(key)
-                .setValue(report)
-                .addOnCompleteListener(listener);
+            WriteBatch batch = batch();
+            addReport(batch, report);
+            batch.commit().addOnCompleteListener(listener);
+        }
+    }
+
+    /**
+     * Add a new report, its queue entry and the counters to a batch. The report id must be set.
+     */
+    public static void addReport(WriteBatch batch, Report report) {
+        String status = report.getStatus() != null ? report.getStatus() : "PENDING";
+        batch.set(REPORTS_NODE + "/" + report.getId(), report)
+            .set(reportQueuePath(status, report.getId()), report.getCreatedAt())
+            .increment(REPORT_STATS_NODE + "/total", 1)
+            .increment(REPORT_STATS_NODE + "/" + status, 1);
+
+        // A second report of the same item by the same user fails the whole write
+        String dedupeKey = reportDedupeKey(report.getReporterId(), report.getReportType(), report.getReportedItemId());
+        if (dedupeKey != null) {
+            batch.set(REPORT_KEYS_NODE + "/" + dedupeKey, report.getId());
         }
     }
 
+    /**
+     * Deterministic key of a (reporter, type, item) triple, or null when one of them is missing.
+     * User ids and types contain no '_', so the key is unambiguous.
+     */
+    public static String reportDedupeKey(String reporterId, String reportType, String itemId) {
+        if (reporterId == null || reportType == null || itemId == null) return null;
+        return reporterId + "_" + reportType + "_" + itemId;
+    }
+
+    public static String reportQueuePath(String status, String reportId) {
+        return REPORT_QUEUE_NODE + "/" + status + "/" + reportId;
+    }
+
     public void getReportsForAdmin(ReportCallback callback) {
         database.getReference(REPORTS_NODE)
             .orderByChild("status")
             .equalTo("PENDING")
             .get()
-            .addOnSuccessListener(snapshot -> {
-                List<Report> reports = new java.util.ArrayList<>();
-                for (com.google.firebase.database.DataSnapshot dataSnapshot : snapshot.getChildren()) {
-                    Report report = dataSnapshot.getValue(Report.class);
-                    if (report != null) {
-                        report.setId(dataSnapshot.getKey());
-                        reports.add(report);
+            .addOnSuccessListener(snapshot -> SnapshotDecoder.submit(
+                () -> SnapshotDecoder.decodeChildren(snapshot, ModelMappers.REPORT),
+                callback::onReportsLoaded,
+                e -> callback.onError(e.getMessage())))
+            .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    }
+
+    /**
+     * Load one page of the moderation queue for a status, newest first.
+     * Pass a null cursor for the first page, then the nextCursor returned by the previous page.
+     * Only the status partition is queried, so the cost follows the page size, not the report count.
+     */
+    public void getReportQueuePage(String status, String cursor, int pageSize, ReportPageCallback callback) {
+        Query query = database.getReference(REPORT_QUEUE_NODE).child(status).orderByValue();
+
+        if (cursor != null) {
+            long cursorCreatedAt;
+            String cursorKey;
+            try {
+                int separator = cursor.indexOf('_');
+                cursorCreatedAt = Long.parseLong(cursor.substring(0, separator));
+                cursorKey = cursor.substring(separator + 1);
+            } catch (RuntimeException e) {
+                callback.onError("Invalid page cursor: " + cursor);
+                return;
+            }
+            query = query.endBefore(cursorCreatedAt, cursorKey);
+        }
+
+        query.limitToLast(pageSize)
+            .get()
+            .addOnSuccessListener(queue -> {
+                List<Task<DataSnapshot>> reads = new java.util.ArrayList<>();
+                String nextCursor = null;
+                for (DataSnapshot entry : queue.getChildren()) {
+                    if (nextCursor == null && queue.getChildrenCount() >= pageSize) {
+                        // The oldest entry of this page, even if its report no longer exists
+                        Long createdAt = entry.getValue(Long.class);
+                        nextCursor = (createdAt != null ? createdAt : 0) + "_" + entry.getKey();
                     }
+                    reads.add(database.getReference(REPORTS_NODE).child(entry.getKey()).get());
                 }
-                callback.onReportsLoaded(reports);
+
+                String pageCursor = nextCursor;
+                com.google.android.gms.tasks.Tasks.<DataSnapshot>whenAllSuccess(reads)
+                    .addOnSuccessListener(snapshots -> SnapshotDecoder.submit(() -> {
+                        List<Report> reports = new java.util.ArrayList<>();
+                        for (DataSnapshot dataSnapshot : snapshots) {
+                            Report report = SnapshotDecoder.decode(dataSnapshot, ModelMappers.REPORT);
+                            if (report != null) {
+                                reports.add(report);
+                            }
+                        }
+                        reports.sort((a, b) -> Long.compare(b.getCreatedAt(), a.getCreatedAt()));
+                        return reports;
+                    }, reports -> callback.onPageLoaded(reports, pageCursor), e -> callback.onError(e.getMessage())))
+                    .addOnFailureListener(e -> callback.onError(e.getMessage()));
             })
             .addOnFailureListener(e -> callback.onError(e.getMessage()));
     }
 
+    /**
+     * Move a report to another status: the report fields, its queue partition and the
+     * per-status counters change in one atomic write
+     */
     public void updateReportStatus(String reportId, String status, String adminId, String adminNotes,
                                  String actionTaken, OnCompleteListener<Void> listener) {
         DatabaseReference reportRef = database.getReference(REPORTS_NODE).child(reportId);
-        reportRef.child("status").setValue(status);
-        reportRef.child("adminId").setValue(adminId);
-        reportRef.child("adminNotes").setValue(adminNotes);
-        reportRef.child("actionTaken").setValue(actionTaken);
-        reportRef.child("reviewedAt").setValue(System.currentTimeMillis())
-            .addOnCompleteListener(listener);
+        reportRef.get().addOnCompleteListener(readTask -> {
+            if (!readTask.isSuccessful() || !readTask.getResult().exists()) {
+                Exception error = readTask.getException() != null
+                    ? readTask.getException() : new IllegalStateException("Report not found: " + reportId);
+                listener.onComplete(com.google.android.gms.tasks.Tasks.forException(error));
+                return;
+            }
+
+            DataSnapshot current = readTask.getResult();
+            String storedStatus = current.child("status").getValue(String.class);
+            // Legacy reports without a status are queued as PENDING (addReport, migration)
+            String previousStatus = storedStatus != null ? storedStatus : "PENDING";
+            Long createdAt = current.child("createdAt").getValue(Long.class);
+            String reportPath = REPORTS_NODE + "/" + reportId + "/";
+
+            // previousStatus is the precondition: the rules reject the whole write if another
+            // admin changed the status since it was read, so the queue and counters move once
+            WriteBatch batch = batch()
+                .set(reportPath + "status", status)
+                .set(reportPath + "previousStatus", previousStatus)
+                .set(reportPath + "adminId", adminId)
+                .set(reportPath + "adminNotes", adminNotes)
+                .set(reportPath + "actionTaken", actionTaken)
+                .set(reportPath + "reviewedAt", System.currentTimeMillis());
+
+            if (!status.equals(previousStatus)) {
+                batch.delete(reportQueuePath(previousStatus, reportId))
+                    .increment(REPORT_STATS_NODE + "/" + previousStatus, -1);
+                batch.set(reportQueuePath(status, reportId), createdAt != null ? createdAt : 0L)
+                    .increment(REPORT_STATS_NODE + "/" + status, 1);
+            }
+            batch.commit().addOnCompleteListener(listener);
+        });
     }
 
     // ==================== PAYMENT-SPECIFIC METHODS ====================
@@ -927,10 +1853,7 @@ public class FirebaseManager {
     public void saveTransaction(Transaction transaction, OnTransactionSavedListener listener) {
         String key = database.getReference(TRANSACTIONS_NODE).push().getKey();
         if (key != null) {
-            transaction.setId(key);
-            database.getReference(TRANSACTIONS_NODE)
-                .child(key)
-                .setValue(transaction)
+            writeTransaction(key, transaction)
                 .addOnSuccessListener(aVoid -> listener.onSuccess(key))
                 .addOnFailureListener(e -> listener.onError(e.getMessage()));
         } else {
@@ -950,9 +1873,6 @@ public class FirebaseManager {
                 updateProductStatus(transaction.getProductId(), "Sold", new OnStatusUpdateListener() {
                     @Override
                     public void onSuccess() {
-                        // Save transaction to both buyer and seller history
-                        saveTransactionToUserHistory(transaction, transactionId);
-
                         // Send notification to seller
                         sendPaymentSuccessNotification(transaction);
 
@@ -973,23 +1893,6 @@ public class FirebaseManager {
         });
     }
 
-    /**
-     * Save transaction to both buyer's and seller's transaction history
-     */
-    private void saveTransactionToUserHistory(Transaction transaction, String transactionId) {
-        // Save to buyer's history
-        database.getReference("user_transactions")
-                .child(transaction.getBuyerId())
-                .child(transactionId)
-                .setValue(transaction);
-
-        // Save to seller's history
-        database.getReference("user_transactions")
-                .child(transaction.getSellerId())
-                .child(transactionId)
-                .setValue(transaction);
-    }
-
     /**
      * Send payment success notification to seller
      */
@@ -1009,31 +1912,21 @@ public class FirebaseManager {
     }
 
     public void getUserTransactions(String userId, OnTransactionsLoadedListener listener) {
-        // Read from user_transactions node where we actually save the data
-        database.getReference("user_transactions")
-            .child(userId)
-            .orderByChild("createdAt")
-            .get()
-            .addOnSuccessListener(snapshot -> {
-                List<Transaction> transactions = new java.util.ArrayList<>();
-                for (com.google.firebase.database.DataSnapshot dataSnapshot : snapshot.getChildren()) {
-                    Transaction transaction = dataSnapshot.getValue(Transaction.class);
-                    if (transaction != null) {
-                        transaction.setId(dataSnapshot.getKey());
-                        transactions.add(transaction);
-                    }
-                }
-                // Sort by most recent first
-                transactions.sort((a, b) -> Long.compare(b.getCreatedAt(), a.getCreatedAt()));
+        getTransactionsForUser(userId, new TransactionCallback() {
+            @Override
+            public void onTransactionsLoaded(List<Transaction> transactions) {
                 listener.onSuccess(transactions);
-            })
-            .addOnFailureListener(e -> listener.onError(e.getMessage()));
+            }
+
+            @Override
+            public void onError(String error) {
+                listener.onError(error);
+            }
+        });
     }
 
     public void updateProductStatus(String productId, String status, OnStatusUpdateListener listener) {
-        DatabaseReference productRef = database.getReference(PRODUCTS_NODE).child(productId);
-        productRef.child("status").setValue(status);
-        productRef.child("updatedAt").setValue(System.currentTimeMillis())
+        writeProductStatus(productId, status)
             .addOnSuccessListener(aVoid -> listener.onSuccess())
             .addOnFailureListener(e -> listener.onError(e.getMessage()));
     }
@@ -1062,86 +1955,11 @@ public class FirebaseManager {
     // ==================== ENHANCED TRANSACTION METHODS ====================
 
     /**
-     * Get all transactions for a user from both main transactions node and user_transactions node
-     * This ensures we display both old transactions (before the fix) and new transactions
+     * Get all transactions for a user. Older transactions are listed in the user's ledger by
+     * ProductDataMigration.backfillUserTransactions, so the ledger alone is complete.
      */
     public void getAllTransactionsForUser(String userId, TransactionCallback callback) {
-        Log.d("FirebaseManager", "getAllTransactionsForUser called for userId: " + userId);
-
-        // Use a map to avoid duplicates and track transactions by ID
-        java.util.Map<String, Transaction> transactionMap = new java.util.HashMap<>();
-        final boolean[] firstCallCompleted = {false};
-        final boolean[] secondCallCompleted = {false};
-
-        // First, get transactions from main TRANSACTIONS_NODE (for old data)
-        Log.d("FirebaseManager", "Starting to fetch from TRANSACTIONS_NODE");
-        database.getReference(TRANSACTIONS_NODE)
-            .get()
-            .addOnSuccessListener(snapshot -> {
-                Log.d("FirebaseManager", "TRANSACTIONS_NODE fetch success, children count: " + snapshot.getChildrenCount());
-                for (com.google.firebase.database.DataSnapshot dataSnapshot : snapshot.getChildren()) {
-                    Transaction transaction = dataSnapshot.getValue(Transaction.class);
-                    if (transaction != null &&
-                        (userId.equals(transaction.getBuyerId()) || userId.equals(transaction.getSellerId()))) {
-                        transaction.setId(dataSnapshot.getKey());
-                        transactionMap.put(transaction.getId(), transaction);
-                        Log.d("FirebaseManager", "Found transaction in TRANSACTIONS_NODE: " + transaction.getId() + " for product: " + transaction.getProductTitle());
-                    }
-                }
-                Log.d("FirebaseManager", "Total transactions found in TRANSACTIONS_NODE: " + transactionMap.size());
-                firstCallCompleted[0] = true;
-                checkAndReturnResults(transactionMap, firstCallCompleted, secondCallCompleted, callback);
-            })
-            .addOnFailureListener(e -> {
-                Log.e("FirebaseManager", "Error fetching from TRANSACTIONS_NODE: " + e.getMessage());
-                firstCallCompleted[0] = true;
-                checkAndReturnResults(transactionMap, firstCallCompleted, secondCallCompleted, callback);
-            });
-
-        // Second, get transactions from user_transactions node (for new data)
-        Log.d("FirebaseManager", "Starting to fetch from user_transactions");
-        database.getReference("user_transactions")
-            .child(userId)
-            .get()
-            .addOnSuccessListener(snapshot -> {
-                Log.d("FirebaseManager", "user_transactions fetch success, children count: " + snapshot.getChildrenCount());
-                for (com.google.firebase.database.DataSnapshot dataSnapshot : snapshot.getChildren()) {
-                    Transaction transaction = dataSnapshot.getValue(Transaction.class);
-                    if (transaction != null) {
-                        transaction.setId(dataSnapshot.getKey());
-                        // This will overwrite if exists, ensuring we have the most recent data
-                        transactionMap.put(transaction.getId(), transaction);
-                        Log.d("FirebaseManager", "Found transaction in user_transactions: " + transaction.getId() + " for product: " + transaction.getProductTitle());
-                    }
-                }
-                Log.d("FirebaseManager", "Total transactions after user_transactions: " + transactionMap.size());
-                secondCallCompleted[0] = true;
-                checkAndReturnResults(transactionMap, firstCallCompleted, secondCallCompleted, callback);
-            })
-            .addOnFailureListener(e -> {
-                Log.e("FirebaseManager", "Error fetching from user_transactions: " + e.getMessage());
-                secondCallCompleted[0] = true;
-                checkAndReturnResults(transactionMap, firstCallCompleted, secondCallCompleted, callback);
-            });
-    }
-
-    private void checkAndReturnResults(java.util.Map<String, Transaction> transactionMap,
-                                     boolean[] firstCallCompleted, boolean[] secondCallCompleted,
-                                     TransactionCallback callback) {
-        if (firstCallCompleted[0] && secondCallCompleted[0]) {
-            // Both calls completed, return merged results
-            List<Transaction> allTransactions = new java.util.ArrayList<>(transactionMap.values());
-            Log.d("FirebaseManager", "Both calls completed. Final transaction count: " + allTransactions.size());
-
-            // Sort by most recent first
-            allTransactions.sort((a, b) -> Long.compare(b.getCreatedAt(), a.getCreatedAt()));
-
-            for (Transaction t : allTransactions) {
-                Log.d("FirebaseManager", "Final transaction: " + t.getId() + " - " + t.getProductTitle() + " - Created: " + t.getCreatedAt());
-            }
-
-            callback.onTransactionsLoaded(allTransactions);
-        }
+        getTransactionsForUser(userId, callback);
     }
 
     // ==================== TEST METHODS FOR DEBUG ====================
@@ -1170,36 +1988,19 @@ public class FirebaseManager {
         testTransaction.setPaymentMethod("TEST");
 
         // Save the test transaction
-        String key = database.getReference(TRANSACTIONS_NODE).push().getKey();
-        if (key != null) {
-            testTransaction.setId(key);
+        saveTransaction(testTransaction, new OnTransactionSavedListener() {
+            @Override
+            public void onSuccess(String transactionId) {
+                Log.d("FirebaseManager", "Test transaction created successfully: " + transactionId);
+                listener.onSuccess(transactionId);
+            }
 
-            // Save to main transactions node
-            database.getReference(TRANSACTIONS_NODE)
-                .child(key)
-                .setValue(testTransaction)
-                .addOnSuccessListener(aVoid -> {
-                    // Also save to user_transactions
-                    database.getReference("user_transactions")
-                        .child(currentUserId)
-                        .child(key)
-                        .setValue(testTransaction)
-                        .addOnSuccessListener(aVoid2 -> {
-                            Log.d("FirebaseManager", "Test transaction created successfully: " + key);
-                            listener.onSuccess(key);
-                        })
-                        .addOnFailureListener(e -> {
-                            Log.e("FirebaseManager", "Failed to save test transaction to user_transactions: " + e.getMessage());
-                            listener.onError(e.getMessage());
-                        });
-                })
-                .addOnFailureListener(e -> {
-                    Log.e("FirebaseManager", "Failed to save test transaction to main node: " + e.getMessage());
-                    listener.onError(e.getMessage());
-                });
-        } else {
-            listener.onError("Failed to generate transaction ID");
-        }
+            @Override
+            public void onError(String error) {
+                Log.e("FirebaseManager", "Failed to save test transaction: " + error);
+                listener.onError(error);
+            }
+        });
     }
 
     /**
@@ -1216,7 +2017,7 @@ public class FirebaseManager {
                 Log.d("FirebaseManager", "Main transactions node has " + mainCount + " transactions");
 
                 // Check user_transactions node
-                database.getReference("user_transactions")
+                database.getReference(USER_TRANSACTIONS_NODE)
                     .get()
                     .addOnSuccessListener(userSnapshot -> {
                         long userCount = userSnapshot.getChildrenCount();
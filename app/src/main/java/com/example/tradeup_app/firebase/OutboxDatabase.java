@@ -0,0 +1,116 @@
+package com.example.tradeup_app.firebase;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.ToNumberPolicy;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SQLite store behind WriteOutbox, one row per pending OutboxEntry in enqueue order.
+ * Unlike CacheDatabase its rows can't be refetched, so they are never dropped on upgrade.
+ */
+class OutboxDatabase extends SQLiteOpenHelper {
+    private static final String DATABASE_NAME = "tradeup_outbox.db";
+    private static final int DATABASE_VERSION = 1;
+
+    private static final String TABLE_OUTBOX = "outbox";
+    private static final String COL_SEQ = "seq";
+    private static final String COL_KEY = "op_key";
+    private static final String COL_ENTITY = "entity_key";
+    private static final String COL_CREATED_AT = "created_at";
+    private static final String COL_ATTEMPTS = "attempts";
+    private static final String COL_NEXT_ATTEMPT_AT = "next_attempt_at";
+    private static final String COL_UPDATES = "updates_json";
+
+    private static final Type UPDATES_TYPE = new TypeToken<Map<String, Object>>() {}.getType();
+
+    // Whole numbers come back as Long, as Firebase would deliver them
+    private final Gson gson = new GsonBuilder()
+        .serializeNulls()
+        .setObjectToNumberStrategy(ToNumberPolicy.LONG_OR_DOUBLE)
+        .create();
+
+    OutboxDatabase(Context context) {
+        super(context.getApplicationContext(), DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_OUTBOX + " ("
+            + COL_SEQ + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+            + COL_KEY + " TEXT NOT NULL UNIQUE, "
+            + COL_ENTITY + " TEXT NOT NULL, "
+            + COL_CREATED_AT + " INTEGER NOT NULL, "
+            + COL_ATTEMPTS + " INTEGER NOT NULL DEFAULT 0, "
+            + COL_NEXT_ATTEMPT_AT + " INTEGER NOT NULL DEFAULT 0, "
+            + COL_UPDATES + " TEXT NOT NULL)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Pending writes are user data: migrate here instead of dropping the table
+    }
+
+    /**
+     * Store a new entry and assign its sequence number
+     */
+    void insert(OutboxEntry entry) {
+        long seq = getWritableDatabase().insertOrThrow(TABLE_OUTBOX, null, toValues(entry));
+        entry.setSeq(seq);
+    }
+
+    /**
+     * Save the updates and retry state of an existing entry
+     */
+    void update(OutboxEntry entry) {
+        getWritableDatabase().update(TABLE_OUTBOX, toValues(entry), COL_SEQ + " = ?",
+            new String[]{String.valueOf(entry.getSeq())});
+    }
+
+    void delete(OutboxEntry entry) {
+        getWritableDatabase().delete(TABLE_OUTBOX, COL_SEQ + " = ?",
+            new String[]{String.valueOf(entry.getSeq())});
+    }
+
+    /**
+     * Every pending entry, oldest first
+     */
+    List<OutboxEntry> getAll() {
+        List<OutboxEntry> entries = new ArrayList<>();
+        Cursor cursor = getReadableDatabase().query(TABLE_OUTBOX,
+            new String[]{COL_SEQ, COL_KEY, COL_ENTITY, COL_CREATED_AT, COL_ATTEMPTS, COL_NEXT_ATTEMPT_AT, COL_UPDATES},
+            null, null, null, null, COL_SEQ + " ASC");
+        try {
+            while (cursor.moveToNext()) {
+                Map<String, Object> updates = gson.fromJson(cursor.getString(6), UPDATES_TYPE);
+                entries.add(new OutboxEntry(cursor.getLong(0), cursor.getString(1), cursor.getString(2),
+                    cursor.getLong(3), updates, cursor.getInt(4), cursor.getLong(5)));
+            }
+        } finally {
+            cursor.close();
+        }
+        return entries;
+    }
+
+    private ContentValues toValues(OutboxEntry entry) {
+        ContentValues values = new ContentValues();
+        values.put(COL_KEY, entry.getKey());
+        values.put(COL_ENTITY, entry.getEntityKey());
+        values.put(COL_CREATED_AT, entry.getCreatedAt());
+        values.put(COL_ATTEMPTS, entry.getAttempts());
+        values.put(COL_NEXT_ATTEMPT_AT, entry.getNextAttemptAt());
+        values.put(COL_UPDATES, gson.toJson(entry.getUpdates()));
+        return values;
+    }
+}
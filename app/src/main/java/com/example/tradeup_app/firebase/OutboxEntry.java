@@ -0,0 +1,141 @@
+package com.example.tradeup_app.firebase;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One pending mutation of the WriteOutbox: a root-relative multi-path update that belongs to
+ * one entity ("conversation:<id>", "product:<id>", ...) and is applied at most once thanks to
+ * its idempotency key.
+ *
+ * Values are plain Java types (maps, lists, strings, numbers, booleans, null) so the entry can be
+ * stored as JSON. Server values stay in their wire form, e.g. {".sv": {"increment": 1}}.
+ */
+public class OutboxEntry {
+    private static final String SERVER_VALUE = ".sv";
+    private static final String INCREMENT = "increment";
+
+    private long seq;
+    private final String key;
+    private final String entityKey;
+    private final long createdAt;
+    private final LinkedHashMap<String, Object> updates;
+    private int attempts;
+    private long nextAttemptAt;
+    // Sent and waiting for the server; such an entry can't absorb later writes any more
+    private boolean inFlight;
+
+    public OutboxEntry(long seq, String key, String entityKey, long createdAt,
+                       Map<String, Object> updates, int attempts, long nextAttemptAt) {
+        this.seq = seq;
+        this.key = key;
+        this.entityKey = entityKey;
+        this.createdAt = createdAt;
+        this.updates = new LinkedHashMap<>(updates);
+        this.attempts = attempts;
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public long getSeq() { return seq; }
+    public void setSeq(long seq) { this.seq = seq; }
+    public String getKey() { return key; }
+    public String getEntityKey() { return entityKey; }
+    public long getCreatedAt() { return createdAt; }
+    public Map<String, Object> getUpdates() { return updates; }
+    public int getAttempts() { return attempts; }
+    public long getNextAttemptAt() { return nextAttemptAt; }
+    public boolean isInFlight() { return inFlight; }
+    public void setInFlight(boolean inFlight) { this.inFlight = inFlight; }
+
+    /**
+     * Record a failed attempt and push the next one back exponentially, capped at maxDelayMs
+     */
+    public long backOff(long now, long baseDelayMs, long maxDelayMs) {
+        attempts++;
+        long delay = baseDelayMs << Math.min(attempts - 1, 20);
+        delay = Math.min(delay, maxDelayMs);
+        nextAttemptAt = now + delay;
+        return delay;
+    }
+
+    /**
+     * Make the entry due right away, e.g. when the network comes back
+     */
+    public void resetBackOff() {
+        nextAttemptAt = 0;
+    }
+
+    /**
+     * Coalesce a later write of the same entity into this entry, as if both had been applied
+     * in order: a later value replaces an earlier one at the same path, increments add up.
+     * Returns false and changes nothing if the writes can't be expressed as one update, e.g.
+     * when a path is an ancestor of another one or an increment follows a non-numeric value.
+     */
+    public boolean absorb(Map<String, Object> later) {
+        if (inFlight) return false;
+
+        Map<String, Object> merged = new LinkedHashMap<>(updates);
+        for (Map.Entry<String, Object> write : later.entrySet()) {
+            String path = write.getKey();
+            for (String existing : merged.keySet()) {
+                if (!existing.equals(path) && overlaps(existing, path)) return false;
+            }
+
+            Object value = write.getValue();
+            Long delta = incrementOf(value);
+            if (delta == null || !merged.containsKey(path)) {
+                merged.put(path, value);
+                continue;
+            }
+
+            Object earlier = merged.get(path);
+            Long earlierDelta = incrementOf(earlier);
+            if (earlierDelta != null) {
+                merged.put(path, increment(earlierDelta + delta));
+            } else if (earlier instanceof Number && isIntegral((Number) earlier)) {
+                merged.put(path, ((Number) earlier).longValue() + delta);
+            } else {
+                return false;
+            }
+        }
+
+        updates.clear();
+        updates.putAll(merged);
+        return true;
+    }
+
+    /**
+     * Whether this entry writes exactly path
+     */
+    public boolean writes(String path) {
+        return updates.containsKey(path);
+    }
+
+    private static boolean overlaps(String a, String b) {
+        return a.startsWith(b + "/") || b.startsWith(a + "/");
+    }
+
+    private static boolean isIntegral(Number number) {
+        return number instanceof Long || number instanceof Integer
+            || number.doubleValue() == Math.rint(number.doubleValue());
+    }
+
+    /**
+     * The delta of a server-side increment in wire form, or null for any other value
+     */
+    static Long incrementOf(Object value) {
+        if (!(value instanceof Map)) return null;
+        Object serverValue = ((Map<?, ?>) value).get(SERVER_VALUE);
+        if (!(serverValue instanceof Map)) return null;
+        Object delta = ((Map<?, ?>) serverValue).get(INCREMENT);
+        return delta instanceof Number ? ((Number) delta).longValue() : null;
+    }
+
+    static Map<String, Object> increment(long delta) {
+        Map<String, Object> increment = new LinkedHashMap<>();
+        increment.put(INCREMENT, delta);
+        Map<String, Object> serverValue = new LinkedHashMap<>();
+        serverValue.put(SERVER_VALUE, increment);
+        return serverValue;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.tradeup_app.firebase;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.tradeup_app.data.mapping.ModelMapper;
+import com.google.firebase.database.DataSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Turns snapshots into models off the main thread. Firebase delivers listener callbacks on the
+ * main thread, so decoding a large node there (reflection per field per record) stalls the UI.
+ *
+ * - decodeChildren()/decode() read each node as a plain Map and build the model with a
+ *   ModelMapper; a record that can't be decoded is skipped instead of failing the whole list.
+ * - submit() runs the decoding (and any sorting) on one background thread and delivers the
+ *   result on the main thread. One thread keeps results in the order the reads were submitted.
+ */
+public final class SnapshotDecoder {
+    private static final String TAG = "SnapshotDecoder";
+
+    public interface ResultCallback<R> {
+        void onResult(R result);
+    }
+
+    public interface ErrorCallback {
+        void onError(Exception e);
+    }
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "snapshot-decoder");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private SnapshotDecoder() {}
+
+    /**
+     * Decode every child of parent, in snapshot order
+     */
+    public static <T> List<T> decodeChildren(DataSnapshot parent, ModelMapper<T> mapper) {
+        List<T> models = new ArrayList<>((int) parent.getChildrenCount());
+        for (DataSnapshot child : parent.getChildren()) {
+            T model = decode(child, mapper);
+            if (model != null) {
+                models.add(model);
+            }
+        }
+        return models;
+    }
+
+    /**
+     * Decode one node, or null if it is missing or isn't an object
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T decode(DataSnapshot snapshot, ModelMapper<T> mapper) {
+        Object value = snapshot.getValue();
+        if (!(value instanceof Map)) {
+            return null;
+        }
+        try {
+            return mapper.map(snapshot.getKey(), (Map<String, Object>) value);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Skipping undecodable record " + snapshot.getKey(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Run work on the decoder thread and hand its result (or failure) to the main thread
+     */
+    public static <R> void submit(Callable<R> work, ResultCallback<R> onResult, ErrorCallback onError) {
+        executor.execute(() -> {
+            try {
+                R result = work.call();
+                mainHandler.post(() -> onResult.onResult(result));
+            } catch (Exception e) {
+                Log.e(TAG, "Decoding failed", e);
+                mainHandler.post(() -> onError.onError(e));
+            }
+        });
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.tradeup_app.firebase;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ServerValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Collects writes to any paths of the database and commits them as one atomic updateChildren
+ * at the root: one request, and either every write is applied or none is.
+ * Paths are root-relative ("products/<id>/status"). A batch must not contain a path together
+ * with one of its ancestors; Firebase rejects such overlapping updates.
+ */
+public class WriteBatch {
+    private final DatabaseReference root;
+    private final Map<String, Object> updates = new HashMap<>();
+
+    WriteBatch(DatabaseReference root) {
+        this.root = root;
+    }
+
+    public WriteBatch set(String path, Object value) {
+        updates.put(path, value);
+        return this;
+    }
+
+    /**
+     * Set several children of basePath, like DatabaseReference.updateChildren on that node
+     */
+    public WriteBatch update(String basePath, Map<String, Object> fields) {
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            updates.put(basePath + "/" + field.getKey(), field.getValue());
+        }
+        return this;
+    }
+
+    public WriteBatch delete(String path) {
+        updates.put(path, null);
+        return this;
+    }
+
+    public WriteBatch increment(String path, long delta) {
+        updates.put(path, ServerValue.increment(delta));
+        return this;
+    }
+
+    public int size() {
+        return updates.size();
+    }
+
+    public boolean isEmpty() {
+        return updates.isEmpty();
+    }
+
+    /**
+     * The pending writes, for helpers that fill in a plain update map
+     */
+    public Map<String, Object> asMap() {
+        return updates;
+    }
+
+    public Task<Void> commit() {
+        if (updates.isEmpty()) {
+            return Tasks.forResult(null);
+        }
+        return root.updateChildren(new HashMap<>(updates));
+    }
+}
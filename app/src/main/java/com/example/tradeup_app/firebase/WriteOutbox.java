@@ -0,0 +1,272 @@
+package com.example.tradeup_app.firebase;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.tradeup_app.utils.NetworkUtils;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.core.utilities.encoding.CustomClassMapper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Durable log of multi-path writes, so a mutation survives a lost connection or a killed process.
+ *
+ * - Every entry is handed to the SDK as soon as it is queued, online or not, so listeners see it
+ *   right away; the SDK keeps writes in order. The outbox only stores an entry until the server
+ *   acknowledges it and replays what is left after a restart.
+ * - An entry that failed waits for its retry, and later entries of the same entity wait behind it;
+ *   a write that arrives meanwhile is coalesced into the entity's waiting last entry.
+ * - Every entry carries an idempotency key. Its receipt at write_receipts/<key> is written in the
+ *   same update and may only be created once (rules), so a replay after a lost ack is rejected.
+ *   Receipts older than RECEIPT_TTL_MS are deleted about once a day.
+ * - Failed entries back off exponentially; regained connectivity makes them due at once.
+ *
+ * Values are converted with the SDK-internal core.utilities.encoding.CustomClassMapper, the
+ * converter setValue() uses; it is not public API and may move in a later SDK version.
+ */
+public class WriteOutbox {
+    private static final String TAG = "WriteOutbox";
+    private static final long BASE_RETRY_DELAY_MS = 2_000;
+    private static final long MAX_RETRY_DELAY_MS = 10 * 60 * 1000;
+    // Far longer than any retry delay: a receipt is only needed while its entry could be replayed
+    private static final long RECEIPT_TTL_MS = 7L * 24 * 60 * 60 * 1000;
+    private static final long RECEIPT_CLEANUP_INTERVAL_MS = 24 * 60 * 60 * 1000;
+    private static final int RECEIPT_CLEANUP_BATCH = 200;
+    private static final String PREFS = "write_outbox";
+    private static final String PREF_LAST_CLEANUP = "last_receipt_cleanup";
+
+    private static WriteOutbox instance;
+
+    private final Context context;
+    private final OutboxDatabase store;
+    private final DatabaseReference root;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable flushRunnable = this::flush;
+    // When the posted flush runs, Long.MAX_VALUE if none is posted
+    private long flushAt = Long.MAX_VALUE;
+
+    // Pending entries in enqueue order, mirrored in the store
+    private final List<OutboxEntry> pending = new ArrayList<>();
+
+    public static synchronized void init(Context context) {
+        if (instance == null) {
+            instance = new WriteOutbox(context.getApplicationContext());
+        }
+    }
+
+    /**
+     * The outbox, or null before init() was called
+     */
+    public static synchronized WriteOutbox getInstance() {
+        return instance;
+    }
+
+    private WriteOutbox(Context context) {
+        this.context = context;
+        this.store = new OutboxDatabase(context);
+        this.root = FirebaseDatabase.getInstance().getReference();
+
+        pending.addAll(store.getAll());
+        if (!pending.isEmpty()) {
+            Log.d(TAG, "Replaying " + pending.size() + " queued writes");
+        }
+
+        NetworkUtils.registerConnectivityCallback(context, () -> {
+            synchronized (WriteOutbox.this) {
+                for (OutboxEntry entry : pending) {
+                    entry.resetBackOff();
+                }
+            }
+            scheduleFlush(0);
+        });
+        scheduleFlush(0);
+        cleanUpReceipts();
+    }
+
+    /**
+     * Queue a root-relative multi-path update for entityKey. Returns once the write is on disk;
+     * values may be model objects, they are converted the way setValue() would.
+     */
+    public synchronized void enqueue(String entityKey, Map<String, Object> updates) {
+        Map<String, Object> plain = new HashMap<>();
+        for (Map.Entry<String, Object> update : updates.entrySet()) {
+            plain.put(update.getKey(), CustomClassMapper.convertToPlainJavaTypes(update.getValue()));
+        }
+
+        OutboxEntry tail = lastEntryOf(entityKey);
+        if (tail != null && tail.absorb(plain)) {
+            store.update(tail);
+            Log.d(TAG, "Coalesced write into " + tail.getKey() + " for " + entityKey);
+        } else {
+            String key = root.child(FirebaseManager.WRITE_RECEIPTS_NODE).push().getKey();
+            OutboxEntry entry = new OutboxEntry(0, key, entityKey, System.currentTimeMillis(), plain, 0, 0);
+            store.insert(entry);
+            pending.add(entry);
+        }
+        scheduleFlush(0);
+    }
+
+    /**
+     * Whether a queued write targets exactly path, e.g. a like that is not on the server yet
+     */
+    public synchronized boolean hasPendingWrite(String path) {
+        return lastEntryWriting(path) != null;
+    }
+
+    /**
+     * The newest queued value at path; only meaningful when hasPendingWrite(path)
+     */
+    public synchronized Object getPendingValue(String path) {
+        OutboxEntry entry = lastEntryWriting(path);
+        return entry != null ? entry.getUpdates().get(path) : null;
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    private OutboxEntry lastEntryOf(String entityKey) {
+        for (int i = pending.size() - 1; i >= 0; i--) {
+            if (pending.get(i).getEntityKey().equals(entityKey)) return pending.get(i);
+        }
+        return null;
+    }
+
+    private OutboxEntry lastEntryWriting(String path) {
+        for (int i = pending.size() - 1; i >= 0; i--) {
+            if (pending.get(i).writes(path)) return pending.get(i);
+        }
+        return null;
+    }
+
+    /**
+     * Flush after delayMs, unless a flush is already due earlier
+     */
+    private synchronized void scheduleFlush(long delayMs) {
+        long at = System.currentTimeMillis() + delayMs;
+        if (at >= flushAt) return;
+        flushAt = at;
+        handler.removeCallbacks(flushRunnable);
+        handler.postDelayed(flushRunnable, delayMs);
+    }
+
+    /**
+     * Hand every due entry to the SDK, in enqueue order. Offline the SDK applies it locally and
+     * holds it until the connection is back; an entity whose oldest waiting entry isn't due yet
+     * sends nothing newer.
+     */
+    private synchronized void flush() {
+        flushAt = Long.MAX_VALUE;
+        if (pending.isEmpty()) return;
+
+        long now = System.currentTimeMillis();
+        long nextDue = Long.MAX_VALUE;
+        Set<String> blocked = new HashSet<>();
+        for (OutboxEntry entry : pending) {
+            if (entry.isInFlight()) continue;
+            if (blocked.contains(entry.getEntityKey())) continue;
+            if (entry.getNextAttemptAt() > now) {
+                blocked.add(entry.getEntityKey());
+                nextDue = Math.min(nextDue, entry.getNextAttemptAt());
+                continue;
+            }
+            send(entry);
+        }
+        if (nextDue != Long.MAX_VALUE) {
+            scheduleFlush(nextDue - now);
+        }
+    }
+
+    private void send(OutboxEntry entry) {
+        entry.setInFlight(true);
+        Map<String, Object> updates = new HashMap<>(entry.getUpdates());
+        updates.put(FirebaseManager.WRITE_RECEIPTS_NODE + "/" + entry.getKey(), ServerValue.TIMESTAMP);
+
+        root.updateChildren(updates, (error, ref) -> {
+            if (error == null) {
+                complete(entry);
+            } else if (error.getCode() == DatabaseError.PERMISSION_DENIED) {
+                checkReceipt(entry, error);
+            } else {
+                retryLater(entry, error.getMessage());
+            }
+        });
+    }
+
+    /**
+     * A rejected entry was either applied before (its receipt exists) or can never be applied
+     */
+    private void checkReceipt(OutboxEntry entry, DatabaseError error) {
+        root.child(FirebaseManager.WRITE_RECEIPTS_NODE).child(entry.getKey()).get()
+            .addOnSuccessListener(receipt -> {
+                if (receipt.exists()) {
+                    Log.d(TAG, "Write " + entry.getKey() + " was already applied");
+                } else {
+                    Log.e(TAG, "Dropping rejected write " + entry.getKey() + " for " + entry.getEntityKey()
+                        + ": " + error.getMessage());
+                }
+                complete(entry);
+            })
+            .addOnFailureListener(e -> retryLater(entry, e.getMessage()));
+    }
+
+    private synchronized void complete(OutboxEntry entry) {
+        pending.remove(entry);
+        store.delete(entry);
+        // The entity's next entry may go now
+        scheduleFlush(0);
+    }
+
+    /**
+     * Delete receipts older than RECEIPT_TTL_MS, a bounded batch at most once per interval
+     */
+    private void cleanUpReceipts() {
+        android.content.SharedPreferences prefs = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        long now = System.currentTimeMillis();
+        if (now - prefs.getLong(PREF_LAST_CLEANUP, 0) < RECEIPT_CLEANUP_INTERVAL_MS) return;
+
+        root.child(FirebaseManager.WRITE_RECEIPTS_NODE)
+            .orderByValue()
+            .endAt(now - RECEIPT_TTL_MS)
+            .limitToFirst(RECEIPT_CLEANUP_BATCH)
+            .get()
+            .addOnSuccessListener(snapshot -> {
+                Map<String, Object> deletes = new HashMap<>();
+                for (com.google.firebase.database.DataSnapshot receipt : snapshot.getChildren()) {
+                    deletes.put(FirebaseManager.WRITE_RECEIPTS_NODE + "/" + receipt.getKey(), null);
+                }
+                if (deletes.isEmpty()) {
+                    prefs.edit().putLong(PREF_LAST_CLEANUP, now).apply();
+                    return;
+                }
+                root.updateChildren(deletes).addOnSuccessListener(aVoid -> {
+                    Log.d(TAG, "Deleted " + deletes.size() + " expired write receipts");
+                    // A full batch means more may be left: keep the interval open for the next start
+                    if (deletes.size() < RECEIPT_CLEANUP_BATCH) {
+                        prefs.edit().putLong(PREF_LAST_CLEANUP, now).apply();
+                    }
+                });
+            })
+            .addOnFailureListener(e -> Log.w(TAG, "Receipt cleanup failed: " + e.getMessage()));
+    }
+
+    private synchronized void retryLater(OutboxEntry entry, String error) {
+        entry.setInFlight(false);
+        long delay = entry.backOff(System.currentTimeMillis(), BASE_RETRY_DELAY_MS, MAX_RETRY_DELAY_MS);
+        store.update(entry);
+        Log.w(TAG, "Write " + entry.getKey() + " failed (attempt " + entry.getAttempts() + "), retry in "
+            + delay + " ms: " + error);
+        scheduleFlush(delay);
+    }
+}
@@ -12,6 +12,7 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.widget.NestedScrollView;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -26,6 +27,7 @@ import com.example.tradeup_app.activities.ChatActivity;
 import com.example.tradeup_app.activities.PaymentActivity;
 import com.example.tradeup_app.activities.LocationSettingsActivity;
 import com.example.tradeup_app.services.LocationService;
+import com.example.tradeup_app.utils.FeaturedRanking;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.card.MaterialCardView;
 import com.google.android.material.chip.Chip;
@@ -50,6 +52,12 @@ public class HomeFragment extends Fragment {
     private ProductAdapter featuredAdapter, recentAdapter;
     private CategoryAdapter categoryAdapter;
     private FirebaseManager firebaseManager;
+    private NestedScrollView homeScrollView;
+
+    // Feed paging
+    private static final int FEATURED_PAGE_SIZE = 10;
+    private String featuredCursor;
+    private String recentCursor;
 
     // User profile views
     private CircleImageView userProfileImage;
@@ -92,6 +100,7 @@ public class HomeFragment extends Fragment {
         recyclerViewFeatured = view.findViewById(R.id.featured_products_recycler);
         recyclerViewRecent = view.findViewById(R.id.recent_products_recycler);
         recyclerViewCategories = view.findViewById(R.id.categories_recycler);
+        homeScrollView = view.findViewById(R.id.home_scroll_view);
 
         // Search bar
         searchBar = view.findViewById(R.id.search_bar);
@@ -129,11 +138,38 @@ public class HomeFragment extends Fragment {
         recyclerViewRecent.setLayoutManager(new LinearLayoutManager(getContext()));
         recyclerViewRecent.setAdapter(recentAdapter);
 
+        // Load further pages as the user scrolls
+        setupFeedPaging();
+
         // Set click listeners
         setupProductClickListeners();
         setupCategoryClickListener();
     }
 
+    private void setupFeedPaging() {
+        featuredAdapter.setOnLoadMoreListener(this::loadMoreFeaturedItems);
+        recyclerViewFeatured.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+                if (layoutManager != null) {
+                    featuredAdapter.requestMoreIfNeeded(layoutManager.findLastVisibleItemPosition());
+                }
+            }
+        });
+
+        // The recent list is laid out at full height inside the NestedScrollView,
+        // so paging follows the outer scroll position instead of the RecyclerView's
+        recentAdapter.setOnLoadMoreListener(this::loadMoreRecentItems);
+        homeScrollView.setOnScrollChangeListener((NestedScrollView.OnScrollChangeListener)
+            (v, scrollX, scrollY, oldScrollX, oldScrollY) -> {
+                int visibleBottom = scrollY + v.getHeight();
+                if (visibleBottom >= recyclerViewRecent.getBottom() - v.getHeight()) {
+                    recentAdapter.requestMoreIfNeeded(recentAdapter.getItemCount() - 1);
+                }
+            });
+    }
+
     private void setupClickListeners() {
         // Quick sell card
         quickSellCard.setOnClickListener(v -> {
@@ -313,55 +349,21 @@ public class HomeFragment extends Fragment {
             return;
         }
 
-        // Get all products and filter by location
-        firebaseManager.getProducts(new FirebaseManager.ProductCallback() {
+        // Fetch only the geohash cells around the user; results come back nearest first
+        firebaseManager.getProductsNear(userLatitude, userLongitude, radiusKm, new FirebaseManager.ProductCallback() {
             @Override
-            public void onProductsLoaded(List<Product> products) {
+            public void onProductsLoaded(List<Product> sortedProducts) {
                 if (getActivity() != null) {
-                    locationService.filterProductsByLocation(products, userLatitude, userLongitude,
-                        radiusKm, new LocationService.ProductLocationCallback() {
-                            @Override
-                            public void onProductsFiltered(List<Product> filteredProducts) {
-                                getActivity().runOnUiThread(() -> {
-                                    // Sort by distance
-                                    locationService.sortProductsByDistance(filteredProducts,
-                                        userLatitude, userLongitude,
-                                        new LocationService.ProductLocationCallback() {
-                                            @Override
-                                            public void onProductsFiltered(List<Product> sortedProducts) {
-                                                getActivity().runOnUiThread(() -> {
-                                                    // Update both featured and recent with location-filtered results
-                                                    featuredAdapter.updateProducts(sortedProducts.size() > 10 ?
-                                                        sortedProducts.subList(0, 10) : sortedProducts);
-                                                    recentAdapter.updateProducts(sortedProducts);
-
-                                                    Toast.makeText(getContext(),
-                                                        "Found " + sortedProducts.size() + " products within " + radiusKm + " km",
-                                                        Toast.LENGTH_SHORT).show();
-                                                });
-                                            }
-
-                                            @Override
-                                            public void onError(String error) {
-                                                if (getActivity() != null) {
-                                                    getActivity().runOnUiThread(() ->
-                                                        Toast.makeText(getContext(), "Error sorting products: " + error,
-                                                            Toast.LENGTH_SHORT).show());
-                                                }
-                                            }
-                                       });
-                                });
-                            }
-
-                            @Override
-                            public void onError(String error) {
-                                if (getActivity() != null) {
-                                    getActivity().runOnUiThread(() ->
-                                        Toast.makeText(getContext(), "Error filtering products: " + error,
-                                            Toast.LENGTH_SHORT).show());
-                                }
-                            }
-                        });
+                    getActivity().runOnUiThread(() -> {
+                        // Update both featured and recent with location-filtered results
+                        featuredAdapter.updateProducts(FeaturedRanking.top(sortedProducts, FEATURED_PAGE_SIZE));
+                        recentAdapter.updateProducts(sortedProducts);
+                        stopFeedPaging();
+
+                        Toast.makeText(getContext(),
+                            "Found " + sortedProducts.size() + " products within " + radiusKm + " km",
+                            Toast.LENGTH_SHORT).show();
+                    });
                 }
             }
 
@@ -374,6 +376,16 @@ public class HomeFragment extends Fragment {
         });
     }
 
+    /**
+     * Location results replace the paged feed, so no further feed pages should be appended
+     */
+    private void stopFeedPaging() {
+        featuredCursor = null;
+        recentCursor = null;
+        featuredAdapter.setHasMore(false);
+        recentAdapter.setHasMore(false);
+    }
+
     /**
      * Apply location-based filtering to current feed based on saved preferences
      */
@@ -511,44 +523,123 @@ public class HomeFragment extends Fragment {
     }
 
     private void loadFeaturedItems() {
-        firebaseManager.getProducts(new FirebaseManager.ProductCallback() {
+        featuredCursor = null;
+        // Ranked by decayed engagement; the rail is a fixed top list, no further pages
+        firebaseManager.getFeaturedProducts(null, FEATURED_PAGE_SIZE, new FirebaseManager.ProductCallback() {
             @Override
             public void onProductsLoaded(List<Product> products) {
+                if (getActivity() == null) return;
+                if (products.isEmpty()) {
+                    // Nothing ranked yet, show the newest listings instead
+                    loadNewestAsFeatured();
+                    return;
+                }
+                featuredAdapter.updateProducts(products);
+                featuredAdapter.setHasMore(false);
+            }
+
+            @Override
+            public void onError(String error) {
+                if (getActivity() != null) {
+                    loadNewestAsFeatured();
+                }
+            }
+        });
+    }
+
+    private void loadNewestAsFeatured() {
+        featuredCursor = null;
+        firebaseManager.getProductsPage(null, FEATURED_PAGE_SIZE, new FirebaseManager.ProductPageCallback() {
+            @Override
+            public void onPageLoaded(List<Product> products, String nextCursor) {
                 if (getActivity() != null) {
-                    // Get featured products (e.g., top 10 most viewed)
-                    List<Product> featuredProducts = products.size() > 10 ?
-                        products.subList(0, 10) : products;
-                    featuredAdapter.updateProducts(featuredProducts);
+                    featuredCursor = nextCursor;
+                    featuredAdapter.updateProducts(products);
+                    featuredAdapter.setHasMore(nextCursor != null);
+                }
+                // Seed the ranking, so the next start gets the ranked rail
+                for (Product product : products) {
+                    firebaseManager.updateFeaturedRank(product);
                 }
             }
 
             @Override
             public void onError(String error) {
                 if (getActivity() != null) {
-                    Toast.makeText(getContext(), "L��i tải sản phẩm nổi bật: " + error, Toast.LENGTH_SHORT).show();
+                    Toast.makeText(getContext(), "Lỗi tải sản phẩm nổi bật: " + error, Toast.LENGTH_SHORT).show();
                 }
             }
         });
     }
 
+    private void loadMoreFeaturedItems() {
+        String requestCursor = featuredCursor;
+        if (requestCursor == null) {
+            featuredAdapter.setHasMore(false);
+            return;
+        }
+
+        firebaseManager.getProductsPage(requestCursor, FEATURED_PAGE_SIZE, new FirebaseManager.ProductPageCallback() {
+            @Override
+            public void onPageLoaded(List<Product> products, String nextCursor) {
+                // Drop pages that belong to a feed that has been reloaded meanwhile
+                if (getActivity() == null || !requestCursor.equals(featuredCursor)) return;
+                featuredCursor = nextCursor;
+                featuredAdapter.appendProducts(products);
+                featuredAdapter.setHasMore(nextCursor != null);
+            }
+
+            @Override
+            public void onError(String error) {
+                // Allow the next scroll to retry the same page
+                featuredAdapter.setHasMore(featuredCursor != null);
+            }
+        });
+    }
+
     private void loadRecentItems() {
-        firebaseManager.getProducts(new FirebaseManager.ProductCallback() {
+        recentCursor = null;
+        // ✅ Feed pages already come newest first, no client-side sort needed
+        firebaseManager.getProductsPage(null, FirebaseManager.DEFAULT_PAGE_SIZE, new FirebaseManager.ProductPageCallback() {
             @Override
-            public void onProductsLoaded(List<Product> products) {
-                // ✅ FIX: Sort products by creation time - newest first
-                products.sort((p1, p2) -> {
-                    // Compare by createdAt timestamp in descending order (newest first)
-                    long time1 = p1.getCreatedAt(); // Remove null check since getCreatedAt() returns primitive long
-                    long time2 = p2.getCreatedAt(); // Remove null check since getCreatedAt() returns primitive long
-                    return Long.compare(time2, time1); // Descending order
-                });
-
-                recentAdapter.updateProducts(products);
+            public void onPageLoaded(List<Product> products, String nextCursor) {
+                if (getActivity() != null) {
+                    recentCursor = nextCursor;
+                    recentAdapter.updateProducts(products);
+                    recentAdapter.setHasMore(nextCursor != null);
+                }
+            }
+
+            @Override
+            public void onError(String error) {
+                if (getActivity() != null) {
+                    Toast.makeText(getContext(), "Lỗi: " + error, Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+    }
+
+    private void loadMoreRecentItems() {
+        String requestCursor = recentCursor;
+        if (requestCursor == null) {
+            recentAdapter.setHasMore(false);
+            return;
+        }
+
+        firebaseManager.getProductsPage(requestCursor, FirebaseManager.DEFAULT_PAGE_SIZE, new FirebaseManager.ProductPageCallback() {
+            @Override
+            public void onPageLoaded(List<Product> products, String nextCursor) {
+                // Drop pages that belong to a feed that has been reloaded meanwhile
+                if (getActivity() == null || !requestCursor.equals(recentCursor)) return;
+                recentCursor = nextCursor;
+                recentAdapter.appendProducts(products);
+                recentAdapter.setHasMore(nextCursor != null);
             }
 
             @Override
             public void onError(String error) {
-                Toast.makeText(getContext(), "Lỗi: " + error, Toast.LENGTH_SHORT).show();
+                // Allow the next scroll to retry the same page
+                recentAdapter.setHasMore(recentCursor != null);
             }
         });
     }
@@ -657,63 +748,13 @@ public class HomeFragment extends Fragment {
     // Add public method to refresh data
     public void refreshData() {
         if (isAdded() && getContext() != null) {
-            // Force refresh from Firebase server, not cache
-            loadFeaturedItemsForceRefresh();
-            loadRecentItemsForceRefresh();
+            // get() always goes to the server when online, so reloading the first page is enough.
+            // keepSynced() on the products node is avoided on purpose: it mirrors the whole node locally.
+            loadFeaturedItems();
+            loadRecentItems();
         }
     }
 
-    private void loadFeaturedItemsForceRefresh() {
-        // Force refresh from server by using keepSynced(false) then keepSynced(true)
-        firebaseManager.getDatabase().getReference(FirebaseManager.PRODUCTS_NODE).keepSynced(false);
-        firebaseManager.getDatabase().getReference(FirebaseManager.PRODUCTS_NODE).keepSynced(true);
-
-        firebaseManager.getProducts(new FirebaseManager.ProductCallback() {
-            @Override
-            public void onProductsLoaded(List<Product> products) {
-                if (getActivity() != null) {
-                    // Get featured products (e.g., top 10 most viewed)
-                    List<Product> featuredProducts = products.size() > 10 ?
-                        products.subList(0, 10) : products;
-                    featuredAdapter.updateProducts(featuredProducts);
-                }
-            }
-
-            @Override
-            public void onError(String error) {
-                if (getActivity() != null) {
-                    Toast.makeText(getContext(), "Lỗi tải sản phẩm nổi bật: " + error, Toast.LENGTH_SHORT).show();
-                }
-            }
-        });
-    }
-
-    private void loadRecentItemsForceRefresh() {
-        // Force refresh from server
-        firebaseManager.getDatabase().getReference(FirebaseManager.PRODUCTS_NODE).keepSynced(false);
-        firebaseManager.getDatabase().getReference(FirebaseManager.PRODUCTS_NODE).keepSynced(true);
-
-        firebaseManager.getProducts(new FirebaseManager.ProductCallback() {
-            @Override
-            public void onProductsLoaded(List<Product> products) {
-                // ✅ FIX: Sort products by creation time - newest first
-                products.sort((p1, p2) -> {
-                    // Compare by createdAt timestamp in descending order (newest first)
-                    long time1 = p1.getCreatedAt();
-                    long time2 = p2.getCreatedAt();
-                    return Long.compare(time2, time1); // Descending order
-                });
-
-                recentAdapter.updateProducts(products);
-            }
-
-            @Override
-            public void onError(String error) {
-                Toast.makeText(getContext(), "Lỗi: " + error, Toast.LENGTH_SHORT).show();
-            }
-        });
-    }
-
     // ============ LOCATION SERVICES IMPLEMENTATION ============
 
     private void initializeLocationServices() {
@@ -846,6 +887,7 @@ public class HomeFragment extends Fragment {
 
                                         // Update recent products with location info
                                         recentAdapter.updateProducts(sortedProducts);
+                                        stopFeedPaging();
                                     });
                                 }
                             }
@@ -972,8 +1014,8 @@ public class HomeFragment extends Fragment {
                     product.setStatus(newStatus);
 
                     // Refresh the adapters to reflect the change
-                    featuredAdapter.notifyDataSetChanged();
-                    recentAdapter.notifyDataSetChanged();
+                    featuredAdapter.refreshProductStatus(product);
+                    recentAdapter.refreshProductStatus(product);
                 }
             }
 
@@ -1407,10 +1449,7 @@ public class HomeFragment extends Fragment {
             .setTitle("Mark as Sold")
             .setMessage("Are you sure you want to mark this product as sold?")
             .setPositiveButton("Yes", (dialog, which) ->
-                firebaseManager.getDatabase().getReference(FirebaseManager.PRODUCTS_NODE)
-                    .child(product.getId())
-                    .child("status")
-                    .setValue("Sold")
+                firebaseManager.setProductStatus(product.getId(), "Sold")
                     .addOnSuccessListener(aVoid -> {
                         if (getContext() != null) {
                             Toast.makeText(getContext(), "Product marked as sold", Toast.LENGTH_SHORT).show();
@@ -1432,10 +1471,7 @@ public class HomeFragment extends Fragment {
             .setTitle("Mark as Available")
             .setMessage("Are you sure you want to mark this product as available?")
             .setPositiveButton("Yes", (dialog, which) ->
-                firebaseManager.getDatabase().getReference(FirebaseManager.PRODUCTS_NODE)
-                    .child(product.getId())
-                    .child("status")
-                    .setValue("Available")
+                firebaseManager.setProductStatus(product.getId(), "Available")
                     .addOnSuccessListener(aVoid -> {
                         if (getContext() != null) {
                             Toast.makeText(getContext(), "Product marked as available", Toast.LENGTH_SHORT).show();
@@ -1457,9 +1493,7 @@ public class HomeFragment extends Fragment {
             .setTitle("Delete Product")
             .setMessage("Are you sure you want to delete this product? This action cannot be undone.")
             .setPositiveButton("Delete", (dialog, which) ->
-                firebaseManager.getDatabase().getReference(FirebaseManager.PRODUCTS_NODE)
-                    .child(product.getId())
-                    .removeValue()
+                firebaseManager.deleteProduct(product.getId())
                     .addOnSuccessListener(aVoid -> {
                         if (getContext() != null) {
                             Toast.makeText(getContext(), "Product deleted successfully", Toast.LENGTH_SHORT).show();
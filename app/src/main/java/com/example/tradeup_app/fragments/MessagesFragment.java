@@ -32,6 +32,7 @@ public class MessagesFragment extends Fragment {
     private ConversationAdapter conversationAdapter;
     private FirebaseManager firebaseManager;
     private List<Conversation> conversationList;
+    private FirebaseManager.Subscription conversationsSubscription;
 
     @Nullable
     @Override
@@ -98,8 +99,7 @@ public class MessagesFragment extends Fragment {
                 // Log the report and optionally refresh
                 android.util.Log.d("MessagesFragment", "Conversation reported: " + conversation.getId());
 
-                // Refresh to show visual indication of reported conversation
-                conversationAdapter.notifyDataSetChanged();
+                // The adapter already rebound the row with its reported state
             }
         });
 
@@ -116,37 +116,23 @@ public class MessagesFragment extends Fragment {
 
         android.util.Log.d("MessagesFragment", "Loading conversations for user: " + currentUserId);
 
-        // Load conversations from Firebase
-        firebaseManager.getDatabase()
-                .getReference(FirebaseManager.CONVERSATIONS_NODE)
-                .addValueEventListener(new com.google.firebase.database.ValueEventListener() {
-                    @Override
-                    public void onDataChange(com.google.firebase.database.DataSnapshot dataSnapshot) {
-                        android.util.Log.d("MessagesFragment", "Received " + dataSnapshot.getChildrenCount() + " conversation snapshots");
+        // Replace the previous subscription instead of stacking listeners on every resume
+        if (conversationsSubscription != null) {
+            conversationsSubscription.cancel();
+        }
 
+        // Only this user's conversations, via the user_conversations index
+        conversationsSubscription = firebaseManager.listenForUserConversations(currentUserId,
+                new FirebaseManager.ConversationCallback() {
+                    @Override
+                    public void onConversationsLoaded(List<Conversation> loaded) {
                         List<Conversation> conversations = new ArrayList<>();
-
-                        for (com.google.firebase.database.DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                            try {
-                                Conversation conversation = snapshot.getValue(Conversation.class);
-                                if (conversation != null) {
-                                    conversation.setId(snapshot.getKey());
-
-                                    // Only include conversations where current user is a participant
-                                    if (conversation.getBuyerId().equals(currentUserId) ||
-                                            conversation.getSellerId().equals(currentUserId)) {
-
-                                        // Check if user is not blocked
-                                        if (!conversation.isUserBlocked(currentUserId)) {
-                                            conversations.add(conversation);
-                                            android.util.Log.d("MessagesFragment", "Added conversation: " + conversation.getId());
-                                        } else {
-                                            android.util.Log.d("MessagesFragment", "User blocked in conversation: " + conversation.getId());
-                                        }
-                                    }
-                                }
-                            } catch (Exception e) {
-                                android.util.Log.e("MessagesFragment", "Error parsing conversation", e);
+                        for (Conversation conversation : loaded) {
+                            // Check if user is not blocked
+                            if (!conversation.isUserBlocked(currentUserId)) {
+                                conversations.add(conversation);
+                            } else {
+                                android.util.Log.d("MessagesFragment", "User blocked in conversation: " + conversation.getId());
                             }
                         }
 
@@ -155,10 +141,10 @@ public class MessagesFragment extends Fragment {
                     }
 
                     @Override
-                    public void onCancelled(com.google.firebase.database.DatabaseError databaseError) {
-                        android.util.Log.e("MessagesFragment", "Firebase error: " + databaseError.getMessage());
+                    public void onError(String error) {
+                        android.util.Log.e("MessagesFragment", "Firebase error: " + error);
                         if (getContext() != null) {
-                            Toast.makeText(getContext(), "Error loading conversations: " + databaseError.getMessage(),
+                            Toast.makeText(getContext(), "Error loading conversations: " + error,
                                     Toast.LENGTH_LONG).show();
                         }
                     }
@@ -173,7 +159,7 @@ public class MessagesFragment extends Fragment {
 
                 conversationList.clear();
                 conversationList.addAll(conversations);
-                conversationAdapter.notifyDataSetChanged();
+                conversationAdapter.updateConversations(conversations);
 
                 // Update empty state visibility
                 updateEmptyState();
@@ -201,4 +187,13 @@ public class MessagesFragment extends Fragment {
         // Refresh conversations when fragment becomes visible
         loadConversations();
     }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (conversationsSubscription != null) {
+            conversationsSubscription.cancel();
+            conversationsSubscription = null;
+        }
+    }
 }
@@ -28,6 +28,8 @@ import com.example.tradeup_app.auth.AccountSettingsActivity;
 import com.example.tradeup_app.auth.Helper.CurrentUser;
 import com.example.tradeup_app.auth.LoginActivity;
 import com.example.tradeup_app.auth.Domain.UserModel;
+import com.example.tradeup_app.firebase.FirebaseManager;
+import com.example.tradeup_app.models.RatingStats;
 import com.google.android.material.button.MaterialButton;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
@@ -280,6 +282,7 @@ public class ProfileFragment extends Fragment {
         } else {
             ratingTextView.setText(R.string.new_user);
         }
+        loadRatingStats();
 
 
         String bio = currentUser.getBio();
@@ -336,5 +339,25 @@ public class ProfileFragment extends Fragment {
 
         return currentUser != null && currentUser.getIsAdmin();
     }
-}
 
+    /**
+     * Show the rating from the aggregates node, keeping the profile value when there are none yet
+     */
+    private void loadRatingStats() {
+        FirebaseUser firebaseUser = FirebaseAuth.getInstance().getCurrentUser();
+        if (firebaseUser == null) return;
+
+        FirebaseManager.getInstance().getRatingStats(firebaseUser.getUid(), new FirebaseManager.RatingStatsCallback() {
+            @Override
+            public void onStatsLoaded(RatingStats stats) {
+                if (!isAdded() || stats == null || stats.getCount() == 0) return;
+                ratingTextView.setText(getString(R.string.rating_with_count, stats.average(), stats.getCount()));
+            }
+
+            @Override
+            public void onError(String error) {
+                android.util.Log.w("ProfileFragment", "Failed to load rating stats: " + error);
+            }
+        });
+    }
+}
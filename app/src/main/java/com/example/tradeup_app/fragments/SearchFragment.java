@@ -29,6 +29,11 @@ import com.example.tradeup_app.activities.ChatActivity;
 import com.example.tradeup_app.activities.PaymentActivity;
 import com.example.tradeup_app.activities.LocationSettingsActivity;
 import com.example.tradeup_app.services.LocationService;
+import com.example.tradeup_app.services.SearchScheduler;
+import com.example.tradeup_app.utils.ProductGeoIndex;
+import com.example.tradeup_app.utils.ProductSearchIndex;
+import com.example.tradeup_app.utils.SearchQuery;
+import com.example.tradeup_app.utils.SyncManager;
 import com.example.tradeup_app.utils.VNDPriceFormatter;
 import com.google.android.material.chip.Chip;
 import com.google.android.material.chip.ChipGroup;
@@ -60,7 +65,7 @@ public class SearchFragment extends Fragment {
 
     private ProductAdapter productAdapter;
     private FirebaseManager firebaseManager;
-    private final List<Product> productList = new ArrayList<>();
+    private SearchScheduler searchScheduler;
 
     @Nullable
     @Override
@@ -100,6 +105,9 @@ public class SearchFragment extends Fragment {
         chipSortByDistance = view.findViewById(R.id.chip_sort_by_distance);
 
         firebaseManager = FirebaseManager.getInstance();
+        searchScheduler = new SearchScheduler(firebaseManager);
+        // Search index from the product cache, refreshed by a watermark delta
+        new SyncManager(requireContext()).syncSearchIndex();
 
         // Initialize location services
         initLocationServices();
@@ -204,36 +212,16 @@ public class SearchFragment extends Fragment {
 
         int radius = locationPrefs.getInt("search_radius", 25);
 
-        // Filter current product list by location
-        locationService.filterProductsByLocation(new ArrayList<>(productList),
-            userLatitude, userLongitude, radius,
-            new LocationService.ProductLocationCallback() {
-                @Override
-                public void onProductsFiltered(List<Product> filteredProducts) {
-                    if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> {
-                            productList.clear();
-                            productList.addAll(filteredProducts);
-                            productAdapter.notifyDataSetChanged();
+        // Filter current product list through a geohash grid, visiting only cells near the user
+        ProductGeoIndex geoIndex = new ProductGeoIndex(productAdapter.getProducts());
+        List<Product> filteredProducts = ProductGeoIndex.products(
+            geoIndex.withinRadius(userLatitude, userLongitude, radius));
 
-                            Toast.makeText(getContext(),
-                                "Found " + filteredProducts.size() + " products within " + radius + " km",
-                                Toast.LENGTH_SHORT).show();
-                        });
-                    }
-                }
+        productAdapter.updateProducts(filteredProducts);
 
-                @Override
-                public void onError(String error) {
-                    if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> {
-                            Toast.makeText(getContext(), "Error filtering by location: " + error,
-                                Toast.LENGTH_SHORT).show();
-                            chipLocationFilter.setChecked(false);
-                        });
-                    }
-                }
-            });
+        Toast.makeText(getContext(),
+            "Found " + filteredProducts.size() + " products within " + radius + " km",
+            Toast.LENGTH_SHORT).show();
     }
 
     /**
@@ -359,11 +347,22 @@ public class SearchFragment extends Fragment {
             }
         }
 
+        // ✅ Use the local search index when it is loaded instead of scanning every text field
+        ProductSearchIndex searchIndex = ProductSearchIndex.getInstance();
+        java.util.Set<String> indexedMatches = searchIndex.isReady() && !searchQuery.isEmpty()
+            ? searchIndex.searchIds(searchQuery) : null;
+
         for (Product product : products) {
-            boolean matchesSearch = searchQuery.isEmpty() ||
-                product.getTitle().toLowerCase().contains(searchQuery) ||
-                product.getDescription().toLowerCase().contains(searchQuery) ||
-                (product.getTags() != null && product.getTags().toString().toLowerCase().contains(searchQuery));
+            boolean matchesSearch;
+            if (searchQuery.isEmpty()) {
+                matchesSearch = true;
+            } else if (indexedMatches != null) {
+                matchesSearch = indexedMatches.contains(product.getId());
+            } else {
+                matchesSearch = product.getTitle().toLowerCase().contains(searchQuery) ||
+                    product.getDescription().toLowerCase().contains(searchQuery) ||
+                    (product.getTags() != null && product.getTags().toString().toLowerCase().contains(searchQuery));
+            }
 
             boolean matchesCategory = selectedCategory.equals("Tất cả") ||
                 product.getCategory().equals(selectedCategory);
@@ -388,9 +387,7 @@ public class SearchFragment extends Fragment {
         if (getActivity() != null) {
             getActivity().runOnUiThread(() -> {
                 progressBar.setVisibility(View.GONE);
-                productList.clear();
-                productList.addAll(products);
-                productAdapter.notifyDataSetChanged();
+                productAdapter.updateProducts(products);
 
                 // Update product adapter with user location for distance display
                 if (productAdapter instanceof ProductAdapter && userLatitude != 0 && userLongitude != 0) {
@@ -433,18 +430,15 @@ public class SearchFragment extends Fragment {
             @Override
             public void afterTextChanged(Editable s) {
                 // Trigger search after 200ms delay
-                searchEditText.removeCallbacks(searchRunnable);
-                searchEditText.postDelayed(searchRunnable, 200);
+                performSearch(200);
             }
         });
     }
 
-    private final Runnable searchRunnable = this::performSearch;
-
     private void setupRecyclerView() {
         if (getContext() == null) return;
 
-        productAdapter = new ProductAdapter(getContext(), productList);
+        productAdapter = new ProductAdapter(getContext(), new ArrayList<>());
         searchResultsRecyclerView.setLayoutManager(new GridLayoutManager(getContext(), 2));
         searchResultsRecyclerView.setAdapter(productAdapter);
 
@@ -510,8 +504,7 @@ public class SearchFragment extends Fragment {
                 // ✅ THÊM: Validation khoảng giá trước khi tìm kiếm
                 if (validatePriceRange()) {
                     // Delay search to avoid too many calls while typing
-                    searchEditText.removeCallbacks(searchRunnable);
-                    searchEditText.postDelayed(searchRunnable, 300); // Giảm từ 500ms xuống 300ms
+                    performSearch(300); // Giảm từ 500ms xuống 300ms
                 }
             }
         };
@@ -525,8 +518,7 @@ public class SearchFragment extends Fragment {
                 // Cập nhật giá trị hiển thị khi người dùng kéo slider
                 updatePriceRangeText();
                 // ✅ THÊM: Tự động tìm kiếm khi thay đổi slider
-                searchEditText.removeCallbacks(searchRunnable);
-                searchEditText.postDelayed(searchRunnable, 200);
+                performSearch(200);
             }
         });
 
@@ -578,8 +570,7 @@ public class SearchFragment extends Fragment {
             priceRangeSlider.addOnChangeListener((slider, value, fromUser) -> {
                 if (fromUser) {
                     updatePriceRangeText();
-                    searchEditText.removeCallbacks(searchRunnable);
-                    searchEditText.postDelayed(searchRunnable, 200);
+                    performSearch(200);
                 }
             });
 
@@ -763,6 +754,8 @@ public class SearchFragment extends Fragment {
         firebaseManager.getProducts(new FirebaseManager.ProductCallback() {
             @Override
             public void onProductsLoaded(List<Product> products) {
+                // A search submitted meanwhile owns the list now
+                if (searchScheduler.getLastQuery() != null) return;
                 if (getActivity() != null && isAdded()) {
                     productAdapter.updateProducts(products);
                     updateEmptyState();
@@ -772,6 +765,7 @@ public class SearchFragment extends Fragment {
             @Override
             public void onError(String error) {
                 if (getActivity() != null && isAdded()) {
+                    if (searchScheduler.getLastQuery() != null) return;
                     Toast.makeText(getContext(), "Lỗi tải sản phẩm: " + error, Toast.LENGTH_SHORT).show();
                     productAdapter.clearProducts();
                     updateEmptyState();
@@ -781,6 +775,13 @@ public class SearchFragment extends Fragment {
     }
 
     private void performSearch() {
+        performSearch(0);
+    }
+
+    /**
+     * Search with the current filters after delayMs; a newer call replaces a pending one
+     */
+    private void performSearch(long delayMs) {
         String query = searchEditText.getText().toString().trim();
         String category = categorySpinner.getSelectedItemPosition() == 0 ? "" :
                         categorySpinner.getSelectedItem().toString();
@@ -802,31 +803,35 @@ public class SearchFragment extends Fragment {
             return;
         }
 
-        String sortBy = getSortByValue();
-        showProgressBar();
+        SearchQuery searchQuery = new SearchQuery(query, category, condition, minPrice, maxPrice, getSortByValue());
+        searchScheduler.submit(searchQuery, delayMs, new SearchScheduler.Listener() {
+            @Override
+            public void onSearchStarted() {
+                if (getActivity() != null && isAdded()) {
+                    showProgressBar();
+                }
+            }
 
-        firebaseManager.searchProducts(query, category, condition, minPrice, maxPrice, sortBy,
-            new FirebaseManager.ProductCallback() {
-                @Override
-                public void onProductsLoaded(List<Product> products) {
-                    if (getActivity() != null && isAdded()) {
-                        hideProgressBar();
-                        // Sử dụng phương thức mới để cập nhật adapter an toàn
-                        productAdapter.updateProducts(products);
-                        updateEmptyState();
-                    }
+            @Override
+            public void onResults(List<Product> products) {
+                if (getActivity() != null && isAdded()) {
+                    hideProgressBar();
+                    // Sử dụng phương thức mới để cập nhật adapter an toàn
+                    productAdapter.updateProducts(products);
+                    updateEmptyState();
                 }
+            }
 
-                @Override
-                public void onError(String error) {
-                    if (getActivity() != null && isAdded()) {
-                        hideProgressBar();
-                        Toast.makeText(getContext(), "Lỗi tìm ki���m: " + error, Toast.LENGTH_SHORT).show();
-                        productAdapter.clearProducts();
-                        updateEmptyState();
-                    }
+            @Override
+            public void onError(String error) {
+                if (getActivity() != null && isAdded()) {
+                    hideProgressBar();
+                    Toast.makeText(getContext(), "Lỗi tìm kiếm: " + error, Toast.LENGTH_SHORT).show();
+                    productAdapter.clearProducts();
+                    updateEmptyState();
                 }
-            });
+            }
+        });
     }
 
     private String getSortByValue() {
@@ -864,8 +869,10 @@ public class SearchFragment extends Fragment {
         if (rootView != null) {
             View emptyState = rootView.findViewById(R.id.empty_state);
             if (emptyState != null) {
-                emptyState.setVisibility(productList.isEmpty() ? View.VISIBLE : View.GONE);
-                searchResultsRecyclerView.setVisibility(productList.isEmpty() ? View.GONE : View.VISIBLE);
+                // Emptiness is known right after updateProducts: a list to or from empty is applied at once
+                boolean isEmpty = productAdapter.getItemCount() == 0;
+                emptyState.setVisibility(isEmpty ? View.VISIBLE : View.GONE);
+                searchResultsRecyclerView.setVisibility(isEmpty ? View.GONE : View.VISIBLE);
             }
         }
     }
@@ -1053,14 +1060,12 @@ public class SearchFragment extends Fragment {
             .setTitle("Mark as Sold")
             .setMessage("Are you sure you want to mark this product as sold?")
             .setPositiveButton("Yes", (dialog, which) ->
-                firebaseManager.getDatabase().getReference(com.example.tradeup_app.firebase.FirebaseManager.PRODUCTS_NODE)
-                    .child(product.getId())
-                    .child("status")
-                    .setValue("Sold")
+                firebaseManager.setProductStatus(product.getId(), "Sold")
                     .addOnSuccessListener(aVoid -> {
                         if (getContext() != null) {
                             Toast.makeText(getContext(), "Product marked as sold", Toast.LENGTH_SHORT).show();
                         }
+                        searchScheduler.invalidate();
                         performSearch(); // Refresh search results
                     })
                     .addOnFailureListener(e -> {
@@ -1078,13 +1083,12 @@ public class SearchFragment extends Fragment {
             .setTitle("Delete Product")
             .setMessage("Are you sure you want to delete this product? This action cannot be undone.")
             .setPositiveButton("Delete", (dialog, which) ->
-                firebaseManager.getDatabase().getReference(com.example.tradeup_app.firebase.FirebaseManager.PRODUCTS_NODE)
-                    .child(product.getId())
-                    .removeValue()
+                firebaseManager.deleteProduct(product.getId())
                     .addOnSuccessListener(aVoid -> {
                         if (getContext() != null) {
                             Toast.makeText(getContext(), "Product deleted successfully", Toast.LENGTH_SHORT).show();
                         }
+                        searchScheduler.invalidate();
                         performSearch(); // Refresh search results
                     })
                     .addOnFailureListener(e -> {
@@ -1205,6 +1209,12 @@ public class SearchFragment extends Fragment {
         return VNDPriceFormatter.formatVND(price);
     }
 
+    @Override
+    public void onDestroyView() {
+        searchScheduler.cancel();
+        super.onDestroyView();
+    }
+
     @Override
     public void onResume() {
         super.onResume();
@@ -84,6 +84,7 @@ public class SellFragment extends Fragment {
     private double latitude;
     private double longitude;
     private Dialog loadingDialog;
+    private com.example.tradeup_app.utils.UploadPipeline.Handle imageUploadHandle;
 
     private static final float REQUIRED_ACCURACY = 50.0f; // 50 meters accuracy
     private static final long LOCATION_TIMEOUT = 30000; // 30 seconds timeout
@@ -644,13 +645,23 @@ public class SellFragment extends Fragment {
         showLoadingDialog();
 
         // Upload images first
-        ImageUploadManager.uploadImages(selectedImages, requireContext(), new ImageUploadManager.ImageUploadCallback() {
+        imageUploadHandle = ImageUploadManager.uploadImages(selectedImages, requireContext(), new ImageUploadManager.ImageUploadCallback() {
             @Override
             public void onSuccess(List<String> imageUrls) {
                 product.setImageUrls(imageUrls);
                 publishProduct(product);
             }
 
+            @Override
+            public void onProgress(int uploaded, int total, int percent) {
+                if (isAdded() && loadingDialog != null) {
+                    android.widget.TextView loadingText = loadingDialog.findViewById(R.id.loading_text);
+                    if (loadingText != null) {
+                        loadingText.setText("Đang tải ảnh lên " + uploaded + "/" + total + " (" + percent + "%)");
+                    }
+                }
+            }
+
             @Override
             public void onFailure(Exception e) {
                 // ✅ FIX: Check if fragment is still attached before showing toast
@@ -721,6 +732,10 @@ public class SellFragment extends Fragment {
             loadingDialog.setCancelable(false);
             loadingDialog.getWindow().setBackgroundDrawableResource(android.R.color.transparent);
         }
+        android.widget.TextView loadingText = loadingDialog.findViewById(R.id.loading_text);
+        if (loadingText != null) {
+            loadingText.setText("Đang xử lý...");
+        }
         loadingDialog.show();
     }
 
@@ -846,6 +861,10 @@ public class SellFragment extends Fragment {
     @Override
     public void onDestroy() {
         super.onDestroy();
+        // Stop uploading images for a product that will no longer be published
+        if (imageUploadHandle != null) {
+            imageUploadHandle.cancel();
+        }
         // Clean up location callback to prevent memory leaks
         if (locationCallback != null && fusedLocationClient != null) {
             fusedLocationClient.removeLocationUpdates(locationCallback);
@@ -27,11 +27,6 @@ import com.example.tradeup_app.models.Rating;
 import com.example.tradeup_app.auth.Helper.CurrentUser;
 import com.example.tradeup_app.auth.Domain.UserModel;
 import com.google.android.material.progressindicator.CircularProgressIndicator;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -47,9 +42,11 @@ public class TransactionsFragment extends Fragment implements TransactionAdapter
     private FirebaseManager firebaseManager;
     private List<Transaction> transactions = new ArrayList<>();
 
-    private interface LoadTransactionCallback {
-        void onComplete(boolean success);
-    }
+    // Ledger paging state; loadGeneration discards pages of a load that was restarted
+    private String ledgerUserId;
+    private String nextCursor;
+    private boolean loadingPage = false;
+    private int loadGeneration = 0;
 
     @Nullable
     @Override
@@ -77,6 +74,15 @@ public class TransactionsFragment extends Fragment implements TransactionAdapter
         transactionAdapter.setOnTransactionActionListener(this);
         transactionsRecyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
         transactionsRecyclerView.setAdapter(transactionAdapter);
+        transactionsRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                // Near the end of the list: fetch the next, older page of the ledger
+                if (dy > 0 && !recyclerView.canScrollVertically(1)) {
+                    loadNextPage();
+                }
+            }
+        });
     }
 
     private void loadTransactions() {
@@ -113,75 +119,48 @@ public class TransactionsFragment extends Fragment implements TransactionAdapter
     }
 
     private void loadTransactionsFromFirebase(String userId) {
-        // Thử cả "transactions" và "Transactions" để đảm bảo tương thích
-        tryLoadTransactionsFromPath("transactions", userId, success -> {
-            if (!success) {
-                Log.d("TransactionsFragment", "No transactions found in 'transactions', trying 'Transactions'");
-                tryLoadTransactionsFromPath("Transactions", userId, success2 -> {
-                    if (!success2) {
-                        Log.d("TransactionsFragment", "No transactions found in both paths");
-                        showEmptyState();
-                    }
-                });
-            }
-        });
+        // Read the user's ledger a page at a time, newest first
+        ledgerUserId = userId;
+        nextCursor = null;
+        loadingPage = false;
+        loadGeneration++;
+        transactions.clear();
+        loadPage(null);
     }
 
-    private void tryLoadTransactionsFromPath(String path, String userId, LoadTransactionCallback callback) {
-        DatabaseReference transactionsRef = FirebaseDatabase.getInstance().getReference(path);
-
-        // Query transactions where user is either buyer or seller
-        transactionsRef.addValueEventListener(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                Log.d("TransactionsFragment", "Query result from '" + path + "': " + snapshot.getChildrenCount() + " transactions");
-
-                List<Transaction> userTransactions = new ArrayList<>();
-
-                for (DataSnapshot transactionSnapshot : snapshot.getChildren()) {
-                    try {
-                        Transaction transaction = transactionSnapshot.getValue(Transaction.class);
-                        if (transaction != null) {
-                            transaction.setId(transactionSnapshot.getKey());
-
-                            // Check if user is involved in this transaction
-                            if (userId.equals(transaction.getBuyerId()) || userId.equals(transaction.getSellerId())) {
-                                userTransactions.add(transaction);
-                                Log.d("TransactionsFragment", "Found transaction: " + transaction.getId() + " - " + transaction.getProductTitle());
-                            }
-                        }
-                    } catch (Exception e) {
-                        Log.w("TransactionsFragment", "Failed to parse transaction: " + e.getMessage());
-                    }
-                }
-
-                if (!userTransactions.isEmpty()) {
-                    transactions.clear();
-                    transactions.addAll(userTransactions);
+    private void loadNextPage() {
+        if (loadingPage || nextCursor == null || ledgerUserId == null) return;
+        loadPage(nextCursor);
+    }
 
-                    if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> {
-                            updateUI();
-                        });
+    private void loadPage(String cursor) {
+        loadingPage = true;
+        int generation = loadGeneration;
+
+        firebaseManager.getTransactionsPage(ledgerUserId, cursor, FirebaseManager.DEFAULT_PAGE_SIZE,
+            new FirebaseManager.TransactionPageCallback() {
+                @Override
+                public void onPageLoaded(List<Transaction> page, String next) {
+                    if (generation != loadGeneration || !isAdded()) return;
+                    loadingPage = false;
+                    nextCursor = next;
+                    Log.d("TransactionsFragment", "Loaded " + page.size() + " transactions, more: " + (next != null));
+
+                    transactions.addAll(page);
+                    if (cursor == null) {
+                        updateUI();
+                    } else if (!page.isEmpty()) {
+                        transactionAdapter.updateTransactions(transactions);
                     }
-
-                    callback.onComplete(true);
-                } else {
-                    callback.onComplete(false);
                 }
-            }
 
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e("TransactionsFragment", "Database query failed for path '" + path + "': " + error.getMessage());
-                if (getActivity() != null) {
-                    getActivity().runOnUiThread(() -> {
-                        showError("Lỗi tải dữ liệu: " + error.getMessage());
-                    });
+                @Override
+                public void onError(String error) {
+                    if (generation != loadGeneration || !isAdded()) return;
+                    loadingPage = false;
+                    showError("Lỗi tải dữ liệu: " + error);
                 }
-                callback.onComplete(false);
-            }
-        });
+            });
     }
 
     private void updateUI() {
@@ -193,7 +172,7 @@ public class TransactionsFragment extends Fragment implements TransactionAdapter
             showEmptyState();
         } else {
             hideEmptyState();
-            transactionAdapter.notifyDataSetChanged();
+            transactionAdapter.updateTransactions(transactions);
         }
     }
 
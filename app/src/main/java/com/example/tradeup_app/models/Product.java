@@ -26,6 +26,8 @@ public class Product implements Serializable {
     private int likeCount;
     private double latitude;
     private double longitude;
+    // Geo shard key of latitude/longitude, filled in by FirebaseManager when the product is saved
+    private String geohash;
     private String itemBehavior;
     private int interactionCount;
     private long lastViewedAt;
@@ -60,6 +62,36 @@ public class Product implements Serializable {
         this.sellerId = sellerId;
     }
 
+    // Copy with its own lists, for screens that edit a product shared through a cache
+    public Product(Product other) {
+        this.id = other.id;
+        this.title = other.title;
+        this.description = other.description;
+        this.price = other.price;
+        this.isNegotiable = other.isNegotiable;
+        this.category = other.category;
+        this.condition = other.condition;
+        this.location = other.location;
+        this.sellerId = other.sellerId;
+        this.sellerName = other.sellerName;
+        this.imageUrls = other.imageUrls != null ? new ArrayList<>(other.imageUrls) : null;
+        this.tags = other.tags != null ? new ArrayList<>(other.tags) : null;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+        this.status = other.status;
+        this.viewCount = other.viewCount;
+        this.likeCount = other.likeCount;
+        this.latitude = other.latitude;
+        this.longitude = other.longitude;
+        this.geohash = other.geohash;
+        this.itemBehavior = other.itemBehavior;
+        this.interactionCount = other.interactionCount;
+        this.lastViewedAt = other.lastViewedAt;
+        this.interactionHistory = other.interactionHistory != null ? new ArrayList<>(other.interactionHistory) : null;
+        this.soldAt = other.soldAt;
+        this.buyerId = other.buyerId;
+    }
+
     // Getters and Setters
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
@@ -122,6 +154,9 @@ public class Product implements Serializable {
     public double getLongitude() { return longitude; }
     public void setLongitude(double longitude) { this.longitude = longitude; }
 
+    public String getGeohash() { return geohash; }
+    public void setGeohash(String geohash) { this.geohash = geohash; }
+
     public String getItemBehavior() { return itemBehavior; }
     public void setItemBehavior(String itemBehavior) { this.itemBehavior = itemBehavior; }
 
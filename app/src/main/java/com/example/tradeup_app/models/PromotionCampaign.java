@@ -0,0 +1,72 @@
+package com.example.tradeup_app.models;
+
+/**
+ * A promotion sent to all users, stored at promotion_campaigns/<id>.
+ * lastUserKey is the checkpoint of the fan-out: every user up to and including that key
+ * already has the notification, so a stopped campaign resumes right after it.
+ */
+public class PromotionCampaign {
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_PAUSED = "PAUSED";
+    public static final String STATUS_DONE = "DONE";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private String id;
+    private String title;
+    private String message;
+    private String actionUrl;
+    private String topic;
+    private String status;
+    private String lastUserKey;
+    private long delivered;
+    private long createdAt;
+    private long updatedAt;
+    private long finishedAt;
+
+    public PromotionCampaign() {
+        // Required empty constructor for Firebase
+    }
+
+    public PromotionCampaign(String title, String message, String actionUrl, String topic) {
+        this.title = title;
+        this.message = message;
+        this.actionUrl = actionUrl;
+        this.topic = topic;
+        this.status = STATUS_RUNNING;
+        this.createdAt = System.currentTimeMillis();
+        this.updatedAt = createdAt;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    public String getActionUrl() { return actionUrl; }
+    public void setActionUrl(String actionUrl) { this.actionUrl = actionUrl; }
+
+    public String getTopic() { return topic; }
+    public void setTopic(String topic) { this.topic = topic; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getLastUserKey() { return lastUserKey; }
+    public void setLastUserKey(String lastUserKey) { this.lastUserKey = lastUserKey; }
+
+    public long getDelivered() { return delivered; }
+    public void setDelivered(long delivered) { this.delivered = delivered; }
+
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+
+    public long getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(long updatedAt) { this.updatedAt = updatedAt; }
+
+    public long getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(long finishedAt) { this.finishedAt = finishedAt; }
+}
@@ -0,0 +1,148 @@
+package com.example.tradeup_app.models;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rating aggregates of one user, stored at rating_stats/<userId> and updated with server-side
+ * increments in the same write as each rating, so nobody has to read the rating list.
+ *
+ * Recent ratings are summed into weekly buckets; the recent average covers the last
+ * RECENT_WINDOW_WEEKS buckets. Keys carry a prefix ("star4", "w2870") so Firebase never turns
+ * the maps into arrays.
+ */
+public class RatingStats {
+    public static final int RECENT_WINDOW_WEEKS = 13;
+    private static final long WEEK_MS = 7L * 24 * 60 * 60 * 1000;
+
+    private long count;
+    private long sum;
+    private Map<String, Long> histogram;
+    private Map<String, Bucket> recent;
+
+    public static class Bucket {
+        private long count;
+        private long sum;
+
+        public Bucket() {
+        }
+
+        public long getCount() { return count; }
+        public void setCount(long count) { this.count = count; }
+
+        public long getSum() { return sum; }
+        public void setSum(long sum) { this.sum = sum; }
+    }
+
+    public RatingStats() {
+    }
+
+    public static String starKey(int stars) {
+        return "star" + stars;
+    }
+
+    public static long weekOf(long timeMillis) {
+        return timeMillis / WEEK_MS;
+    }
+
+    public static String bucketKey(long week) {
+        return "w" + week;
+    }
+
+    /**
+     * Add one rating, e.g. when rebuilding the aggregates from the rating list
+     */
+    public void add(int stars, long createdAt) {
+        count++;
+        sum += stars;
+        if (histogram == null) histogram = new HashMap<>();
+        String starKey = starKey(stars);
+        Long starCount = histogram.get(starKey);
+        histogram.put(starKey, starCount != null ? starCount + 1 : 1);
+
+        if (recent == null) recent = new HashMap<>();
+        String key = bucketKey(weekOf(createdAt));
+        Bucket bucket = recent.get(key);
+        if (bucket == null) {
+            bucket = new Bucket();
+            recent.put(key, bucket);
+        }
+        bucket.count++;
+        bucket.sum += stars;
+    }
+
+    /**
+     * Remove the weekly buckets that are outside the recent window
+     */
+    public void dropExpiredBuckets(long now) {
+        if (recent == null) return;
+        recent.keySet().removeIf(key -> isExpiredBucket(key, now));
+    }
+
+    /**
+     * Whether a key of the recent map is outside the window; keys that aren't buckets count as expired
+     */
+    public static boolean isExpiredBucket(String key, long now) {
+        long oldestWeek = weekOf(now) - RECENT_WINDOW_WEEKS + 1;
+        try {
+            return Long.parseLong(key.substring(1)) < oldestWeek;
+        } catch (RuntimeException e) {
+            return true;
+        }
+    }
+
+    // Not bean getters, so they are never written back to the database
+    public double average() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    public long starCount(int stars) {
+        if (histogram == null) return 0;
+        Long value = histogram.get(starKey(stars));
+        return value != null ? value : 0;
+    }
+
+    public long recentCount(long now) {
+        return recentTotals(now)[0];
+    }
+
+    /**
+     * Average of the ratings received in the last RECENT_WINDOW_WEEKS weeks, 0 when there are none
+     */
+    public double recentAverage(long now) {
+        long[] totals = recentTotals(now);
+        return totals[0] == 0 ? 0 : (double) totals[1] / totals[0];
+    }
+
+    private long[] recentTotals(long now) {
+        long count = 0;
+        long sum = 0;
+        if (recent != null) {
+            long oldestWeek = weekOf(now) - RECENT_WINDOW_WEEKS + 1;
+            for (Map.Entry<String, Bucket> entry : recent.entrySet()) {
+                try {
+                    long week = Long.parseLong(entry.getKey().substring(1));
+                    if (week >= oldestWeek && entry.getValue() != null) {
+                        count += entry.getValue().count;
+                        sum += entry.getValue().sum;
+                    }
+                } catch (RuntimeException ignored) {
+                    // Not a bucket key
+                }
+            }
+        }
+        return new long[]{count, sum};
+    }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+
+    public long getSum() { return sum; }
+    public void setSum(long sum) { this.sum = sum; }
+
+    public Map<String, Long> getHistogram() { return histogram; }
+    public void setHistogram(Map<String, Long> histogram) { this.histogram = histogram; }
+
+    public Map<String, Bucket> getRecent() { return recent; }
+    public void setRecent(Map<String, Bucket> recent) { this.recent = recent; }
+}
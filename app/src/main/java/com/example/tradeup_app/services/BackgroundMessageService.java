@@ -1,39 +1,67 @@
 package com.example.tradeup_app.services;
 
 import android.app.Service;
+import android.content.Context;
 import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Handler;
 import android.os.IBinder;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.annotation.Nullable;
 
 import com.example.tradeup_app.firebase.FirebaseManager;
-import com.example.tradeup_app.models.Message;
 import com.google.firebase.database.ChildEventListener;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.Query;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * Background service để listen tin nhắn mới cho user hiện tại
  * Service này sẽ chạy ngầm và gửi notification khi có tin nhắn mới
+ *
+ * Tin nhắn được đọc từ user_inbox/<uid>, bắt đầu sau cursor (t, key) của entry cuối cùng đã
+ * gửi notification. Cursor được lưu lại, nên khi service khởi động lại không phải đọc lại
+ * lịch sử tin nhắn. Các tin nhắn đến liên tiếp được gộp thành một notification mỗi conversation.
  */
 public class BackgroundMessageService extends Service {
     private static final String TAG = "BackgroundMessageService";
+    private static final String CURSOR_PREFS = "inbox_cursor";
+    private static final long COALESCE_WINDOW_MS = 1500;
+    private static final long HEAD_RETRY_MIN_MS = 2000;
+    private static final long HEAD_RETRY_MAX_MS = 60000;
 
     private FirebaseManager firebaseManager;
     private NotificationService notificationService;
     private String currentUserId;
-    private ChildEventListener messageListener;
-    private Map<String, Long> lastMessageTimestamps = new HashMap<>();
-    private Set<String> processedMessageIds = new HashSet<>(); // ✅ Track processed messages
-    private boolean isInitialLoad = true; // ✅ Track initial load state
+    private SharedPreferences cursorPrefs;
+    private Query inboxQuery;
+    private ChildEventListener inboxListener;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable flushRunnable = this::flushPending;
+    private final Runnable headRetryRunnable = this::readInboxHead;
+    private long headRetryDelayMs = HEAD_RETRY_MIN_MS;
+    private boolean destroyed;
+
+    // Last delivered inbox entry; entries are ordered by (t, key)
+    private long cursorTime = -1;
+    private String cursorKey;
+
+    // Entries received during the coalescing window, grouped by conversation
+    private final Map<String, List<InboxEntry>> pending = new LinkedHashMap<>();
+
+    private static class InboxEntry {
+        String senderId;
+        String messageType;
+        String preview;
+    }
 
     @Override
     public void onCreate() {
@@ -43,6 +71,7 @@ public class BackgroundMessageService extends Service {
         firebaseManager = FirebaseManager.getInstance();
         notificationService = new NotificationService(this);
         currentUserId = firebaseManager.getCurrentUserId();
+        cursorPrefs = getSharedPreferences(CURSOR_PREFS, Context.MODE_PRIVATE);
 
         if (currentUserId != null) {
             startListeningForMessages();
@@ -68,61 +97,84 @@ public class BackgroundMessageService extends Service {
     public void onDestroy() {
         super.onDestroy();
         Log.d(TAG, "💀 BackgroundMessageService destroyed");
+        destroyed = true;
         stopListeningForMessages();
+        handler.removeCallbacks(headRetryRunnable);
+        handler.removeCallbacks(flushRunnable);
+        flushPending();
+    }
+
+    private DatabaseReference inboxRef() {
+        return firebaseManager.getDatabase()
+                .getReference(FirebaseManager.USER_INBOX_NODE)
+                .child(currentUserId);
     }
 
     private void startListeningForMessages() {
         if (currentUserId == null) return;
 
-        Log.d(TAG, "👂 Starting to listen for messages for user: " + currentUserId);
+        cursorTime = cursorPrefs.getLong(currentUserId + "_t", -1);
+        cursorKey = cursorPrefs.getString(currentUserId + "_k", null);
 
-        DatabaseReference messagesRef = firebaseManager.getDatabase()
-                .getReference(FirebaseManager.MESSAGES_NODE);
+        if (cursorKey != null) {
+            attachInboxListener();
+            return;
+        }
 
-        // Listen for all new messages where current user is the receiver
-        Query query = messagesRef.orderByChild("receiverId").equalTo(currentUserId);
+        readInboxHead();
+    }
 
-        messageListener = new ChildEventListener() {
-            @Override
-            public void onChildAdded(DataSnapshot dataSnapshot, String previousChildName) {
-                Message message = dataSnapshot.getValue(Message.class);
-                if (message != null) {
-                    message.setId(dataSnapshot.getKey());
-
-                    Log.d(TAG, "📨 New message detected for user: " + currentUserId);
-                    Log.d(TAG, "   - Message ID: " + message.getId());
-                    Log.d(TAG, "   - From: " + message.getSenderId());
-                    Log.d(TAG, "   - Content: " + message.getContent());
-                    Log.d(TAG, "   - Timestamp: " + message.getTimestamp());
-
-                    // Check if this is a genuinely new message (not from initial load)
-                    if (isNewMessage(message)) {
-                        Log.d(TAG, "🔔 This is a NEW message - sending notification");
-                        sendNotificationForMessage(message);
-                    } else {
-                        Log.d(TAG, "⭕ This is an old message - skipping notification");
+    /**
+     * First start for this user: begin after the newest entry instead of replaying the inbox.
+     * Without the head there is no cursor to start from, so a failed read is retried with backoff
+     */
+    private void readInboxHead() {
+        if (destroyed || currentUserId == null) return;
+
+        inboxRef().orderByChild("t").limitToLast(1).get()
+                .addOnSuccessListener(snapshot -> {
+                    if (destroyed) return;
+                    for (DataSnapshot entry : snapshot.getChildren()) {
+                        Long t = entry.child("t").getValue(Long.class);
+                        if (t != null) advanceCursor(t, entry.getKey());
                     }
+                    saveCursor();
+                    attachInboxListener();
+                })
+                .addOnFailureListener(e -> {
+                    if (destroyed) return;
+                    Log.e(TAG, "❌ Failed to read inbox head, retrying in " + headRetryDelayMs + "ms: " + e.getMessage());
+                    handler.postDelayed(headRetryRunnable, headRetryDelayMs);
+                    headRetryDelayMs = Math.min(headRetryDelayMs * 2, HEAD_RETRY_MAX_MS);
+                });
+    }
+
+    private void attachInboxListener() {
+        if (destroyed || currentUserId == null || inboxListener != null) return;
+
+        Log.d(TAG, "👂 Listening to inbox of " + currentUserId + " after " + cursorTime + "/" + cursorKey);
 
-                    // Update last message timestamp for this conversation
-                    lastMessageTimestamps.put(message.getConversationId(), message.getTimestamp());
-                }
+        inboxQuery = cursorKey != null
+                ? inboxRef().orderByChild("t").startAfter(cursorTime, cursorKey)
+                : inboxRef().orderByChild("t");
+
+        inboxListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(DataSnapshot dataSnapshot, String previousChildName) {
+                onInboxEntry(dataSnapshot);
             }
 
             @Override
             public void onChildChanged(DataSnapshot dataSnapshot, String previousChildName) {
-                // Handle message updates if needed
-                Log.d(TAG, "🔄 Message updated: " + dataSnapshot.getKey());
+                // Local writes are first reported with an estimated "t"; the server value follows here
             }
 
             @Override
             public void onChildRemoved(DataSnapshot dataSnapshot) {
-                // Handle message deletion if needed
-                Log.d(TAG, "🗑️ Message removed: " + dataSnapshot.getKey());
             }
 
             @Override
             public void onChildMoved(DataSnapshot dataSnapshot, String previousChildName) {
-                // Not typically used for messages
             }
 
             @Override
@@ -131,92 +183,97 @@ public class BackgroundMessageService extends Service {
             }
         };
 
-        query.addChildEventListener(messageListener);
-        Log.d(TAG, "✅ Message listener attached successfully");
+        inboxQuery.addChildEventListener(inboxListener);
     }
 
     private void stopListeningForMessages() {
-        if (messageListener != null) {
-            DatabaseReference messagesRef = firebaseManager.getDatabase()
-                    .getReference(FirebaseManager.MESSAGES_NODE);
-            Query query = messagesRef.orderByChild("receiverId").equalTo(currentUserId);
-            query.removeEventListener(messageListener);
-            messageListener = null;
-            Log.d(TAG, "🛑 Message listener removed");
+        if (inboxQuery != null && inboxListener != null) {
+            inboxQuery.removeEventListener(inboxListener);
+            Log.d(TAG, "🛑 Inbox listener removed");
         }
+        inboxQuery = null;
+        inboxListener = null;
     }
 
-    /**
-     * Check if this is a new message (not from initial load)
-     * Logic: Message is new if it's timestamp is recent (within last 30 seconds)
-     */
-    private boolean isNewMessage(Message message) {
-        long currentTime = System.currentTimeMillis();
-        long messageTime = message.getTimestamp();
-        long timeDifference = currentTime - messageTime;
+    private void onInboxEntry(DataSnapshot snapshot) {
+        Long t = snapshot.child("t").getValue(Long.class);
+        String conversationId = snapshot.child("conversationId").getValue(String.class);
+        if (t == null) return;
+        advanceCursor(t, snapshot.getKey());
 
-        // Consider message as new if it's within last 30 seconds
-        boolean isRecent = timeDifference < 30 * 1000; // 30 seconds
+        InboxEntry entry = new InboxEntry();
+        entry.senderId = snapshot.child("senderId").getValue(String.class);
+        entry.messageType = snapshot.child("messageType").getValue(String.class);
+        entry.preview = snapshot.child("preview").getValue(String.class);
 
-        Log.d(TAG, "⏰ Message time check:");
-        Log.d(TAG, "   - Current time: " + currentTime);
-        Log.d(TAG, "   - Message time: " + messageTime);
-        Log.d(TAG, "   - Time difference: " + timeDifference + "ms");
-        Log.d(TAG, "   - Is recent (< 30s): " + isRecent);
+        if (conversationId == null || entry.senderId == null || currentUserId.equals(entry.senderId)) {
+            return;
+        }
 
-        return isRecent;
-    }
+        // One flush per burst: the first entry of a window schedules it
+        if (pending.isEmpty()) {
+            handler.postDelayed(flushRunnable, COALESCE_WINDOW_MS);
+        }
 
-    private void sendNotificationForMessage(Message message) {
-        if (message.getSenderId() == null || message.getReceiverId() == null) {
-            Log.w(TAG, "❌ Cannot send notification - missing sender or receiver ID");
-            return;
+        List<InboxEntry> entries = pending.get(conversationId);
+        if (entries == null) {
+            entries = new ArrayList<>();
+            pending.put(conversationId, entries);
         }
+        entries.add(entry);
+    }
 
-        // Don't send notification if sender is current user (shouldn't happen in this service)
-        if (currentUserId.equals(message.getSenderId())) {
-            Log.d(TAG, "⭕ Skip notification - message from current user");
-            return;
+    private void advanceCursor(long t, String key) {
+        if (t > cursorTime || (t == cursorTime && (cursorKey == null || key.compareTo(cursorKey) > 0))) {
+            cursorTime = t;
+            cursorKey = key;
         }
+    }
 
-        // Check if this message has already been processed
-        if (processedMessageIds.contains(message.getId())) {
-            Log.d(TAG, "⭕ Skip notification - message already processed: " + message.getId());
-            return;
+    private void saveCursor() {
+        if (currentUserId == null || cursorKey == null) return;
+        cursorPrefs.edit()
+                .putLong(currentUserId + "_t", cursorTime)
+                .putString(currentUserId + "_k", cursorKey)
+                .apply();
+    }
+
+    /**
+     * Send one notification per conversation for the entries of the last window,
+     * then persist the cursor so they are not delivered again
+     */
+    private void flushPending() {
+        if (!pending.isEmpty()) {
+            for (Map.Entry<String, List<InboxEntry>> group : pending.entrySet()) {
+                sendNotificationForConversation(group.getKey(), group.getValue());
+            }
+            pending.clear();
         }
+        saveCursor();
+    }
 
-        Log.d(TAG, "🔔 Sending notification for message from: " + message.getSenderId());
+    private void sendNotificationForConversation(String conversationId, List<InboxEntry> entries) {
+        InboxEntry last = entries.get(entries.size() - 1);
+        String content = entries.size() == 1
+                ? ("image".equals(last.messageType) ? "📸 Image" : last.preview)
+                : entries.size() + " new messages";
+        if (content == null) content = "";
+        String notificationContent = content;
+
+        Log.d(TAG, "🔔 Notifying " + entries.size() + " message(s) in conversation " + conversationId);
 
         // Get sender name first
         MessagingService messagingService = new MessagingService();
-        messagingService.getUserProfile(message.getSenderId(), new MessagingService.UserProfileCallback() {
+        messagingService.getUserProfile(last.senderId, new MessagingService.UserProfileCallback() {
             @Override
             public void onSuccess(String userName, String userAvatar) {
-                message.setSenderName(userName);
-
-                // Prepare notification content
-                String notificationContent = message.getContent();
-                if ("image".equals(message.getMessageType())) {
-                    notificationContent = "📸 Image";
-                }
-
-                Log.d(TAG, "📨 Sending notification:");
-                Log.d(TAG, "   - From: " + userName + " (" + message.getSenderId() + ")");
-                Log.d(TAG, "   - To: " + message.getReceiverId());
-                Log.d(TAG, "   - Content: " + notificationContent);
-
-                // Send the notification
                 notificationService.sendMessageNotification(
-                    message.getConversationId(),
-                    message.getSenderId(),
+                    conversationId,
+                    last.senderId,
                     userName,
                     notificationContent,
-                    message.getReceiverId()
+                    currentUserId
                 );
-
-                // Mark this message as processed
-                processedMessageIds.add(message.getId());
-                Log.d(TAG, "✅ Message marked as processed: " + message.getId());
             }
 
             @Override
@@ -224,11 +281,11 @@ public class BackgroundMessageService extends Service {
                 Log.e(TAG, "❌ Failed to get sender profile: " + error);
                 // Send notification with generic sender name
                 notificationService.sendMessageNotification(
-                    message.getConversationId(),
-                    message.getSenderId(),
+                    conversationId,
+                    last.senderId,
                     "Someone",
-                    message.getContent(),
-                    message.getReceiverId()
+                    notificationContent,
+                    currentUserId
                 );
             }
         });
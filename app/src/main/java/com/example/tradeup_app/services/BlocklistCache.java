@@ -0,0 +1,204 @@
+package com.example.tradeup_app.services;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.tradeup_app.firebase.FirebaseManager;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory blocklist of the signed-in user, so block checks on the send path are local lookups.
+ *
+ * Two sets are kept live by listeners and saved to SharedPreferences for cold start:
+ * - users the current user blocked (Users/<me>/blockedUsers, one value listener; each event
+ *   replaces the set, so unblocks made elsewhere while this install was away are picked up)
+ * - counterparties that blocked the current user (Users/<other>/blockedUsers/<me>, one small
+ *   listener per watched counterparty, at most MAX_WATCHED_COUNTERPARTIES at a time)
+ */
+public class BlocklistCache {
+    private static final String TAG = "BlocklistCache";
+    private static final String PREFS = "blocklist_cache";
+    private static final int MAX_WATCHED_COUNTERPARTIES = 32;
+
+    private static BlocklistCache instance;
+
+    private final FirebaseDatabase database;
+    private final SharedPreferences prefs;
+
+    private String userId;
+    private final Set<String> blockedByMe = new HashSet<>();
+    private final Set<String> blockedMe = new HashSet<>();
+    // Counterparties whose listener has reported at least once
+    private final Set<String> resolved = new HashSet<>();
+    private DatabaseReference ownListRef;
+    private ValueEventListener ownListListener;
+    // Counterparty id -> listener on their entry for the current user, least recently used first
+    private final LinkedHashMap<String, ValueEventListener> watched = new LinkedHashMap<>(16, 0.75f, true);
+
+    public static synchronized void init(Context context) {
+        if (instance == null) {
+            instance = new BlocklistCache(FirebaseDatabase.getInstance(),
+                context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE));
+        }
+    }
+
+    /**
+     * The cache, or null before init() was called
+     */
+    public static synchronized BlocklistCache getInstance() {
+        return instance;
+    }
+
+    private BlocklistCache(FirebaseDatabase database, SharedPreferences prefs) {
+        this.database = database;
+        this.prefs = prefs;
+    }
+
+    /**
+     * Whether messages between userId and otherId are blocked in either direction.
+     * Starts watching otherId, so later checks follow their blocklist too.
+     */
+    public synchronized boolean isBlocked(String userId, String otherId) {
+        if (userId == null || otherId == null) return false;
+        bindTo(userId);
+        watchCounterparty(otherId);
+        return blockedByMe.contains(otherId) || blockedMe.contains(otherId);
+    }
+
+    /**
+     * Whether the block state between userId and otherId is known locally, i.e. otherId's
+     * listener has reported. Until then a block by otherId may not be in the cache yet.
+     */
+    public synchronized boolean isResolved(String userId, String otherId) {
+        if (userId == null || otherId == null) return false;
+        bindTo(userId);
+        watchCounterparty(otherId);
+        return resolved.contains(otherId) || blockedByMe.contains(otherId) || blockedMe.contains(otherId);
+    }
+
+    /**
+     * Keep otherId's block state for the current user live, e.g. when a chat is opened
+     */
+    public synchronized void watchCounterparty(String otherId) {
+        if (userId == null || otherId == null || otherId.equals(userId)) return;
+        if (watched.get(otherId) != null) return; // get() also marks it recently used
+
+        String me = userId;
+        ValueEventListener listener = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                synchronized (BlocklistCache.this) {
+                    if (!me.equals(userId)) return;
+                    resolved.add(otherId);
+                    boolean changed = snapshot.exists() ? blockedMe.add(otherId) : blockedMe.remove(otherId);
+                    if (changed) persist();
+                }
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.w(TAG, "Block state of " + otherId + " not available: " + error.getMessage());
+            }
+        };
+        counterpartyRef(otherId).addValueEventListener(listener);
+        watched.put(otherId, listener);
+
+        if (watched.size() > MAX_WATCHED_COUNTERPARTIES) {
+            Iterator<Map.Entry<String, ValueEventListener>> eldest = watched.entrySet().iterator();
+            Map.Entry<String, ValueEventListener> entry = eldest.next();
+            counterpartyRef(entry.getKey()).removeEventListener(entry.getValue());
+            resolved.remove(entry.getKey());
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Apply a block or unblock by the current user right away, before the listener confirms it
+     */
+    public synchronized void setBlockedByMe(String otherId, boolean blocked) {
+        if (userId == null || otherId == null) return;
+        boolean changed = blocked ? blockedByMe.add(otherId) : blockedByMe.remove(otherId);
+        if (changed) persist();
+    }
+
+    /**
+     * Drop listeners and in-memory state, e.g. on sign-out. Persisted sets stay for the next start.
+     */
+    public synchronized void clear() {
+        if (ownListRef != null && ownListListener != null) {
+            ownListRef.removeEventListener(ownListListener);
+        }
+        ownListRef = null;
+        ownListListener = null;
+        for (Map.Entry<String, ValueEventListener> entry : watched.entrySet()) {
+            counterpartyRef(entry.getKey()).removeEventListener(entry.getValue());
+        }
+        watched.clear();
+        resolved.clear();
+        blockedByMe.clear();
+        blockedMe.clear();
+        userId = null;
+    }
+
+    private void bindTo(String newUserId) {
+        if (newUserId.equals(userId)) return;
+        clear();
+        userId = newUserId;
+
+        // Cold start: the last known state answers until the listeners catch up
+        blockedByMe.addAll(prefs.getStringSet(userId + "_blocked", new HashSet<>()));
+        blockedMe.addAll(prefs.getStringSet(userId + "_blocked_by", new HashSet<>()));
+
+        String me = userId;
+        ownListRef = database.getReference(FirebaseManager.USERS_NODE).child(userId).child("blockedUsers");
+        ownListListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                Set<String> blocked = new HashSet<>();
+                for (DataSnapshot child : snapshot.getChildren()) {
+                    if (Boolean.TRUE.equals(child.getValue(Boolean.class))) {
+                        blocked.add(child.getKey());
+                    }
+                }
+                synchronized (BlocklistCache.this) {
+                    if (!me.equals(userId)) return;
+                    if (blocked.equals(blockedByMe)) return;
+                    blockedByMe.clear();
+                    blockedByMe.addAll(blocked);
+                    persist();
+                }
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.w(TAG, "Blocklist listener cancelled: " + error.getMessage());
+            }
+        };
+        ownListRef.addValueEventListener(ownListListener);
+    }
+
+    private DatabaseReference counterpartyRef(String otherId) {
+        return database.getReference(FirebaseManager.USERS_NODE)
+            .child(otherId).child("blockedUsers").child(userId);
+    }
+
+    private void persist() {
+        prefs.edit()
+            .putStringSet(userId + "_blocked", new HashSet<>(blockedByMe))
+            .putStringSet(userId + "_blocked_by", new HashSet<>(blockedMe))
+            .apply();
+    }
+}
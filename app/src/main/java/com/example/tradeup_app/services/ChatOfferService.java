@@ -3,6 +3,7 @@ package com.example.tradeup_app.services;
 import android.util.Log;
 
 import com.example.tradeup_app.firebase.FirebaseManager;
+import com.example.tradeup_app.firebase.WriteBatch;
 import com.example.tradeup_app.models.ChatOffer;
 import com.example.tradeup_app.models.Message;
 import com.example.tradeup_app.utils.NotificationManager;
@@ -136,15 +137,18 @@ public class ChatOfferService {
         messageData.put("offerMessage", chatOffer.getMessage());
         messageData.put("productId", chatOffer.getProductId());
 
-        // Save to correct Firebase path
-        messagesRef.child(messageId).setValue(messageData)
+        // Offer message and conversation's last message in one atomic write
+        WriteBatch batch = firebaseManager.batch()
+                .set(FirebaseManager.MESSAGES_NODE + "/" + messageId, messageData);
+        addConversationLastMessage(batch, conversationId, offerContent);
+        FirebaseManager.putUserInboxEntry(batch.asMap(), messageId, receiverId, senderId,
+                conversationId, "CHAT_OFFER", offerContent);
+
+        firebaseManager.enqueue(batch, "conversation:" + conversationId)
                 .addOnSuccessListener(aVoid -> {
                     Log.d(TAG, "Offer message sent successfully");
                     callback.onOfferSent(chatOffer);
 
-                    // Update conversation's last message
-                    updateConversationLastMessage(conversationId, offerContent);
-
                     // Send notification to receiver
                     sendOfferNotification(receiverId, chatOffer);
                 })
@@ -336,16 +340,10 @@ public class ChatOfferService {
     /**
      * Update conversation's last message
      */
-    private void updateConversationLastMessage(String conversationId, String lastMessage) {
-        Map<String, Object> conversationUpdates = new HashMap<>();
-        conversationUpdates.put("lastMessage", lastMessage);
-        conversationUpdates.put("lastMessageTime", System.currentTimeMillis());
-
-        firebaseManager.getDatabase()
-                .getReference("conversations")
-                .child(conversationId)
-                .updateChildren(conversationUpdates)
-                .addOnFailureListener(e -> Log.e(TAG, "Failed to update conversation", e));
+    private void addConversationLastMessage(WriteBatch batch, String conversationId, String lastMessage) {
+        String conversationPath = FirebaseManager.CONVERSATIONS_NODE + "/" + conversationId + "/";
+        batch.set(conversationPath + "lastMessage", lastMessage);
+        batch.set(conversationPath + "lastMessageTime", System.currentTimeMillis());
     }
 
     /**
@@ -0,0 +1,155 @@
+package com.example.tradeup_app.services;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ServerValue;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Atomic counters on top of ServerValue.increment.
+ * The server applies each increment, so concurrent clients never overwrite each other and a
+ * counter update is a single write with no read first.
+ *
+ * High-frequency counters such as product views can be batched: deltas for the same path are
+ * summed locally and written once per flush window, one multi-path update per record (the first
+ * two path segments, e.g. products/<id>). A failed update is queued again, except when the rules
+ * reject it: the record was deleted meanwhile and the write would recreate a fragment of it.
+ * Deltas still pending when the process dies are lost, which is acceptable for view statistics.
+ */
+public class CounterService {
+    private static final String TAG = "CounterService";
+    private static final long FLUSH_INTERVAL_MS = 5000;
+
+    private static CounterService instance;
+
+    private final FirebaseDatabase database;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable flushRunnable = this::flush;
+    // Root-relative path -> summed delta not yet written
+    private final Map<String, Long> pendingDeltas = new LinkedHashMap<>();
+    // Root-relative path -> value written with the next flush, last one wins
+    private final Map<String, Object> pendingValues = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+
+    public static synchronized CounterService getInstance() {
+        if (instance == null) {
+            instance = new CounterService(FirebaseDatabase.getInstance());
+        }
+        return instance;
+    }
+
+    private CounterService(FirebaseDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Add delta to the counter at path with the next flush
+     */
+    public synchronized void incrementBatched(String path, long delta) {
+        Long pending = pendingDeltas.get(path);
+        pendingDeltas.put(path, pending != null ? pending + delta : delta);
+        scheduleFlush();
+    }
+
+    /**
+     * Write value at path with the next flush, e.g. a "last viewed" timestamp next to a batched counter
+     */
+    public synchronized void setBatched(String path, Object value) {
+        pendingValues.put(path, value);
+        scheduleFlush();
+    }
+
+    /**
+     * Write every pending delta and value, one multi-path update per record
+     */
+    public void flush() {
+        Map<String, Long> deltas;
+        Map<String, Object> values;
+        synchronized (this) {
+            flushScheduled = false;
+            handler.removeCallbacks(flushRunnable);
+            deltas = new LinkedHashMap<>(pendingDeltas);
+            values = new LinkedHashMap<>(pendingValues);
+            pendingDeltas.clear();
+            pendingValues.clear();
+        }
+
+        Map<String, Map<String, Long>> deltasByRecord = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+            if (entry.getValue() != 0) {
+                deltasByRecord.computeIfAbsent(recordOf(entry.getKey()), k -> new LinkedHashMap<>())
+                    .put(entry.getKey(), entry.getValue());
+            }
+        }
+        Map<String, Map<String, Object>> valuesByRecord = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            valuesByRecord.computeIfAbsent(recordOf(entry.getKey()), k -> new LinkedHashMap<>())
+                .put(entry.getKey(), entry.getValue());
+        }
+
+        java.util.Set<String> records = new java.util.LinkedHashSet<>(deltasByRecord.keySet());
+        records.addAll(valuesByRecord.keySet());
+        for (String record : records) {
+            Map<String, Long> recordDeltas = deltasByRecord.containsKey(record)
+                ? deltasByRecord.get(record) : new LinkedHashMap<>();
+            Map<String, Object> recordValues = valuesByRecord.containsKey(record)
+                ? valuesByRecord.get(record) : new LinkedHashMap<>();
+            write(record, recordDeltas, recordValues);
+        }
+    }
+
+    private void write(String record, Map<String, Long> deltas, Map<String, Object> values) {
+        Map<String, Object> updates = new HashMap<>(values);
+        for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+            updates.put(entry.getKey(), ServerValue.increment(entry.getValue()));
+        }
+
+        database.getReference().updateChildren(updates, (error, ref) -> {
+            if (error == null) {
+                Log.d(TAG, "Flushed " + updates.size() + " counter updates for " + record);
+            } else if (error.getCode() == DatabaseError.PERMISSION_DENIED) {
+                // Rules only accept counters of records that still exist
+                Log.w(TAG, "Dropped counter updates for " + record + ": " + error.getMessage());
+            } else {
+                Log.e(TAG, "Counter flush for " + record + " failed, retrying: " + error.getMessage());
+                requeue(deltas, values);
+            }
+        });
+    }
+
+    /**
+     * Put back what a failed flush took, merged with anything queued since
+     */
+    private synchronized void requeue(Map<String, Long> deltas, Map<String, Object> values) {
+        for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+            Long pending = pendingDeltas.get(entry.getKey());
+            pendingDeltas.put(entry.getKey(), pending != null ? pending + entry.getValue() : entry.getValue());
+        }
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            // A value set since the failed flush is newer
+            if (!pendingValues.containsKey(entry.getKey())) {
+                pendingValues.put(entry.getKey(), entry.getValue());
+            }
+        }
+        scheduleFlush();
+    }
+
+    private static String recordOf(String path) {
+        int first = path.indexOf('/');
+        int second = first >= 0 ? path.indexOf('/', first + 1) : -1;
+        return second >= 0 ? path.substring(0, second) : path;
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled) return;
+        flushScheduled = true;
+        handler.postDelayed(flushRunnable, FLUSH_INTERVAL_MS);
+    }
+}
@@ -14,13 +14,16 @@ import com.example.tradeup_app.models.Product;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Locale;
 
 public class LocationService {
     private static final int LOCATION_PERMISSION_REQUEST_CODE = 1001;
     private static final long MIN_TIME_BW_UPDATES = 1000 * 60 * 1; // 1 minute
     private static final float MIN_DISTANCE_CHANGE_FOR_UPDATES = 10; // 10 meters
+    private static final double KM_PER_DEGREE_LAT = 111.32;
 
     private Context context;
     private LocationManager locationManager;
@@ -202,15 +205,23 @@ public class LocationService {
     }
 
     /**
-     * Filter products by location radius
+     * Filter products by location radius, keeping the input order.
+     * A cheap bounding-box check rejects far products before the Haversine distance is computed.
      */
     public void filterProductsByLocation(List<Product> products, double userLat, double userLon,
                                        double radiusKm, ProductLocationCallback callback) {
         try {
             List<Product> filteredProducts = new ArrayList<>();
 
+            double latDelta = radiusKm / KM_PER_DEGREE_LAT;
+            double lonDelta = radiusKm / (KM_PER_DEGREE_LAT * Math.max(Math.cos(Math.toRadians(userLat)), 0.01));
+
             for (Product product : products) {
                 if (product.getLatitude() != 0 && product.getLongitude() != 0) {
+                    if (Math.abs(product.getLatitude() - userLat) > latDelta
+                            || Math.abs(product.getLongitude() - userLon) > lonDelta) {
+                        continue;
+                    }
                     double distance = calculateDistance(userLat, userLon,
                                                       product.getLatitude(), product.getLongitude());
                     if (distance <= radiusKm) {
@@ -226,27 +237,25 @@ public class LocationService {
     }
 
     /**
-     * Sort products by distance from user location
+     * Sort products by distance from user location.
+     * Each distance is computed once up front instead of inside the comparator.
      */
     public void sortProductsByDistance(List<Product> products, double userLat, double userLon,
                                      ProductLocationCallback callback) {
         try {
-            // Calculate distance for each product and sort
+            Map<Product, Double> distances = new IdentityHashMap<>(products.size());
+            for (Product product : products) {
+                double distance = Double.MAX_VALUE;
+                if (product.getLatitude() != 0 && product.getLongitude() != 0) {
+                    distance = calculateDistance(userLat, userLon, product.getLatitude(), product.getLongitude());
+                }
+                distances.put(product, distance);
+            }
+
             Collections.sort(products, new Comparator<Product>() {
                 @Override
                 public int compare(Product p1, Product p2) {
-                    double distance1 = Double.MAX_VALUE;
-                    double distance2 = Double.MAX_VALUE;
-
-                    if (p1.getLatitude() != 0 && p1.getLongitude() != 0) {
-                        distance1 = calculateDistance(userLat, userLon, p1.getLatitude(), p1.getLongitude());
-                    }
-
-                    if (p2.getLatitude() != 0 && p2.getLongitude() != 0) {
-                        distance2 = calculateDistance(userLat, userLon, p2.getLatitude(), p2.getLongitude());
-                    }
-
-                    return Double.compare(distance1, distance2);
+                    return Double.compare(distances.get(p1), distances.get(p2));
                 }
             });
 
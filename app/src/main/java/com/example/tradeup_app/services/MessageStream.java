@@ -0,0 +1,209 @@
+package com.example.tradeup_app.services;
+
+import android.util.Log;
+
+import com.example.tradeup_app.data.mapping.ModelMappers;
+import com.example.tradeup_app.firebase.SnapshotDecoder;
+import com.example.tradeup_app.models.Message;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.Query;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Incremental message stream for one conversation.
+ * The latest page is read once; after that child listeners report only messages that are added,
+ * changed or removed. Older history is fetched a page at a time with loadOlder().
+ *
+ * Messages stay in the messages node and are selected with the conversationId index. Push keys
+ * are chronological, so within one conversation the key orders messages by send time and each
+ * page is a key range of that index.
+ */
+public class MessageStream {
+    private static final String TAG = "MessageStream";
+
+    public interface Listener {
+        // Latest messages, oldest first
+        void onInitialMessages(List<Message> messages, boolean hasMore);
+        // The page just before the oldest loaded message, oldest first
+        void onOlderMessages(List<Message> messages, boolean hasMore);
+        void onMessageAdded(Message message);
+        void onMessageChanged(Message message);
+        void onMessageRemoved(String messageId);
+        void onError(String error);
+    }
+
+    private final DatabaseReference messagesRef;
+    private final String conversationId;
+    private final int pageSize;
+    private final Listener listener;
+
+    // Ids already delivered, so a listener's initial child events are not reported twice
+    private final Set<String> knownIds = new HashSet<>();
+    // One listener per loaded key range: the newest is open-ended, older ones are bounded
+    private final List<Query> rangeQueries = new ArrayList<>();
+    private final List<ChildEventListener> rangeListeners = new ArrayList<>();
+
+    private String oldestKey;
+    private boolean hasMore;
+    private boolean loadingOlder;
+    private boolean closed;
+
+    MessageStream(DatabaseReference messagesRef, String conversationId, int pageSize, Listener listener) {
+        this.messagesRef = messagesRef;
+        this.conversationId = conversationId;
+        this.pageSize = pageSize;
+        this.listener = listener;
+    }
+
+    void start() {
+        messagesRef.orderByChild("conversationId").equalTo(conversationId)
+            .limitToLast(pageSize)
+            .get()
+            .addOnSuccessListener(snapshot -> {
+                if (closed) return;
+                String firstKey = firstKey(snapshot);
+                List<Message> messages = toMessages(snapshot);
+                hasMore = snapshot.getChildrenCount() >= pageSize;
+                oldestKey = firstKey;
+
+                listener.onInitialMessages(messages, hasMore);
+
+                // Live range: from the oldest loaded message on, including everything sent later
+                Query live = firstKey == null
+                    ? messagesRef.orderByChild("conversationId").equalTo(conversationId)
+                    : messagesRef.orderByChild("conversationId").startAt(conversationId, firstKey).endAt(conversationId);
+                listen(live);
+            })
+            .addOnFailureListener(e -> {
+                if (!closed) listener.onError(e.getMessage());
+            });
+    }
+
+    /**
+     * Fetch the page before the oldest loaded message. Ignored while a page is loading or when
+     * the start of the conversation has been reached.
+     */
+    public void loadOlder() {
+        if (closed || loadingOlder || !hasMore || oldestKey == null) return;
+        loadingOlder = true;
+        String previousOldestKey = oldestKey;
+
+        messagesRef.orderByChild("conversationId")
+            .startAt(conversationId)
+            .endBefore(conversationId, previousOldestKey)
+            .limitToLast(pageSize)
+            .get()
+            .addOnSuccessListener(snapshot -> {
+                loadingOlder = false;
+                if (closed) return;
+                String firstKey = firstKey(snapshot);
+                List<Message> messages = toMessages(snapshot);
+                hasMore = snapshot.getChildrenCount() >= pageSize;
+
+                if (firstKey != null) {
+                    oldestKey = firstKey;
+                    // Bounded range, so later edits or deletions of these messages still arrive
+                    listen(messagesRef.orderByChild("conversationId")
+                        .startAt(conversationId, firstKey)
+                        .endBefore(conversationId, previousOldestKey));
+                }
+                listener.onOlderMessages(messages, hasMore);
+            })
+            .addOnFailureListener(e -> {
+                loadingOlder = false;
+                if (!closed) listener.onError(e.getMessage());
+            });
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    public boolean isLoadingOlder() {
+        return loadingOlder;
+    }
+
+    public void close() {
+        closed = true;
+        for (int i = 0; i < rangeQueries.size(); i++) {
+            rangeQueries.get(i).removeEventListener(rangeListeners.get(i));
+        }
+        rangeQueries.clear();
+        rangeListeners.clear();
+    }
+
+    private void listen(Query query) {
+        ChildEventListener childListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(DataSnapshot snapshot, String previousChildName) {
+                if (knownIds.contains(snapshot.getKey())) return;
+                Message message = toMessage(snapshot);
+                if (message != null) {
+                    knownIds.add(message.getId());
+                    listener.onMessageAdded(message);
+                }
+            }
+
+            @Override
+            public void onChildChanged(DataSnapshot snapshot, String previousChildName) {
+                Message message = toMessage(snapshot);
+                if (message != null) {
+                    listener.onMessageChanged(message);
+                }
+            }
+
+            @Override
+            public void onChildRemoved(DataSnapshot snapshot) {
+                if (knownIds.remove(snapshot.getKey())) {
+                    listener.onMessageRemoved(snapshot.getKey());
+                }
+            }
+
+            @Override
+            public void onChildMoved(DataSnapshot snapshot, String previousChildName) {
+                // Position comes from the timestamp, not the query order
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                Log.e(TAG, "Message stream cancelled: " + error.getMessage());
+                if (!closed) listener.onError(error.getMessage());
+            }
+        };
+        rangeQueries.add(query);
+        rangeListeners.add(childListener);
+        query.addChildEventListener(childListener);
+    }
+
+    private List<Message> toMessages(DataSnapshot snapshot) {
+        List<Message> messages = new ArrayList<>((int) snapshot.getChildrenCount());
+        for (DataSnapshot child : snapshot.getChildren()) {
+            Message message = toMessage(child);
+            if (message != null) {
+                knownIds.add(message.getId());
+                messages.add(message);
+            }
+        }
+        messages.sort((m1, m2) -> Long.compare(m1.getTimestamp(), m2.getTimestamp()));
+        return messages;
+    }
+
+    private static Message toMessage(DataSnapshot snapshot) {
+        // Child events are decoded in place to keep them in order; records are small
+        return SnapshotDecoder.decode(snapshot, ModelMappers.MESSAGE);
+    }
+
+    private static String firstKey(DataSnapshot snapshot) {
+        for (DataSnapshot child : snapshot.getChildren()) {
+            return child.getKey();
+        }
+        return null;
+    }
+}
@@ -4,9 +4,13 @@ import android.content.Context;
 import android.net.Uri;
 import android.util.Log;
 
+import com.example.tradeup_app.data.mapping.ModelMappers;
 import com.example.tradeup_app.firebase.FirebaseManager;
+import com.example.tradeup_app.firebase.SnapshotDecoder;
+import com.example.tradeup_app.firebase.WriteBatch;
 import com.example.tradeup_app.models.Conversation;
 import com.example.tradeup_app.models.Message;
+import com.example.tradeup_app.utils.EntityCache;
 import com.example.tradeup_app.utils.ImageUploadManager;
 import com.example.tradeup_app.utils.NotificationManager;
 import com.google.android.gms.tasks.OnCompleteListener;
@@ -38,6 +42,9 @@ public class MessagingService {
     private static final String BLOCKED_USERS_NODE = "blocked_users";
     private static final String MESSAGE_IMAGES_PATH = "message_images";
 
+    // Messages loaded when a chat opens and per "load older" page
+    public static final int MESSAGE_PAGE_SIZE = 30;
+
     public interface MessageCallback {
         void onMessagesLoaded(List<Message> messages);
         void onMessageSent(String messageId);
@@ -133,50 +140,30 @@ public class MessagingService {
 
     // NEW: Unified method to find conversation between any two users
     private void findConversationBetweenUsers(String userId1, String userId2, ConversationSearchCallback callback) {
-        DatabaseReference conversationsRef = firebaseManager.getDatabase()
-                .getReference(FirebaseManager.CONVERSATIONS_NODE);
-
-        // ✅ SỬA: Tìm kiếm toàn bộ conversations để tìm conversation giữa 2 user này
-        conversationsRef.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot dataSnapshot) {
-                Log.d(TAG, "🔍 Searching for existing conversation between: " + userId1 + " and " + userId2);
-
-                String foundConversationId = null;
+        String pairKey = FirebaseManager.userPairKey(userId1, userId2);
+        if (pairKey == null) {
+            callback.onError("Missing user id");
+            return;
+        }
 
-                for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                    Conversation conversation = snapshot.getValue(Conversation.class);
-                    if (conversation != null) {
-                        String buyerId = conversation.getBuyerId();
-                        String sellerId = conversation.getSellerId();
-
-                        // Kiểm tra xem conversation có phải giữa 2 user này không (cả 2 hướng)
-                        boolean isMatch = (buyerId != null && sellerId != null) &&
-                                        ((buyerId.equals(userId1) && sellerId.equals(userId2)) ||
-                                         (buyerId.equals(userId2) && sellerId.equals(userId1)));
-
-                        if (isMatch) {
-                            foundConversationId = snapshot.getKey();
-                            Log.d(TAG, "✅ Found existing conversation: " + foundConversationId);
-                            break;
-                        }
+        // Một lần đọc theo khóa cặp user, không quét toàn bộ conversations
+        firebaseManager.getDatabase().getReference(FirebaseManager.USER_PAIRS_NODE)
+                .child(pairKey)
+                .get()
+                .addOnSuccessListener(snapshot -> {
+                    String foundConversationId = snapshot.getValue(String.class);
+                    if (foundConversationId != null) {
+                        Log.d(TAG, "✅ Found existing conversation: " + foundConversationId);
+                        callback.onConversationFound(foundConversationId);
+                    } else {
+                        Log.d(TAG, "❌ No existing conversation found, will create new one");
+                        callback.onConversationNotFound();
                     }
-                }
-
-                if (foundConversationId != null) {
-                    callback.onConversationFound(foundConversationId);
-                } else {
-                    Log.d(TAG, "❌ No existing conversation found, will create new one");
-                    callback.onConversationNotFound();
-                }
-            }
-
-            @Override
-            public void onCancelled(DatabaseError databaseError) {
-                Log.e(TAG, "❌ Error searching conversations: " + databaseError.getMessage());
-                callback.onError(databaseError.getMessage());
-            }
-        });
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "❌ Error searching conversations: " + e.getMessage());
+                    callback.onError(e.getMessage());
+                });
     }
 
     // NEW: Update existing conversation with product info
@@ -258,11 +245,42 @@ public class MessagingService {
             conversationData.put("productImageUrl", "");
         }
 
-        conversationsRef.child(conversationId).setValue(conversationData)
+        // Conversation, both participants' index entries and the pair key in one write
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(FirebaseManager.CONVERSATIONS_NODE + "/" + conversationId, conversationData);
+        FirebaseManager.putUserConversationEntries(updates, conversationId, buyerId, sellerId,
+                (long) conversationData.get("updatedAt"));
+        String pairKey = FirebaseManager.userPairKey(buyerId, sellerId);
+        if (pairKey != null) {
+            updates.put(FirebaseManager.USER_PAIRS_NODE + "/" + pairKey, conversationId);
+        }
+
+        firebaseManager.getDatabase().getReference().updateChildren(updates)
                 .addOnCompleteListener(task -> {
                     if (task.isSuccessful()) {
                         Log.d(TAG, "✅ Successfully created unified conversation: " + conversationId);
                         callback.onConversationCreated(conversationId);
+                    } else if (pairKey != null) {
+                        // The other user may have created the conversation at the same time:
+                        // the pair key is never overwritten, so use theirs
+                        firebaseManager.getDatabase().getReference(FirebaseManager.USER_PAIRS_NODE)
+                                .child(pairKey)
+                                .get()
+                                .addOnCompleteListener(pairTask -> {
+                                    String existingId = pairTask.isSuccessful()
+                                            ? pairTask.getResult().getValue(String.class) : null;
+                                    if (existingId != null) {
+                                        Log.d(TAG, "✅ Conversation was created concurrently: " + existingId);
+                                        if (productId != null) {
+                                            updateConversationWithProduct(existingId, productId, productTitle, productImageUrl);
+                                        }
+                                        callback.onConversationCreated(existingId);
+                                    } else {
+                                        Log.e(TAG, "❌ Failed to create conversation: " + task.getException());
+                                        callback.onError("Failed to create conversation: " +
+                                                (task.getException() != null ? task.getException().getMessage() : "Unknown error"));
+                                    }
+                                });
                     } else {
                         Log.e(TAG, "❌ Failed to create conversation: " + task.getException());
                         callback.onError("Failed to create conversation: " +
@@ -379,14 +397,19 @@ public class MessagingService {
         String messageId = messagesRef.push().getKey();
         message.setId(messageId);
 
-        messagesRef.child(messageId).setValue(message)
+        // Message, conversation summary and index entries in one atomic write
+        WriteBatch batch = firebaseManager.batch()
+                .set(FirebaseManager.MESSAGES_NODE + "/" + messageId, message);
+        addConversationLastMessage(batch, message);
+        FirebaseManager.putUserInboxEntry(batch.asMap(), messageId, message.getReceiverId(), message.getSenderId(),
+                message.getConversationId(), message.getMessageType(), message.getContent());
+
+        // Queued, so a message written offline is kept and sent in order once the network is back
+        firebaseManager.enqueue(batch, "conversation:" + message.getConversationId())
                 .addOnCompleteListener(task -> {
                     if (task.isSuccessful()) {
-                        // Update conversation's last message
-                        updateConversationLastMessage(message);
-
                         // ✅ SỬA: KHÔNG gửi notification ở đây nữa
-                        // Notification sẽ được gửi từ listenForMessages khi detect tin nhắn mới
+                        // Notification sẽ được gửi từ openMessageStream khi detect tin nhắn mới
                         Log.d(TAG, "📤 Message sent successfully, notification will be handled by listeners");
 
                         callback.onMessageSent(messageId);
@@ -437,29 +460,23 @@ public class MessagingService {
         Log.d(TAG, "📨 Notification request sent to NotificationService");
     }
 
-    private void updateConversationLastMessage(Message message) {
-        DatabaseReference conversationRef = firebaseManager.getDatabase()
-                .getReference(FirebaseManager.CONVERSATIONS_NODE)
-                .child(message.getConversationId());
+    // Conversation summary writes that go with a new message
+    private void addConversationLastMessage(WriteBatch batch, Message message) {
+        String conversationPath = FirebaseManager.CONVERSATIONS_NODE + "/" + message.getConversationId() + "/";
 
-        Map<String, Object> updates = new HashMap<>();
-        updates.put("lastMessage", message.getContent());
-        updates.put("lastMessageTime", message.getTimestamp());
-        updates.put("lastMessageSenderId", message.getSenderId()); // Thêm thông tin người gửi
-        updates.put("updatedAt", System.currentTimeMillis());
+        batch.set(conversationPath + "lastMessage", message.getContent());
+        batch.set(conversationPath + "lastMessageTime", message.getTimestamp());
+        batch.set(conversationPath + "lastMessageSenderId", message.getSenderId()); // Thêm thông tin người gửi
+        batch.set(conversationPath + "updatedAt", System.currentTimeMillis());
 
         // QUAN TRỌNG: Tự động cập nhật lastReadTimes cho người gửi
         // Điều này đảm bảo người gửi luôn thấy conversation là "đã đọc"
-        String senderLastReadPath = "lastReadTimes/" + message.getSenderId();
-        updates.put(senderLastReadPath, System.currentTimeMillis());
+        String senderLastReadPath = conversationPath + "lastReadTimes/" + message.getSenderId();
+        batch.set(senderLastReadPath, System.currentTimeMillis());
 
-        conversationRef.updateChildren(updates)
-                .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "Conversation updated successfully. Sender marked as read.");
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Failed to update conversation", e);
-                });
+        // Keep both participants' conversation index ordered by last activity
+        FirebaseManager.putUserConversationEntries(batch.asMap(), message.getConversationId(),
+                message.getSenderId(), message.getReceiverId(), message.getTimestamp());
     }
 
     // Upload image to Firebase Storage
@@ -500,6 +517,9 @@ public class MessagingService {
         userRef.setValue(true)
                 .addOnCompleteListener(task -> {
                     if (task.isSuccessful()) {
+                        BlocklistCache blocklist = BlocklistCache.getInstance();
+                        if (blocklist != null) blocklist.setBlockedByMe(userIdToBlock, true);
+
                         // Also update conversation to maintain compatibility
                         DatabaseReference conversationRef = firebaseManager.getDatabase()
                                 .getReference(FirebaseManager.CONVERSATIONS_NODE)
@@ -541,6 +561,9 @@ public class MessagingService {
         userRef.removeValue()
                 .addOnCompleteListener(task -> {
                     if (task.isSuccessful()) {
+                        BlocklistCache blocklist = BlocklistCache.getInstance();
+                        if (blocklist != null) blocklist.setBlockedByMe(userIdToUnblock, false);
+
                         // Also update conversation to maintain compatibility
                         if (conversationId != null) {
                             DatabaseReference conversationRef = firebaseManager.getDatabase()
@@ -621,124 +644,72 @@ public class MessagingService {
         });
     }
 
-    // Listen for messages in real-time
-    public void listenForMessages(String conversationId, MessageCallback callback) {
-        android.util.Log.d("MessagingService", "🔍 listenForMessages called for conversation: " + conversationId);
-
-        if (conversationId == null || conversationId.isEmpty()) {
-            android.util.Log.e("MessagingService", "❌ Invalid conversationId: " + conversationId);
-            callback.onError("Invalid conversation ID");
-            return;
-        }
-
+    // Stream a conversation's messages: the latest page first, then only added/changed/removed messages.
+    // Close the returned stream when the screen goes away.
+    public MessageStream openMessageStream(String conversationId, int pageSize, MessageStream.Listener listener) {
         DatabaseReference messagesRef = firebaseManager.getDatabase()
                 .getReference(FirebaseManager.MESSAGES_NODE);
 
-        android.util.Log.d("MessagingService", "📡 Setting up query for messages at path: " + FirebaseManager.MESSAGES_NODE);
-        android.util.Log.d("MessagingService", "🔎 Query filter: conversationId == " + conversationId);
-
-        Query query = messagesRef.orderByChild("conversationId").equalTo(conversationId);
-
-        // ✅ SỬA: Sử dụng ValueEventListener để load initial messages, sau đó ChildEventListener cho real-time
-        query.addValueEventListener(new ValueEventListener() {
-            private boolean isFirstLoad = true;
-            private List<String> loadedMessageIds = new ArrayList<>();
-
+        MessageStream stream = new MessageStream(messagesRef, conversationId, pageSize, new MessageStream.Listener() {
             @Override
-            public void onDataChange(DataSnapshot dataSnapshot) {
-                android.util.Log.d("MessagingService", "📨 onDataChange triggered - isFirstLoad: " + isFirstLoad);
-
-                List<Message> messages = new ArrayList<>();
-                List<String> currentMessageIds = new ArrayList<>();
-
-                for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                    Message message = snapshot.getValue(Message.class);
-                    if (message != null) {
-                        message.setId(snapshot.getKey());
-                        messages.add(message);
-                        currentMessageIds.add(snapshot.getKey());
-
-                        android.util.Log.d("MessagingService", "✅ Message loaded: " + message.getMessageType() +
-                                          ", ConvId: " + message.getConversationId() +
-                                          ", OfferId: " + message.getOfferId());
-
-                        // ✅ SỬA: Chỉ gửi thông báo cho tin nhắn MỚI (không có trong loadedMessageIds)
-                        if (!isFirstLoad && context != null && !loadedMessageIds.contains(snapshot.getKey())) {
-                            String currentUserId = firebaseManager.getCurrentUserId();
-
-                            android.util.Log.d("MessagingService", "🔔 NEW MESSAGE DETECTED: " + snapshot.getKey());
-                            android.util.Log.d("MessagingService", "   - Current User: " + currentUserId);
-                            android.util.Log.d("MessagingService", "   - Message Sender: " + message.getSenderId());
-
-                            // Chỉ gửi thông báo nếu tin nhắn không phải từ user hiện tại
-                            if (currentUserId != null && !currentUserId.equals(message.getSenderId())) {
-                                android.util.Log.d("MessagingService", "🔔 Sending notification for new message from: " + message.getSenderId());
-                                sendMessageNotification(message);
-                            } else {
-                                android.util.Log.d("MessagingService", "⭕ Skip notification - message from current user: " + message.getSenderId());
-                            }
-                        }
-                    }
-                }
+            public void onInitialMessages(List<Message> messages, boolean hasMore) {
+                Log.d(TAG, "🎯 Initial load completed with " + messages.size() + " messages");
+                listener.onInitialMessages(messages, hasMore);
+            }
 
-                // Sort messages by timestamp
-                messages.sort((m1, m2) -> Long.compare(m1.getTimestamp(), m2.getTimestamp()));
+            @Override
+            public void onOlderMessages(List<Message> messages, boolean hasMore) {
+                listener.onOlderMessages(messages, hasMore);
+            }
 
-                if (isFirstLoad) {
-                    android.util.Log.d("MessagingService", "🎯 Initial load completed with " + messages.size() + " messages");
-                    isFirstLoad = false;
-                } else {
-                    android.util.Log.d("MessagingService", "🔄 Real-time update with " + messages.size() + " messages");
+            @Override
+            public void onMessageAdded(Message message) {
+                // ✅ Chỉ gửi thông báo cho tin nhắn MỚI không phải từ user hiện tại
+                String currentUserId = firebaseManager.getCurrentUserId();
+                if (context != null && currentUserId != null && !currentUserId.equals(message.getSenderId())) {
+                    Log.d(TAG, "🔔 Sending notification for new message from: " + message.getSenderId());
+                    sendMessageNotification(message);
                 }
+                listener.onMessageAdded(message);
+            }
 
-                // Update loaded message IDs for next comparison
-                loadedMessageIds.clear();
-                loadedMessageIds.addAll(currentMessageIds);
+            @Override
+            public void onMessageChanged(Message message) {
+                listener.onMessageChanged(message);
+            }
 
-                // Callback with updated list
-                callback.onMessagesLoaded(new ArrayList<>(messages));
+            @Override
+            public void onMessageRemoved(String messageId) {
+                listener.onMessageRemoved(messageId);
             }
 
             @Override
-            public void onCancelled(DatabaseError databaseError) {
-                android.util.Log.e("MessagingService", "❌ Database error in listenForMessages: " + databaseError.getMessage());
-                callback.onError(databaseError.getMessage());
+            public void onError(String error) {
+                Log.e(TAG, "❌ Message stream error: " + error);
+                listener.onError(error);
             }
         });
-
-        android.util.Log.d("MessagingService", "🎪 ValueEventListener attached successfully");
+        stream.start();
+        return stream;
     }
 
-    // Load user conversations
-    public void loadUserConversations(ConversationCallback callback) {
+    // Load user conversations from the per-user index; cancel the returned subscription when done
+    public FirebaseManager.Subscription loadUserConversations(ConversationCallback callback) {
         String currentUserId = firebaseManager.getCurrentUserId();
         if (currentUserId == null) {
             callback.onError("User not authenticated");
-            return;
+            return () -> { };
         }
 
-        DatabaseReference conversationsRef = firebaseManager.getDatabase()
-                .getReference(FirebaseManager.CONVERSATIONS_NODE);
-
-        conversationsRef.addValueEventListener(new ValueEventListener() {
+        return firebaseManager.listenForUserConversations(currentUserId, new FirebaseManager.ConversationCallback() {
             @Override
-            public void onDataChange(DataSnapshot dataSnapshot) {
-                List<Conversation> conversations = new ArrayList<>();
-                for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                    Conversation conversation = snapshot.getValue(Conversation.class);
-                    if (conversation != null &&
-                        (conversation.getBuyerId().equals(currentUserId) ||
-                         conversation.getSellerId().equals(currentUserId))) {
-                        conversation.setId(snapshot.getKey());
-                        conversations.add(conversation);
-                    }
-                }
+            public void onConversationsLoaded(List<Conversation> conversations) {
                 callback.onConversationsLoaded(conversations);
             }
 
             @Override
-            public void onCancelled(DatabaseError databaseError) {
-                callback.onError(databaseError.getMessage());
+            public void onError(String error) {
+                callback.onError(error);
             }
         });
     }
@@ -755,17 +726,34 @@ public class MessagingService {
         query.addListenerForSingleValueEvent(new ValueEventListener() {
             @Override
             public void onDataChange(DataSnapshot dataSnapshot) {
-                for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                    Message message = snapshot.getValue(Message.class);
-                    if (message != null &&
-                        message.getSenderId().equals(senderId) &&
-                        message.getReceiverId().equals(currentUserId) &&
-                        !message.isRead()) {
-
-                        snapshot.getRef().child("read").setValue(true);
-                        snapshot.getRef().child("readAt").setValue(System.currentTimeMillis());
+                // Decode off the main thread; only the ids of unread messages come back
+                SnapshotDecoder.submit(() -> {
+                    List<String> unreadIds = new ArrayList<>();
+                    for (Message message : SnapshotDecoder.decodeChildren(dataSnapshot, ModelMappers.MESSAGE)) {
+                        if (senderId.equals(message.getSenderId()) &&
+                            currentUserId.equals(message.getReceiverId()) &&
+                            !message.isRead()) {
+                            unreadIds.add(message.getId());
+                        }
                     }
-                }
+                    return unreadIds;
+                }, unreadIds -> {
+                    if (unreadIds.isEmpty()) return;
+
+                    // Every unread message in one request instead of two writes per message
+                    WriteBatch batch = firebaseManager.batch();
+                    long readAt = System.currentTimeMillis();
+                    for (String messageId : unreadIds) {
+                        String messagePath = FirebaseManager.MESSAGES_NODE + "/" + messageId;
+                        batch.set(messagePath + "/read", true);
+                        batch.set(messagePath + "/readAt", readAt);
+                    }
+
+                    int count = unreadIds.size();
+                    batch.commit()
+                            .addOnSuccessListener(aVoid -> Log.d(TAG, "Marked " + count + " messages as read"))
+                            .addOnFailureListener(e -> Log.e(TAG, "Failed to mark messages as read", e));
+                }, e -> Log.e(TAG, "Failed to decode messages to mark as read", e));
             }
 
             @Override
@@ -781,7 +769,37 @@ public class MessagingService {
                 .getReference(FirebaseManager.CONVERSATIONS_NODE)
                 .child(conversationId);
 
-        conversationRef.removeValue()
+        // Read the participants first so their index entries and the pair key are removed
+        // together with the conversation
+        conversationRef.get()
+                .continueWithTask(readTask -> {
+                    Map<String, Object> updates = new HashMap<>();
+                    updates.put(FirebaseManager.CONVERSATIONS_NODE + "/" + conversationId, null);
+                    if (!readTask.isSuccessful() || readTask.getResult() == null) {
+                        return firebaseManager.getDatabase().getReference().updateChildren(updates);
+                    }
+
+                    DataSnapshot snapshot = readTask.getResult();
+                    String buyerId = snapshot.child("buyerId").getValue(String.class);
+                    String sellerId = snapshot.child("sellerId").getValue(String.class);
+                    FirebaseManager.putUserConversationEntries(updates, conversationId, buyerId, sellerId, null);
+
+                    String pairKey = FirebaseManager.userPairKey(buyerId, sellerId);
+                    if (pairKey == null) {
+                        return firebaseManager.getDatabase().getReference().updateChildren(updates);
+                    }
+                    // Only free the pair if it points here, so the next chat creates a new conversation
+                    return firebaseManager.getDatabase().getReference(FirebaseManager.USER_PAIRS_NODE)
+                            .child(pairKey)
+                            .get()
+                            .continueWithTask(pairTask -> {
+                                if (pairTask.isSuccessful() && pairTask.getResult() != null
+                                        && conversationId.equals(pairTask.getResult().getValue(String.class))) {
+                                    updates.put(FirebaseManager.USER_PAIRS_NODE + "/" + pairKey, null);
+                                }
+                                return firebaseManager.getDatabase().getReference().updateChildren(updates);
+                            });
+                })
                 .addOnCompleteListener(task -> {
                     if (task.isSuccessful()) {
                         // Also delete all messages in this conversation
@@ -831,14 +849,11 @@ public class MessagingService {
             return;
         }
 
-        DatabaseReference userRef = firebaseManager.getDatabase()
-                .getReference(FirebaseManager.USERS_NODE)
-                .child(userId);
-
-        userRef.addListenerForSingleValueEvent(new ValueEventListener() {
+        // Shared cache: conversation rows asking for the same user trigger a single fetch
+        firebaseManager.getUserCached(userId, new EntityCache.LoadCallback<DataSnapshot>() {
             @Override
-            public void onDataChange(DataSnapshot dataSnapshot) {
-                if (dataSnapshot.exists()) {
+            public void onLoaded(DataSnapshot dataSnapshot) {
+                if (dataSnapshot != null) {
                     String userName = dataSnapshot.child("name").getValue(String.class);
                     String userAvatar = dataSnapshot.child("profileImageUrl").getValue(String.class);
 
@@ -859,8 +874,8 @@ public class MessagingService {
             }
 
             @Override
-            public void onCancelled(DatabaseError databaseError) {
-                callback.onError("Database error: " + databaseError.getMessage());
+            public void onError(String error) {
+                callback.onError("Database error: " + error);
             }
         });
     }
@@ -1056,6 +1071,13 @@ public class MessagingService {
             return;
         }
 
+        // Local lookup in the live blocklist; the reads below only run until the counterparty is known
+        BlocklistCache blocklist = BlocklistCache.getInstance();
+        if (blocklist != null && blocklist.isResolved(senderId, receiverId)) {
+            callback.onBlockCheckComplete(blocklist.isBlocked(senderId, receiverId));
+            return;
+        }
+
         // Check if senderId has blocked receiverId
         DatabaseReference senderBlockedRef = firebaseManager.getDatabase()
                 .getReference(FirebaseManager.USERS_NODE)
@@ -0,0 +1,246 @@
+package com.example.tradeup_app.services;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.tradeup_app.firebase.FirebaseManager;
+import com.example.tradeup_app.firebase.WriteBatch;
+import com.example.tradeup_app.models.Notification;
+import com.example.tradeup_app.models.PromotionCampaign;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.Query;
+
+/**
+ * Writes a promotion into every user's notification list, one page of users at a time.
+ *
+ * Users are read by key in pages of pageSize, so memory stays bounded by one page. Each page is
+ * one multi-path write: the page's notifications plus the campaign checkpoint (last user key and
+ * delivered count). A stopped or failed campaign resumes after its checkpoint without sending
+ * anyone the promotion twice. Pages are spaced so the job stays under maxUsersPerSecond.
+ */
+public class PromotionFanOutJob {
+    private static final String TAG = "PromotionFanOutJob";
+    public static final String CAMPAIGNS_NODE = "promotion_campaigns";
+
+    public interface Listener {
+        void onProgress(Progress progress);
+        void onComplete(Progress progress);
+        void onError(String error, Progress progress);
+    }
+
+    /**
+     * Throughput of the current run
+     */
+    public static class Progress {
+        public final String campaignId;
+        public final long delivered;
+        public final int pages;
+        public final long elapsedMs;
+
+        Progress(String campaignId, long delivered, int pages, long elapsedMs) {
+            this.campaignId = campaignId;
+            this.delivered = delivered;
+            this.pages = pages;
+            this.elapsedMs = elapsedMs;
+        }
+
+        public double usersPerSecond() {
+            return elapsedMs == 0 ? 0 : delivered * 1000.0 / elapsedMs;
+        }
+
+        @Override
+        public String toString() {
+            return delivered + " users in " + pages + " pages, " + elapsedMs + " ms ("
+                + String.format(java.util.Locale.US, "%.1f", usersPerSecond()) + " users/s)";
+        }
+    }
+
+    private final FirebaseManager firebaseManager;
+    private final int pageSize;
+    private final int maxUsersPerSecond;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private PromotionCampaign campaign;
+    private Listener listener;
+    private boolean stopped;
+    private long runStartedAt;
+    private long runDelivered;
+    private int runPages;
+
+    public PromotionFanOutJob(FirebaseManager firebaseManager, int pageSize, int maxUsersPerSecond) {
+        if (pageSize <= 0 || maxUsersPerSecond <= 0) {
+            throw new IllegalArgumentException("pageSize and maxUsersPerSecond must be positive");
+        }
+        this.firebaseManager = firebaseManager;
+        this.pageSize = pageSize;
+        this.maxUsersPerSecond = maxUsersPerSecond;
+    }
+
+    /**
+     * Create the campaign record and start delivering it
+     */
+    public void start(PromotionCampaign newCampaign, Listener listener) {
+        DatabaseReference campaignsRef = firebaseManager.getDatabase().getReference(CAMPAIGNS_NODE);
+        String campaignId = campaignsRef.push().getKey();
+        if (campaignId == null) {
+            listener.onError("Failed to create campaign", progress());
+            return;
+        }
+        newCampaign.setId(campaignId);
+        campaignsRef.child(campaignId).setValue(newCampaign)
+            .addOnSuccessListener(aVoid -> run(newCampaign, listener))
+            .addOnFailureListener(e -> listener.onError(e.getMessage(), progress()));
+    }
+
+    /**
+     * Continue a paused or failed campaign after its checkpoint
+     */
+    public void resume(String campaignId, Listener listener) {
+        firebaseManager.getDatabase().getReference(CAMPAIGNS_NODE).child(campaignId).get()
+            .addOnSuccessListener(snapshot -> {
+                PromotionCampaign stored = snapshot.getValue(PromotionCampaign.class);
+                if (stored == null) {
+                    listener.onError("Campaign not found: " + campaignId, progress());
+                    return;
+                }
+                if (PromotionCampaign.STATUS_DONE.equals(stored.getStatus())) {
+                    listener.onComplete(progress());
+                    return;
+                }
+                stored.setId(campaignId);
+                run(stored, listener);
+            })
+            .addOnFailureListener(e -> listener.onError(e.getMessage(), progress()));
+    }
+
+    /**
+     * Stop after the page in flight; the checkpoint is kept for resume()
+     */
+    public void stop() {
+        stopped = true;
+        handler.removeCallbacksAndMessages(null);
+        if (campaign != null) {
+            campaignRef().child("status").setValue(PromotionCampaign.STATUS_PAUSED);
+        }
+    }
+
+    private void run(PromotionCampaign campaignToRun, Listener runListener) {
+        campaign = campaignToRun;
+        listener = runListener;
+        stopped = false;
+        runStartedAt = System.currentTimeMillis();
+        runDelivered = 0;
+        runPages = 0;
+        campaignRef().child("status").setValue(PromotionCampaign.STATUS_RUNNING);
+        Log.d(TAG, "Fan-out of " + campaign.getId() + " starting after " + campaign.getLastUserKey());
+        loadNextPage();
+    }
+
+    private void loadNextPage() {
+        if (stopped) return;
+
+        Query query = firebaseManager.getDatabase().getReference(FirebaseManager.USERS_NODE).orderByKey();
+        if (campaign.getLastUserKey() != null) {
+            query = query.startAfter(campaign.getLastUserKey());
+        }
+
+        query.limitToFirst(pageSize).get()
+            .addOnSuccessListener(this::deliverPage)
+            .addOnFailureListener(e -> fail(e.getMessage()));
+    }
+
+    private void deliverPage(DataSnapshot page) {
+        if (stopped) return;
+
+        long now = System.currentTimeMillis();
+        WriteBatch batch = firebaseManager.batch();
+        String lastKey = null;
+        int count = 0;
+
+        for (DataSnapshot user : page.getChildren()) {
+            String userId = user.getKey();
+            lastKey = userId;
+            String notificationPath = "notifications/" + userId + "/" + campaign.getId();
+
+            // The campaign id is the notification id, so a retried page overwrites instead of duplicating
+            Notification notification = new Notification(userId, NotificationService.TYPE_PROMOTION,
+                campaign.getTitle(), campaign.getMessage());
+            notification.setId(campaign.getId());
+            notification.setActionUrl(campaign.getActionUrl());
+            notification.setTimestamp(now);
+            batch.set(notificationPath, notification);
+            count++;
+        }
+
+        if (count == 0) {
+            finish();
+            return;
+        }
+
+        String pageLastKey = lastKey;
+        int pageCount = count;
+        String campaignPath = CAMPAIGNS_NODE + "/" + campaign.getId() + "/";
+        batch.set(campaignPath + "lastUserKey", pageLastKey)
+            .increment(campaignPath + "delivered", pageCount)
+            .set(campaignPath + "updatedAt", now);
+
+        batch.commit()
+            .addOnSuccessListener(aVoid -> {
+                campaign.setLastUserKey(pageLastKey);
+                campaign.setDelivered(campaign.getDelivered() + pageCount);
+                runDelivered += pageCount;
+                runPages++;
+
+                Progress progress = progress();
+                Log.d(TAG, "Campaign " + campaign.getId() + ": " + progress);
+                listener.onProgress(progress);
+
+                if (pageCount < pageSize) {
+                    finish();
+                } else {
+                    scheduleNextPage();
+                }
+            })
+            .addOnFailureListener(e -> fail(e.getMessage()));
+    }
+
+    /**
+     * Space the pages so the run never gets ahead of maxUsersPerSecond
+     */
+    private void scheduleNextPage() {
+        long earliest = runStartedAt + runDelivered * 1000 / maxUsersPerSecond;
+        long delay = Math.max(0, earliest - System.currentTimeMillis());
+        handler.postDelayed(this::loadNextPage, delay);
+    }
+
+    private void finish() {
+        WriteBatch batch = firebaseManager.batch();
+        String campaignPath = CAMPAIGNS_NODE + "/" + campaign.getId() + "/";
+        batch.set(campaignPath + "status", PromotionCampaign.STATUS_DONE)
+            .set(campaignPath + "finishedAt", System.currentTimeMillis());
+        batch.commit();
+
+        Progress progress = progress();
+        Log.d(TAG, "Campaign " + campaign.getId() + " done: " + progress);
+        listener.onComplete(progress);
+    }
+
+    private void fail(String error) {
+        Log.e(TAG, "Campaign " + (campaign != null ? campaign.getId() : null) + " failed: " + error);
+        if (campaign != null) {
+            campaignRef().child("status").setValue(PromotionCampaign.STATUS_FAILED);
+        }
+        listener.onError(error, progress());
+    }
+
+    private DatabaseReference campaignRef() {
+        return firebaseManager.getDatabase().getReference(CAMPAIGNS_NODE).child(campaign.getId());
+    }
+
+    private Progress progress() {
+        long elapsed = runStartedAt == 0 ? 0 : System.currentTimeMillis() - runStartedAt;
+        return new Progress(campaign != null ? campaign.getId() : null, runDelivered, runPages, elapsed);
+    }
+}
@@ -4,17 +4,14 @@ import android.content.Context;
 import android.util.Log;
 
 import com.example.tradeup_app.firebase.FirebaseManager;
+import com.example.tradeup_app.models.PromotionCampaign;
 import com.example.tradeup_app.utils.NotificationManager;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.ValueEventListener;
-
-import java.util.HashMap;
-import java.util.Map;
 
 public class PromotionService {
     private static final String TAG = "PromotionService";
+    public static final String TOPIC_PROMOTIONS = "promotions";
+    private static final int FAN_OUT_PAGE_SIZE = 200;
+    private static final int FAN_OUT_MAX_USERS_PER_SECOND = 500;
     private final Context context;
     private final FirebaseManager firebaseManager;
 
@@ -24,33 +21,45 @@ public class PromotionService {
     }
 
     /**
-     * Send promotional notification to all users
+     * Send promotional notification to all users.
+     * Every device subscribes to TOPIC_PROMOTIONS, so the push is a single topic send from the backend
+     * (clients cannot publish to FCM topics); the fan-out job adds the promotion to every user's
+     * notification list in throttled, checkpointed pages.
      */
-    public void sendPromotionToAllUsers(String title, String message, String actionUrl) {
+    public PromotionFanOutJob sendPromotionToAllUsers(String title, String message, String actionUrl) {
         Log.d(TAG, "Sending promotion to all users: " + title);
 
-        // Get all users from database
-        DatabaseReference usersRef = firebaseManager.getDatabase().getReference("users");
-        usersRef.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot dataSnapshot) {
-                NotificationManager notificationManager = NotificationManager.getInstance(context);
+        PromotionFanOutJob job = new PromotionFanOutJob(firebaseManager, FAN_OUT_PAGE_SIZE, FAN_OUT_MAX_USERS_PER_SECOND);
+        job.start(new PromotionCampaign(title, message, actionUrl, TOPIC_PROMOTIONS), fanOutListener());
+        return job;
+    }
+
+    /**
+     * Continue a campaign that was stopped or failed, after its last delivered user
+     */
+    public PromotionFanOutJob resumePromotion(String campaignId) {
+        PromotionFanOutJob job = new PromotionFanOutJob(firebaseManager, FAN_OUT_PAGE_SIZE, FAN_OUT_MAX_USERS_PER_SECOND);
+        job.resume(campaignId, fanOutListener());
+        return job;
+    }
 
-                for (DataSnapshot userSnapshot : dataSnapshot.getChildren()) {
-                    String userId = userSnapshot.getKey();
-                    if (userId != null) {
-                        notificationManager.sendPromotionalNotification(title, message, actionUrl, userId);
-                    }
-                }
+    private PromotionFanOutJob.Listener fanOutListener() {
+        return new PromotionFanOutJob.Listener() {
+            @Override
+            public void onProgress(PromotionFanOutJob.Progress progress) {
+                Log.d(TAG, "Promotion " + progress.campaignId + " progress: " + progress);
+            }
 
-                Log.d(TAG, "Promotional notifications sent to " + dataSnapshot.getChildrenCount() + " users");
+            @Override
+            public void onComplete(PromotionFanOutJob.Progress progress) {
+                Log.d(TAG, "Promotional notifications sent: " + progress);
             }
 
             @Override
-            public void onCancelled(DatabaseError databaseError) {
-                Log.e(TAG, "Failed to get users for promotion: " + databaseError.getMessage());
+            public void onError(String error, PromotionFanOutJob.Progress progress) {
+                Log.e(TAG, "Promotion " + progress.campaignId + " stopped after " + progress + ": " + error);
             }
-        });
+        };
     }
 
     /**
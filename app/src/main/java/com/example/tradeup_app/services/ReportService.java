@@ -1,17 +1,22 @@
 package com.example.tradeup_app.services;
 
 import com.example.tradeup_app.firebase.FirebaseManager;
+import com.example.tradeup_app.firebase.WriteBatch;
 import com.example.tradeup_app.models.Report;
 import com.example.tradeup_app.utils.Constants;
 import com.google.firebase.database.DatabaseReference;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 public class ReportService {
     private static final String TAG = "ReportService";
     private final FirebaseManager firebaseManager;
 
+    // Dedupe keys known to be taken, shared by all instances for the process lifetime
+    private static final Set<String> reportedKeys = Collections.synchronizedSet(new HashSet<>());
+
     // Report types
     public static final String REPORT_TYPE_PRODUCT = "PRODUCT";
     public static final String REPORT_TYPE_USER = "USER";
@@ -128,26 +133,39 @@ public class ReportService {
         }
 
         report.setId(reportId);
+        String dedupeKey = FirebaseManager.reportDedupeKey(
+                report.getReporterId(), report.getReportType(), report.getReportedItemId());
+
+        // Report, queue entry, counters, dedupe key and the item's reported flag in one atomic write
+        WriteBatch batch = firebaseManager.batch();
+        FirebaseManager.addReport(batch, report);
+        addItemReportedMark(batch, report);
 
-        reportsRef.child(reportId).setValue(report)
+        batch.commit()
                 .addOnCompleteListener(task -> {
                     if (task.isSuccessful()) {
-                        // Also update the reported item to mark it as reported
-                        markItemAsReported(report);
+                        if (dedupeKey != null) reportedKeys.add(dedupeKey);
                         callback.onReportSubmitted(reportId);
-                    } else {
-                        String error = task.getException() != null ?
-                            task.getException().getMessage() : "Unknown error";
+                        return;
+                    }
+
+                    String error = task.getException() != null ?
+                        task.getException().getMessage() : "Unknown error";
+                    if (dedupeKey == null) {
                         callback.onError("Failed to submit report: " + error);
+                        return;
                     }
+                    // The dedupe key rule rejects a second report of the same item
+                    isReportKeyTaken(dedupeKey, taken -> callback.onError(taken
+                            ? "You have already reported this item"
+                            : "Failed to submit report: " + error));
                 });
     }
 
     /**
      * Mark the reported item as reported in its respective node
      */
-    private void markItemAsReported(Report report) {
-        DatabaseReference itemRef;
+    private void addItemReportedMark(WriteBatch batch, Report report) {
         String nodeType;
 
         switch (report.getReportType()) {
@@ -164,16 +182,10 @@ public class ReportService {
                 return; // Unknown type
         }
 
-        itemRef = firebaseManager.getDatabase()
-                .getReference(nodeType)
-                .child(report.getReportedItemId());
-
-        Map<String, Object> updates = new HashMap<>();
-        updates.put("isReported", true);
-        updates.put("reportCount", com.google.firebase.database.ServerValue.increment(1));
-        updates.put("lastReportedAt", System.currentTimeMillis());
-
-        itemRef.updateChildren(updates);
+        String itemPath = nodeType + "/" + report.getReportedItemId() + "/";
+        batch.set(itemPath + "isReported", true)
+                .increment(itemPath + "reportCount", 1)
+                .set(itemPath + "lastReportedAt", System.currentTimeMillis());
     }
 
     /**
@@ -211,40 +223,34 @@ public class ReportService {
     }
 
     /**
-     * Check if user has already reported an item
+     * Check if user has already reported an item: a local hit, or one point read of its dedupe key
      */
     public void hasUserReportedItem(String itemId, String reportType, OnCheckCallback callback) {
         String currentUserId = firebaseManager.getCurrentUserId();
-        if (currentUserId == null) {
+        String dedupeKey = FirebaseManager.reportDedupeKey(currentUserId, reportType, itemId);
+        if (dedupeKey == null) {
             callback.onCheckComplete(false);
             return;
         }
 
-        firebaseManager.getDatabase()
-                .getReference(Constants.REPORTS_NODE)
-                .orderByChild("reporterId")
-                .equalTo(currentUserId)
-                .addListenerForSingleValueEvent(new com.google.firebase.database.ValueEventListener() {
-                    @Override
-                    public void onDataChange(com.google.firebase.database.DataSnapshot dataSnapshot) {
-                        boolean hasReported = false;
-                        for (com.google.firebase.database.DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                            Report report = snapshot.getValue(Report.class);
-                            if (report != null &&
-                                report.getReportedItemId().equals(itemId) &&
-                                report.getReportType().equals(reportType)) {
-                                hasReported = true;
-                                break;
-                            }
-                        }
-                        callback.onCheckComplete(hasReported);
-                    }
+        if (reportedKeys.contains(dedupeKey)) {
+            callback.onCheckComplete(true);
+            return;
+        }
+        isReportKeyTaken(dedupeKey, callback);
+    }
 
-                    @Override
-                    public void onCancelled(com.google.firebase.database.DatabaseError databaseError) {
-                        callback.onCheckComplete(false);
-                    }
-                });
+    private void isReportKeyTaken(String dedupeKey, OnCheckCallback callback) {
+        firebaseManager.getDatabase()
+                .getReference(FirebaseManager.REPORT_KEYS_NODE)
+                .child(dedupeKey)
+                .get()
+                .addOnSuccessListener(snapshot -> {
+                    // Only positive answers are cached: a report can be filed later, never unfiled
+                    if (snapshot.exists()) reportedKeys.add(dedupeKey);
+                    callback.onCheckComplete(snapshot.exists());
+                })
+                .addOnFailureListener(e -> callback.onCheckComplete(false));
     }
 
     /**
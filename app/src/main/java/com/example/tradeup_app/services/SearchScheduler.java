@@ -0,0 +1,119 @@
+package com.example.tradeup_app.services;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.tradeup_app.firebase.FirebaseManager;
+import com.example.tradeup_app.models.Product;
+import com.example.tradeup_app.utils.ProductSearchIndex;
+import com.example.tradeup_app.utils.SearchQuery;
+import com.example.tradeup_app.utils.SearchResultCache;
+
+import java.util.List;
+
+/**
+ * Runs the search screen's queries: debounced, latest-wins and cached.
+ *
+ * submit() replaces any query still waiting for its delay, and a query that is superseded while
+ * in flight never reaches the listener. Identical queries and refinements of recent ones are
+ * answered from a SearchResultCache without calling FirebaseManager.
+ */
+public class SearchScheduler {
+    private static final String TAG = "SearchScheduler";
+    private static final int CACHE_SIZE = 16;
+    private static final long CACHE_TTL_MS = 60_000;
+
+    public interface Listener {
+        void onSearchStarted();
+        void onResults(List<Product> products);
+        void onError(String error);
+    }
+
+    private final FirebaseManager firebaseManager;
+    private final SearchResultCache cache = new SearchResultCache(CACHE_SIZE, CACHE_TTL_MS);
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private Runnable pending;
+    // Bumped by every submit() and cancel(); a result is delivered only if it still matches
+    private int generation;
+    private SearchQuery lastQuery;
+
+    public SearchScheduler(FirebaseManager firebaseManager) {
+        this.firebaseManager = firebaseManager;
+    }
+
+    /**
+     * Run query after delayMs unless another query is submitted first
+     */
+    public void submit(SearchQuery query, long delayMs, Listener listener) {
+        int submitted = ++generation;
+        lastQuery = query;
+        if (pending != null) {
+            handler.removeCallbacks(pending);
+        }
+        pending = () -> {
+            pending = null;
+            execute(query, submitted, listener);
+        };
+        handler.postDelayed(pending, delayMs);
+    }
+
+    /**
+     * The most recently submitted query, or null if nothing was submitted yet
+     */
+    public SearchQuery getLastQuery() {
+        return lastQuery;
+    }
+
+    /**
+     * Drop the waiting query and ignore the one in flight, e.g. when the view goes away
+     */
+    public void cancel() {
+        generation++;
+        if (pending != null) {
+            handler.removeCallbacks(pending);
+            pending = null;
+        }
+    }
+
+    /**
+     * Forget cached results, e.g. after the user changed or deleted a product
+     */
+    public void invalidate() {
+        cache.clear();
+    }
+
+    private void execute(SearchQuery query, int submitted, Listener listener) {
+        List<Product> cached = cache.get(query, System.currentTimeMillis());
+        if (cached != null) {
+            listener.onResults(cached);
+            return;
+        }
+
+        // Index results follow SearchQuery.matches(), the download fallback matches substrings
+        boolean refinable = ProductSearchIndex.getInstance().isReady();
+        listener.onSearchStarted();
+        firebaseManager.searchProducts(query.getText(), query.getCategory(), query.getCondition(),
+            query.getMinPrice(), query.getMaxPrice(), query.getSortBy(),
+            new FirebaseManager.ProductCallback() {
+                @Override
+                public void onProductsLoaded(List<Product> products) {
+                    // A superseded read still pays for itself if its query comes back
+                    cache.put(query, products, refinable, System.currentTimeMillis());
+                    if (submitted != generation) {
+                        Log.d(TAG, "Dropped superseded results for " + query);
+                        return;
+                    }
+                    listener.onResults(products);
+                }
+
+                @Override
+                public void onError(String error) {
+                    if (submitted == generation) {
+                        listener.onError(error);
+                    }
+                }
+            });
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.tradeup_app.utils;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * SQLite store behind CacheManager. Every cached entity is one row keyed by (type, id)
+ * with its own expiry, so a single change is a single row write.
+ */
+public class CacheDatabase extends SQLiteOpenHelper {
+    private static final String DATABASE_NAME = "tradeup_cache.db";
+    // 3 brings back the category/status columns that version 2 dropped
+    private static final int DATABASE_VERSION = 3;
+
+    public static final String TYPE_PRODUCT = "product";
+    public static final String TYPE_CONVERSATION = "conversation";
+
+    private static final String TABLE_ENTRIES = "cache_entries";
+    private static final String COL_TYPE = "entity_type";
+    private static final String COL_ID = "entity_id";
+    private static final String COL_CATEGORY = "category";
+    private static final String COL_STATUS = "status";
+    private static final String COL_UPDATED_AT = "updated_at";
+    private static final String COL_EXPIRES_AT = "expires_at";
+    private static final String COL_JSON = "json";
+
+    private static CacheDatabase instance;
+
+    /**
+     * One row of the cache; category and status are only set for products
+     */
+    public static class Entry {
+        public final String id;
+        public final String category;
+        public final String status;
+        public final long updatedAt;
+        public final long expiresAt;
+        public final String json;
+
+        public Entry(String id, String category, String status, long updatedAt, long expiresAt, String json) {
+            this.id = id;
+            this.category = category;
+            this.status = status;
+            this.updatedAt = updatedAt;
+            this.expiresAt = expiresAt;
+            this.json = json;
+        }
+    }
+
+    public static synchronized CacheDatabase getInstance(Context context) {
+        if (instance == null) {
+            instance = new CacheDatabase(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private CacheDatabase(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_ENTRIES + " ("
+            + COL_TYPE + " TEXT NOT NULL, "
+            + COL_ID + " TEXT NOT NULL, "
+            + COL_CATEGORY + " TEXT, "
+            + COL_STATUS + " TEXT, "
+            + COL_UPDATED_AT + " INTEGER NOT NULL DEFAULT 0, "
+            + COL_EXPIRES_AT + " INTEGER NOT NULL, "
+            + COL_JSON + " TEXT NOT NULL, "
+            + "PRIMARY KEY (" + COL_TYPE + ", " + COL_ID + "))");
+        db.execSQL("CREATE INDEX idx_cache_category ON " + TABLE_ENTRIES + " (" + COL_TYPE + ", " + COL_CATEGORY + ")");
+        db.execSQL("CREATE INDEX idx_cache_status ON " + TABLE_ENTRIES + " (" + COL_TYPE + ", " + COL_STATUS + ")");
+        db.execSQL("CREATE INDEX idx_cache_expires ON " + TABLE_ENTRIES + " (" + COL_EXPIRES_AT + ")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Cache content can always be refetched
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_ENTRIES);
+        onCreate(db);
+    }
+
+    /**
+     * Insert or replace a single row
+     */
+    public void upsert(String type, Entry entry) {
+        getWritableDatabase().insertWithOnConflict(TABLE_ENTRIES, null, toValues(type, entry),
+            SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    /**
+     * Insert or replace many rows in one transaction
+     */
+    public void upsertAll(String type, List<Entry> entries) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (Entry entry : entries) {
+                db.insertWithOnConflict(TABLE_ENTRIES, null, toValues(type, entry), SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Atomically replace every row of a type
+     */
+    public void replaceAll(String type, List<Entry> entries) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(TABLE_ENTRIES, COL_TYPE + " = ?", new String[]{type});
+            for (Entry entry : entries) {
+                db.insertWithOnConflict(TABLE_ENTRIES, null, toValues(type, entry), SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Merge a sync delta in one transaction: replace changed rows, drop deleted ids and renew
+     * the expiry of every row of the type, which the delta has just confirmed as current
+     */
+    public void applyChanges(String type, List<Entry> changed, Collection<String> deletedIds, long expiresAt) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (Entry entry : changed) {
+                db.insertWithOnConflict(TABLE_ENTRIES, null, toValues(type, entry), SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            for (String id : deletedIds) {
+                db.delete(TABLE_ENTRIES, COL_TYPE + " = ? AND " + COL_ID + " = ?", new String[]{type, id});
+            }
+            ContentValues renewed = new ContentValues();
+            renewed.put(COL_EXPIRES_AT, expiresAt);
+            db.update(TABLE_ENTRIES, renewed, COL_TYPE + " = ?", new String[]{type});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public void delete(String type, String id) {
+        getWritableDatabase().delete(TABLE_ENTRIES, COL_TYPE + " = ? AND " + COL_ID + " = ?",
+            new String[]{type, id});
+    }
+
+    public void deleteAll(String type) {
+        getWritableDatabase().delete(TABLE_ENTRIES, COL_TYPE + " = ?", new String[]{type});
+    }
+
+    public void deleteEverything() {
+        getWritableDatabase().delete(TABLE_ENTRIES, null, null);
+    }
+
+    /**
+     * Drop rows of type whose TTL has passed
+     */
+    public int deleteExpired(String type, long now) {
+        return getWritableDatabase().delete(TABLE_ENTRIES, COL_TYPE + " = ? AND " + COL_EXPIRES_AT + " < ?",
+            new String[]{type, String.valueOf(now)});
+    }
+
+    public Entry get(String type, String id, long now) {
+        List<Entry> entries = query(COL_TYPE + " = ? AND " + COL_ID + " = ? AND " + COL_EXPIRES_AT + " >= ?",
+            new String[]{type, id, String.valueOf(now)});
+        return entries.isEmpty() ? null : entries.get(0);
+    }
+
+    public List<Entry> getAll(String type, long now) {
+        return query(COL_TYPE + " = ? AND " + COL_EXPIRES_AT + " >= ?",
+            new String[]{type, String.valueOf(now)});
+    }
+
+    public List<Entry> getByCategory(String type, String category, long now) {
+        return query(COL_TYPE + " = ? AND " + COL_CATEGORY + " = ? AND " + COL_EXPIRES_AT + " >= ?",
+            new String[]{type, category, String.valueOf(now)});
+    }
+
+    public List<Entry> getByStatus(String type, String status, long now) {
+        return query(COL_TYPE + " = ? AND " + COL_STATUS + " = ? AND " + COL_EXPIRES_AT + " >= ?",
+            new String[]{type, status, String.valueOf(now)});
+    }
+
+    public long count(String type, long now) {
+        Cursor cursor = getReadableDatabase().rawQuery(
+            "SELECT COUNT(*) FROM " + TABLE_ENTRIES + " WHERE " + COL_TYPE + " = ? AND " + COL_EXPIRES_AT + " >= ?",
+            new String[]{type, String.valueOf(now)});
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private List<Entry> query(String selection, String[] args) {
+        List<Entry> entries = new ArrayList<>();
+        Cursor cursor = getReadableDatabase().query(TABLE_ENTRIES,
+            new String[]{COL_ID, COL_CATEGORY, COL_STATUS, COL_UPDATED_AT, COL_EXPIRES_AT, COL_JSON},
+            selection, args, null, null, COL_UPDATED_AT + " DESC");
+        try {
+            while (cursor.moveToNext()) {
+                entries.add(new Entry(cursor.getString(0), cursor.getString(1), cursor.getString(2),
+                    cursor.getLong(3), cursor.getLong(4), cursor.getString(5)));
+            }
+        } finally {
+            cursor.close();
+        }
+        return entries;
+    }
+
+    private static ContentValues toValues(String type, Entry entry) {
+        ContentValues values = new ContentValues();
+        values.put(COL_TYPE, type);
+        values.put(COL_ID, entry.id);
+        values.put(COL_CATEGORY, entry.category);
+        values.put(COL_STATUS, entry.status);
+        values.put(COL_UPDATED_AT, entry.updatedAt);
+        values.put(COL_EXPIRES_AT, entry.expiresAt);
+        values.put(COL_JSON, entry.json);
+        return values;
+    }
+}
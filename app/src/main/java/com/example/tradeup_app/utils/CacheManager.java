@@ -7,88 +7,179 @@ import android.util.Log;
 import com.example.tradeup_app.models.Product;
 import com.example.tradeup_app.models.Conversation;
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 
-import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Cache manager to handle offline data and improve app performance
+ * Cache manager to handle offline data and improve app performance.
+ * Products and conversations are stored one row per entity in {@link CacheDatabase};
+ * small per-user values stay in SharedPreferences.
  */
 public class CacheManager {
     private static final String TAG = "CacheManager";
     private static final String CACHE_PREFS = "TradeUpCache";
 
     // Cache keys
-    private static final String KEY_PRODUCTS_CACHE = "products_cache";
-    private static final String KEY_PRODUCTS_CACHE_TIME = "products_cache_time";
-    private static final String KEY_CONVERSATIONS_CACHE = "conversations_cache";
-    private static final String KEY_CONVERSATIONS_CACHE_TIME = "conversations_cache_time";
     private static final String KEY_USER_CACHE = "user_cache_";
     private static final String KEY_USER_CACHE_TIME = "user_cache_time_";
+    // High-water mark of the last delta sync per collection, see SyncManager
+    private static final String KEY_SYNC_WATERMARK = "sync_watermark_";
+
+    // Blob keys from the SharedPreferences-only cache, removed on first use of the new store
+    private static final String LEGACY_KEY_PRODUCTS_CACHE = "products_cache";
+    private static final String LEGACY_KEY_PRODUCTS_CACHE_TIME = "products_cache_time";
+    private static final String LEGACY_KEY_CONVERSATIONS_CACHE = "conversations_cache";
+    private static final String LEGACY_KEY_CONVERSATIONS_CACHE_TIME = "conversations_cache_time";
 
     private final SharedPreferences cachePrefs;
+    private final CacheDatabase cacheDatabase;
     private final Gson gson;
 
     public CacheManager(Context context) {
         this.cachePrefs = context.getSharedPreferences(CACHE_PREFS, Context.MODE_PRIVATE);
+        this.cacheDatabase = CacheDatabase.getInstance(context);
         this.gson = new Gson();
+
+        if (cachePrefs.contains(LEGACY_KEY_PRODUCTS_CACHE) || cachePrefs.contains(LEGACY_KEY_CONVERSATIONS_CACHE)) {
+            cachePrefs.edit()
+                .remove(LEGACY_KEY_PRODUCTS_CACHE)
+                .remove(LEGACY_KEY_PRODUCTS_CACHE_TIME)
+                .remove(LEGACY_KEY_CONVERSATIONS_CACHE)
+                .remove(LEGACY_KEY_CONVERSATIONS_CACHE_TIME)
+                .apply();
+        }
     }
 
     /**
-     * Cache products list
+     * Replace the cached product set with a freshly synced list
      */
     public void cacheProducts(List<Product> products) {
         try {
-            String productsJson = gson.toJson(products);
-            cachePrefs.edit()
-                .putString(KEY_PRODUCTS_CACHE, productsJson)
-                .putLong(KEY_PRODUCTS_CACHE_TIME, System.currentTimeMillis())
-                .apply();
+            cacheDatabase.replaceAll(CacheDatabase.TYPE_PRODUCT, toProductEntries(products, Constants.PRODUCT_CACHE_DURATION));
             Log.d(TAG, "Cached " + products.size() + " products");
         } catch (Exception e) {
             Log.e(TAG, "Error caching products: " + e.getMessage());
         }
     }
 
+    /**
+     * Insert or update products without touching the rest of the cache
+     */
+    public void upsertProducts(List<Product> products) {
+        try {
+            cacheDatabase.upsertAll(CacheDatabase.TYPE_PRODUCT, toProductEntries(products, Constants.PRODUCT_CACHE_DURATION));
+            Log.d(TAG, "Upserted " + products.size() + " products");
+        } catch (Exception e) {
+            Log.e(TAG, "Error upserting products: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Merge a product delta: changed rows are replaced, deleted ones dropped, and the rest of the
+     * cache stays valid for another PRODUCT_CACHE_DURATION
+     */
+    public boolean applyProductChanges(List<Product> changed, java.util.Collection<String> deletedIds) {
+        try {
+            cacheDatabase.applyChanges(CacheDatabase.TYPE_PRODUCT,
+                toProductEntries(changed, Constants.PRODUCT_CACHE_DURATION), deletedIds,
+                System.currentTimeMillis() + Constants.PRODUCT_CACHE_DURATION);
+            Log.d(TAG, "Merged " + changed.size() + " changed and " + deletedIds.size() + " deleted products");
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error merging product changes: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * updatedAt high-water mark of the last sync of collection, 0 when the next sync must be full
+     */
+    public long getSyncWatermark(String collection) {
+        return cachePrefs.getLong(KEY_SYNC_WATERMARK + collection, 0);
+    }
+
+    public void setSyncWatermark(String collection, long watermark) {
+        cachePrefs.edit().putLong(KEY_SYNC_WATERMARK + collection, watermark).apply();
+    }
+
+    /**
+     * Forget the watermark once the cached rows of collection are no longer complete
+     */
+    public void clearSyncWatermark(String collection) {
+        cachePrefs.edit().remove(KEY_SYNC_WATERMARK + collection).apply();
+    }
+
+    /**
+     * Cache a single product with its own time-to-live
+     */
+    public void cacheProduct(Product product, long ttlMillis) {
+        try {
+            cacheDatabase.upsert(CacheDatabase.TYPE_PRODUCT, toProductEntry(product, System.currentTimeMillis() + ttlMillis));
+        } catch (Exception e) {
+            Log.e(TAG, "Error caching product: " + e.getMessage());
+        }
+    }
+
     /**
      * Get cached products if still valid
      */
     public List<Product> getCachedProducts() {
         try {
-            long cacheTime = cachePrefs.getLong(KEY_PRODUCTS_CACHE_TIME, 0);
-            long currentTime = System.currentTimeMillis();
-
-            // Check if cache is still valid (within cache duration)
-            if (currentTime - cacheTime > Constants.PRODUCT_CACHE_DURATION) {
-                Log.d(TAG, "Products cache expired");
+            List<Product> products = toProducts(cacheDatabase.getAll(CacheDatabase.TYPE_PRODUCT, System.currentTimeMillis()));
+            if (products.isEmpty()) {
+                Log.d(TAG, "Products cache empty or expired");
                 return null;
             }
-
-            String productsJson = cachePrefs.getString(KEY_PRODUCTS_CACHE, null);
-            if (productsJson != null) {
-                Type listType = new TypeToken<List<Product>>(){}.getType();
-                List<Product> products = gson.fromJson(productsJson, listType);
-                Log.d(TAG, "Retrieved " + products.size() + " products from cache");
-                return products;
-            }
+            Log.d(TAG, "Retrieved " + products.size() + " products from cache");
+            return products;
         } catch (Exception e) {
             Log.e(TAG, "Error retrieving cached products: " + e.getMessage());
         }
         return null;
     }
 
+    public Product getCachedProduct(String productId) {
+        try {
+            CacheDatabase.Entry entry = cacheDatabase.get(CacheDatabase.TYPE_PRODUCT, productId, System.currentTimeMillis());
+            return entry != null ? gson.fromJson(entry.json, Product.class) : null;
+        } catch (Exception e) {
+            Log.e(TAG, "Error retrieving cached product: " + e.getMessage());
+        }
+        return null;
+    }
+
+    public List<Product> getCachedProductsByCategory(String category) {
+        try {
+            return toProducts(cacheDatabase.getByCategory(CacheDatabase.TYPE_PRODUCT, category, System.currentTimeMillis()));
+        } catch (Exception e) {
+            Log.e(TAG, "Error retrieving cached products by category: " + e.getMessage());
+        }
+        return new ArrayList<>();
+    }
+
+    public List<Product> getCachedProductsByStatus(String status) {
+        try {
+            return toProducts(cacheDatabase.getByStatus(CacheDatabase.TYPE_PRODUCT, status, System.currentTimeMillis()));
+        } catch (Exception e) {
+            Log.e(TAG, "Error retrieving cached products by status: " + e.getMessage());
+        }
+        return new ArrayList<>();
+    }
+
     /**
      * Cache conversations list
      */
     public void cacheConversations(List<Conversation> conversations) {
         try {
-            String conversationsJson = gson.toJson(conversations);
-            cachePrefs.edit()
-                .putString(KEY_CONVERSATIONS_CACHE, conversationsJson)
-                .putLong(KEY_CONVERSATIONS_CACHE_TIME, System.currentTimeMillis())
-                .apply();
+            long expiresAt = System.currentTimeMillis() + Constants.PRODUCT_CACHE_DURATION;
+            List<CacheDatabase.Entry> entries = new ArrayList<>(conversations.size());
+            for (Conversation conversation : conversations) {
+                if (conversation.getId() == null) continue;
+                entries.add(new CacheDatabase.Entry(conversation.getId(), null, null,
+                    conversation.getUpdatedAt(), expiresAt, gson.toJson(conversation)));
+            }
+            cacheDatabase.replaceAll(CacheDatabase.TYPE_CONVERSATION, entries);
             Log.d(TAG, "Cached " + conversations.size() + " conversations");
         } catch (Exception e) {
             Log.e(TAG, "Error caching conversations: " + e.getMessage());
@@ -100,27 +191,47 @@ public class CacheManager {
      */
     public List<Conversation> getCachedConversations() {
         try {
-            long cacheTime = cachePrefs.getLong(KEY_CONVERSATIONS_CACHE_TIME, 0);
-            long currentTime = System.currentTimeMillis();
-
-            if (currentTime - cacheTime > Constants.PRODUCT_CACHE_DURATION) {
-                Log.d(TAG, "Conversations cache expired");
+            List<CacheDatabase.Entry> entries = cacheDatabase.getAll(CacheDatabase.TYPE_CONVERSATION, System.currentTimeMillis());
+            if (entries.isEmpty()) {
+                Log.d(TAG, "Conversations cache empty or expired");
                 return null;
             }
-
-            String conversationsJson = cachePrefs.getString(KEY_CONVERSATIONS_CACHE, null);
-            if (conversationsJson != null) {
-                Type listType = new TypeToken<List<Conversation>>(){}.getType();
-                List<Conversation> conversations = gson.fromJson(conversationsJson, listType);
-                Log.d(TAG, "Retrieved " + conversations.size() + " conversations from cache");
-                return conversations;
+            List<Conversation> conversations = new ArrayList<>(entries.size());
+            for (CacheDatabase.Entry entry : entries) {
+                conversations.add(gson.fromJson(entry.json, Conversation.class));
             }
+            Log.d(TAG, "Retrieved " + conversations.size() + " conversations from cache");
+            return conversations;
         } catch (Exception e) {
             Log.e(TAG, "Error retrieving cached conversations: " + e.getMessage());
         }
         return null;
     }
 
+    private List<CacheDatabase.Entry> toProductEntries(List<Product> products, long ttlMillis) {
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        List<CacheDatabase.Entry> entries = new ArrayList<>(products.size());
+        for (Product product : products) {
+            if (product.getId() != null) {
+                entries.add(toProductEntry(product, expiresAt));
+            }
+        }
+        return entries;
+    }
+
+    private CacheDatabase.Entry toProductEntry(Product product, long expiresAt) {
+        return new CacheDatabase.Entry(product.getId(), product.getCategory(), product.getStatus(),
+            product.getUpdatedAt(), expiresAt, gson.toJson(product));
+    }
+
+    private List<Product> toProducts(List<CacheDatabase.Entry> entries) {
+        List<Product> products = new ArrayList<>(entries.size());
+        for (CacheDatabase.Entry entry : entries) {
+            products.add(gson.fromJson(entry.json, Product.class));
+        }
+        return products;
+    }
+
     /**
      * Cache user data
      */
@@ -166,6 +277,7 @@ public class CacheManager {
     public void clearAllCache() {
         try {
             cachePrefs.edit().clear().apply();
+            cacheDatabase.deleteEverything();
             Log.d(TAG, "All cache cleared");
         } catch (Exception e) {
             Log.e(TAG, "Error clearing cache: " + e.getMessage());
@@ -177,10 +289,8 @@ public class CacheManager {
      */
     public void clearProductsCache() {
         try {
-            cachePrefs.edit()
-                .remove(KEY_PRODUCTS_CACHE)
-                .remove(KEY_PRODUCTS_CACHE_TIME)
-                .apply();
+            cacheDatabase.deleteAll(CacheDatabase.TYPE_PRODUCT);
+            clearSyncWatermark(CacheDatabase.TYPE_PRODUCT);
             Log.d(TAG, "Products cache cleared");
         } catch (Exception e) {
             Log.e(TAG, "Error clearing products cache: " + e.getMessage());
@@ -189,10 +299,7 @@ public class CacheManager {
 
     public void clearConversationsCache() {
         try {
-            cachePrefs.edit()
-                .remove(KEY_CONVERSATIONS_CACHE)
-                .remove(KEY_CONVERSATIONS_CACHE_TIME)
-                .apply();
+            cacheDatabase.deleteAll(CacheDatabase.TYPE_CONVERSATION);
             Log.d(TAG, "Conversations cache cleared");
         } catch (Exception e) {
             Log.e(TAG, "Error clearing conversations cache: " + e.getMessage());
@@ -215,15 +322,11 @@ public class CacheManager {
      * Check if cache exists and is valid
      */
     public boolean isProductsCacheValid() {
-        long cacheTime = cachePrefs.getLong(KEY_PRODUCTS_CACHE_TIME, 0);
-        long currentTime = System.currentTimeMillis();
-        return (currentTime - cacheTime) <= Constants.PRODUCT_CACHE_DURATION;
+        return cacheDatabase.count(CacheDatabase.TYPE_PRODUCT, System.currentTimeMillis()) > 0;
     }
 
     public boolean isConversationsCacheValid() {
-        long cacheTime = cachePrefs.getLong(KEY_CONVERSATIONS_CACHE_TIME, 0);
-        long currentTime = System.currentTimeMillis();
-        return (currentTime - cacheTime) <= Constants.PRODUCT_CACHE_DURATION;
+        return cacheDatabase.count(CacheDatabase.TYPE_CONVERSATION, System.currentTimeMillis()) > 0;
     }
 
     public boolean isUserCacheValid(String userId) {
@@ -236,43 +339,49 @@ public class CacheManager {
      * Get cache size for monitoring
      */
     public int getCacheSize() {
-        return cachePrefs.getAll().size();
+        long now = System.currentTimeMillis();
+        return cachePrefs.getAll().size()
+            + (int) cacheDatabase.count(CacheDatabase.TYPE_PRODUCT, now)
+            + (int) cacheDatabase.count(CacheDatabase.TYPE_CONVERSATION, now);
     }
 
     /**
-     * Update specific product in cache
+     * Drop rows whose time-to-live has passed
      */
-    public void updateProductInCache(Product updatedProduct) {
+    public void pruneExpired() {
         try {
-            List<Product> cachedProducts = getCachedProducts();
-            if (cachedProducts != null) {
-                // Find and update the product
-                for (int i = 0; i < cachedProducts.size(); i++) {
-                    if (cachedProducts.get(i).getId().equals(updatedProduct.getId())) {
-                        cachedProducts.set(i, updatedProduct);
-                        break;
-                    }
-                }
-                // Re-cache the updated list
-                cacheProducts(cachedProducts);
-                Log.d(TAG, "Updated product in cache: " + updatedProduct.getId());
+            long now = System.currentTimeMillis();
+            int products = cacheDatabase.deleteExpired(CacheDatabase.TYPE_PRODUCT, now);
+            if (products > 0) {
+                // Pruned rows would never come back through a delta
+                clearSyncWatermark(CacheDatabase.TYPE_PRODUCT);
             }
+            int conversations = cacheDatabase.deleteExpired(CacheDatabase.TYPE_CONVERSATION, now);
+            Log.d(TAG, "Pruned " + (products + conversations) + " expired cache entries");
+        } catch (Exception e) {
+            Log.e(TAG, "Error pruning cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Update specific product in cache - a single row write
+     */
+    public void updateProductInCache(Product updatedProduct) {
+        try {
+            cacheProduct(updatedProduct, Constants.PRODUCT_CACHE_DURATION);
+            Log.d(TAG, "Updated product in cache: " + updatedProduct.getId());
         } catch (Exception e) {
             Log.e(TAG, "Error updating product in cache: " + e.getMessage());
         }
     }
 
     /**
-     * Remove specific product from cache
+     * Remove specific product from cache - a single row delete
      */
     public void removeProductFromCache(String productId) {
         try {
-            List<Product> cachedProducts = getCachedProducts();
-            if (cachedProducts != null) {
-                cachedProducts.removeIf(product -> product.getId().equals(productId));
-                cacheProducts(cachedProducts);
-                Log.d(TAG, "Removed product from cache: " + productId);
-            }
+            cacheDatabase.delete(CacheDatabase.TYPE_PRODUCT, productId);
+            Log.d(TAG, "Removed product from cache: " + productId);
         } catch (Exception e) {
             Log.e(TAG, "Error removing product from cache: " + e.getMessage());
         }
@@ -0,0 +1,222 @@
+package com.example.tradeup_app.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thread-safe, size-bounded LRU cache of entities keyed by id.
+ * Concurrent requests for a key that is not cached share a single load, and the least
+ * recently used entry is evicted once the cache holds maxEntries values.
+ * Callbacks and eviction notifications run outside the lock.
+ */
+public class EntityCache<V> {
+
+    public interface Loader<V> {
+        void load(String key, LoadCallback<V> callback);
+    }
+
+    public interface LoadCallback<V> {
+        // value is null when the entity does not exist
+        void onLoaded(V value);
+        void onError(String error);
+    }
+
+    public interface EvictionListener {
+        void onEvicted(String key);
+    }
+
+    private final int maxEntries;
+    private final EvictionListener evictionListener;
+    private final LinkedHashMap<String, V> entries;
+    // key -> callbacks waiting on the load currently in flight for it
+    private final Map<String, List<LoadCallback<V>>> pending = new HashMap<>();
+    private final List<String> evicted = new ArrayList<>();
+
+    private long hitCount;
+    private long missCount;
+    private long loadCount;
+    private long evictionCount;
+
+    public EntityCache(int maxEntries) {
+        this(maxEntries, null);
+    }
+
+    public EntityCache(int maxEntries, EvictionListener evictionListener) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.evictionListener = evictionListener;
+        this.entries = new LinkedHashMap<String, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                if (size() > EntityCache.this.maxEntries) {
+                    evicted.add(eldest.getKey());
+                    evictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Return the cached value, or load it. Only the first caller for a missing key triggers the loader;
+     * the others are queued and receive the same result.
+     */
+    public void get(String key, Loader<V> loader, LoadCallback<V> callback) {
+        V cached;
+        boolean startLoad = false;
+        synchronized (this) {
+            cached = entries.get(key);
+            if (cached != null) {
+                hitCount++;
+            } else {
+                missCount++;
+                List<LoadCallback<V>> waiters = pending.get(key);
+                if (waiters == null) {
+                    waiters = new ArrayList<>();
+                    pending.put(key, waiters);
+                    startLoad = true;
+                    loadCount++;
+                }
+                waiters.add(callback);
+            }
+        }
+
+        if (cached != null) {
+            callback.onLoaded(cached);
+            return;
+        }
+        if (startLoad) {
+            loader.load(key, new LoadCallback<V>() {
+                @Override
+                public void onLoaded(V value) {
+                    List<LoadCallback<V>> waiters;
+                    synchronized (EntityCache.this) {
+                        waiters = pending.remove(key);
+                        if (value != null) {
+                            entries.put(key, value);
+                        }
+                    }
+                    notifyEvicted();
+                    if (waiters == null) return;
+                    for (LoadCallback<V> waiter : waiters) {
+                        waiter.onLoaded(value);
+                    }
+                }
+
+                @Override
+                public void onError(String error) {
+                    List<LoadCallback<V>> waiters;
+                    synchronized (EntityCache.this) {
+                        waiters = pending.remove(key);
+                    }
+                    if (waiters == null) return;
+                    for (LoadCallback<V> waiter : waiters) {
+                        waiter.onError(error);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Cached value without loading; does not affect the hit/miss counters
+     */
+    public synchronized V peek(String key) {
+        return entries.get(key);
+    }
+
+    public void put(String key, V value) {
+        if (value == null) {
+            invalidate(key);
+            return;
+        }
+        synchronized (this) {
+            entries.put(key, value);
+        }
+        notifyEvicted();
+    }
+
+    /**
+     * Replace the value only if the key is still cached, e.g. when a listener reports a change
+     */
+    public synchronized boolean refresh(String key, V value) {
+        if (value == null || !entries.containsKey(key)) return false;
+        entries.put(key, value);
+        return true;
+    }
+
+    public void invalidate(String key) {
+        boolean removed;
+        synchronized (this) {
+            removed = entries.remove(key) != null;
+        }
+        if (removed && evictionListener != null) {
+            evictionListener.onEvicted(key);
+        }
+    }
+
+    public void invalidateAll() {
+        List<String> keys;
+        synchronized (this) {
+            keys = new ArrayList<>(entries.keySet());
+            entries.clear();
+        }
+        if (evictionListener != null) {
+            for (String key : keys) {
+                evictionListener.onEvicted(key);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long hitCount() {
+        return hitCount;
+    }
+
+    public synchronized long missCount() {
+        return missCount;
+    }
+
+    public synchronized long loadCount() {
+        return loadCount;
+    }
+
+    public synchronized long evictionCount() {
+        return evictionCount;
+    }
+
+    public synchronized double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 0 : (double) hitCount / requests;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "EntityCache{size=" + entries.size() + "/" + maxEntries
+            + ", hits=" + hitCount + ", misses=" + missCount
+            + ", loads=" + loadCount + ", evictions=" + evictionCount + "}";
+    }
+
+    private void notifyEvicted() {
+        List<String> keys;
+        synchronized (this) {
+            if (evicted.isEmpty()) return;
+            keys = new ArrayList<>(evicted);
+            evicted.clear();
+        }
+        if (evictionListener != null) {
+            for (String key : keys) {
+                evictionListener.onEvicted(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.tradeup_app.utils;
+
+import com.example.tradeup_app.models.Product;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Scoring and bounded top-K bookkeeping for the "featured" rail.
+ *
+ * A listing is worth its weighted engagement, halved every HALF_LIFE_MS of age:
+ *     (1 + engagement) * 2^(-(now - createdAt) / HALF_LIFE)
+ * The score kept here is the log2 of that plus now / HALF_LIFE. The "now" term is the same for
+ * every listing, so ranking by this score is ranking by decayed engagement at any moment, and
+ * a stored score only changes when the listing's counters change, never because time passes.
+ *
+ * A top-K node is a map productId -> score holding at most capacity entries. Entries leave it
+ * only when something better arrives or the listing goes away, so a removal leaves a hole
+ * until the next listing is offered; capacity is kept above what the rail shows for that.
+ */
+public final class FeaturedRanking {
+    public static final double VIEW_WEIGHT = 1;
+    public static final double LIKE_WEIGHT = 5;
+    public static final double INTERACTION_WEIGHT = 3;
+    public static final long HALF_LIFE_MS = 3L * 24 * 60 * 60 * 1000;
+
+    // Highest score first, ties by id so every client ranks the same way
+    private static final Comparator<Map.Entry<String, Double>> BY_SCORE =
+        (a, b) -> {
+            int order = Double.compare(b.getValue(), a.getValue());
+            return order != 0 ? order : a.getKey().compareTo(b.getKey());
+        };
+
+    private FeaturedRanking() {}
+
+    public static double score(int viewCount, int likeCount, int interactionCount, long createdAt) {
+        double engagement = VIEW_WEIGHT * Math.max(0, viewCount)
+            + LIKE_WEIGHT * Math.max(0, likeCount)
+            + INTERACTION_WEIGHT * Math.max(0, interactionCount);
+        return Math.log1p(engagement) / Math.log(2) + (double) createdAt / HALF_LIFE_MS;
+    }
+
+    public static double score(Product product) {
+        return score(product.getViewCount(), product.getLikeCount(), product.getInteractionCount(),
+            product.getCreatedAt());
+    }
+
+    /**
+     * Offer a listing to a top-K node. Returns the new node, or null when it stays as it is:
+     * the score is unchanged or too low to enter a full node.
+     *
+     * @param current the node's plain value, null when it doesn't exist yet
+     */
+    public static Map<String, Object> offer(Map<String, Object> current, String productId,
+                                            double score, int capacity) {
+        Map<String, Double> scores = scores(current);
+        Double previous = scores.get(productId);
+        if (previous != null && previous == score) return null;
+
+        if (previous == null && scores.size() >= capacity) {
+            Map.Entry<String, Double> lowest = Collections.max(scores.entrySet(), BY_SCORE);
+            if (score <= lowest.getValue()) return null;
+            scores.remove(lowest.getKey());
+        }
+        scores.put(productId, score);
+
+        // A node written by a client with another capacity is trimmed back to this one
+        while (scores.size() > capacity) {
+            scores.remove(Collections.max(scores.entrySet(), BY_SCORE).getKey());
+        }
+        return new HashMap<>(scores);
+    }
+
+    /**
+     * The node without productId, or null if it isn't in it
+     */
+    public static Map<String, Object> without(Map<String, Object> current, String productId) {
+        if (current == null || !current.containsKey(productId)) return null;
+        Map<String, Object> next = new HashMap<>(current);
+        next.remove(productId);
+        return next;
+    }
+
+    /**
+     * Product ids of a top-K node, best first
+     */
+    public static List<String> ranked(Map<String, Object> node) {
+        List<Map.Entry<String, Double>> entries = new ArrayList<>(scores(node).entrySet());
+        entries.sort(BY_SCORE);
+        List<String> ids = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Double> entry : entries) {
+            ids.add(entry.getKey());
+        }
+        return ids;
+    }
+
+    /**
+     * The k best products of an already loaded list, best first, with a heap of size k
+     */
+    public static List<Product> top(Collection<Product> products, int k) {
+        if (k <= 0) return new ArrayList<>();
+        Comparator<Product> worstFirst = Comparator.comparingDouble(FeaturedRanking::score);
+        PriorityQueue<Product> heap = new PriorityQueue<>(k, worstFirst);
+        for (Product product : products) {
+            if (heap.size() < k) {
+                heap.add(product);
+            } else if (score(product) > score(heap.peek())) {
+                heap.poll();
+                heap.add(product);
+            }
+        }
+        List<Product> best = new ArrayList<>(heap);
+        best.sort(worstFirst.reversed());
+        return best;
+    }
+
+    // Non-numeric entries are dropped, so a damaged node repairs itself on the next write
+    private static Map<String, Double> scores(Map<String, Object> node) {
+        Map<String, Double> scores = new HashMap<>();
+        if (node == null) return scores;
+        for (Map.Entry<String, Object> entry : node.entrySet()) {
+            if (entry.getValue() instanceof Number) {
+                scores.put(entry.getKey(), ((Number) entry.getValue()).doubleValue());
+            }
+        }
+        return scores;
+    }
+}
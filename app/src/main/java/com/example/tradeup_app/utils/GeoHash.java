@@ -0,0 +1,113 @@
+package com.example.tradeup_app.utils;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Geohash encoding and radius coverage.
+ * A geohash is a base32 string where every extra character narrows the cell, so all points
+ * inside a cell share its string as a prefix and can be fetched with a single range query.
+ */
+public final class GeoHash {
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    // Precision stored on products: ~4.8 m x 4.8 m cells, fine enough for any radius we query
+    public static final int STORED_PRECISION = 9;
+
+    // Approximate cell height/width in km for precision 1..9 (index = precision - 1)
+    private static final double[] CELL_HEIGHT_KM = {5000, 625, 156, 19.5, 4.89, 0.61, 0.153, 0.019, 0.0048};
+    private static final double[] CELL_WIDTH_KM = {5000, 1250, 156, 39.1, 4.89, 1.22, 0.153, 0.038, 0.0048};
+
+    private static final double KM_PER_DEGREE_LAT = 111.32;
+
+    private GeoHash() {
+    }
+
+    public static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int charIndex = 0;
+
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (longitude >= mid) {
+                    charIndex = (charIndex << 1) | 1;
+                    minLon = mid;
+                } else {
+                    charIndex = charIndex << 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    charIndex = (charIndex << 1) | 1;
+                    minLat = mid;
+                } else {
+                    charIndex = charIndex << 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(charIndex));
+                bit = 0;
+                charIndex = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Longest precision whose cells are still at least as large as the radius,
+     * which keeps a radius query to a handful of cells
+     */
+    public static int precisionForRadius(double radiusKm) {
+        for (int precision = CELL_HEIGHT_KM.length; precision > 1; precision--) {
+            if (CELL_HEIGHT_KM[precision - 1] >= radiusKm && CELL_WIDTH_KM[precision - 1] >= radiusKm) {
+                return precision;
+            }
+        }
+        return 1;
+    }
+
+    // Longitude takes the first, third, ... bit, so it gets ceil(5p/2) bits and latitude floor(5p/2)
+    private static double cellWidthDegrees(int precision) {
+        return 360.0 / (1L << ((5 * precision + 1) / 2));
+    }
+
+    private static double cellHeightDegrees(int precision) {
+        return 180.0 / (1L << (5 * precision / 2));
+    }
+
+    /**
+     * Geohash cells at the given precision that together cover the bounding box of the circle
+     */
+    public static Set<String> coveringCells(double latitude, double longitude, double radiusKm, int precision) {
+        double latDelta = radiusKm / KM_PER_DEGREE_LAT;
+        double lonDelta = radiusKm / (KM_PER_DEGREE_LAT * Math.max(Math.cos(Math.toRadians(latitude)), 0.01));
+
+        double minLat = Math.max(-90, latitude - latDelta);
+        double maxLat = Math.min(90, latitude + latDelta);
+        double minLon = Math.max(-180, longitude - lonDelta);
+        double maxLon = Math.min(180, longitude + lonDelta);
+
+        // Step at half a cell so no cell between the corners is skipped
+        double latStep = cellHeightDegrees(precision) / 2;
+        double lonStep = cellWidthDegrees(precision) / 2;
+
+        Set<String> cells = new LinkedHashSet<>();
+        for (double lat = minLat; ; lat = Math.min(lat + latStep, maxLat)) {
+            for (double lon = minLon; ; lon = Math.min(lon + lonStep, maxLon)) {
+                cells.add(encode(lat, lon, precision));
+                if (lon >= maxLon) break;
+            }
+            if (lat >= maxLat) break;
+        }
+        return cells;
+    }
+}
@@ -4,21 +4,29 @@ import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.webkit.MimeTypeMap;
 
 import com.cloudinary.android.MediaManager;
 import com.cloudinary.android.callback.ErrorInfo;
 import com.cloudinary.android.callback.UploadCallback;
+import com.cloudinary.android.policy.UploadPolicy;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class ImageUploadManager {
     private static final String TAG = "ImageUploadManager";
@@ -27,95 +35,153 @@ public class ImageUploadManager {
     private static final String[] ALLOWED_FORMATS = {"image/jpeg", "image/png"};
     private static final String CLOUDINARY_UPLOAD_PRESET = "my_profile_upload"; // Upload preset đúng
 
+    private static final int UPLOAD_CONCURRENCY = 3;
+    private static final int UPLOAD_MAX_ATTEMPTS = 3;
+    private static final long UPLOAD_INITIAL_BACKOFF_MS = 1000;
+    private static final long UPLOAD_MAX_BACKOFF_MS = 8000;
+    private static final long UPLOAD_TIMEOUT_SECONDS = 120;
+    private static final int MAX_REMEMBERED_UPLOADS = 50;
+
+    private static UploadPipeline<Uri, byte[]> uploadPipeline;
+    private static final AtomicInteger uploadSequence = new AtomicInteger();
+    // Uri -> URL of images already uploaded, so publishing again after a failure only sends the rest
+    private static final Map<Uri, String> uploadedImages = Collections.synchronizedMap(
+        new LinkedHashMap<Uri, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Uri, String> eldest) {
+                return size() > MAX_REMEMBERED_UPLOADS;
+            }
+        });
+
     // Đổi tên interface để tránh xung đột với Cloudinary UploadCallback
     public interface ImageUploadCallback {
+        // URLs in the same order as the selected images
         void onSuccess(List<String> imageUrls);
+        // Called once for the whole batch
         void onFailure(Exception e);
+        default void onProgress(int uploaded, int total, int percent) {}
     }
 
-    public static void uploadImages(List<Uri> imageUris, Context context, ImageUploadCallback callback) {
+    /**
+     * Compress and upload the images on a bounded worker pool, retrying failed uploads with backoff.
+     * Callbacks run on the main thread.
+     */
+    public static UploadPipeline.Handle uploadImages(List<Uri> imageUris, Context context, ImageUploadCallback callback) {
         if (imageUris == null || imageUris.isEmpty()) {
             callback.onSuccess(new ArrayList<>());
-            return;
+            return null;
         }
 
-        // Upload images to Cloudinary
-        List<String> uploadedUrls = new ArrayList<>();
-        AtomicInteger uploadCount = new AtomicInteger(0);
-        AtomicInteger totalImages = new AtomicInteger(imageUris.size());
-
+        Context appContext = context.getApplicationContext();
         Log.d(TAG, "Starting Cloudinary upload for " + imageUris.size() + " images");
 
-        for (int i = 0; i < imageUris.size(); i++) {
-            Uri imageUri = imageUris.get(i);
-            final int index = i;
+        return getUploadPipeline().upload(imageUris,
+            uri -> {
+                if (!isValidImageFormat(appContext, uri)) {
+                    throw new IllegalArgumentException("Chỉ hỗ trợ định dạng JPEG và PNG");
+                }
+                return compressImage(appContext, uri);
+            },
+            ImageUploadManager::uploadProductImageBlocking,
+            uploadedImages,
+            new UploadPipeline.Callback() {
+                @Override
+                public void onProgress(int completed, int total, int percent) {
+                    callback.onProgress(completed, total, percent);
+                }
 
-            if (!isValidImageFormat(context, imageUri)) {
-                callback.onFailure(new IllegalArgumentException("Chỉ hỗ trợ định dạng JPEG và PNG"));
-                return;
-            }
+                @Override
+                public void onComplete(List<String> urls) {
+                    Log.d(TAG, "All images uploaded successfully to Cloudinary");
+                    callback.onSuccess(urls);
+                }
 
-            try {
-                // Prepare upload options
-                Map<String, Object> options = new HashMap<>();
-                options.put("upload_preset", CLOUDINARY_UPLOAD_PRESET);
-                options.put("folder", "tradeup/products");
-                options.put("public_id", "product_" + System.currentTimeMillis() + "_" + index);
-                options.put("resource_type", "image");
-
-                Log.d(TAG, "Uploading image " + (index + 1) + "/" + imageUris.size() + " to Cloudinary");
-
-                MediaManager.get().upload(imageUri)
-                    .options(options)
-                    .callback(new UploadCallback() {
-                        @Override
-                        public void onStart(String requestId) {
-                            Log.d(TAG, "Upload started for image " + (index + 1) + " with requestId: " + requestId);
-                        }
+                @Override
+                public void onFailure(int index, Exception e) {
+                    Log.e(TAG, "Upload failed for image " + (index + 1), e);
+                    if (e instanceof IllegalArgumentException) {
+                        callback.onFailure(e);
+                    } else {
+                        callback.onFailure(new Exception("Lỗi upload ảnh " + (index + 1) + ": " + e.getMessage(), e));
+                    }
+                }
+            });
+    }
 
-                        @Override
-                        public void onProgress(String requestId, long bytes, long totalBytes) {
-                            int progress = (int) ((bytes * 100) / totalBytes);
-                            Log.d(TAG, "Upload progress for image " + (index + 1) + ": " + progress + "%");
-                        }
+    private static synchronized UploadPipeline<Uri, byte[]> getUploadPipeline() {
+        if (uploadPipeline == null) {
+            Handler mainHandler = new Handler(Looper.getMainLooper());
+            uploadPipeline = new UploadPipeline<>(UPLOAD_CONCURRENCY, UPLOAD_MAX_ATTEMPTS,
+                UPLOAD_INITIAL_BACKOFF_MS, UPLOAD_MAX_BACKOFF_MS, mainHandler::post);
+        }
+        return uploadPipeline;
+    }
 
-                        @Override
-                        public void onSuccess(String requestId, Map resultData) {
-                            String imageUrl = (String) resultData.get("secure_url");
-                            if (imageUrl != null) {
-                                uploadedUrls.add(imageUrl);
-                                Log.d(TAG, "Successfully uploaded image " + (index + 1) + ": " + imageUrl);
-
-                                // Check if all uploads are complete
-                                if (uploadCount.incrementAndGet() == totalImages.get()) {
-                                    Log.d(TAG, "All images uploaded successfully to Cloudinary");
-                                    callback.onSuccess(uploadedUrls);
-                                }
-                            } else {
-                                Log.e(TAG, "No secure_url in response for image " + (index + 1));
-                                callback.onFailure(new Exception("Không nhận được URL từ Cloudinary cho ảnh " + (index + 1)));
-                            }
-                        }
+    /**
+     * Upload already compressed bytes and wait for Cloudinary's answer. Runs on an upload worker;
+     * Cloudinary's own retries are disabled because the pipeline retries with backoff.
+     */
+    private static String uploadProductImageBlocking(byte[] data, UploadPipeline.ProgressListener progress) throws Exception {
+        Map<String, Object> options = new HashMap<>();
+        options.put("upload_preset", CLOUDINARY_UPLOAD_PRESET);
+        options.put("folder", "tradeup/products");
+        options.put("public_id", "product_" + System.currentTimeMillis() + "_" + uploadSequence.incrementAndGet());
+        options.put("resource_type", "image");
+
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<String> url = new AtomicReference<>();
+        AtomicReference<String> error = new AtomicReference<>();
+
+        String requestId = MediaManager.get().upload(data)
+            .options(options)
+            .policy(new UploadPolicy.Builder().maxRetries(0).build())
+            .callback(new UploadCallback() {
+                @Override
+                public void onStart(String requestId) {
+                    Log.d(TAG, "Upload started with requestId: " + requestId);
+                }
 
-                        @Override
-                        public void onError(String requestId, ErrorInfo error) {
-                            Log.e(TAG, "Upload failed for image " + (index + 1) + ": " + error.getDescription());
-                            callback.onFailure(new Exception("Lỗi upload ảnh " + (index + 1) + ": " + error.getDescription()));
-                        }
+                @Override
+                public void onProgress(String requestId, long bytes, long totalBytes) {
+                    progress.onProgress(bytes, totalBytes);
+                }
 
-                        @Override
-                        public void onReschedule(String requestId, ErrorInfo error) {
-                            Log.w(TAG, "Upload rescheduled for image " + (index + 1) + ": " + error.getDescription());
-                        }
-                    })
-                    .dispatch();
+                @Override
+                public void onSuccess(String requestId, Map resultData) {
+                    String imageUrl = (String) resultData.get("secure_url");
+                    if (imageUrl != null) {
+                        url.set(imageUrl);
+                    } else {
+                        error.set("Không nhận được URL từ Cloudinary");
+                    }
+                    latch.countDown();
+                }
 
-            } catch (Exception e) {
-                Log.e(TAG, "Error setting up upload for image " + (index + 1), e);
-                callback.onFailure(new Exception("Lỗi chuẩn bị upload ảnh " + (index + 1) + ": " + e.getMessage()));
-                return;
-            }
+                @Override
+                public void onError(String requestId, ErrorInfo errorInfo) {
+                    error.set(errorInfo.getDescription());
+                    latch.countDown();
+                }
+
+                @Override
+                public void onReschedule(String requestId, ErrorInfo errorInfo) {
+                    // The pipeline decides about retries
+                    MediaManager.get().cancelRequest(requestId);
+                    error.set(errorInfo.getDescription());
+                    latch.countDown();
+                }
+            })
+            .dispatch();
+
+        if (!latch.await(UPLOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            MediaManager.get().cancelRequest(requestId);
+            throw new IOException("Upload timed out");
+        }
+        if (url.get() == null) {
+            throw new IOException(error.get());
         }
+        Log.d(TAG, "Successfully uploaded image: " + url.get());
+        return url.get();
     }
 
     /**
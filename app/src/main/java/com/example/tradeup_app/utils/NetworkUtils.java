@@ -105,6 +105,25 @@ public class NetworkUtils {
         }
     }
 
+    /**
+     * Gọi onAvailable mỗi khi có mạng trở lại (chạy trên thread của ConnectivityManager)
+     */
+    public static void registerConnectivityCallback(Context context, Runnable onAvailable) {
+        if (context == null) return;
+
+        ConnectivityManager connectivityManager =
+            (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+
+        if (connectivityManager == null) return;
+
+        connectivityManager.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(Network network) {
+                onAvailable.run();
+            }
+        });
+    }
+
     /**
      * Kiểm tra xem có kết nối Mobile Data không
      */
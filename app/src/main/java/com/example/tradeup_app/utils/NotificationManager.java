@@ -4,7 +4,9 @@ import android.content.Context;
 import android.util.Log;
 
 import com.example.tradeup_app.services.NotificationService;
+import com.example.tradeup_app.services.PromotionService;
 import com.example.tradeup_app.services.TokenService;
+import com.google.firebase.messaging.FirebaseMessaging;
 
 public class NotificationManager {
     private static final String TAG = "NotificationManager";
@@ -51,6 +53,11 @@ public class NotificationManager {
                 Log.e(TAG, "Failed to initialize FCM token: " + error);
             }
         });
+
+        // Promotions to everyone are pushed once to the topic instead of to each token
+        FirebaseMessaging.getInstance()
+                .subscribeToTopic(PromotionService.TOPIC_PROMOTIONS)
+                .addOnCompleteListener(task -> Log.d(TAG, "Promotions topic subscription: " + task.isSuccessful()));
     }
 
     /**
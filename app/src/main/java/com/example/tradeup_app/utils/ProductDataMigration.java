@@ -2,6 +2,7 @@ package com.example.tradeup_app.utils;
 
 import android.util.Log;
 import com.example.tradeup_app.firebase.FirebaseManager;
+import com.example.tradeup_app.models.RatingStats;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
@@ -89,4 +90,290 @@ public class ProductDataMigration {
             }
         });
     }
+
+    /**
+     * Write the geohash shard key for products saved before it existed,
+     * so radius queries can find them
+     */
+    public void backfillProductGeohashes() {
+        DatabaseReference productsRef = firebaseManager.getDatabase()
+                .getReference(FirebaseManager.PRODUCTS_NODE);
+
+        productsRef.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot dataSnapshot) {
+                Map<String, Object> updates = new HashMap<>();
+
+                for (DataSnapshot productSnapshot : dataSnapshot.getChildren()) {
+                    Double latitude = productSnapshot.child("latitude").getValue(Double.class);
+                    Double longitude = productSnapshot.child("longitude").getValue(Double.class);
+                    if (latitude == null || longitude == null || latitude == 0 || longitude == 0) {
+                        continue;
+                    }
+
+                    String geohash = GeoHash.encode(latitude, longitude, GeoHash.STORED_PRECISION);
+                    if (!geohash.equals(productSnapshot.child("geohash").getValue(String.class))) {
+                        updates.put(productSnapshot.getKey() + "/geohash", geohash);
+                    }
+                }
+
+                if (updates.isEmpty()) {
+                    Log.d(TAG, "All products already have a geohash");
+                    return;
+                }
+
+                // One multi-path write instead of one request per product
+                productsRef.updateChildren(updates)
+                    .addOnSuccessListener(aVoid ->
+                        Log.d(TAG, "Backfilled geohash for " + updates.size() + " products"))
+                    .addOnFailureListener(e ->
+                        Log.e(TAG, "Geohash backfill failed", e));
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                Log.e(TAG, "Geohash backfill failed", databaseError.toException());
+            }
+        });
+    }
+
+    /**
+     * Build user_conversations entries for conversations created before the index existed
+     */
+    public void backfillUserConversations() {
+        DatabaseReference conversationsRef = firebaseManager.getDatabase()
+                .getReference(FirebaseManager.CONVERSATIONS_NODE);
+
+        conversationsRef.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot dataSnapshot) {
+                Map<String, Object> updates = new HashMap<>();
+
+                for (DataSnapshot conversationSnapshot : dataSnapshot.getChildren()) {
+                    String buyerId = conversationSnapshot.child("buyerId").getValue(String.class);
+                    String sellerId = conversationSnapshot.child("sellerId").getValue(String.class);
+                    Long lastActivity = conversationSnapshot.child("updatedAt").getValue(Long.class);
+                    FirebaseManager.putUserConversationEntries(updates, conversationSnapshot.getKey(),
+                            buyerId, sellerId, lastActivity != null ? lastActivity : 0L);
+                }
+
+                if (updates.isEmpty()) {
+                    Log.d(TAG, "No conversations to index");
+                    return;
+                }
+
+                firebaseManager.getDatabase().getReference().updateChildren(updates)
+                    .addOnSuccessListener(aVoid ->
+                        Log.d(TAG, "Indexed " + dataSnapshot.getChildrenCount() + " conversations"))
+                    .addOnFailureListener(e ->
+                        Log.e(TAG, "Conversation index backfill failed", e));
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                Log.e(TAG, "Conversation index backfill failed", databaseError.toException());
+            }
+        });
+    }
+
+    /**
+     * One-off job: list every transaction in its buyer's and seller's ledger
+     * (user_transactions/<uid>/<transactionId> = createdAt). Ledger entries that still hold a full
+     * copy of the transaction are overwritten, and transactions only found in the legacy
+     * "Transactions" node are copied into the transactions node.
+     */
+    public void backfillUserTransactions() {
+        DatabaseReference root = firebaseManager.getDatabase().getReference();
+
+        root.child(FirebaseManager.TRANSACTIONS_NODE).get().addOnSuccessListener(transactionsSnapshot ->
+            root.child("Transactions").get().addOnSuccessListener(legacySnapshot -> {
+                Map<String, Object> updates = new HashMap<>();
+                int indexed = 0;
+
+                for (DataSnapshot transactionSnapshot : transactionsSnapshot.getChildren()) {
+                    if (putLedgerEntries(updates, transactionSnapshot)) indexed++;
+                }
+                for (DataSnapshot legacyTransaction : legacySnapshot.getChildren()) {
+                    if (transactionsSnapshot.hasChild(legacyTransaction.getKey())) continue;
+                    updates.put(FirebaseManager.TRANSACTIONS_NODE + "/" + legacyTransaction.getKey(),
+                        legacyTransaction.getValue());
+                    if (putLedgerEntries(updates, legacyTransaction)) indexed++;
+                }
+
+                if (updates.isEmpty()) {
+                    Log.d(TAG, "No transactions to index");
+                    return;
+                }
+
+                int total = indexed;
+                root.updateChildren(updates)
+                    .addOnSuccessListener(aVoid -> Log.d(TAG, "Indexed " + total + " transactions"))
+                    .addOnFailureListener(e -> Log.e(TAG, "Transaction ledger backfill failed", e));
+            }).addOnFailureListener(e -> Log.e(TAG, "Transaction ledger backfill failed", e))
+        ).addOnFailureListener(e -> Log.e(TAG, "Transaction ledger backfill failed", e));
+    }
+
+    private static boolean putLedgerEntries(Map<String, Object> updates, DataSnapshot transactionSnapshot) {
+        String buyerId = transactionSnapshot.child("buyerId").getValue(String.class);
+        String sellerId = transactionSnapshot.child("sellerId").getValue(String.class);
+        if (buyerId == null && sellerId == null) return false;
+        Long createdAt = transactionSnapshot.child("createdAt").getValue(Long.class);
+        FirebaseManager.putUserTransactionEntries(updates, transactionSnapshot.getKey(),
+                buyerId, sellerId, createdAt != null ? createdAt : 0L);
+        return true;
+    }
+
+    /**
+     * Rebuild rating_stats/<uid> from the ratings node, for users rated before the aggregates
+     * were maintained. Run it while no ratings are being submitted: each node is overwritten.
+     */
+    public void backfillRatingStats() {
+        DatabaseReference root = firebaseManager.getDatabase().getReference();
+
+        root.child(FirebaseManager.RATINGS_NODE).get().addOnSuccessListener(ratingsSnapshot -> {
+            Map<String, RatingStats> statsByUser = new HashMap<>();
+            for (DataSnapshot ratingSnapshot : ratingsSnapshot.getChildren()) {
+                String ratedUserId = ratingSnapshot.child("ratedUserId").getValue(String.class);
+                Integer stars = ratingSnapshot.child("stars").getValue(Integer.class);
+                if (ratedUserId == null || stars == null || stars < 1 || stars > 5) continue;
+                Long createdAt = ratingSnapshot.child("createdAt").getValue(Long.class);
+
+                RatingStats stats = statsByUser.get(ratedUserId);
+                if (stats == null) {
+                    stats = new RatingStats();
+                    statsByUser.put(ratedUserId, stats);
+                }
+                stats.add(stars, createdAt != null ? createdAt : 0L);
+            }
+
+            if (statsByUser.isEmpty()) {
+                Log.d(TAG, "No ratings to aggregate");
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            Map<String, Object> updates = new HashMap<>();
+            for (Map.Entry<String, RatingStats> entry : statsByUser.entrySet()) {
+                entry.getValue().dropExpiredBuckets(now);
+                updates.put(FirebaseManager.RATING_STATS_NODE + "/" + entry.getKey(), entry.getValue());
+            }
+
+            root.updateChildren(updates)
+                .addOnSuccessListener(aVoid -> Log.d(TAG, "Rebuilt rating stats for " + updates.size() + " users"))
+                .addOnFailureListener(e -> Log.e(TAG, "Rating stats backfill failed", e));
+        }).addOnFailureListener(e -> Log.e(TAG, "Rating stats backfill failed", e));
+    }
+
+    /**
+     * Build the status-partitioned moderation queue (report_queue/<status>/<reportId> = createdAt)
+     * and the report counters from the reports node. The counters are overwritten, so run it
+     * while no reports are being submitted or reviewed.
+     */
+    public void backfillReportQueue() {
+        DatabaseReference root = firebaseManager.getDatabase().getReference();
+
+        root.child(FirebaseManager.REPORTS_NODE).get().addOnSuccessListener(reportsSnapshot -> {
+            Map<String, Object> updates = new HashMap<>();
+            Map<String, Long> statusCounts = new HashMap<>();
+            long total = 0;
+
+            for (DataSnapshot reportSnapshot : reportsSnapshot.getChildren()) {
+                String status = reportSnapshot.child("status").getValue(String.class);
+                if (status == null) status = "PENDING";
+                Long createdAt = reportSnapshot.child("createdAt").getValue(Long.class);
+
+                updates.put(FirebaseManager.reportQueuePath(status, reportSnapshot.getKey()),
+                    createdAt != null ? createdAt : 0L);
+                Long count = statusCounts.get(status);
+                statusCounts.put(status, count != null ? count + 1 : 1);
+                total++;
+            }
+
+            Map<String, Object> stats = new HashMap<>(statusCounts);
+            stats.put("total", total);
+            updates.put(FirebaseManager.REPORT_STATS_NODE, stats);
+
+            long queued = total;
+            root.updateChildren(updates)
+                .addOnSuccessListener(aVoid -> Log.d(TAG, "Queued " + queued + " reports"))
+                .addOnFailureListener(e -> Log.e(TAG, "Report queue backfill failed", e));
+        }).addOnFailureListener(e -> Log.e(TAG, "Report queue backfill failed", e));
+    }
+
+    /**
+     * Write the report dedupe keys (report_keys/<reporterId>_<type>_<itemId> = reportId) for existing
+     * reports. When a user reported an item more than once, the oldest report keeps the key.
+     */
+    public void backfillReportKeys() {
+        DatabaseReference root = firebaseManager.getDatabase().getReference();
+
+        root.child(FirebaseManager.REPORTS_NODE).get().addOnSuccessListener(reportsSnapshot -> {
+            Map<String, DataSnapshot> oldestByKey = new HashMap<>();
+            for (DataSnapshot reportSnapshot : reportsSnapshot.getChildren()) {
+                String dedupeKey = FirebaseManager.reportDedupeKey(
+                    reportSnapshot.child("reporterId").getValue(String.class),
+                    reportSnapshot.child("reportType").getValue(String.class),
+                    reportSnapshot.child("reportedItemId").getValue(String.class));
+                if (dedupeKey == null) continue;
+
+                DataSnapshot current = oldestByKey.get(dedupeKey);
+                if (current == null || createdAtOf(reportSnapshot) < createdAtOf(current)) {
+                    oldestByKey.put(dedupeKey, reportSnapshot);
+                }
+            }
+
+            if (oldestByKey.isEmpty()) {
+                Log.d(TAG, "No reports to index");
+                return;
+            }
+
+            Map<String, Object> updates = new HashMap<>();
+            for (Map.Entry<String, DataSnapshot> entry : oldestByKey.entrySet()) {
+                updates.put(FirebaseManager.REPORT_KEYS_NODE + "/" + entry.getKey(), entry.getValue().getKey());
+            }
+            root.updateChildren(updates)
+                .addOnSuccessListener(aVoid -> Log.d(TAG, "Indexed " + updates.size() + " report keys"))
+                .addOnFailureListener(e -> Log.e(TAG, "Report key backfill failed", e));
+        }).addOnFailureListener(e -> Log.e(TAG, "Report key backfill failed", e));
+    }
+
+    /**
+     * Index existing conversations by their sorted user pair. Where two users already have several
+     * conversations, the first one by key wins, the same one the old full scan returned. Pairs that
+     * are already indexed are left alone.
+     */
+    public void backfillUserPairs() {
+        DatabaseReference root = firebaseManager.getDatabase().getReference();
+
+        root.child(FirebaseManager.USER_PAIRS_NODE).get().addOnSuccessListener(pairsSnapshot -> {
+            root.child(FirebaseManager.CONVERSATIONS_NODE).get().addOnSuccessListener(conversationsSnapshot -> {
+                Map<String, Object> updates = new HashMap<>();
+                for (DataSnapshot conversationSnapshot : conversationsSnapshot.getChildren()) {
+                    String pairKey = FirebaseManager.userPairKey(
+                        conversationSnapshot.child("buyerId").getValue(String.class),
+                        conversationSnapshot.child("sellerId").getValue(String.class));
+                    if (pairKey == null || pairsSnapshot.hasChild(pairKey)) continue;
+
+                    String path = FirebaseManager.USER_PAIRS_NODE + "/" + pairKey;
+                    if (!updates.containsKey(path)) {
+                        updates.put(path, conversationSnapshot.getKey());
+                    }
+                }
+
+                if (updates.isEmpty()) {
+                    Log.d(TAG, "No conversations to index");
+                    return;
+                }
+
+                root.updateChildren(updates)
+                    .addOnSuccessListener(aVoid -> Log.d(TAG, "Indexed " + updates.size() + " user pairs"))
+                    .addOnFailureListener(e -> Log.e(TAG, "User pair backfill failed", e));
+            }).addOnFailureListener(e -> Log.e(TAG, "User pair backfill failed", e));
+        }).addOnFailureListener(e -> Log.e(TAG, "User pair backfill failed", e));
+    }
+
+    private static long createdAtOf(DataSnapshot reportSnapshot) {
+        Long createdAt = reportSnapshot.child("createdAt").getValue(Long.class);
+        return createdAt != null ? createdAt : 0L;
+    }
 }
@@ -0,0 +1,115 @@
+package com.example.tradeup_app.utils;
+
+import com.example.tradeup_app.models.Product;
+import com.example.tradeup_app.services.LocationService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * In-memory spatial index over product coordinates.
+ * Products are bucketed by geohash cell; a radius query only visits the cells covering the
+ * circle and computes each candidate's distance once. Products without coordinates (0, 0) are skipped.
+ */
+public class ProductGeoIndex {
+    // ~4.9 km cells: small enough to prune, large enough that buckets are not mostly empty
+    private static final int CELL_PRECISION = 5;
+    private static final double MAX_SEARCH_RADIUS_KM = 20_000;
+
+    // Sorted by cell so coarser covering cells map to a prefix range of buckets
+    private final TreeMap<String, List<Product>> cells = new TreeMap<>();
+    private int size;
+
+    public static final class Hit {
+        public final Product product;
+        public final double distanceKm;
+
+        Hit(Product product, double distanceKm) {
+            this.product = product;
+            this.distanceKm = distanceKm;
+        }
+    }
+
+    public ProductGeoIndex(Collection<Product> products) {
+        for (Product product : products) {
+            add(product);
+        }
+    }
+
+    public void add(Product product) {
+        if (!hasLocation(product)) return;
+        String cell = GeoHash.encode(product.getLatitude(), product.getLongitude(), CELL_PRECISION);
+        List<Product> bucket = cells.get(cell);
+        if (bucket == null) {
+            bucket = new ArrayList<>();
+            cells.put(cell, bucket);
+        }
+        bucket.add(product);
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Products within radiusKm, nearest first, with their distances
+     */
+    public List<Hit> withinRadius(double latitude, double longitude, double radiusKm) {
+        List<Hit> hits = new ArrayList<>();
+        int precision = Math.min(CELL_PRECISION, GeoHash.precisionForRadius(radiusKm));
+
+        for (String cover : GeoHash.coveringCells(latitude, longitude, radiusKm, precision)) {
+            for (List<Product> bucket : cellsWithPrefix(cover).values()) {
+                for (Product product : bucket) {
+                    double distance = LocationService.calculateDistance(latitude, longitude,
+                        product.getLatitude(), product.getLongitude());
+                    if (distance <= radiusKm) {
+                        hits.add(new Hit(product, distance));
+                    }
+                }
+            }
+        }
+
+        hits.sort((a, b) -> Double.compare(a.distanceKm, b.distanceKm));
+        return hits;
+    }
+
+    /**
+     * The k products closest to the point, nearest first.
+     * The search radius doubles until it holds k products, so only nearby cells are visited.
+     */
+    public List<Hit> nearest(double latitude, double longitude, int k) {
+        if (k <= 0 || size == 0) return new ArrayList<>();
+
+        double radiusKm = 1;
+        List<Hit> hits = withinRadius(latitude, longitude, radiusKm);
+        while (hits.size() < Math.min(k, size) && radiusKm < MAX_SEARCH_RADIUS_KM) {
+            radiusKm *= 2;
+            hits = withinRadius(latitude, longitude, radiusKm);
+        }
+        return hits.size() > k ? new ArrayList<>(hits.subList(0, k)) : hits;
+    }
+
+    /**
+     * Unwrap hits back to products, keeping their order
+     */
+    public static List<Product> products(List<Hit> hits) {
+        List<Product> products = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            products.add(hit.product);
+        }
+        return products;
+    }
+
+    private Map<String, List<Product>> cellsWithPrefix(String prefix) {
+        return cells.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    public static boolean hasLocation(Product product) {
+        return product != null && product.getLatitude() != 0 && product.getLongitude() != 0;
+    }
+}
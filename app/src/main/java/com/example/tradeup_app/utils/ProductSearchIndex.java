@@ -0,0 +1,277 @@
+package com.example.tradeup_app.utils;
+
+import com.example.tradeup_app.models.Product;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over product title, description and tags.
+ * Tokens are lower-cased and Vietnamese diacritics are folded ("Điện thoại" -> "dien", "thoai"),
+ * so queries match with or without accents. Every query word is matched as a token prefix
+ * and all words must match (AND).
+ */
+public class ProductSearchIndex {
+    private static ProductSearchIndex instance;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+
+    // token -> sorted doc numbers of products containing it; sorted map so prefix lookups are a range scan
+    private final TreeMap<String, PostingList> postings = new TreeMap<>();
+    // Each product gets a stable doc number on first insert; numbers are never reused,
+    // so new documents always append to the end of a posting list
+    private final Map<String, Integer> docById = new HashMap<>();
+    private final List<Product> productByDoc = new ArrayList<>();
+    // doc number -> tokens indexed for that product, needed to update or remove it incrementally
+    private final List<Set<String>> tokensByDoc = new ArrayList<>();
+    private volatile boolean ready = false;
+
+    public static synchronized ProductSearchIndex getInstance() {
+        if (instance == null) {
+            instance = new ProductSearchIndex();
+        }
+        return instance;
+    }
+
+    /**
+     * True once the index holds the complete product set and can answer searches on its own
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void setReady(boolean ready) {
+        this.ready = ready;
+    }
+
+    /**
+     * Replace the whole index content
+     */
+    public synchronized void rebuild(Collection<Product> products) {
+        postings.clear();
+        docById.clear();
+        productByDoc.clear();
+        tokensByDoc.clear();
+        for (Product product : products) {
+            addOrUpdate(product);
+        }
+    }
+
+    /**
+     * Index a new product or re-index a changed one
+     */
+    public synchronized void addOrUpdate(Product product) {
+        if (product == null || product.getId() == null) return;
+
+        Set<String> newTokens = tokensOf(product);
+        Integer existingDoc = docById.get(product.getId());
+        int doc;
+        Set<String> oldTokens = null;
+
+        if (existingDoc == null) {
+            doc = productByDoc.size();
+            docById.put(product.getId(), doc);
+            productByDoc.add(product);
+            tokensByDoc.add(newTokens);
+        } else {
+            doc = existingDoc;
+            oldTokens = tokensByDoc.get(doc);
+            productByDoc.set(doc, product);
+            tokensByDoc.set(doc, newTokens);
+            for (String token : oldTokens) {
+                if (!newTokens.contains(token)) {
+                    removePosting(token, doc);
+                }
+            }
+        }
+
+        for (String token : newTokens) {
+            if (oldTokens == null || !oldTokens.contains(token)) {
+                PostingList list = postings.get(token);
+                if (list == null) {
+                    list = new PostingList();
+                    postings.put(token, list);
+                }
+                list.add(doc);
+            }
+        }
+    }
+
+    public synchronized void remove(String productId) {
+        Integer doc = docById.remove(productId);
+        if (doc == null) return;
+
+        for (String token : tokensByDoc.get(doc)) {
+            removePosting(token, doc);
+        }
+        productByDoc.set(doc, null);
+        tokensByDoc.set(doc, Collections.emptySet());
+    }
+
+    public synchronized int size() {
+        return docById.size();
+    }
+
+    public synchronized Product get(String productId) {
+        Integer doc = docById.get(productId);
+        return doc != null ? productByDoc.get(doc) : null;
+    }
+
+    /**
+     * Ids of products matching every word of the query. An empty query matches everything.
+     */
+    public synchronized Set<String> searchIds(String query) {
+        Set<String> ids = new HashSet<>();
+        BitSet docs = matchingDocs(query);
+        for (int doc = docs.nextSetBit(0); doc >= 0; doc = docs.nextSetBit(doc + 1)) {
+            ids.add(productByDoc.get(doc).getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Products matching every word of the query, in no particular order
+     */
+    public synchronized List<Product> search(String query) {
+        BitSet docs = matchingDocs(query);
+        List<Product> results = new ArrayList<>(docs.cardinality());
+        for (int doc = docs.nextSetBit(0); doc >= 0; doc = docs.nextSetBit(doc + 1)) {
+            results.add(productByDoc.get(doc));
+        }
+        return results;
+    }
+
+    private BitSet matchingDocs(String query) {
+        List<String> queryTokens = tokenize(query);
+        BitSet result = null;
+
+        if (queryTokens.isEmpty()) {
+            result = new BitSet(productByDoc.size());
+            for (int doc = 0; doc < productByDoc.size(); doc++) {
+                if (productByDoc.get(doc) != null) {
+                    result.set(doc);
+                }
+            }
+            return result;
+        }
+
+        // Union the posting lists of every token starting with the query word, AND across words
+        for (String queryToken : queryTokens) {
+            BitSet wordDocs = new BitSet(productByDoc.size());
+            for (PostingList list : postings.subMap(queryToken, true, queryToken + Character.MAX_VALUE, false).values()) {
+                list.addTo(wordDocs);
+            }
+            if (result == null) {
+                result = wordDocs;
+            } else {
+                result.and(wordDocs);
+            }
+            if (result.isEmpty()) break;
+        }
+        return result;
+    }
+
+    private void removePosting(String token, int doc) {
+        PostingList list = postings.get(token);
+        if (list != null) {
+            list.remove(doc);
+            if (list.size == 0) {
+                postings.remove(token);
+            }
+        }
+    }
+
+    /**
+     * Sorted, growable array of doc numbers
+     */
+    private static final class PostingList {
+        private int[] docs = new int[4];
+        private int size;
+
+        void add(int doc) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            if (size == 0 || docs[size - 1] < doc) {
+                docs[size++] = doc;
+                return;
+            }
+            int position = Arrays.binarySearch(docs, 0, size, doc);
+            if (position >= 0) return;
+            position = -position - 1;
+            System.arraycopy(docs, position, docs, position + 1, size - position);
+            docs[position] = doc;
+            size++;
+        }
+
+        void remove(int doc) {
+            int position = Arrays.binarySearch(docs, 0, size, doc);
+            if (position < 0) return;
+            System.arraycopy(docs, position + 1, docs, position, size - position - 1);
+            size--;
+        }
+
+        void addTo(BitSet bits) {
+            for (int i = 0; i < size; i++) {
+                bits.set(docs[i]);
+            }
+        }
+    }
+
+    private static Set<String> tokensOf(Product product) {
+        Set<String> tokens = new HashSet<>();
+        tokens.addAll(tokenize(product.getTitle()));
+        tokens.addAll(tokenize(product.getDescription()));
+        if (product.getTags() != null) {
+            for (String tag : product.getTags()) {
+                tokens.addAll(tokenize(tag));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Lower-case, strip Vietnamese diacritics and map đ to d
+     */
+    public static String normalize(String text) {
+        if (text == null) return "";
+        String lower = text.toLowerCase().replace('đ', 'd');
+        if (isAscii(lower)) return lower;
+        String decomposed = Normalizer.normalize(lower, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("");
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 127) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Split text into normalized words, keeping their first-seen order
+     */
+    public static List<String> tokenize(String text) {
+        String normalized = normalize(text);
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : NON_ALPHANUMERIC.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.tradeup_app.utils;
+
+import com.example.tradeup_app.models.Product;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The filter tuple of one product search: text, category, condition, price range and sort order.
+ *
+ * Text is compared as ProductSearchIndex tokens, so "iPhone " and "iphone" are the same query.
+ * A query refines another when everything it matches is also matched by the other one, e.g. a
+ * longer prefix or a narrower price range; its results can then be filtered from the other's.
+ */
+public final class SearchQuery {
+    private static final String ANY = "Tất cả";
+
+    private final String text;
+    private final List<String> tokens;
+    private final String category;
+    private final String condition;
+    private final double minPrice;
+    private final double maxPrice;
+    private final String sortBy;
+
+    /**
+     * @param category  null, empty or "Tất cả" for any category
+     * @param condition null, empty or "Tất cả" for any condition
+     * @param minPrice  0 for no lower bound
+     * @param maxPrice  0 for no upper bound
+     * @param sortBy    "price_asc", "price_desc", "date" or null for relevance
+     */
+    public SearchQuery(String text, String category, String condition,
+                       double minPrice, double maxPrice, String sortBy) {
+        this.text = text != null ? text.trim() : "";
+        this.tokens = ProductSearchIndex.tokenize(this.text);
+        this.category = anyToNull(category);
+        this.condition = anyToNull(condition);
+        this.minPrice = Math.max(0, minPrice);
+        this.maxPrice = Math.max(0, maxPrice);
+        this.sortBy = sortBy;
+    }
+
+    private static String anyToNull(String value) {
+        return value == null || value.isEmpty() || ANY.equals(value) ? null : value;
+    }
+
+    public String getText() { return text; }
+    public String getCategory() { return category; }
+    public String getCondition() { return condition; }
+    public double getMinPrice() { return minPrice; }
+    public double getMaxPrice() { return maxPrice; }
+    public String getSortBy() { return sortBy; }
+
+    /**
+     * Whether the product passes this query, with the same rules as the search index:
+     * every query word is a prefix of a word in the title, description or tags
+     */
+    public boolean matches(Product product) {
+        if (category != null && !category.equals(product.getCategory())) return false;
+        if (condition != null && !condition.equals(product.getCondition())) return false;
+        if (minPrice > 0 && maxPrice > 0 && minPrice > maxPrice) return false;
+        if (minPrice > 0 && product.getPrice() < minPrice) return false;
+        if (maxPrice > 0 && product.getPrice() > maxPrice) return false;
+        if (tokens.isEmpty()) return true;
+
+        List<String> titleTokens = ProductSearchIndex.tokenize(product.getTitle());
+        List<String> descriptionTokens = ProductSearchIndex.tokenize(product.getDescription());
+        for (String token : tokens) {
+            if (!hasPrefix(titleTokens, token) && !hasPrefix(descriptionTokens, token)
+                    && !tagsHavePrefix(product, token)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasPrefix(List<String> words, String prefix) {
+        for (String word : words) {
+            if (word.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    private static boolean tagsHavePrefix(Product product, String prefix) {
+        if (product.getTags() == null) return false;
+        for (String tag : product.getTags()) {
+            if (hasPrefix(ProductSearchIndex.tokenize(tag), prefix)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * True when every product matching this query also matches previous, so this query's
+     * results are previous's results filtered with matches(). The sort order may differ.
+     */
+    public boolean refines(SearchQuery previous) {
+        if (previous.category != null && !previous.category.equals(category)) return false;
+        if (previous.condition != null && !previous.condition.equals(condition)) return false;
+        if (previous.minPrice > 0 && minPrice < previous.minPrice) return false;
+        if (previous.maxPrice > 0 && (maxPrice == 0 || maxPrice > previous.maxPrice)) return false;
+        // Each earlier word must be a prefix of a word here: "ip" -> "iphone", "iphone" -> "iphone 13"
+        for (String token : previous.tokens) {
+            if (!hasPrefix(tokens, token)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sort search results in place by sortBy; null keeps the given order
+     */
+    public static void sort(List<Product> results, String sortBy) {
+        if (sortBy == null) return;
+        switch (sortBy) {
+            case "price_asc":
+                results.sort((a, b) -> Double.compare(a.getPrice(), b.getPrice()));
+                break;
+            case "price_desc":
+                results.sort((a, b) -> Double.compare(b.getPrice(), a.getPrice()));
+                break;
+            case "date":
+                results.sort((a, b) -> Long.compare(b.getCreatedAt(), a.getCreatedAt()));
+                break;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SearchQuery)) return false;
+        SearchQuery other = (SearchQuery) o;
+        return Double.compare(minPrice, other.minPrice) == 0
+            && Double.compare(maxPrice, other.maxPrice) == 0
+            && tokens.equals(other.tokens)
+            && Objects.equals(category, other.category)
+            && Objects.equals(condition, other.condition)
+            && Objects.equals(sortBy, other.sortBy);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tokens, category, condition, minPrice, maxPrice, sortBy);
+    }
+
+    @Override
+    public String toString() {
+        return "SearchQuery{'" + text + "', category=" + category + ", condition=" + condition
+            + ", price=" + minPrice + ".." + maxPrice + ", sortBy=" + sortBy + "}";
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.tradeup_app.utils;
+
+import com.example.tradeup_app.models.Product;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Small LRU of recent search results keyed by SearchQuery.
+ *
+ * get() answers an identical filter tuple from its entry, and a refinement of a cached query
+ * (longer prefix, narrower filters) by filtering the smallest cached superset locally.
+ * Only results that follow SearchQuery.matches() semantics may be refined, so put() takes a
+ * refinable flag; other results are still served for identical queries. Entries expire after
+ * ttlMs because products change under them.
+ */
+public class SearchResultCache {
+
+    private static class Entry {
+        final List<Product> results;
+        final boolean refinable;
+        final long storedAt;
+
+        Entry(List<Product> results, boolean refinable, long storedAt) {
+            this.results = results;
+            this.refinable = refinable;
+            this.storedAt = storedAt;
+        }
+    }
+
+    private final int capacity;
+    private final long ttlMs;
+    // Least recently used first
+    private final LinkedHashMap<SearchQuery, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    public SearchResultCache(int capacity, long ttlMs) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Cached or locally refined results for query, or null when it has to be fetched
+     */
+    public synchronized List<Product> get(SearchQuery query, long now) {
+        evictExpired(now);
+
+        Entry exact = entries.get(query);
+        if (exact != null) {
+            return new ArrayList<>(exact.results);
+        }
+
+        SearchQuery bestQuery = null;
+        Entry best = null;
+        for (Map.Entry<SearchQuery, Entry> candidate : entries.entrySet()) {
+            Entry entry = candidate.getValue();
+            // A relevance-ordered query can't be rebuilt from a re-sorted superset
+            boolean orderUsable = query.getSortBy() != null || candidate.getKey().getSortBy() == null;
+            if (entry.refinable && orderUsable && query.refines(candidate.getKey())
+                    && (best == null || entry.results.size() < best.results.size())) {
+                bestQuery = candidate.getKey();
+                best = entry;
+            }
+        }
+        if (best == null) return null;
+
+        List<Product> refined = new ArrayList<>();
+        for (Product product : best.results) {
+            if (query.matches(product)) {
+                refined.add(product);
+            }
+        }
+        if (!java.util.Objects.equals(query.getSortBy(), bestQuery.getSortBy())) {
+            SearchQuery.sort(refined, query.getSortBy());
+        }
+        // Keep the superset's age so the refinement expires with the data it came from
+        store(query, new Entry(Collections.unmodifiableList(new ArrayList<>(refined)), true, best.storedAt));
+        return refined;
+    }
+
+    public synchronized void put(SearchQuery query, List<Product> results, boolean refinable, long now) {
+        store(query, new Entry(Collections.unmodifiableList(new ArrayList<>(results)), refinable, now));
+    }
+
+    /**
+     * Drop everything, e.g. after the user changed a product
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void store(SearchQuery query, Entry entry) {
+        entries.put(query, entry);
+        if (entries.size() > capacity) {
+            Iterator<SearchQuery> eldest = entries.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (now - it.next().storedAt >= ttlMs) {
+                it.remove();
+            }
+        }
+    }
+}
@@ -3,11 +3,19 @@ package com.example.tradeup_app.utils;
 import android.content.Context;
 import android.util.Log;
 
+import com.example.tradeup_app.data.mapping.ModelMappers;
 import com.example.tradeup_app.firebase.FirebaseManager;
+import com.example.tradeup_app.firebase.SnapshotDecoder;
 import com.example.tradeup_app.models.Product;
 import com.example.tradeup_app.models.Conversation;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.DataSnapshot;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -16,8 +24,15 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class SyncManager {
     private static final String TAG = "SyncManager";
 
+    // updatedAt is server time, compared with this device's clock; every delta re-reads this
+    // window below the mark to absorb the difference
+    private static final long WATERMARK_OVERLAP_MS = 5 * 60 * 1000;
+    // A mark older than this is resynced in full, so tombstones need only be kept this long
+    private static final long MAX_DELTA_AGE_MS = 7L * 24 * 60 * 60 * 1000;
+
     private final FirebaseManager firebaseManager;
     private final CacheManager cacheManager;
+    private final ProductSearchIndex searchIndex = ProductSearchIndex.getInstance();
     private final Context context; // Store context instead of NetworkUtils instance
     private final AtomicBoolean isSyncing = new AtomicBoolean(false);
 
@@ -34,7 +49,9 @@ public class SyncManager {
     }
 
     /**
-     * Sync products data with Firebase
+     * Sync products data with Firebase.
+     * With a recent watermark only products changed since then and new tombstones are
+     * downloaded and merged into the cache; otherwise the whole list is fetched again.
      */
     public void syncProducts(SyncCallback callback) {
         if (!NetworkUtils.isNetworkAvailable(context)) {
@@ -44,27 +61,55 @@ public class SyncManager {
             return;
         }
 
-        if (isSyncing.get()) {
-            Log.d(TAG, "Sync already in progress");
+        // Rows written before updatedAt was set by the server carry client clocks: the mark never
+        // passes the time this sync started, or one device with a fast clock would hide later changes
+        long syncStartedAt = System.currentTimeMillis();
+        long watermark = Math.min(cacheManager.getSyncWatermark(CacheDatabase.TYPE_PRODUCT), syncStartedAt);
+        boolean canDelta = watermark > 0 && syncStartedAt - watermark < MAX_DELTA_AGE_MS;
+        boolean hasCache = cacheManager.isProductsCacheValid();
+
+        // A full resync only replaces a usable cache when the connection is cheap
+        if (!canDelta && hasCache && !isGoodTimeForLargeSync()) {
+            Log.d(TAG, "Full product resync postponed until Wi-Fi");
+            if (callback != null) callback.onSyncError("Đồng bộ đầy đủ sẽ chạy khi có Wi-Fi");
             return;
         }
 
-        isSyncing.set(true);
+        if (!isSyncing.compareAndSet(false, true)) {
+            Log.d(TAG, "Sync already in progress");
+            return;
+        }
         if (callback != null) callback.onSyncStarted();
 
+        if (canDelta) {
+            syncProductChanges(watermark, syncStartedAt, callback);
+        } else {
+            syncAllProducts(syncStartedAt, callback);
+        }
+    }
+
+    private void syncAllProducts(long syncStartedAt, SyncCallback callback) {
         firebaseManager.getProducts(new FirebaseManager.ProductCallback() {
             @Override
             public void onProductsLoaded(List<Product> products) {
                 try {
-                    // Cache the fresh data
-                    cacheManager.cacheProducts(products);
-
                     // Apply data validation and sanitization
+                    long newWatermark = 0;
                     for (Product product : products) {
                         sanitizeProduct(product);
+                        newWatermark = Math.max(newWatermark, product.getUpdatedAt());
                     }
 
-                    Log.d(TAG, "Products synced successfully: " + products.size() + " items");
+                    // Cache the fresh data
+                    cacheManager.cacheProducts(products);
+                    cacheManager.setSyncWatermark(CacheDatabase.TYPE_PRODUCT,
+                        newWatermark > 0 ? Math.min(newWatermark, syncStartedAt) : syncStartedAt);
+                    searchIndex.rebuild(products);
+                    searchIndex.setReady(true);
+                    // Every product row was just renewed, so only stale rows of other types go
+                    cacheManager.pruneExpired();
+
+                    Log.d(TAG, "Products synced in full: " + products.size() + " items");
                     isSyncing.set(false);
                     if (callback != null) callback.onSyncCompleted(true);
 
@@ -84,6 +129,107 @@ public class SyncManager {
         });
     }
 
+    private void syncProductChanges(long watermark, long syncStartedAt, SyncCallback callback) {
+        long since = watermark - WATERMARK_OVERLAP_MS;
+        Task<DataSnapshot> changedTask = firebaseManager.getDatabase()
+            .getReference(FirebaseManager.PRODUCTS_NODE)
+            .orderByChild("updatedAt").startAfter(since)
+            .get();
+        Task<DataSnapshot> deletedTask = firebaseManager.getDatabase()
+            .getReference(FirebaseManager.PRODUCT_TOMBSTONES_NODE)
+            .orderByValue().startAfter(since)
+            .get();
+
+        Tasks.whenAllSuccess(changedTask, deletedTask)
+            .addOnSuccessListener(results -> SnapshotDecoder.submit(
+                () -> decodeProductChanges(changedTask.getResult(), deletedTask.getResult(), watermark),
+                delta -> {
+                    try {
+                        if (!cacheManager.applyProductChanges(delta.changed, delta.deletedIds)) {
+                            // Keep the old mark, the next sync fetches the same delta again
+                            isSyncing.set(false);
+                            if (callback != null) callback.onSyncError("Lỗi lưu dữ liệu đồng bộ");
+                            return;
+                        }
+                        cacheManager.setSyncWatermark(CacheDatabase.TYPE_PRODUCT,
+                            Math.min(delta.watermark, syncStartedAt));
+                        updateSearchIndex(delta.changed, delta.deletedIds);
+                        cacheManager.pruneExpired();
+
+                        Log.d(TAG, "Products delta synced: " + delta.changed.size() + " changed, "
+                            + delta.deletedIds.size() + " deleted since " + since);
+                        isSyncing.set(false);
+                        if (callback != null) callback.onSyncCompleted(true);
+
+                    } catch (Exception e) {
+                        Log.e(TAG, "Error processing product changes: " + e.getMessage());
+                        isSyncing.set(false);
+                        if (callback != null) callback.onSyncError("Lỗi xử lý dữ liệu: " + e.getMessage());
+                    }
+                },
+                e -> {
+                    isSyncing.set(false);
+                    if (callback != null) callback.onSyncError("Lỗi xử lý dữ liệu: " + e.getMessage());
+                }))
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error syncing product changes: " + e.getMessage());
+                isSyncing.set(false);
+                if (callback != null) callback.onSyncError("Lỗi đồng bộ: " + e.getMessage());
+            });
+    }
+
+    // Decoded on the SnapshotDecoder thread, applied to the cache on the main thread
+    private static class ProductDelta {
+        final List<Product> changed = new ArrayList<>();
+        final Set<String> deletedIds = new HashSet<>();
+        long watermark;
+    }
+
+    private ProductDelta decodeProductChanges(DataSnapshot changedSnapshot, DataSnapshot deletedSnapshot,
+                                              long watermark) {
+        ProductDelta delta = new ProductDelta();
+        delta.watermark = watermark;
+
+        for (DataSnapshot tombstone : deletedSnapshot.getChildren()) {
+            delta.deletedIds.add(tombstone.getKey());
+            Long deletedAt = tombstone.getValue(Long.class);
+            if (deletedAt != null) delta.watermark = Math.max(delta.watermark, deletedAt);
+        }
+
+        for (Product product : SnapshotDecoder.decodeChildren(changedSnapshot, ModelMappers.PRODUCT)) {
+            if (delta.deletedIds.contains(product.getId())) continue;
+            sanitizeProduct(product);
+            delta.changed.add(product);
+            delta.watermark = Math.max(delta.watermark, product.getUpdatedAt());
+        }
+        return delta;
+    }
+
+    /**
+     * Bring the product cache and the search index up to date. The index is built from the
+     * cached rows and then follows the watermark deltas; it never listens to the products node.
+     */
+    public void syncSearchIndex() {
+        syncProducts(null);
+    }
+
+    private void updateSearchIndex(List<Product> changed, Set<String> deletedIds) {
+        if (!searchIndex.isReady()) {
+            // The delta just renewed every cached row, so the cache is the complete product set
+            List<Product> cached = cacheManager.getCachedProducts();
+            searchIndex.rebuild(cached != null ? cached : new ArrayList<>());
+            searchIndex.setReady(true);
+            Log.d(TAG, "Search index loaded from cache: " + searchIndex.size() + " products");
+            return;
+        }
+        for (Product product : changed) {
+            searchIndex.addOrUpdate(product);
+        }
+        for (String productId : deletedIds) {
+            searchIndex.remove(productId);
+        }
+    }
+
     /**
      * Sync conversations data with Firebase
      */
@@ -229,7 +375,7 @@ public class SyncManager {
     }
 
     /**
-     * Force refresh data from Firebase
+     * Force refresh data from Firebase (a delta for products when the watermark allows it)
      */
     public void forceRefresh(String userId, SyncCallback callback) {
         if (!NetworkUtils.isNetworkAvailable(context)) {
@@ -239,10 +385,8 @@ public class SyncManager {
             return;
         }
 
-        // Clear cache first
-        cacheManager.clearAllCache();
-
-        // Sync products and conversations
+        // Sync products and conversations. The product cache is kept: only changes since the
+        // last sync are merged into it, the conversation list is replaced as before
         syncProducts(new SyncCallback() {
             @Override
             public void onSyncStarted() {
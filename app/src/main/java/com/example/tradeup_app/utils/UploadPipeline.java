@@ -0,0 +1,241 @@
+package com.example.tradeup_app.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Uploads a batch of items on a bounded worker pool.
+ * Each item is prepared once (e.g. decoded and compressed) and then uploaded; a failed upload is
+ * retried with exponential backoff without holding a worker while it waits. Results keep the
+ * order of the input list no matter which upload finishes first, progress is reported for the
+ * batch as a whole, and the callback receives exactly one terminal event: onComplete with every
+ * URL, or onFailure for the first item that could not be uploaded, after which the rest of the
+ * batch is cancelled.
+ *
+ * Plain Java so it can be exercised on the JVM with a stand-in uploader.
+ */
+public class UploadPipeline<I, P> {
+
+    public interface Preparer<I, P> {
+        // Runs on a worker thread; a failure here is not retried
+        P prepare(I item) throws Exception;
+    }
+
+    public interface Uploader<P> {
+        // Blocking upload on a worker thread, returns the URL of the stored file
+        String upload(P payload, ProgressListener progress) throws Exception;
+    }
+
+    public interface ProgressListener {
+        void onProgress(long bytes, long totalBytes);
+    }
+
+    public interface Callback {
+        // completed items and overall percent; only sent when the percent changes
+        void onProgress(int completed, int total, int percent);
+        void onComplete(List<String> urls);
+        void onFailure(int index, Exception e);
+    }
+
+    /**
+     * Running batch, so the caller can give up on it (e.g. when the screen is closed)
+     */
+    public interface Handle {
+        void cancel();
+        boolean isDone();
+    }
+
+    private final ScheduledExecutorService workers;
+    private final Executor callbackExecutor;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    /**
+     * @param concurrency      uploads running at the same time
+     * @param maxAttempts      tries per item, including the first
+     * @param initialBackoffMs wait before the first retry; doubled for each further retry
+     * @param callbackExecutor where Callback methods run, e.g. the main thread
+     */
+    public UploadPipeline(int concurrency, int maxAttempts, long initialBackoffMs, long maxBackoffMs,
+                          Executor callbackExecutor) {
+        if (concurrency <= 0 || maxAttempts <= 0) {
+            throw new IllegalArgumentException("concurrency and maxAttempts must be positive");
+        }
+        ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "upload-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.setRemoveOnCancelPolicy(true);
+        this.workers = pool;
+        this.callbackExecutor = callbackExecutor;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    /**
+     * Upload every item. Items found in completed are not uploaded again and every successful
+     * upload is recorded there, so a batch that failed can be resumed by passing the same map.
+     *
+     * @param completed thread-safe map from item to URL, or null
+     */
+    public Handle upload(List<I> items, Preparer<I, P> preparer, Uploader<P> uploader,
+                         Map<I, String> completed, Callback callback) {
+        Batch batch = new Batch(new ArrayList<>(items), preparer, uploader, completed, callback);
+        batch.start();
+        return batch;
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    long backoffMs(int attempt) {
+        // attempt is the number of tries already made, starting at 1
+        long delay = initialBackoffMs << Math.min(attempt - 1, 20);
+        return Math.min(delay, maxBackoffMs);
+    }
+
+    private class Batch implements Handle {
+        private final List<I> items;
+        private final Preparer<I, P> preparer;
+        private final Uploader<P> uploader;
+        private final Map<I, String> completed;
+        private final Callback callback;
+
+        private final String[] urls;
+        // Per-item progress in 0..1000, so the batch percent is their average. A retry keeps the
+        // progress already reached, so the reported percent never goes back.
+        private final int[] itemProgress;
+        private final AtomicInteger done = new AtomicInteger();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private int lastPercent = -1;
+
+        Batch(List<I> items, Preparer<I, P> preparer, Uploader<P> uploader,
+              Map<I, String> completed, Callback callback) {
+            this.items = items;
+            this.preparer = preparer;
+            this.uploader = uploader;
+            this.completed = completed;
+            this.callback = callback;
+            this.urls = new String[items.size()];
+            this.itemProgress = new int[items.size()];
+        }
+
+        void start() {
+            if (items.isEmpty()) {
+                finishSuccess();
+                return;
+            }
+            for (int i = 0; i < items.size(); i++) {
+                String previous = completed != null ? completed.get(items.get(i)) : null;
+                if (previous != null) {
+                    itemSucceeded(i, previous);
+                } else {
+                    final int index = i;
+                    workers.execute(() -> prepareAndUpload(index));
+                }
+            }
+        }
+
+        private void prepareAndUpload(int index) {
+            if (finished.get()) return;
+            P payload;
+            try {
+                payload = preparer.prepare(items.get(index));
+            } catch (Exception e) {
+                finishFailure(index, e);
+                return;
+            }
+            attempt(index, payload, 1);
+        }
+
+        private void attempt(int index, P payload, int attempt) {
+            if (finished.get()) return;
+            try {
+                String url = uploader.upload(payload, (bytes, totalBytes) -> {
+                    if (totalBytes > 0) {
+                        updateProgress(index, (int) Math.min(999, bytes * 1000 / totalBytes));
+                    }
+                });
+                if (url == null) throw new IllegalStateException("Upload returned no URL");
+                itemSucceeded(index, url);
+            } catch (Exception e) {
+                if (attempt >= maxAttempts) {
+                    finishFailure(index, e);
+                    return;
+                }
+                try {
+                    workers.schedule(() -> attempt(index, payload, attempt + 1),
+                        backoffMs(attempt), TimeUnit.MILLISECONDS);
+                } catch (java.util.concurrent.RejectedExecutionException rejected) {
+                    finishFailure(index, e);
+                }
+            }
+        }
+
+        private void itemSucceeded(int index, String url) {
+            synchronized (this) {
+                urls[index] = url;
+            }
+            if (completed != null) {
+                completed.put(items.get(index), url);
+            }
+            int count = done.incrementAndGet();
+            updateProgress(index, 1000);
+            if (count == items.size()) {
+                finishSuccess();
+            }
+        }
+
+        private void updateProgress(int index, int permille) {
+            synchronized (this) {
+                if (permille <= itemProgress[index] || finished.get()) return;
+                itemProgress[index] = permille;
+                long sum = 0;
+                for (int p : itemProgress) sum += p;
+                int percent = (int) (sum / (10L * itemProgress.length));
+                if (percent == lastPercent) return;
+                lastPercent = percent;
+                // Handed over under the lock so the executor receives percents in order
+                int completedCount = done.get();
+                int total = items.size();
+                callbackExecutor.execute(() -> callback.onProgress(completedCount, total, percent));
+            }
+        }
+
+        private void finishSuccess() {
+            if (!finished.compareAndSet(false, true)) return;
+            List<String> result;
+            synchronized (this) {
+                result = new ArrayList<>(Arrays.asList(urls));
+            }
+            callbackExecutor.execute(() -> callback.onComplete(result));
+        }
+
+        private void finishFailure(int index, Exception e) {
+            if (!finished.compareAndSet(false, true)) return;
+            callbackExecutor.execute(() -> callback.onFailure(index, e));
+        }
+
+        @Override
+        public void cancel() {
+            finished.set(true);
+        }
+
+        @Override
+        public boolean isDone() {
+            return finished.get();
+        }
+    }
+}
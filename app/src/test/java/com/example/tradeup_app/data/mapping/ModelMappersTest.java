@@ -0,0 +1,95 @@
+package com.example.tradeup_app.data.mapping;
+
+import com.example.tradeup_app.models.Conversation;
+import com.example.tradeup_app.models.Message;
+import com.example.tradeup_app.models.Product;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the hand-written snapshot mappers in {@link ModelMappers}.
+ */
+public class ModelMappersTest {
+
+    @Test
+    public void product_readsFirebaseNumberTypesAndLegacyTags() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("title", "iPhone 12");
+        value.put("price", 5_000_000L); // whole numbers arrive as Long
+        value.put("negotiable", true);
+        value.put("viewCount", 7L);
+        value.put("createdAt", 1_700_000_000_000L);
+        value.put("customTags", Arrays.asList("apple", "cũ"));
+        Map<String, Object> images = new HashMap<>();
+        images.put("0", "https://img/0.jpg"); // array stored with a gap comes back as a map
+        value.put("imageUrls", images);
+
+        Product product = ModelMappers.PRODUCT.map("p1", value);
+
+        assertEquals("p1", product.getId());
+        assertEquals("iPhone 12", product.getTitle());
+        assertEquals(5_000_000.0, product.getPrice(), 0.0);
+        assertTrue(product.isNegotiable());
+        assertEquals(7, product.getViewCount());
+        assertEquals(1_700_000_000_000L, product.getCreatedAt());
+        assertEquals(Arrays.asList("apple", "cũ"), product.getTags());
+        assertEquals(Arrays.asList("https://img/0.jpg"), product.getImageUrls());
+    }
+
+    @Test
+    public void product_wrongTypeKeepsDefault() {
+        Product defaults = new Product();
+        Map<String, Object> value = new HashMap<>();
+        value.put("price", "free");
+        value.put("likeCount", true);
+
+        Product product = ModelMappers.PRODUCT.map("p1", value);
+
+        assertEquals(defaults.getPrice(), product.getPrice(), 0.0);
+        assertEquals(defaults.getLikeCount(), product.getLikeCount());
+        assertEquals(defaults.getStatus(), product.getStatus());
+    }
+
+    @Test
+    public void message_readsEitherReadFlag() {
+        Map<String, Object> legacy = new HashMap<>();
+        legacy.put("isRead", true);
+        legacy.put("offerAmount", 250_000L);
+        assertTrue(ModelMappers.MESSAGE.map("m1", legacy).isRead());
+
+        Map<String, Object> value = new HashMap<>();
+        value.put("read", false);
+        value.put("isRead", true);
+        Message message = ModelMappers.MESSAGE.map("m2", value);
+        assertFalse(message.isRead());
+        assertEquals("m2", message.getId());
+        assertEquals(0.0, message.getOfferAmount(), 0.0);
+    }
+
+    @Test
+    public void conversation_keepsStoredTimestampsAndReportCount() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("lastMessage", "Còn hàng không?");
+        value.put("lastMessageTime", 1_700_000_500_000L);
+        value.put("active", true);
+        value.put("reported", true);
+        value.put("reportCount", 2L);
+        value.put("lastReportedAt", 1_700_000_100_000L);
+        value.put("updatedAt", 1_700_000_600_000L);
+
+        Conversation conversation = ModelMappers.CONVERSATION.map("c1", value);
+
+        // Setters with side effects must not overwrite the stored values
+        assertEquals(1_700_000_600_000L, conversation.getUpdatedAt());
+        assertEquals(2, conversation.getReportCount());
+        assertEquals(1_700_000_100_000L, conversation.getLastReportedAt());
+        assertEquals("Còn hàng không?", conversation.getLastMessage());
+        assertTrue(conversation.isReported());
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.tradeup_app.firebase;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the coalescing and back-off rules of {@link OutboxEntry}.
+ */
+public class OutboxEntryTest {
+
+    private static Map<String, Object> writes(Object... pathsAndValues) {
+        Map<String, Object> writes = new LinkedHashMap<>();
+        for (int i = 0; i < pathsAndValues.length; i += 2) {
+            writes.put((String) pathsAndValues[i], pathsAndValues[i + 1]);
+        }
+        return writes;
+    }
+
+    private static OutboxEntry entry(Map<String, Object> updates) {
+        return new OutboxEntry(1, "k1", "product:p1", 0, updates, 0, 0);
+    }
+
+    @Test
+    public void absorb_laterValueWinsAndIncrementsAddUp() {
+        OutboxEntry entry = entry(writes(
+            "products/p1/title", "Old",
+            "products/p1/likeCount", OutboxEntry.increment(1)));
+
+        assertTrue(entry.absorb(writes(
+            "products/p1/title", "New",
+            "products/p1/likeCount", OutboxEntry.increment(2),
+            "products/p1/price", 10.0)));
+
+        assertEquals("New", entry.getUpdates().get("products/p1/title"));
+        assertEquals(Long.valueOf(3), OutboxEntry.incrementOf(entry.getUpdates().get("products/p1/likeCount")));
+        assertEquals(10.0, entry.getUpdates().get("products/p1/price"));
+    }
+
+    @Test
+    public void absorb_likeThenUnlikeCancelsOut() {
+        OutboxEntry entry = entry(writes(
+            "product_likes/p1/u1", 1000L,
+            "products/p1/likeCount", OutboxEntry.increment(1)));
+
+        assertTrue(entry.absorb(writes(
+            "product_likes/p1/u1", null,
+            "products/p1/likeCount", OutboxEntry.increment(-1))));
+
+        assertTrue(entry.writes("product_likes/p1/u1"));
+        assertNull(entry.getUpdates().get("product_likes/p1/u1"));
+        assertEquals(Long.valueOf(0), OutboxEntry.incrementOf(entry.getUpdates().get("products/p1/likeCount")));
+    }
+
+    @Test
+    public void absorb_incrementAfterPlainNumberIsFolded() {
+        OutboxEntry entry = entry(writes("conversations/c1/unreadCount", 4L));
+        assertTrue(entry.absorb(writes("conversations/c1/unreadCount", OutboxEntry.increment(1))));
+        assertEquals(5L, entry.getUpdates().get("conversations/c1/unreadCount"));
+    }
+
+    @Test
+    public void absorb_refusesWritesThatCantBeOneUpdate() {
+        Map<String, Object> serverTime = new HashMap<>();
+        serverTime.put(".sv", "timestamp");
+        OutboxEntry entry = entry(writes(
+            "products/p1/title", "Old",
+            "products/p1/lastViewedAt", serverTime));
+
+        // Ancestor of an existing path: Firebase rejects overlapping paths in one update
+        assertFalse(entry.absorb(writes("products/p1", null)));
+        // Increment on top of a server timestamp has no single value
+        assertFalse(entry.absorb(writes("products/p1/lastViewedAt", OutboxEntry.increment(1))));
+        // Nothing was changed by the refused writes
+        assertEquals(2, entry.getUpdates().size());
+        assertEquals("Old", entry.getUpdates().get("products/p1/title"));
+
+        entry.setInFlight(true);
+        assertFalse(entry.absorb(writes("products/p1/title", "New")));
+    }
+
+    @Test
+    public void backOff_growsExponentiallyUpToCap() {
+        OutboxEntry entry = entry(writes("products/p1/title", "A"));
+
+        assertEquals(2000, entry.backOff(0, 2000, 60_000));
+        assertEquals(4000, entry.backOff(0, 2000, 60_000));
+        assertEquals(8000, entry.backOff(0, 2000, 60_000));
+        for (int i = 0; i < 30; i++) entry.backOff(0, 2000, 60_000);
+        assertEquals(60_000, entry.getNextAttemptAt());
+
+        entry.resetBackOff();
+        assertEquals(0, entry.getNextAttemptAt());
+    }
+}
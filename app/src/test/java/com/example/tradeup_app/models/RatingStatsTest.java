@@ -0,0 +1,44 @@
+package com.example.tradeup_app.models;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the weekly bucket window of {@link RatingStats}.
+ */
+public class RatingStatsTest {
+
+    private static final long WEEK = 7L * 24 * 60 * 60 * 1000;
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    public void isExpiredBucket_keepsOnlyTheRecentWindow() {
+        long week = RatingStats.weekOf(NOW);
+        assertFalse(RatingStats.isExpiredBucket(RatingStats.bucketKey(week), NOW));
+        assertFalse(RatingStats.isExpiredBucket(
+            RatingStats.bucketKey(week - RatingStats.RECENT_WINDOW_WEEKS + 1), NOW));
+        assertTrue(RatingStats.isExpiredBucket(
+            RatingStats.bucketKey(week - RatingStats.RECENT_WINDOW_WEEKS), NOW));
+        assertTrue(RatingStats.isExpiredBucket("notabucket", NOW));
+    }
+
+    @Test
+    public void dropExpiredBuckets_removesBucketsFromLongGaps() {
+        RatingStats stats = new RatingStats();
+        // Ratings a year apart: far more than the few weeks right behind the window
+        stats.add(5, NOW - 52 * WEEK);
+        stats.add(1, NOW - 30 * WEEK);
+        stats.add(4, NOW - 14 * WEEK);
+        stats.add(3, NOW);
+
+        stats.dropExpiredBuckets(NOW);
+
+        assertEquals(1, stats.getRecent().size());
+        assertTrue(stats.getRecent().containsKey(RatingStats.bucketKey(RatingStats.weekOf(NOW))));
+        assertEquals(3.0, stats.recentAverage(NOW), 1e-9);
+        // The all-time totals are untouched
+        assertEquals(4, stats.getCount());
+        assertEquals(13, stats.getSum());
+    }
+}
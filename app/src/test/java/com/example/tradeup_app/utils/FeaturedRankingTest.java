@@ -0,0 +1,102 @@
+package com.example.tradeup_app.utils;
+
+import com.example.tradeup_app.models.Product;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the featured scoring and top-K node updates in {@link FeaturedRanking}.
+ */
+public class FeaturedRankingTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    private static Product product(String id, int views, int likes, long createdAt) {
+        Product product = new Product();
+        product.setId(id);
+        product.setViewCount(views);
+        product.setLikeCount(likes);
+        product.setCreatedAt(createdAt);
+        return product;
+    }
+
+    @Test
+    public void score_decaysWithAgeAndGrowsWithEngagement() {
+        // One half-life older with the same engagement is worth half, i.e. one point less
+        double fresh = FeaturedRanking.score(10, 2, 0, NOW);
+        double older = FeaturedRanking.score(10, 2, 0, NOW - FeaturedRanking.HALF_LIFE_MS);
+        assertEquals(1.0, fresh - older, 1e-9);
+
+        // A week-old hit still beats a new listing nobody looked at
+        assertTrue(FeaturedRanking.score(400, 40, 0, NOW - 7 * DAY) > FeaturedRanking.score(0, 0, 0, NOW));
+        // Likes weigh more than views
+        assertTrue(FeaturedRanking.score(0, 10, 0, NOW) > FeaturedRanking.score(10, 0, 0, NOW));
+    }
+
+    @Test
+    public void offer_keepsTheBestUpToCapacity() {
+        Map<String, Object> node = null;
+        node = FeaturedRanking.offer(node, "a", 3.0, 2);
+        node = FeaturedRanking.offer(node, "b", 1.0, 2);
+
+        // Too low for a full node: no write
+        assertNull(FeaturedRanking.offer(node, "c", 0.5, 2));
+        // Same score again: no write
+        assertNull(FeaturedRanking.offer(node, "a", 3.0, 2));
+
+        node = FeaturedRanking.offer(node, "c", 2.0, 2);
+        assertEquals(Arrays.asList("a", "c"), FeaturedRanking.ranked(node));
+
+        // A member whose score changed moves without evicting anyone
+        node = FeaturedRanking.offer(node, "c", 5.0, 2);
+        assertEquals(Arrays.asList("c", "a"), FeaturedRanking.ranked(node));
+    }
+
+    @Test
+    public void offer_trimsOversizedAndIgnoresDamagedEntries() {
+        Map<String, Object> node = new HashMap<>();
+        node.put("a", 4L);
+        node.put("b", 3.0);
+        node.put("c", 2.0);
+        node.put("broken", "x");
+
+        Map<String, Object> next = FeaturedRanking.offer(node, "d", 3.5, 2);
+
+        assertEquals(Arrays.asList("a", "d"), FeaturedRanking.ranked(next));
+        assertFalse(next.containsKey("broken"));
+    }
+
+    @Test
+    public void without_removesOnlyMembers() {
+        Map<String, Object> node = FeaturedRanking.offer(null, "a", 1.0, 5);
+        assertNull(FeaturedRanking.without(node, "missing"));
+        assertNull(FeaturedRanking.without(null, "a"));
+        assertTrue(FeaturedRanking.without(node, "a").isEmpty());
+    }
+
+    @Test
+    public void top_selectsBestOfALoadedList() {
+        List<Product> products = new ArrayList<>();
+        products.add(product("old-popular", 500, 50, NOW - 10 * DAY));
+        products.add(product("new-empty", 0, 0, NOW));
+        products.add(product("new-liked", 20, 5, NOW - DAY));
+        products.add(product("stale", 3, 0, NOW - 30 * DAY));
+
+        List<Product> top = FeaturedRanking.top(products, 2);
+
+        // 750 weighted interactions ten days ago still outweigh 45 yesterday
+        assertEquals(2, top.size());
+        assertEquals("old-popular", top.get(0).getId());
+        assertEquals("new-liked", top.get(1).getId());
+        assertTrue(FeaturedRanking.top(products, 0).isEmpty());
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.tradeup_app.utils;
+
+import org.junit.Test;
+
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for geohash encoding and radius coverage in {@link GeoHash}.
+ */
+public class GeoHashTest {
+
+    // Hoàn Kiếm, Hà Nội
+    private static final double LAT = 21.0285;
+    private static final double LON = 105.8542;
+
+    @Test
+    public void encode_matchesReferenceHashes() {
+        assertEquals("ezs42", GeoHash.encode(42.6, -5.6, 5));
+        assertEquals("u4pruydqqvj", GeoHash.encode(57.64911, 10.40744, 11));
+    }
+
+    @Test
+    public void encode_longerHashIsInsideTheShorterCell() {
+        String fine = GeoHash.encode(LAT, LON, GeoHash.STORED_PRECISION);
+        assertEquals(GeoHash.STORED_PRECISION, fine.length());
+        assertTrue(fine.startsWith(GeoHash.encode(LAT, LON, 5)));
+    }
+
+    @Test
+    public void precisionForRadius_picksCellsAtLeastAsLargeAsTheRadius() {
+        assertEquals(5, GeoHash.precisionForRadius(1));
+        assertEquals(8, GeoHash.precisionForRadius(0.01));
+        assertEquals(1, GeoHash.precisionForRadius(10_000));
+    }
+
+    @Test
+    public void coveringCells_includesNeighbourCellsAcrossTheEdge() {
+        // A precision 5 cell edge runs at longitude 105.8643, about 1 km east of the centre
+        int precision = 5;
+        double radiusKm = 1.5;
+        Set<String> cells = GeoHash.coveringCells(LAT, LON, radiusKm, precision);
+
+        String centre = GeoHash.encode(LAT, LON, precision);
+        String east = GeoHash.encode(LAT, 105.866, precision);
+        assertNotEquals(centre, east);
+        assertTrue(cells.contains(centre));
+        assertTrue(cells.contains(east));
+
+        // Every corner of the circle's bounding box is covered, and only a handful of cells are needed
+        double latDelta = radiusKm / 111.32 * 0.99;
+        double lonDelta = radiusKm / (111.32 * Math.cos(Math.toRadians(LAT))) * 0.99;
+        for (int latSign = -1; latSign <= 1; latSign += 2) {
+            for (int lonSign = -1; lonSign <= 1; lonSign += 2) {
+                assertTrue(cells.contains(GeoHash.encode(LAT + latSign * latDelta, LON + lonSign * lonDelta, precision)));
+            }
+        }
+        assertTrue("cells: " + cells, cells.size() <= 9);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.tradeup_app.utils;
+
+import com.example.tradeup_app.models.Product;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for radius and nearest queries of {@link ProductGeoIndex}.
+ */
+public class ProductGeoIndexTest {
+
+    private static final double LAT = 21.0285;
+    private static final double LON = 105.8542;
+
+    private static Product product(String id, double latitude, double longitude) {
+        Product product = new Product();
+        product.setId(id);
+        product.setLatitude(latitude);
+        product.setLongitude(longitude);
+        return product;
+    }
+
+    private static List<String> ids(List<ProductGeoIndex.Hit> hits) {
+        List<String> ids = new ArrayList<>();
+        for (ProductGeoIndex.Hit hit : hits) ids.add(hit.product.getId());
+        return ids;
+    }
+
+    private static ProductGeoIndex index() {
+        return new ProductGeoIndex(Arrays.asList(
+            product("3km", LAT + 0.027, LON),
+            product("near", LAT + 0.004, LON),
+            product("8km", LAT, LON + 0.077),
+            product("no-location", 0, 0),
+            product("hcm", 10.7769, 106.7009)));
+    }
+
+    @Test
+    public void withinRadius_keepsOnlyProductsInsideNearestFirst() {
+        List<ProductGeoIndex.Hit> hits = index().withinRadius(LAT, LON, 5);
+
+        assertEquals(Arrays.asList("near", "3km"), ids(hits));
+        assertTrue(hits.get(0).distanceKm < hits.get(1).distanceKm);
+        assertEquals(3.0, hits.get(1).distanceKm, 0.1);
+    }
+
+    @Test
+    public void withinRadius_findsProductsInANeighbourCell() {
+        // ~1.2 km east, on the other side of a precision 5 cell edge
+        Product across = product("across", LAT, 105.866);
+        assertNotEquals(GeoHash.encode(LAT, LON, 5), GeoHash.encode(LAT, across.getLongitude(), 5));
+        ProductGeoIndex index = new ProductGeoIndex(Arrays.asList(across));
+
+        assertEquals(Arrays.asList("across"), ids(index.withinRadius(LAT, LON, 1.5)));
+    }
+
+    @Test
+    public void index_skipsProductsWithoutLocation() {
+        assertEquals(4, index().size());
+        assertTrue(index().withinRadius(0, 0, 1).isEmpty());
+    }
+
+    @Test
+    public void nearest_widensTheRadiusUntilKFound() {
+        assertEquals(Arrays.asList("near", "3km", "8km"), ids(index().nearest(LAT, LON, 3)));
+        assertEquals(4, index().nearest(LAT, LON, 10).size());
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.tradeup_app.utils;
+
+import com.example.tradeup_app.models.Product;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link ProductSearchIndex}, including a check against the linear
+ * toLowerCase().contains scan used by FirebaseManager.searchProducts.
+ */
+public class ProductSearchIndexTest {
+
+    private static final String[] WORDS = {
+        "Điện thoại", "iPhone", "Samsung", "laptop", "Dell", "áo khoác", "giày", "xe đạp",
+        "sách", "bàn học", "ghế", "tủ lạnh", "máy giặt", "đồng hồ", "tai nghe", "bóng đá",
+        "cũ", "mới", "chính hãng", "giá rẻ", "còn bảo hành", "màu đen", "màu trắng", "size"
+    };
+
+    private static Product product(String id, String title, String description, String... tags) {
+        Product product = new Product();
+        product.setId(id);
+        product.setTitle(title);
+        product.setDescription(description);
+        product.setTags(new ArrayList<>(Arrays.asList(tags)));
+        return product;
+    }
+
+    @Test
+    public void normalize_foldsVietnameseDiacritics() {
+        assertEquals("dien thoai cu", ProductSearchIndex.normalize("Điện Thoại CŨ"));
+        assertEquals(Arrays.asList("xe", "dap", "2023"), ProductSearchIndex.tokenize("Xe đạp - 2023!"));
+    }
+
+    @Test
+    public void search_matchesPrefixesWithAndWithoutAccents() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.addOrUpdate(product("p1", "Điện thoại Samsung", "Còn bảo hành"));
+        index.addOrUpdate(product("p2", "Laptop Dell", "Máy cũ", "điện tử"));
+        index.addOrUpdate(product("p3", "Áo khoác", "Màu đen"));
+
+        assertEquals(setOf("p1", "p2"), index.searchIds("dien"));
+        assertEquals(setOf("p1"), index.searchIds("điện thoại"));
+        assertEquals(setOf("p1"), index.searchIds("sams bao"));
+        assertEquals(setOf("p3"), index.searchIds("AO KHOAC"));
+        assertTrue(index.searchIds("tivi").isEmpty());
+        assertEquals(3, index.searchIds("  ").size());
+    }
+
+    @Test
+    public void addOrUpdate_reindexesChangedProduct() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.addOrUpdate(product("p1", "Laptop Dell", "Máy cũ"));
+        index.addOrUpdate(product("p1", "Laptop Asus", "Máy mới"));
+
+        assertTrue(index.searchIds("dell").isEmpty());
+        assertEquals(setOf("p1"), index.searchIds("asus"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void remove_dropsProductFromPostings() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.addOrUpdate(product("p1", "Laptop Dell", "Máy cũ"));
+        index.addOrUpdate(product("p2", "Laptop Asus", "Máy mới"));
+        index.remove("p1");
+
+        assertEquals(setOf("p2"), index.searchIds("laptop"));
+        assertNull(index.get("p1"));
+    }
+
+    @Test
+    public void searchIds_findsWhatTheLinearScanFinds() {
+        // Timing lives in the benchmark module (SearchBenchmark); this only checks the results
+        List<Product> products = generateProducts(2_000, new Random(42));
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.rebuild(products);
+
+        // Every product the old scan finds for a whole ASCII word is also found by the index;
+        // words that also occur inside model codes ("dell" in "model...") match only the scan
+        for (String query : new String[]{"samsung", "iphone", "laptop"}) {
+            List<Product> expected = linearScan(products, query);
+            assertFalse(expected.isEmpty());
+            Set<String> found = index.searchIds(query);
+            for (Product product : expected) {
+                assertTrue(query + " " + product.getId(), found.contains(product.getId()));
+            }
+        }
+    }
+
+    private static List<Product> generateProducts(int count, Random random) {
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            products.add(product("p" + i,
+                randomPhrase(random, 3) + " " + i,
+                randomPhrase(random, 12),
+                WORDS[random.nextInt(WORDS.length)], WORDS[random.nextInt(WORDS.length)]));
+        }
+        return products;
+    }
+
+    /**
+     * Mix of common listing words and model/brand names drawn from a larger vocabulary,
+     * so query selectivity looks like real listings rather than every product matching
+     */
+    private static String randomPhrase(Random random, int words) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) builder.append(' ');
+            if (random.nextInt(3) == 0) {
+                builder.append(WORDS[random.nextInt(WORDS.length)]);
+            } else {
+                builder.append("model").append(Integer.toString(random.nextInt(20_000), 36));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Same text matching as FirebaseManager.matchesSearchCriteria
+     */
+    private static List<Product> linearScan(List<Product> products, String query) {
+        String lowerQuery = query.toLowerCase();
+        List<Product> results = new ArrayList<>();
+        for (Product product : products) {
+            boolean matches = product.getTitle().toLowerCase().contains(lowerQuery)
+                || product.getDescription().toLowerCase().contains(lowerQuery);
+            if (!matches && product.getTags() != null) {
+                for (String tag : product.getTags()) {
+                    if (tag.toLowerCase().contains(lowerQuery)) {
+                        matches = true;
+                        break;
+                    }
+                }
+            }
+            if (matches) {
+                results.add(product);
+            }
+        }
+        return results;
+    }
+
+    private static Set<String> setOf(String... ids) {
+        return new java.util.HashSet<>(Arrays.asList(ids));
+    }
+}
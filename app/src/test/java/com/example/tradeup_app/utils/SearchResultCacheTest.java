@@ -0,0 +1,130 @@
+package com.example.tradeup_app.utils;
+
+import com.example.tradeup_app.models.Product;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link SearchResultCache} and the refinement rules of {@link SearchQuery}.
+ */
+public class SearchResultCacheTest {
+
+    private static Product product(String id, String title, String category, double price, String... tags) {
+        Product product = new Product();
+        product.setId(id);
+        product.setTitle(title);
+        product.setDescription("");
+        product.setCategory(category);
+        product.setPrice(price);
+        product.setTags(new ArrayList<>(Arrays.asList(tags)));
+        return product;
+    }
+
+    private static List<Product> catalog() {
+        return Arrays.asList(
+            product("p1", "iPhone 13", "Điện tử", 12000000),
+            product("p2", "iPhone 11", "Điện tử", 7000000),
+            product("p3", "Ốp lưng iPhone", "Khác", 100000),
+            product("p4", "Laptop Dell", "Điện tử", 15000000, "ipad"),
+            product("p5", "Áo khoác", "Thời trang", 300000));
+    }
+
+    private static List<String> ids(List<Product> products) {
+        List<String> ids = new ArrayList<>();
+        for (Product product : products) ids.add(product.getId());
+        return ids;
+    }
+
+    private static SearchQuery query(String text, double min, double max) {
+        return new SearchQuery(text, "", "Tất cả", min, max, null);
+    }
+
+    @Test
+    public void sameFilterTuple_isEqualQuery() {
+        assertEquals(query("iPhone ", 0, 0), query("iphone", 0, 0));
+        assertEquals(new SearchQuery("a", "Tất cả", "", 0, 0, "date"), new SearchQuery("A", null, null, 0, 0, "date"));
+        assertNotEquals(query("iphone", 0, 0), query("iphone", 0, 1000));
+    }
+
+    @Test
+    public void refines_longerPrefixAndNarrowerFilters() {
+        assertTrue(query("iphone", 0, 0).refines(query("ip", 0, 0)));
+        assertTrue(query("iphone 13", 0, 0).refines(query("iphone", 0, 0)));
+        assertTrue(query("ip", 1000, 5000).refines(query("ip", 0, 10000)));
+        assertTrue(new SearchQuery("ip", "Điện tử", "", 0, 0, null).refines(query("ip", 0, 0)));
+
+        assertFalse(query("ip", 0, 0).refines(query("iphone", 0, 0)));
+        assertFalse(query("ipx", 0, 0).refines(query("iphone", 0, 0)));
+        assertFalse(query("ip", 0, 0).refines(query("ip", 0, 10000)));
+        assertFalse(query("ip", 0, 0).refines(new SearchQuery("ip", "Điện tử", "", 0, 0, null)));
+    }
+
+    @Test
+    public void get_servesExactHitsAndRefinesLocally() {
+        SearchResultCache cache = new SearchResultCache(8, 60_000);
+        List<Product> all = catalog();
+        cache.put(query("ip", 0, 0), all.subList(0, 4), true, 0);
+
+        assertEquals(Arrays.asList("p1", "p2", "p3", "p4"), ids(cache.get(query("IP", 0, 0), 10)));
+        assertEquals(Arrays.asList("p1", "p2", "p3"), ids(cache.get(query("iphone", 0, 0), 10)));
+        assertEquals(Arrays.asList("p4"), ids(cache.get(query("ipad", 0, 0), 10)));
+        assertEquals(Arrays.asList("p2"), ids(cache.get(query("iphone", 1000000, 10000000), 10)));
+        assertNull(cache.get(query("ao", 0, 0), 10));
+    }
+
+    @Test
+    public void get_refinesToSameResultsAsIndex() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.rebuild(catalog());
+        SearchResultCache cache = new SearchResultCache(8, 60_000);
+        cache.put(query("", 0, 0), index.search(""), true, 0);
+
+        for (String text : new String[]{"i", "iph", "iphone 1", "op lung", "dell ip", "khoac"}) {
+            List<String> expected = new ArrayList<>(index.searchIds(text));
+            List<String> refined = ids(cache.get(query(text, 0, 0), 10));
+            expected.sort(null);
+            refined.sort(null);
+            assertEquals(text, expected, refined);
+        }
+    }
+
+    @Test
+    public void get_resortsRefinementsAndKeepsRelevanceOrderExact() {
+        SearchResultCache cache = new SearchResultCache(8, 60_000);
+        cache.put(new SearchQuery("iphone", "", "", 0, 0, "date"), catalog().subList(0, 3), true, 0);
+
+        List<Product> cheapest = cache.get(new SearchQuery("iphone", "", "", 0, 0, "price_asc"), 10);
+        assertEquals(Arrays.asList("p3", "p2", "p1"), ids(cheapest));
+        // A relevance-ordered query can't be rebuilt from date order
+        assertNull(cache.get(query("iphone", 0, 0), 10));
+    }
+
+    @Test
+    public void get_onlyRefinesRefinableEntries() {
+        SearchResultCache cache = new SearchResultCache(8, 60_000);
+        cache.put(query("ip", 0, 0), catalog(), false, 0);
+
+        assertEquals(5, cache.get(query("ip", 0, 0), 10).size());
+        assertNull(cache.get(query("iphone", 0, 0), 10));
+    }
+
+    @Test
+    public void entriesExpireAndLeastRecentlyUsedIsEvicted() {
+        SearchResultCache cache = new SearchResultCache(2, 1000);
+        cache.put(query("a", 0, 0), catalog(), false, 0);
+        cache.put(query("b", 0, 0), catalog(), false, 0);
+        assertNotNull(cache.get(query("a", 0, 0), 10));
+        cache.put(query("c", 0, 0), catalog(), false, 0);
+
+        assertNull(cache.get(query("b", 0, 0), 10));
+        assertNotNull(cache.get(query("a", 0, 0), 10));
+        assertNull(cache.get(query("c", 0, 0), 1000));
+        assertEquals(0, cache.size());
+    }
+}
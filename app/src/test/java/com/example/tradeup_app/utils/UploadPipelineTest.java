@@ -0,0 +1,247 @@
+package com.example.tradeup_app.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link UploadPipeline} with a stand-in uploader.
+ * Throughput of the bounded pool is measured in the benchmark module (UploadBenchmark).
+ */
+public class UploadPipelineTest {
+
+    /**
+     * Records what the pipeline delivered; await() returns once a terminal event arrived
+     */
+    private static class RecordingCallback implements UploadPipeline.Callback {
+        final CountDownLatch terminal = new CountDownLatch(1);
+        final AtomicInteger terminalEvents = new AtomicInteger();
+        final List<Integer> percents = new CopyOnWriteArrayList<>();
+        volatile List<String> urls;
+        volatile int failedIndex = -1;
+        volatile Exception error;
+
+        @Override
+        public void onProgress(int completed, int total, int percent) {
+            percents.add(percent);
+        }
+
+        @Override
+        public void onComplete(List<String> urls) {
+            this.urls = urls;
+            terminalEvents.incrementAndGet();
+            terminal.countDown();
+        }
+
+        @Override
+        public void onFailure(int index, Exception e) {
+            this.failedIndex = index;
+            this.error = e;
+            terminalEvents.incrementAndGet();
+            terminal.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("no terminal callback", terminal.await(10, TimeUnit.SECONDS));
+            // Give stray workers a moment to report a second terminal event if there is a bug
+            Thread.sleep(50);
+        }
+    }
+
+    /**
+     * Stand-in for Cloudinary: sleeps per chunk, reports progress and tracks concurrency
+     */
+    private static class FakeUploader implements UploadPipeline.Uploader<String> {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final AtomicInteger calls = new AtomicInteger();
+        final List<String> uploaded = new CopyOnWriteArrayList<>();
+        final Map<String, AtomicInteger> failuresLeft = new ConcurrentHashMap<>();
+        final long millisPerUpload;
+
+        FakeUploader(long millisPerUpload) {
+            this.millisPerUpload = millisPerUpload;
+        }
+
+        @Override
+        public String upload(String payload, UploadPipeline.ProgressListener progress) throws Exception {
+            calls.incrementAndGet();
+            uploaded.add(payload);
+            int now = running.incrementAndGet();
+            maxRunning.accumulateAndGet(now, Math::max);
+            try {
+                // Later items finish first, so completion order differs from input order
+                long duration = millisPerUpload + (payload.hashCode() & 7);
+                for (int chunk = 1; chunk <= 4; chunk++) {
+                    Thread.sleep(duration / 4);
+                    progress.onProgress(chunk * 25, 100);
+                }
+                AtomicInteger failures = failuresLeft.get(payload);
+                if (failures != null && failures.getAndDecrement() > 0) {
+                    throw new java.io.IOException("network error for " + payload);
+                }
+                return "https://cdn.example/" + payload;
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+
+    private static final UploadPipeline.Preparer<String, String> COMPRESS = item -> item + ".jpg";
+
+    private static List<String> items(int count) {
+        List<String> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) items.add("img" + i);
+        return items;
+    }
+
+    private static UploadPipeline<String, String> pipeline(int concurrency) {
+        return new UploadPipeline<>(concurrency, 3, 5, 50, Runnable::run);
+    }
+
+    @Test
+    public void upload_keepsInputOrderAndBoundsConcurrency() throws Exception {
+        UploadPipeline<String, String> pipeline = pipeline(3);
+        FakeUploader uploader = new FakeUploader(20);
+        RecordingCallback callback = new RecordingCallback();
+
+        pipeline.upload(items(12), COMPRESS, uploader, null, callback);
+        callback.await();
+
+        assertEquals(1, callback.terminalEvents.get());
+        assertEquals(12, callback.urls.size());
+        for (int i = 0; i < 12; i++) {
+            assertEquals("https://cdn.example/img" + i + ".jpg", callback.urls.get(i));
+        }
+        assertTrue("pool exceeded: " + uploader.maxRunning.get(), uploader.maxRunning.get() <= 3);
+        pipeline.shutdown();
+    }
+
+    @Test
+    public void upload_reportsMonotonicProgressEndingAt100() throws Exception {
+        UploadPipeline<String, String> pipeline = pipeline(2);
+        RecordingCallback callback = new RecordingCallback();
+
+        pipeline.upload(items(5), COMPRESS, new FakeUploader(8), null, callback);
+        callback.await();
+
+        assertFalse(callback.percents.isEmpty());
+        for (int i = 1; i < callback.percents.size(); i++) {
+            assertTrue(callback.percents.get(i) > callback.percents.get(i - 1));
+        }
+        assertEquals(100, (int) callback.percents.get(callback.percents.size() - 1));
+        pipeline.shutdown();
+    }
+
+    @Test
+    public void upload_retriesTransientFailures() throws Exception {
+        UploadPipeline<String, String> pipeline = pipeline(2);
+        FakeUploader uploader = new FakeUploader(4);
+        uploader.failuresLeft.put("img1.jpg", new AtomicInteger(2));
+        RecordingCallback callback = new RecordingCallback();
+
+        pipeline.upload(items(3), COMPRESS, uploader, null, callback);
+        callback.await();
+
+        assertEquals(1, callback.terminalEvents.get());
+        assertNotNull(callback.urls);
+        assertEquals("https://cdn.example/img1.jpg", callback.urls.get(1));
+        assertEquals(5, uploader.calls.get());
+        pipeline.shutdown();
+    }
+
+    @Test
+    public void upload_failsOnceWhenRetriesAreExhausted() throws Exception {
+        UploadPipeline<String, String> pipeline = pipeline(4);
+        FakeUploader uploader = new FakeUploader(4);
+        uploader.failuresLeft.put("img2.jpg", new AtomicInteger(100));
+        uploader.failuresLeft.put("img5.jpg", new AtomicInteger(100));
+        RecordingCallback callback = new RecordingCallback();
+
+        pipeline.upload(items(8), COMPRESS, uploader, null, callback);
+        callback.await();
+
+        assertEquals(1, callback.terminalEvents.get());
+        assertNull(callback.urls);
+        assertTrue(callback.failedIndex == 2 || callback.failedIndex == 5);
+        assertTrue(callback.error instanceof java.io.IOException);
+        pipeline.shutdown();
+    }
+
+    @Test
+    public void upload_doesNotRetryPrepareFailures() throws Exception {
+        UploadPipeline<String, String> pipeline = pipeline(2);
+        FakeUploader uploader = new FakeUploader(4);
+        RecordingCallback callback = new RecordingCallback();
+        UploadPipeline.Preparer<String, String> preparer = item -> {
+            if (item.equals("img0")) throw new IllegalArgumentException("unsupported format");
+            return item;
+        };
+
+        pipeline.upload(items(1), preparer, uploader, null, callback);
+        callback.await();
+
+        assertEquals(0, callback.failedIndex);
+        assertTrue(callback.error instanceof IllegalArgumentException);
+        assertEquals(0, uploader.calls.get());
+        pipeline.shutdown();
+    }
+
+    @Test
+    public void upload_resumesWithoutReuploadingCompletedItems() throws Exception {
+        UploadPipeline<String, String> pipeline = pipeline(2);
+        FakeUploader uploader = new FakeUploader(4);
+        uploader.failuresLeft.put("img3.jpg", new AtomicInteger(3));
+        Map<String, String> completed = new ConcurrentHashMap<>();
+
+        RecordingCallback first = new RecordingCallback();
+        pipeline.upload(items(4), COMPRESS, uploader, completed, first);
+        first.await();
+        assertEquals(3, first.failedIndex);
+        assertFalse(completed.containsKey("img3"));
+        List<String> doneBefore = new ArrayList<>(completed.keySet());
+        uploader.uploaded.clear();
+
+        RecordingCallback second = new RecordingCallback();
+        pipeline.upload(items(4), COMPRESS, uploader, completed, second);
+        second.await();
+
+        assertEquals(4, second.urls.size());
+        assertEquals("https://cdn.example/img3.jpg", second.urls.get(3));
+        for (String item : doneBefore) {
+            assertFalse("re-uploaded " + item, uploader.uploaded.contains(item + ".jpg"));
+        }
+        pipeline.shutdown();
+    }
+
+    @Test
+    public void upload_emptyBatchCompletesImmediately() throws Exception {
+        UploadPipeline<String, String> pipeline = pipeline(2);
+        RecordingCallback callback = new RecordingCallback();
+
+        pipeline.upload(new ArrayList<>(), COMPRESS, new FakeUploader(1), null, callback);
+        callback.await();
+
+        assertTrue(callback.urls.isEmpty());
+        pipeline.shutdown();
+    }
+
+    @Test
+    public void backoff_doublesUpToTheCap() {
+        UploadPipeline<String, String> pipeline = new UploadPipeline<>(1, 5, 100, 1000, Runnable::run);
+        assertEquals(100, pipeline.backoffMs(1));
+        assertEquals(200, pipeline.backoffMs(2));
+        assertEquals(400, pipeline.backoffMs(3));
+        assertEquals(1000, pipeline.backoffMs(5));
+        pipeline.shutdown();
+    }
+}
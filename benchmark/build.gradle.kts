@@ -0,0 +1,36 @@
+// JMH benchmarks for the data layer, run on a plain JVM: ./gradlew :benchmark:jmh
+plugins {
+    `java-library`
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// Only the Android-free parts of the app: models, repository interfaces, mappers and the in-memory backend
+sourceSets {
+    main {
+        java {
+            setSrcDirs(listOf("../app/src/main/java"))
+            include("com/example/tradeup_app/models/**")
+            include("com/example/tradeup_app/data/*.java")
+            include("com/example/tradeup_app/data/memory/**")
+            include("com/example/tradeup_app/data/mapping/**")
+            include("com/example/tradeup_app/utils/ProductSearchIndex.java")
+            include("com/example/tradeup_app/utils/UploadPipeline.java")
+        }
+    }
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+jmh {
+    warmupIterations.set(2)
+    iterations.set(5)
+    fork.set(1)
+    resultFormat.set("JSON")
+}
@@ -0,0 +1,159 @@
+package com.example.tradeup_app.benchmark;
+
+import com.example.tradeup_app.data.DataCallback;
+import com.example.tradeup_app.data.memory.InMemoryRepositories;
+import com.example.tradeup_app.models.Conversation;
+import com.example.tradeup_app.models.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Deterministic marketplace data for the benchmarks, sized like a busy production database
+ */
+final class BenchmarkData {
+    static final String[] WORDS = {
+        "Điện thoại", "iPhone", "Samsung", "laptop", "Dell", "áo khoác", "giày", "xe đạp",
+        "sách", "bàn học", "ghế", "tủ lạnh", "máy giặt", "đồng hồ", "tai nghe", "bóng đá",
+        "cũ", "mới", "chính hãng", "giá rẻ", "còn bảo hành", "màu đen", "màu trắng", "size"
+    };
+    static final String[] CATEGORIES = {"Điện tử", "Thời trang", "Đồ gia dụng", "Sách", "Thể thao", "Xe cộ"};
+    static final long START_TIME = 1_700_000_000_000L;
+
+    private BenchmarkData() {
+    }
+
+    static String userId(int index) {
+        return String.format("user%05d", index);
+    }
+
+    static void seedProducts(InMemoryRepositories repositories, int count, int users, Random random) {
+        for (int i = 0; i < count; i++) {
+            Product product = new Product();
+            product.setId(String.format("prod%07d", i));
+            product.setTitle(phrase(random, 3));
+            product.setDescription(phrase(random, 12));
+            product.setTags(new ArrayList<>(Arrays.asList(WORDS[random.nextInt(WORDS.length)],
+                WORDS[random.nextInt(WORDS.length)])));
+            product.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            product.setPrice(10_000 + random.nextInt(20_000_000));
+            product.setSellerId(userId(random.nextInt(users)));
+            // Several products per second, some sharing a timestamp
+            product.setCreatedAt(START_TIME + i * 400L + random.nextInt(3) * 1000L);
+            product.setStatus("Available");
+            repositories.putProduct(product);
+        }
+    }
+
+    static void seedConversations(InMemoryRepositories repositories, int count, int users, Random random) {
+        for (int i = 0; i < count; i++) {
+            Conversation conversation = new Conversation();
+            conversation.setId(String.format("conv%07d", i));
+            conversation.setBuyerId(userId(random.nextInt(users)));
+            conversation.setSellerId(userId(random.nextInt(users)));
+            conversation.setProductId(String.format("prod%07d", random.nextInt(Math.max(1, count))));
+            conversation.setLastMessage(phrase(random, 6));
+            conversation.setLastMessageTime(START_TIME + random.nextInt(30 * 24 * 3600) * 1000L);
+            repositories.putConversation(conversation);
+        }
+    }
+
+    /**
+     * Products as Firebase hands them out: plain maps, Long for whole numbers, Double otherwise
+     */
+    static List<Map<String, Object>> productValues(int count, int users, Random random) {
+        List<Map<String, Object>> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> value = new HashMap<>();
+            value.put("title", phrase(random, 3));
+            value.put("description", phrase(random, 12));
+            value.put("price", (double) (10_000 + random.nextInt(20_000_000)));
+            value.put("negotiable", random.nextBoolean());
+            value.put("category", CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            value.put("condition", "Như mới");
+            value.put("location", "Hà Nội");
+            value.put("sellerId", userId(random.nextInt(users)));
+            value.put("sellerName", "Người bán " + random.nextInt(users));
+            value.put("imageUrls", Arrays.asList("https://img.example/" + i + "_0.jpg", "https://img.example/" + i + "_1.jpg"));
+            value.put("tags", Arrays.asList(WORDS[random.nextInt(WORDS.length)], WORDS[random.nextInt(WORDS.length)]));
+            value.put("createdAt", START_TIME + i * 400L);
+            value.put("updatedAt", START_TIME + i * 400L);
+            value.put("status", "Available");
+            value.put("viewCount", (long) random.nextInt(500));
+            value.put("likeCount", (long) random.nextInt(50));
+            value.put("latitude", 21.0 + random.nextDouble());
+            value.put("longitude", 105.5 + random.nextDouble());
+            value.put("geohash", "w7er8u");
+            values.add(value);
+        }
+        return values;
+    }
+
+    static List<Map<String, Object>> messageValues(int count, int users, Random random) {
+        List<Map<String, Object>> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> value = new HashMap<>();
+            value.put("conversationId", String.format("conv%07d", random.nextInt(Math.max(1, count / 20))));
+            value.put("senderId", userId(random.nextInt(users)));
+            value.put("receiverId", userId(random.nextInt(users)));
+            value.put("senderName", "Người dùng " + random.nextInt(users));
+            value.put("content", phrase(random, 8));
+            value.put("messageType", "text");
+            value.put("timestamp", START_TIME + i * 1000L);
+            value.put("read", random.nextBoolean());
+            value.put("deleted", false);
+            value.put("encrypted", false);
+            value.put("offerAmount", 0L);
+            values.add(value);
+        }
+        return values;
+    }
+
+    static String phrase(Random random, int words) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) builder.append(' ');
+            builder.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Block until the repository answers; callbacks may arrive on another thread when latency is simulated
+     */
+    static <T> T await(java.util.function.Consumer<DataCallback<T>> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        call.accept(new DataCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                future.complete(result);
+            }
+
+            @Override
+            public void onError(String error) {
+                future.completeExceptionally(new IllegalStateException(error));
+            }
+        });
+        try {
+            return future.get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static List<String> sampleUsers(int users, int count, Random random) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(userId(random.nextInt(users)));
+        }
+        return ids;
+    }
+}
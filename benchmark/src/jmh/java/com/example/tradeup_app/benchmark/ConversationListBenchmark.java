@@ -0,0 +1,60 @@
+package com.example.tradeup_app.benchmark;
+
+import com.example.tradeup_app.data.memory.InMemoryRepositories;
+import com.example.tradeup_app.models.Conversation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversation list of one user, read through the per-user index
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConversationListBenchmark {
+
+    @Param({"2000"})
+    public int users;
+
+    @Param({"20000", "200000"})
+    public int conversations;
+
+    @Param({"0"})
+    public long latencyMs;
+
+    private InMemoryRepositories repositories;
+    private List<String> sampledUsers;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        repositories = new InMemoryRepositories(latencyMs, latencyMs);
+        BenchmarkData.seedConversations(repositories, conversations, users, random);
+        sampledUsers = BenchmarkData.sampleUsers(users, 1024, random);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        repositories.shutdown();
+    }
+
+    @Benchmark
+    public List<Conversation> listConversations() {
+        String userId = sampledUsers.get(next++ & 1023);
+        return BenchmarkData.await(callback -> repositories.getConversationsForUser(userId, callback));
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.tradeup_app.benchmark;
+
+import com.example.tradeup_app.data.mapping.ModelMapper;
+import com.example.tradeup_app.data.mapping.ModelMappers;
+import com.example.tradeup_app.models.Message;
+import com.example.tradeup_app.models.Product;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding a list of records from the plain values of a snapshot: bean mapping by reflection,
+ * as DataSnapshot.getValue(Class) does, against the hand-written ModelMappers
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DecodingBenchmark {
+
+    @Param({"10000"})
+    public int records;
+
+    private List<Map<String, Object>> productValues;
+    private List<Map<String, Object>> messageValues;
+    private ReflectiveMapper<Product> reflectiveProducts;
+    private ReflectiveMapper<Message> reflectiveMessages;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        productValues = BenchmarkData.productValues(records, 2000, random);
+        messageValues = BenchmarkData.messageValues(records, 2000, random);
+        reflectiveProducts = new ReflectiveMapper<>(Product.class);
+        reflectiveMessages = new ReflectiveMapper<>(Message.class);
+    }
+
+    @Benchmark
+    public List<Product> productsReflective() {
+        return decode(productValues, reflectiveProducts);
+    }
+
+    @Benchmark
+    public List<Product> productsMapper() {
+        return decode(productValues, ModelMappers.PRODUCT);
+    }
+
+    @Benchmark
+    public List<Message> messagesReflective() {
+        return decode(messageValues, reflectiveMessages);
+    }
+
+    @Benchmark
+    public List<Message> messagesMapper() {
+        return decode(messageValues, ModelMappers.MESSAGE);
+    }
+
+    private static <T> List<T> decode(List<Map<String, Object>> values, ModelMapper<T> mapper) {
+        List<T> models = new ArrayList<>(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            models.add(mapper.map("k" + i, values.get(i)));
+        }
+        return models;
+    }
+
+    /**
+     * Setter lookup and type coercion per field, like Firebase's CustomClassMapper.
+     * Setters are resolved once per class, so only the per-record cost is measured.
+     */
+    static final class ReflectiveMapper<T> implements ModelMapper<T> {
+        private final Class<T> type;
+        private final Map<String, Method> setters = new HashMap<>();
+
+        ReflectiveMapper(Class<T> type) {
+            this.type = type;
+            for (Method method : type.getMethods()) {
+                String name = method.getName();
+                if (name.length() > 3 && name.startsWith("set") && method.getParameterCount() == 1
+                        && !Modifier.isStatic(method.getModifiers())) {
+                    setters.put(Character.toLowerCase(name.charAt(3)) + name.substring(4), method);
+                }
+            }
+        }
+
+        @Override
+        public T map(String key, Map<String, Object> value) {
+            try {
+                T model = type.getDeclaredConstructor().newInstance();
+                for (Map.Entry<String, Object> field : value.entrySet()) {
+                    Method setter = setters.get(field.getKey());
+                    if (setter != null && field.getValue() != null) {
+                        setter.invoke(model, coerce(field.getValue(), setter.getParameterTypes()[0]));
+                    }
+                }
+                setters.get("id").invoke(model, key);
+                return model;
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static Object coerce(Object value, Class<?> target) {
+            if (value instanceof Number) {
+                Number number = (Number) value;
+                if (target == int.class || target == Integer.class) return number.intValue();
+                if (target == long.class || target == Long.class) return number.longValue();
+                if (target == double.class || target == Double.class) return number.doubleValue();
+            }
+            if (value instanceof List && target == List.class) {
+                return new ArrayList<>((List<?>) value);
+            }
+            if (value instanceof Map && target == Map.class) {
+                return new HashMap<>((Map<?, ?>) value);
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.tradeup_app.benchmark;
+
+import com.example.tradeup_app.data.Page;
+import com.example.tradeup_app.data.memory.InMemoryRepositories;
+import com.example.tradeup_app.models.Product;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cursor-paged product feed: first page and scrolling several pages deep
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FeedBenchmark {
+
+    @Param({"1000", "50000"})
+    public int products;
+
+    @Param({"20"})
+    public int pageSize;
+
+    // Simulated round trip per call; 0 measures only the query path
+    @Param({"0"})
+    public long latencyMs;
+
+    private InMemoryRepositories repositories;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repositories = new InMemoryRepositories(latencyMs, latencyMs);
+        BenchmarkData.seedProducts(repositories, products, 2_000, new Random(42));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        repositories.shutdown();
+    }
+
+    @Benchmark
+    public Page<Product> firstPage() {
+        return BenchmarkData.await(callback -> repositories.getProductsPage(null, pageSize, callback));
+    }
+
+    @Benchmark
+    public int scrollTenPages() {
+        String cursor = null;
+        int loaded = 0;
+        for (int i = 0; i < 10; i++) {
+            String pageCursor = cursor;
+            Page<Product> page = BenchmarkData.await(callback -> repositories.getProductsPage(pageCursor, pageSize, callback));
+            loaded += page.items.size();
+            if (!page.hasMore()) break;
+            cursor = page.nextCursor;
+        }
+        return loaded;
+    }
+}
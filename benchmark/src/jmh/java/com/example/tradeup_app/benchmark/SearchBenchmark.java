@@ -0,0 +1,82 @@
+package com.example.tradeup_app.benchmark;
+
+import com.example.tradeup_app.data.Page;
+import com.example.tradeup_app.data.memory.InMemoryRepositories;
+import com.example.tradeup_app.models.Product;
+import com.example.tradeup_app.utils.ProductSearchIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keyword search through the repository (inverted index) against the linear
+ * toLowerCase().contains scan the app used before the index existed
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchBenchmark {
+
+    @Param({"10000", "50000"})
+    public int products;
+
+    @Param({"iphone", "xe đạp", "dien thoai cu"})
+    public String query;
+
+    private InMemoryRepositories repositories;
+    private List<Product> allProducts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repositories = new InMemoryRepositories();
+        BenchmarkData.seedProducts(repositories, products, 2_000, new Random(42));
+        Page<Product> everything = BenchmarkData.await(
+            callback -> repositories.getProductsPage(null, products, callback));
+        allProducts = new ArrayList<>(everything.items);
+    }
+
+    @Benchmark
+    public List<Product> indexedSearch() {
+        return BenchmarkData.await(callback -> repositories.searchProducts(query, callback));
+    }
+
+    // Cost of a full rebuild, paid once per list load; independent of the query
+    @Benchmark
+    public ProductSearchIndex indexRebuild() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.rebuild(allProducts);
+        return index;
+    }
+
+    @Benchmark
+    public List<Product> linearScan() {
+        String lowerQuery = query.toLowerCase();
+        List<Product> results = new ArrayList<>();
+        for (Product product : allProducts) {
+            boolean matches = product.getTitle().toLowerCase().contains(lowerQuery)
+                || product.getDescription().toLowerCase().contains(lowerQuery);
+            if (!matches && product.getTags() != null) {
+                for (String tag : product.getTags()) {
+                    if (tag.toLowerCase().contains(lowerQuery)) {
+                        matches = true;
+                        break;
+                    }
+                }
+            }
+            if (matches) results.add(product);
+        }
+        return results;
+    }
+}
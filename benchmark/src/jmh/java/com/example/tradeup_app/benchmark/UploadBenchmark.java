@@ -0,0 +1,85 @@
+package com.example.tradeup_app.benchmark;
+
+import com.example.tradeup_app.utils.UploadPipeline;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A batch of image uploads through UploadPipeline: one worker against a bounded pool.
+ * The uploader stands in for Cloudinary and only sleeps, so the result is the wall time
+ * the pool saves on network-bound uploads
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class UploadBenchmark {
+
+    @Param({"1", "4"})
+    public int concurrency;
+
+    @Param({"24"})
+    public int images;
+
+    // Simulated time of one upload
+    @Param({"20"})
+    public long latencyMs;
+
+    private UploadPipeline<String, String> pipeline;
+    private List<String> items;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pipeline = new UploadPipeline<>(concurrency, 3, 5, 50, Runnable::run);
+        items = new ArrayList<>(images);
+        for (int i = 0; i < images; i++) {
+            items.add("img" + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Benchmark
+    public List<String> uploadBatch() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        List<List<String>> result = new ArrayList<>(1);
+        pipeline.upload(items, item -> item + ".jpg", (payload, progress) -> {
+            Thread.sleep(latencyMs);
+            progress.onProgress(100, 100);
+            return "https://cdn.example/" + payload;
+        }, null, new UploadPipeline.Callback() {
+            @Override
+            public void onProgress(int completed, int total, int percent) {
+            }
+
+            @Override
+            public void onComplete(List<String> urls) {
+                result.add(urls);
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(int index, Exception e) {
+                done.countDown();
+            }
+        });
+        done.await();
+        return result.isEmpty() ? null : result.get(0);
+    }
+}
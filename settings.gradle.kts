@@ -23,3 +23,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "TradeUp_App"
 include(":app")
+include(":benchmark")